@@ -4,20 +4,38 @@ package org.com.librarysystem; // Using the package from your file
 import org.com.librarysystem.core.Book;
 import org.com.librarysystem.core.BookItem;
 import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.BookField;
 import org.com.librarysystem.enums.BookType;
 
+// Import indexes
+import org.com.librarysystem.index.AutocompleteIndex;
+import org.com.librarysystem.index.InvertedTokenIndex;
+import org.com.librarysystem.index.TrigramIndex;
+import org.com.librarysystem.index.TypeIndex;
+import org.com.librarysystem.index.YearIndex;
+
 // Import services
 import org.com.librarysystem.service.BookManagementService;
+import org.com.librarysystem.service.BranchNetwork;
 import org.com.librarysystem.service.LendingService;
 import org.com.librarysystem.service.NotificationService;
 import org.com.librarysystem.service.PatronManagementService;
 import org.com.librarysystem.service.ReservationService;
 
+// Import query engine
+import org.com.librarysystem.query.BookQuery;
+import org.com.librarysystem.query.QueryEngine;
+
 // Import patterns
 import org.com.librarysystem.patterns.facade.LibraryFacade;
 import org.com.librarysystem.patterns.singleton.Logger;
-import org.com.librarysystem.patterns.strategy.SearchByTitleStrategy;
+import org.com.librarysystem.patterns.strategy.CachingSearchService;
+import org.com.librarysystem.patterns.strategy.FuzzySearchStrategy;
+import org.com.librarysystem.patterns.strategy.IndexedAuthorSearchStrategy;
+import org.com.librarysystem.patterns.strategy.IndexedTitleSearchStrategy;
+import org.com.librarysystem.patterns.strategy.ParallelSearchExecutor;
 import org.com.librarysystem.patterns.strategy.SearchService;
+import org.com.librarysystem.patterns.strategy.TrigramSearchStrategy;
 
 import java.util.List;
 
@@ -58,9 +76,17 @@ public class Main {
 
         // --- 3. SEARCHING (Strategy Pattern) ---
         System.out.println("\n--- 2. Searching for a Book ---");
-        List<Book> results = library.searchBooks("Dune", new SearchByTitleStrategy());
+        List<Book> results = library.searchBooks("Dune", SearchService.BY_TITLE);
         System.out.println("Found " + results.size() + " book(s) with title 'Dune'.");
         System.out.println("Title: " + results.getFirst().getTitle() + ", Author: " + results.getFirst().getAuthor());
+        System.out.println("Suggestions for 'fr': " + library.suggest("fr", 5));
+        library.searchBooks("dune", SearchService.BY_TITLE); // Same normalized query, served from cache
+        System.out.println("Search cache: " + library.getSearchCacheStats());
+
+        BookQuery query = BookQuery.builder()
+                .author("Herbert").yearBetween(1960, 1970).type(BookType.REGULAR).build();
+        System.out.println("Composite search found " + library.searchBooks(query).size() + " book(s).");
+        System.out.println(library.explainSearch(query).explain());
 
 
         // --- 4. CHECKOUT ---
@@ -69,6 +95,7 @@ public class Main {
         library.checkoutBook(patron1.getPatronId(), duneCopy1.getBarcode());
         System.out.println("Alice checks out " + duneCopy1.getBarcode());
         System.out.println("Status of copy 1 after checkout: " + duneCopy1.getStatus());
+        System.out.println("Availability: " + library.getAvailability(duneBook.getIsbn()));
 
 
         // --- 5. RESERVATION (Observer Pattern Demo) ---
@@ -83,7 +110,7 @@ public class Main {
         try {
             library.checkoutBook(patron2.getPatronId(), duneCopy1.getBarcode());
         } catch (IllegalStateException e) {
-            logger.warn("Checkout failed (as expected): " + e.getMessage());
+            logger.warn("Checkout failed (as expected): {}", e.getMessage());
         }
 
         // So, Bob reserves the *book title*
@@ -103,22 +130,53 @@ public class Main {
         // Check Bob's notifications
         System.out.println("Bob's notifications: " + patron2.getNotifications().get(0));
 
+        // Bob picks up his hold (only he can check out the RESERVED copy)
+        library.checkoutBook(patron2.getPatronId(), duneCopy1.getBarcode());
+        System.out.println("Bob picks up copy 1, status: " + duneCopy1.getStatus());
+
         logger.info("Demo complete.");
     }
 
     private static LibraryFacade getLibraryFacade() {
         BookManagementService bookSvc = new BookManagementService();
+
+        // Keep a word index in sync with the catalog for index-backed searches
+        InvertedTokenIndex tokenIndex = new InvertedTokenIndex();
+        bookSvc.addCatalogObserver(tokenIndex);
+
+        // Trigram index for index-backed "contains" searches
+        TrigramIndex trigramIndex = new TrigramIndex();
+        bookSvc.addCatalogObserver(trigramIndex);
+
+        // Prefix trie for search-as-you-type suggestions
+        AutocompleteIndex autocompleteIndex = new AutocompleteIndex();
+        bookSvc.addCatalogObserver(autocompleteIndex);
+
+        // Secondary indexes and planner for composite queries
+        YearIndex yearIndex = new YearIndex();
+        TypeIndex typeIndex = new TypeIndex();
+        bookSvc.addCatalogObserver(yearIndex);
+        bookSvc.addCatalogObserver(typeIndex);
+        QueryEngine queryEngine = new QueryEngine(bookSvc, trigramIndex, yearIndex, typeIndex);
         PatronManagementService patronSvc = new PatronManagementService();
         NotificationService notificationSvc = new NotificationService();
 
-        // Inject dependencies: ReservationService needs NotificationService
-        ReservationService reservationSvc = new ReservationService(notificationSvc);
+        // Inject dependencies: ReservationService needs NotificationService, BookManagementService
+        // (to release expired holds) and the branch network (to route copies to the nearest waiting patron)
+        ReservationService reservationSvc = new ReservationService(notificationSvc, bookSvc, new BranchNetwork());
 
         // Inject dependencies: LendingService needs all three
         LendingService lendingSvc = new LendingService(bookSvc, patronSvc, reservationSvc);
 
-        // Initialize the SearchService
-        SearchService searchSvc = new SearchService();
+        // Initialize the (caching) SearchService and register the reusable index-backed strategies.
+        // The cache observes the catalog after the indexes, so invalidation sees fresh indexes.
+        CachingSearchService searchSvc = new CachingSearchService(100_000);
+        bookSvc.addCatalogObserver(searchSvc);
+        searchSvc.registerStrategy("title-words", new IndexedTitleSearchStrategy(tokenIndex));
+        searchSvc.registerStrategy("author-words", new IndexedAuthorSearchStrategy(tokenIndex));
+        searchSvc.registerStrategy("title-contains", new TrigramSearchStrategy(trigramIndex, BookField.TITLE));
+        searchSvc.registerStrategy("author-contains", new TrigramSearchStrategy(trigramIndex, BookField.AUTHOR));
+        searchSvc.registerStrategy("author-fuzzy", new FuzzySearchStrategy(tokenIndex, BookField.AUTHOR, 2));
 
         // Initialize the master Facade, injecting all services
         // (This is the only object our 'main' method should talk to)
@@ -127,7 +185,10 @@ public class Main {
                 bookSvc,
                 patronSvc,
                 searchSvc,
-                reservationSvc
+                reservationSvc,
+                autocompleteIndex,
+                queryEngine,
+                new ParallelSearchExecutor()
         );
         return library;
     }
@@ -160,8 +221,7 @@ public class Main {
  * }
  * * // Helper for search
  * public List<Book> searchBooks(String query, SearchStrategy strategy) {
- * searchService.setStrategy(strategy);
- * return searchService.executeSearch(query, bookManagementService.getBookCatalog());
+ * return searchService.executeSearch(strategy, query, bookManagementService.getBookCatalog());
  * }
  * * // Helper for reservation
  * public void reserveBook(String patronId, String isbn) {
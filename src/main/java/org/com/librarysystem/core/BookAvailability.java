@@ -0,0 +1,46 @@
+package org.com.librarysystem.core;
+
+import org.com.librarysystem.enums.BookStatus;
+
+/**
+ * A search result annotated with how many copies of the title are in each status.
+ * This is a snapshot; it does not change when copies are later lent or returned.
+ */
+public class BookAvailability {
+    private final Book book;
+    private final int[] counts; // Indexed by BookStatus ordinal
+
+    public BookAvailability(Book book, int[] counts) {
+        this.book = book;
+        this.counts = counts.clone();
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public int getCount(BookStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    public int getAvailableCopies() {
+        return getCount(BookStatus.AVAILABLE);
+    }
+
+    public int getTotalCopies() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public boolean isAvailable() {
+        return getAvailableCopies() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return book.getTitle() + " (" + getAvailableCopies() + "/" + getTotalCopies() + " available)";
+    }
+}
@@ -2,10 +2,12 @@ package org.com.librarysystem.core;
 
 import org.com.librarysystem.enums.BookStatus;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 public class BookItem {
     private String barcode; // Unique ID for this copy
     private Book book; // Reference to the metadata
-    private BookStatus status;
+    private final AtomicReference<BookStatus> status; // Atomic, so two desks can't lend the same copy
     private Branch currentBranch; // For multi-branch support
 
     // ... Constructors, Getters/Setters ...
@@ -14,7 +16,7 @@ public class BookItem {
     public BookItem(String barcode, Book book, BookStatus status, Branch currentBranch) {
         this.barcode = barcode;
         this.book = book;
-        this.status = status;
+        this.status = new AtomicReference<>(status);
         this.currentBranch = currentBranch;
     }
 
@@ -35,11 +37,23 @@ public class BookItem {
     }
 
     public BookStatus getStatus() {
-        return status;
+        return status.get();
     }
 
     public void setStatus(BookStatus status) {
-        this.status = status;
+        this.status.set(status);
+    }
+
+    /**
+     * Atomically moves the item to a new status, but only if it is
+     * currently in the expected one (e.g., AVAILABLE to BORROWED).
+     *
+     * @param expected  The status the item must be in.
+     * @param newStatus The status to move to.
+     * @return true if the transition happened, false if the status was different.
+     */
+    public boolean compareAndSetStatus(BookStatus expected, BookStatus newStatus) {
+        return status.compareAndSet(expected, newStatus);
     }
 
     public Branch getCurrentBranch() {
@@ -1,11 +1,11 @@
 package org.com.librarysystem.core;
 
+import org.com.librarysystem.patterns.singleton.IdGenerator;
 import org.com.librarysystem.patterns.singleton.Logger;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a single library branch.
@@ -28,7 +28,7 @@ public class Branch {
      * Initializes the inventory.
      */
     public Branch() {
-        this.branchInventory = new HashMap<>();
+        this.branchInventory = new ConcurrentHashMap<>();
     }
 
     /**
@@ -37,10 +37,10 @@ public class Branch {
      * @param name The name of the branch (e.g., "Main Street Branch").
      */
     public Branch(String name) {
-        this.branchId = "br-" + UUID.randomUUID().toString().substring(0, 8);
+        this.branchId = IdGenerator.getInstance().nextId("br-");
         this.name = name;
-        this.branchInventory = new HashMap<>();
-        logger.info("New branch created: " + name + " (ID: " + this.branchId + ")");
+        this.branchInventory = new ConcurrentHashMap<>();
+        logger.info("New branch created: {} (ID: {})", name, this.branchId);
     }
 
     /**
@@ -52,7 +52,7 @@ public class Branch {
     public Branch(String branchId, String name) {
         this.branchId = branchId;
         this.name = name;
-        this.branchInventory = new HashMap<>();
+        this.branchInventory = new ConcurrentHashMap<>();
     }
 
     // --- Inventory Management Methods ---
@@ -65,7 +65,7 @@ public class Branch {
      */
     public void addBookItem(BookItem item) {
         if (item == null || item.getBarcode() == null) {
-            logger.warn("Attempted to add a null item or item with no barcode to branch " + name);
+            logger.warn("Attempted to add a null item or item with no barcode to branch {}", name);
             return;
         }
 
@@ -73,7 +73,7 @@ public class Branch {
         item.setCurrentBranch(this);
 
         branchInventory.put(item.getBarcode(), item);
-        logger.info("Item " + item.getBarcode() + " added to branch " + name);
+        logger.info("Item {} added to branch {}", item.getBarcode(), name);
     }
 
     /**
@@ -85,7 +85,7 @@ public class Branch {
      */
     public void removeBookItem(BookItem item) {
         if (item == null || item.getBarcode() == null) {
-            logger.warn("Attempted to remove a null item or item with no barcode from branch " + name);
+            logger.warn("Attempted to remove a null item or item with no barcode from branch {}", name);
             return;
         }
 
@@ -93,9 +93,9 @@ public class Branch {
         if (removedItem != null) {
             // Unset the item's location
             removedItem.setCurrentBranch(null);
-            logger.info("Item " + item.getBarcode() + " removed from branch " + name);
+            logger.info("Item {} removed from branch {}", item.getBarcode(), name);
         } else {
-            logger.warn("Item " + item.getBarcode() + " not found in branch " + name + " for removal.");
+            logger.warn("Item {} not found in branch {} for removal.", item.getBarcode(), name);
         }
     }
 
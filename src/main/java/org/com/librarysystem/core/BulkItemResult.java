@@ -0,0 +1,59 @@
+package org.com.librarysystem.core;
+
+/**
+ * The outcome of one barcode in a bulk checkout or bulk return.
+ * Bulk operations report one of these per item instead of throwing on
+ * the first failure.
+ */
+public class BulkItemResult {
+    private final String barcode;
+    private final boolean success;
+    private final String message;
+    private final LendingRecord record;
+
+    private BulkItemResult(String barcode, boolean success, String message, LendingRecord record) {
+        this.barcode = barcode;
+        this.success = success;
+        this.message = message;
+        this.record = record;
+    }
+
+    public static BulkItemResult success(String barcode, String message) {
+        return new BulkItemResult(barcode, true, message, null);
+    }
+
+    public static BulkItemResult success(String barcode, String message, LendingRecord record) {
+        return new BulkItemResult(barcode, true, message, record);
+    }
+
+    public static BulkItemResult failure(String barcode, String message) {
+        return new BulkItemResult(barcode, false, message, null);
+    }
+
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return What happened (e.g., "Held for reservation") or why it failed.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The loan opened (checkout) or closed (return) for a successful item, or null.
+     */
+    public LendingRecord getRecord() {
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return barcode + ": " + (success ? "OK" : "FAILED") + " - " + message;
+    }
+}
@@ -0,0 +1,62 @@
+package org.com.librarysystem.core;
+
+import java.time.Instant;
+
+/**
+ * Where a copy went when it became free: set aside for a waiting reservation
+ * (with its pickup deadline), or back on the shelf because nobody was waiting.
+ * Journaled with returns, new copies and hold expiries, so recovery repeats
+ * the decision instead of routing the copy again.
+ */
+public final class HoldHandOff {
+
+    private static final HoldHandOff SHELVED = new HoldHandOff(null, null);
+
+    private final String reservationId;
+    private final Instant pickupDeadline;
+
+    private HoldHandOff(String reservationId, Instant pickupDeadline) {
+        this.reservationId = reservationId;
+        this.pickupDeadline = pickupDeadline;
+    }
+
+    /**
+     * @return A hand-off to a waiting reservation.
+     */
+    public static HoldHandOff to(String reservationId, Instant pickupDeadline) {
+        if (reservationId == null || pickupDeadline == null) {
+            throw new IllegalArgumentException("Reservation ID and pickup deadline must not be null.");
+        }
+        return new HoldHandOff(reservationId, pickupDeadline);
+    }
+
+    /**
+     * @return The hand-off of a copy nobody was waiting for.
+     */
+    public static HoldHandOff shelved() {
+        return SHELVED;
+    }
+
+    public boolean isShelved() {
+        return reservationId == null;
+    }
+
+    /**
+     * @return The reservation the copy is held for, or null if shelved.
+     */
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    /**
+     * @return When the hold expires, or null if shelved.
+     */
+    public Instant getPickupDeadline() {
+        return pickupDeadline;
+    }
+
+    @Override
+    public String toString() {
+        return isShelved() ? "shelved" : "held for " + reservationId + " until " + pickupDeadline;
+    }
+}
@@ -1,6 +1,7 @@
 package org.com.librarysystem.core;
 
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LendingRecord {
     private String recordId;
@@ -10,6 +11,12 @@ public class LendingRecord {
     private LocalDate dueDate;
     private LocalDate returnDate; // Null if not returned
 
+    // Overdue bookkeeping for the patron counters: OPEN -> OVERDUE_COUNTED -> CLOSED
+    private static final int OPEN = 0;
+    private static final int OVERDUE_COUNTED = 1;
+    private static final int CLOSED = 2;
+    private final AtomicInteger overdueState = new AtomicInteger(OPEN);
+
     // ... Constructors, Getters/Setters ...
 
 
@@ -68,4 +75,24 @@ public class LendingRecord {
     public void setReturnDate(LocalDate returnDate) {
         this.returnDate = returnDate;
     }
+
+    /**
+     * Marks this open loan as counted in its patron's overdue counter.
+     *
+     * @return true if the caller should increment the counter (only the first
+     *         call on a still-open loan returns true).
+     */
+    public boolean markOverdueCounted() {
+        return overdueState.compareAndSet(OPEN, OVERDUE_COUNTED);
+    }
+
+    /**
+     * Closes the overdue bookkeeping when the loan ends.
+     *
+     * @return true if the loan had been counted overdue, so the caller
+     *         should decrement the counter.
+     */
+    public boolean closeOverdueCount() {
+        return overdueState.getAndSet(CLOSED) == OVERDUE_COUNTED;
+    }
 }
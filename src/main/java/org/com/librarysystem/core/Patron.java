@@ -1,6 +1,8 @@
 package org.com.librarysystem.core;
 
-import java.util.ArrayList;
+import org.com.librarysystem.enums.NotificationTemplate;
+import org.com.librarysystem.store.BorrowingHistory;
+
 import java.util.List;
 
 /**
@@ -13,11 +15,14 @@ public class Patron {
     private String name;
     private String email;
 
-    // This list will hold a permanent history of all loans
-    private List<LendingRecord> borrowingHistory;
+    // Permanent history of all loans (recent ones as objects, older ones compacted)
+    private BorrowingHistory borrowingHistory;
+
+    // Active loans, overdue loans and pending holds, for O(1) policy checks
+    private final PatronCounters counters = new PatronCounters();
 
-    // This list will hold unread notifications
-    private List<String> notifications;
+    // Bounded inbox of templated notifications (rendered when read)
+    private PatronInbox notifications;
 
     /**
      * Constructor for creating a new patron.
@@ -34,9 +39,10 @@ public class Patron {
 
         // --- THIS IS THE FIX ---
         // Initialize the lists as empty ArrayLists
-        // so they are not null.
-        this.borrowingHistory = new ArrayList<>();
-        this.notifications = new ArrayList<>();
+        // so they are not null. They are synchronized because
+        // several desks may lend to (and notify) the same patron at once.
+        this.borrowingHistory = new BorrowingHistory(patronId);
+        this.notifications = new PatronInbox();
     }
 
     // --- Getters and Setters ---
@@ -66,27 +72,57 @@ public class Patron {
     }
 
     /**
-     * Gets the patron's borrowing history.
+     * Gets the patron's borrowing history as a list, oldest loan first.
+     * This is a snapshot that materializes every archived loan; prefer
+     * {@link #getHistory()} for paged or date-range queries.
      * @return A List of LendingRecords. (Will be empty, but not null)
      */
     public List<LendingRecord> getBorrowingHistory() {
-        return borrowingHistory;
+        return borrowingHistory.toList();
     }
 
     public void setBorrowingHistory(List<LendingRecord> borrowingHistory) {
-        this.borrowingHistory = borrowingHistory;
+        BorrowingHistory history = new BorrowingHistory(patronId);
+        borrowingHistory.forEach(history::add);
+        this.borrowingHistory = history;
     }
 
     /**
-     * Gets the patron's unread notifications.
+     * Gets the patron's tiered history store (append, paging, date ranges).
+     */
+    public BorrowingHistory getHistory() {
+        return borrowingHistory;
+    }
+
+    /**
+     * Gets the patron's running loan and hold counters.
+     */
+    public PatronCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Gets the patron's notifications, oldest first, rendered as text.
+     * This is a snapshot of the inbox and does not mark anything read.
      * @return A List of strings. (Will be empty, but not null)
      */
     public List<String> getNotifications() {
-        return notifications;
+        return notifications.getAll();
     }
 
     public void setNotifications(List<String> notifications) {
-        this.notifications = notifications;
+        PatronInbox inbox = new PatronInbox();
+        for (String message : notifications) {
+            inbox.add(NotificationTemplate.MESSAGE, message);
+        }
+        this.notifications = inbox;
+    }
+
+    /**
+     * Gets the patron's inbox (read/unread tracking, templated records).
+     */
+    public PatronInbox getInbox() {
+        return notifications;
     }
 
     // --- Public Methods ---
@@ -98,11 +134,16 @@ public class Patron {
      * @param message The notification message
      */
     public void addNotification(String message) {
-        // This check is good practice in case the list was null,
-        // but our constructor fix prevents that.
-        if (this.notifications == null) {
-            this.notifications = new ArrayList<>();
-        }
-        this.notifications.add(message);
+        this.notifications.add(NotificationTemplate.MESSAGE, message);
+    }
+
+    /**
+     * Adds a templated notification; the text is rendered only when read.
+     *
+     * @param template The kind of notification
+     * @param argument The template argument (e.g., a book title)
+     */
+    public void addNotification(NotificationTemplate template, String argument) {
+        this.notifications.add(template, argument);
     }
 }
\ No newline at end of file
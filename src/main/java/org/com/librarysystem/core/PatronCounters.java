@@ -0,0 +1,69 @@
+package org.com.librarysystem.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Running totals for one patron, kept up to date by LendingService and
+ * ReservationService so borrowing-policy checks never scan loans or history.
+ */
+public class PatronCounters {
+    private final AtomicInteger activeLoans = new AtomicInteger();
+    private final AtomicInteger overdueLoans = new AtomicInteger();
+    private final AtomicInteger pendingHolds = new AtomicInteger();
+
+    public int getActiveLoans() {
+        return activeLoans.get();
+    }
+
+    public int getOverdueLoans() {
+        return overdueLoans.get();
+    }
+
+    public int getPendingHolds() {
+        return pendingHolds.get();
+    }
+
+    /**
+     * Takes one loan slot if the patron is below the limit. The check and the
+     * increment are one atomic step, so two desks cannot both take the last slot.
+     *
+     * @param maxActiveLoans The most loans the patron may have out.
+     * @return true if a slot was taken (release it if the checkout then fails).
+     */
+    public boolean tryAcquireLoan(int maxActiveLoans) {
+        while (true) {
+            int current = activeLoans.get();
+            if (current >= maxActiveLoans) {
+                return false;
+            }
+            if (activeLoans.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void loanClosed() {
+        activeLoans.decrementAndGet();
+    }
+
+    public void overdueOpened() {
+        overdueLoans.incrementAndGet();
+    }
+
+    public void overdueClosed() {
+        overdueLoans.decrementAndGet();
+    }
+
+    public void holdOpened() {
+        pendingHolds.incrementAndGet();
+    }
+
+    public void holdClosed() {
+        pendingHolds.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + getActiveLoans() + ", overdue=" + getOverdueLoans() + ", holds=" + getPendingHolds();
+    }
+}
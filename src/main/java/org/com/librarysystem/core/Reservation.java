@@ -2,6 +2,7 @@ package org.com.librarysystem.core;
 
 import org.com.librarysystem.enums.ReservationStatus;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 public class Reservation {
@@ -10,6 +11,9 @@ public class Reservation {
     private Book book; // Patron reserves the title, not a specific copy
     private ReservationStatus status;
     private LocalDate dateReserved;
+    private Branch pickupBranch; // Where the patron will collect it (null = any branch)
+    private BookItem heldItem; // The copy set aside once READY_FOR_PICKUP
+    private Instant pickupDeadline; // When the hold on heldItem expires
 
     public Reservation(String resId,Patron patron, Book book,ReservationStatus status,LocalDate dateReserved) {
         this.reservationId=resId;
@@ -58,4 +62,28 @@ public class Reservation {
     public void setDateReserved(LocalDate dateReserved) {
         this.dateReserved = dateReserved;
     }
-}
\ No newline at end of file
+
+    public BookItem getHeldItem() {
+        return heldItem;
+    }
+
+    public void setHeldItem(BookItem heldItem) {
+        this.heldItem = heldItem;
+    }
+
+    public Instant getPickupDeadline() {
+        return pickupDeadline;
+    }
+
+    public void setPickupDeadline(Instant pickupDeadline) {
+        this.pickupDeadline = pickupDeadline;
+    }
+
+    public Branch getPickupBranch() {
+        return pickupBranch;
+    }
+
+    public void setPickupBranch(Branch pickupBranch) {
+        this.pickupBranch = pickupBranch;
+    }
+}
@@ -0,0 +1,22 @@
+package org.com.librarysystem.enums;
+
+import org.com.librarysystem.core.Book;
+
+/**
+ * The searchable text fields of a Book.
+ * Used by the catalog indexes to know which value to index.
+ */
+public enum BookField {
+    TITLE,
+    AUTHOR;
+
+    /**
+     * Reads this field's value from a book.
+     *
+     * @param book The book to read from.
+     * @return The raw field value (may be null).
+     */
+    public String valueOf(Book book) {
+        return this == TITLE ? book.getTitle() : book.getAuthor();
+    }
+}
@@ -0,0 +1,32 @@
+package org.com.librarysystem.enums;
+
+import org.com.librarysystem.core.Book;
+
+import java.util.Comparator;
+
+/**
+ * Sort orders for paged search results.
+ */
+public enum BookOrdering {
+    RELEVANCE, // The order the search strategy produces (best match first for ranked strategies)
+    TITLE,
+    YEAR;
+
+    /**
+     * Returns the comparator for this ordering, or null for RELEVANCE
+     * (which keeps the strategy's own order). Ties are broken by ISBN so
+     * paging is stable.
+     */
+    public Comparator<Book> comparator() {
+        Comparator<Book> byIsbn = Comparator.comparing(Book::getIsbn);
+        switch (this) {
+            case TITLE:
+                return Comparator.comparing((Book b) -> String.valueOf(b.getTitle()).toLowerCase())
+                        .thenComparing(byIsbn);
+            case YEAR:
+                return Comparator.comparingInt(Book::getPublicationYear).thenComparing(byIsbn);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.com.librarysystem.enums;
+
+/**
+ * The kinds of mutation recorded in the write-ahead journal.
+ * Each has a fixed code that is written to disk, so constants can be
+ * reordered or added without breaking existing journals.
+ */
+public enum JournalRecordType {
+    ADD_BOOK(1),
+    ADD_BOOK_ITEM(2),
+    ADD_PATRON(3),
+    CHECKOUT(4),
+    RETURN(5),
+    RESERVE(6),
+    CANCEL_RESERVATION(7),
+    EXPIRE_HOLD(8);
+
+    private static final JournalRecordType[] BY_CODE = new JournalRecordType[16];
+
+    static {
+        for (JournalRecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    JournalRecordType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return The type with this code, or null if the code is unknown.
+     */
+    public static JournalRecordType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,13 @@
+package org.com.librarysystem.enums;
+
+/**
+ * When the write-ahead journal forces its writes to disk (fsync).
+ */
+public enum JournalSyncMode {
+    /** Every write batch is fsynced before its callers return (group commit). */
+    EVERY_BATCH,
+    /** Writes reach the OS before callers return; fsync runs at most once per sync interval. */
+    INTERVAL,
+    /** Writes reach the OS before callers return; fsync only on rotation and close. */
+    NONE
+}
@@ -0,0 +1,12 @@
+package org.com.librarysystem.enums;
+
+/**
+ * Logger severity levels, least to most severe. OFF disables logging.
+ */
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF
+}
@@ -0,0 +1,26 @@
+package org.com.librarysystem.enums;
+
+/**
+ * The kinds of notification a patron can receive.
+ * Inboxes store the template and its argument, and render the text only when
+ * it is read, so no message string is built for notifications nobody opens.
+ */
+public enum NotificationTemplate {
+    MESSAGE("%s"), // Free text (argument: the text)
+    HOLD_READY("Your reserved book '%s' is ready for pickup!"), // Argument: book title
+    HOLD_EXPIRED("Your hold on '%s' has expired."); // Argument: book title
+
+    private final String pattern;
+
+    NotificationTemplate(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * @param argument The template argument (e.g., a book title).
+     * @return The message text.
+     */
+    public String render(String argument) {
+        return this == MESSAGE ? argument : pattern.replace("%s", argument);
+    }
+}
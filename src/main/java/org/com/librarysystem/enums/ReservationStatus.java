@@ -4,5 +4,6 @@ public enum ReservationStatus {
     PENDING, // Waiting for book to be available
     READY_FOR_PICKUP,
     FULFILLED,
-    CANCELED
+    CANCELED,
+    EXPIRED // Not picked up before the hold-shelf deadline
 }
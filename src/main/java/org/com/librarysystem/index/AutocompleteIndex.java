@@ -0,0 +1,355 @@
+package org.com.librarysystem.index;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix autocomplete over normalized book titles and author names.
+ * <p>
+ * Backed by a compressed (radix) trie: each edge holds a whole run of characters,
+ * and each node stores the precomputed top-k suggestions of its subtree. A lookup
+ * is one walk down the trie followed by copying a node's top-k list, so its cost
+ * depends on the prefix length only.
+ * <p>
+ * Suggestions are ranked by how many catalog books share the value (so prolific
+ * authors come first), then alphabetically.
+ */
+public class AutocompleteIndex implements CatalogObserver {
+
+    // Many concurrent searches, rare catalog changes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // How many suggestions each node keeps precomputed
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingInt((Entry e) -> -e.isbns.size())
+            .thenComparing(e -> e.key);
+
+    private final Node root;
+
+    // Key: ISBN, Value: the normalized keys this book was indexed under
+    private final Map<String, List<String>> keysByIsbn;
+
+    private int entryCount;
+
+    public AutocompleteIndex() {
+        this.root = new Node("");
+        this.keysByIsbn = new HashMap<>();
+    }
+
+    @Override
+    public void onBookAdded(Book book) {
+        writeLock.lock();
+        try {
+            index(book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onBookUpdated(Book previous, Book updated) {
+        writeLock.lock();
+        try {
+            List<String> oldKeys = keysByIsbn.remove(updated.getIsbn());
+            if (oldKeys != null) {
+                for (String key : oldKeys) {
+                    remove(key, updated.getIsbn());
+                }
+            }
+            index(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the best titles and authors starting with the given prefix.
+     *
+     * @param prefix The text typed so far (normalized like the indexed values).
+     * @param limit  Maximum number of suggestions (capped at MAX_SUGGESTIONS).
+     * @return The suggestions, best first (empty if nothing matches).
+     */
+    public List<String> suggest(String prefix, int limit) {
+        readLock.lock();
+        try {
+            List<String> results = new ArrayList<>();
+            String key = TextNormalizer.normalize(prefix);
+            Node node = root;
+            int pos = 0;
+
+            while (pos < key.length()) {
+                Node child = node.child(key.charAt(pos));
+                if (child == null) {
+                    return results;
+                }
+                String label = child.label;
+                int remaining = key.length() - pos;
+                if (remaining < label.length()) {
+                    // The prefix ends inside this edge
+                    if (!label.startsWith(key.substring(pos))) {
+                        return results;
+                    }
+                } else if (!key.startsWith(label, pos)) {
+                    return results;
+                }
+                pos += label.length();
+                node = child;
+            }
+
+            int count = Math.min(Math.min(limit, MAX_SUGGESTIONS), node.top.length);
+            for (int i = 0; i < count; i++) {
+                results.add(node.top[i].display);
+            }
+            return results;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct titles and authors indexed.
+     */
+    public int getEntryCount() {
+        readLock.lock();
+        try {
+            return entryCount;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap used by the trie, assuming compressed oops
+     * (12-byte object headers, 4-byte references, Latin-1 compact strings).
+     *
+     * @return The estimated size in bytes.
+     */
+    public long getEstimatedMemoryBytes() {
+        readLock.lock();
+        try {
+            return estimate(root);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap cost of one indexed title or author, for heap sizing.
+     *
+     * @return Estimated bytes per entry, or 0 when the index is empty.
+     */
+    public long getEstimatedBytesPerEntry() {
+        readLock.lock();
+        try {
+            return entryCount == 0 ? 0 : getEstimatedMemoryBytes() / entryCount;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private void index(Book book) {
+        List<String> keys = new ArrayList<>(2);
+        for (BookField field : BookField.values()) {
+            String display = field.valueOf(book);
+            String key = TextNormalizer.normalize(display);
+            if (key.isEmpty() || keys.contains(key)) {
+                continue;
+            }
+            keys.add(key);
+            insert(key, display.trim(), book.getIsbn());
+        }
+        keysByIsbn.put(book.getIsbn(), keys);
+    }
+
+    private void insert(String key, String display, String isbn) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int pos = 0;
+
+        while (pos < key.length()) {
+            Node child = node.child(key.charAt(pos));
+            if (child == null) {
+                child = new Node(key.substring(pos));
+                node.addChild(child);
+                pos = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, pos);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                pos += common;
+            }
+            node = child;
+            path.add(node);
+        }
+
+        if (node.entry == null) {
+            node.entry = new Entry(key, display);
+            entryCount++;
+        }
+        node.entry.isbns.add(isbn);
+        recomputeTop(path);
+    }
+
+    private void remove(String key, String isbn) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int pos = 0;
+
+        while (pos < key.length()) {
+            node = node.child(key.charAt(pos));
+            if (node == null || !key.startsWith(node.label, pos)) {
+                return;
+            }
+            pos += node.label.length();
+            path.add(node);
+        }
+
+        if (node.entry == null) {
+            return;
+        }
+        node.entry.isbns.remove(isbn);
+        if (node.entry.isbns.isEmpty()) {
+            node.entry = null;
+            entryCount--;
+        }
+        recomputeTop(path);
+    }
+
+    /**
+     * Splits an edge so that a node ends after the first {@code at} characters.
+     */
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        parent.replaceChild(child, middle);
+        child.label = child.label.substring(at);
+        middle.addChild(child);
+        middle.top = child.top;
+        return middle;
+    }
+
+    /**
+     * Rebuilds the top-k lists bottom-up along a root-to-node path.
+     * Each node's list is merged from its own entry and its children's lists.
+     */
+    private void recomputeTop(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Entry> candidates = new ArrayList<>();
+            if (node.entry != null) {
+                candidates.add(node.entry);
+            }
+            for (int c = 0; c < node.childCount; c++) {
+                candidates.addAll(Arrays.asList(node.children[c].top));
+            }
+            candidates.sort(RANKING);
+            int size = Math.min(candidates.size(), MAX_SUGGESTIONS);
+            node.top = candidates.subList(0, size).toArray(new Entry[0]);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private long estimate(Node node) {
+        // Node: header + label, keys, children, entry, top refs + childCount
+        long bytes = 12 + 4 * 5 + 4;
+        bytes += 24 + 16 + node.label.length(); // String + backing byte[]
+        bytes += 16 + 2L * node.childKeys.length; // char[]
+        bytes += 16 + 4L * node.children.length; // Node[]
+        bytes += 16 + 4L * node.top.length; // Entry[]
+        if (node.entry != null) {
+            // Entry object + HashSet of ISBNs (the ISBN strings are shared with the catalog)
+            bytes += 16 + 56 + 48 + 32L * node.entry.isbns.size();
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            bytes += estimate(node.children[c]);
+        }
+        return bytes;
+    }
+
+    // --- Trie Structures ---
+
+    private static final class Entry {
+        private final String key;
+        private final String display;
+        private final Set<String> isbns = new HashSet<>();
+
+        private Entry(String key, String display) {
+            this.key = key;
+            this.display = display;
+        }
+    }
+
+    private static final class Node {
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private String label;
+        // Children kept in small parallel arrays, keyed by the first char of their label
+        private char[] childKeys = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private Entry entry;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char c) {
+            for (int i = 0; i < childCount; i++) {
+                if (childKeys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                childKeys = Arrays.copyOf(childKeys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            childKeys[childCount] = child.label.charAt(0);
+            children[childCount] = child;
+            childCount++;
+        }
+
+        private void replaceChild(Node oldChild, Node newChild) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] == oldChild) {
+                    children[i] = newChild;
+                    return;
+                }
+            }
+        }
+    }
+}
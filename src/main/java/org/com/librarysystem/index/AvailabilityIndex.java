@@ -0,0 +1,97 @@
+package org.com.librarysystem.index;
+
+import org.com.librarysystem.enums.BookStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Per-title copy counters, one per BookStatus.
+ * <p>
+ * Kept up to date incrementally by BookManagementService whenever a copy is
+ * added, removed or changes status, so "how many copies of this ISBN can be
+ * borrowed right now?" is an O(1) lookup instead of a walk over all items.
+ * Counters are atomic and need no lock, since every checkout and return updates them.
+ */
+public class AvailabilityIndex {
+
+    private static final int STATUS_COUNT = BookStatus.values().length;
+
+    // Key: ISBN, Value: copy count indexed by BookStatus ordinal
+    private final Map<String, AtomicIntegerArray> counts;
+
+    public AvailabilityIndex() {
+        this.counts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records a new copy with the given status.
+     */
+    public void onItemAdded(String isbn, BookStatus status) {
+        counts.computeIfAbsent(isbn, k -> new AtomicIntegerArray(STATUS_COUNT)).incrementAndGet(status.ordinal());
+    }
+
+    /**
+     * Forgets a copy that had the given status.
+     */
+    public void onItemRemoved(String isbn, BookStatus status) {
+        AtomicIntegerArray perStatus = counts.get(isbn);
+        if (perStatus != null) {
+            perStatus.decrementAndGet(status.ordinal());
+        }
+    }
+
+    /**
+     * Moves one copy from one status to another.
+     */
+    public void onStatusChanged(String isbn, BookStatus from, BookStatus to) {
+        if (from == to) {
+            return;
+        }
+        onItemRemoved(isbn, from);
+        onItemAdded(isbn, to);
+    }
+
+    /**
+     * @return How many copies of the title currently have the given status.
+     */
+    public int getCount(String isbn, BookStatus status) {
+        AtomicIntegerArray perStatus = counts.get(isbn);
+        return perStatus == null ? 0 : perStatus.get(status.ordinal());
+    }
+
+    /**
+     * @return How many copies of the title exist, in any status.
+     */
+    public int getTotal(String isbn) {
+        int total = 0;
+        for (int count : getCounts(isbn)) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return true if at least one copy of the title can be borrowed now.
+     */
+    public boolean isAvailable(String isbn) {
+        return getCount(isbn, BookStatus.AVAILABLE) > 0;
+    }
+
+    /**
+     * Returns a copy of the per-status counters for a title.
+     *
+     * @return Counts indexed by BookStatus ordinal (all zero for unknown titles).
+     */
+    public int[] getCounts(String isbn) {
+        int[] snapshot = new int[STATUS_COUNT];
+        AtomicIntegerArray perStatus = counts.get(isbn);
+        if (perStatus != null) {
+            for (int i = 0; i < STATUS_COUNT; i++) {
+                snapshot[i] = perStatus.get(i);
+            }
+        }
+        return snapshot;
+    }
+}
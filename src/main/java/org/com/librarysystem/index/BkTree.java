@@ -0,0 +1,115 @@
+package org.com.librarysystem.index;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A BK-tree (Burkhard-Keller tree) over a dictionary of terms.
+ * <p>
+ * Children are keyed by their Levenshtein distance to the parent, so the
+ * triangle inequality lets a lookup with a small max distance skip most of
+ * the dictionary instead of comparing the query against every term.
+ * Terms are only ever added; callers filter out terms that no longer occur.
+ */
+public class BkTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a term to the dictionary. Adding an existing term is a no-op.
+     *
+     * @param term The term to add.
+     */
+    public void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(term, node.term);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds every term within a maximum edit distance of the query.
+     *
+     * @param query       The (normalized) query term.
+     * @param maxDistance The maximum Levenshtein distance allowed.
+     * @return Matching terms mapped to their distance from the query.
+     */
+    public Map<String, Integer> search(String query, int maxDistance) {
+        Map<String, Integer> matches = new LinkedHashMap<>();
+        if (root != null) {
+            search(root, query, maxDistance, matches);
+        }
+        return matches;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Computes the Levenshtein (insert/delete/substitute) distance of two strings.
+     */
+    public static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+                        previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    // --- Helper Methods ---
+
+    private void search(Node node, String query, int maxDistance, Map<String, Integer> matches) {
+        int distance = distance(query, node.term);
+        if (distance <= maxDistance) {
+            matches.put(node.term, distance);
+        }
+        // Only subtrees whose edge is within [d - k, d + k] can hold matches
+        int low = distance - maxDistance;
+        int high = distance + maxDistance;
+        for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+            int edge = child.getKey();
+            if (edge >= low && edge <= high) {
+                search(child.getValue(), query, maxDistance, matches);
+            }
+        }
+    }
+
+    private static final class Node {
+        private final String term;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+
+        private Node(String term) {
+            this.term = term;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.com.librarysystem.index;
+
+import java.util.Arrays;
+
+/**
+ * A growable, sorted list of document IDs (a postings list).
+ * Kept as a primitive int array so millions of postings don't cost an
+ * object per entry, and so two lists can be intersected with a linear merge.
+ */
+public class IntPostings {
+
+    private int[] docs;
+    private int size;
+
+    public IntPostings() {
+        this.docs = new int[4];
+    }
+
+    /**
+     * Adds a document ID, keeping the list sorted. Duplicates are ignored.
+     * Appending a new highest ID (the common case) is O(1) amortized.
+     */
+    public void add(int doc) {
+        if (size > 0 && docs[size - 1] < doc) {
+            ensureCapacity();
+            docs[size++] = doc;
+            return;
+        }
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity();
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+        docs[insertAt] = doc;
+        size++;
+    }
+
+    /**
+     * Removes a document ID if present.
+     */
+    public void remove(int doc) {
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos >= 0) {
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a sorted copy of the document IDs.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(docs, size);
+    }
+
+    /**
+     * Intersects a sorted array of document IDs with this list.
+     *
+     * @param sorted A sorted array of document IDs.
+     * @param length How many entries of the array are in use.
+     * @return The sorted intersection (a new array, trimmed to size).
+     */
+    public int[] intersect(int[] sorted, int length) {
+        int[] out = new int[Math.min(length, size)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < length && j < size) {
+            if (sorted[i] < docs[j]) {
+                i++;
+            } else if (sorted[i] > docs[j]) {
+                j++;
+            } else {
+                out[n++] = sorted[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private void ensureCapacity() {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.com.librarysystem.index;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An inverted index from word tokens to ISBNs, kept per field (title and author).
+ * <p>
+ * Registered as a CatalogObserver on BookManagementService, so addBook and
+ * updateBook keep it current. A lookup only touches the postings of the query
+ * tokens, so its cost depends on how many books match, not on catalog size.
+ */
+public class InvertedTokenIndex implements CatalogObserver {
+
+    // Many concurrent searches, rare catalog changes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // Field -> token -> ISBNs of the books containing that token
+    private final Map<BookField, Map<String, Set<String>>> postings;
+
+    // Key: ISBN, Value: the field values as they were indexed (used to un-index on update)
+    private final Map<String, String[]> indexedValues;
+
+    // Field -> every term ever indexed, for edit-distance lookups
+    private final Map<BookField, BkTree> termTrees;
+
+    public InvertedTokenIndex() {
+        this.postings = new EnumMap<>(BookField.class);
+        this.termTrees = new EnumMap<>(BookField.class);
+        for (BookField field : BookField.values()) {
+            postings.put(field, new HashMap<>());
+            termTrees.put(field, new BkTree());
+        }
+        this.indexedValues = new HashMap<>();
+    }
+
+    @Override
+    public void onBookAdded(Book book) {
+        writeLock.lock();
+        try {
+            index(book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onBookUpdated(Book previous, Book updated) {
+        writeLock.lock();
+        try {
+            unindex(updated.getIsbn());
+            index(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the ISBNs of books whose field contains every token of the query.
+     *
+     * @param field The field to search.
+     * @param query The free-text query; it is tokenized like the indexed values.
+     * @return The matching ISBNs (empty if the query has no tokens).
+     */
+    public Set<String> lookup(BookField field, String query) {
+        readLock.lock();
+        try {
+            List<String> tokens = TextNormalizer.tokenize(query);
+            if (tokens.isEmpty()) {
+                return Collections.emptySet();
+            }
+
+            Map<String, Set<String>> fieldPostings = postings.get(field);
+            List<Set<String>> lists = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Set<String> list = fieldPostings.get(token);
+                if (list == null) {
+                    // One token matches nothing, so the intersection is empty
+                    return Collections.emptySet();
+                }
+                lists.add(list);
+            }
+
+            // Intersect starting from the rarest token to keep the work minimal
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<String> result = new LinkedHashSet<>();
+            for (String isbn : lists.get(0)) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++) {
+                    inAll = lists.get(i).contains(isbn);
+                }
+                if (inAll) {
+                    result.add(isbn);
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ISBNs indexed under a single, already-normalized token.
+     *
+     * @param field The field to look in.
+     * @param token The token.
+     * @return A copy of the postings taken under the read lock (empty if unknown).
+     */
+    public Set<String> getPostings(BookField field, String token) {
+        readLock.lock();
+        try {
+            Set<String> list = postings.get(field).get(token);
+            return list == null ? Collections.emptySet() : new HashSet<>(list);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the indexed terms within a maximum edit distance of a query token.
+     * Terms whose books have all been updated away are skipped.
+     *
+     * @param field       The field whose dictionary to search.
+     * @param token       The query token.
+     * @param maxDistance The maximum Levenshtein distance allowed.
+     * @return Live matching terms mapped to their distance from the token.
+     */
+    public Map<String, Integer> findSimilarTerms(BookField field, String token, int maxDistance) {
+        readLock.lock();
+        try {
+            Map<String, Integer> matches = termTrees.get(field).search(token, maxDistance);
+            matches.keySet().retainAll(postings.get(field).keySet());
+            return matches;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct tokens indexed for a field.
+     */
+    public int getTermCount(BookField field) {
+        readLock.lock();
+        try {
+            return postings.get(field).size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private void index(Book book) {
+        BookField[] fields = BookField.values();
+        String[] values = new String[fields.length];
+        for (BookField field : fields) {
+            values[field.ordinal()] = field.valueOf(book);
+            Map<String, Set<String>> fieldPostings = postings.get(field);
+            for (String token : new HashSet<>(TextNormalizer.tokenize(values[field.ordinal()]))) {
+                fieldPostings.computeIfAbsent(token, t -> {
+                    termTrees.get(field).add(t);
+                    return new HashSet<>();
+                }).add(book.getIsbn());
+            }
+        }
+        // Remember the values, not the Book, so in-place edits don't break un-indexing
+        indexedValues.put(book.getIsbn(), values);
+    }
+
+    private void unindex(String isbn) {
+        String[] values = indexedValues.remove(isbn);
+        if (values == null) {
+            return;
+        }
+        for (BookField field : BookField.values()) {
+            Map<String, Set<String>> fieldPostings = postings.get(field);
+            for (String token : TextNormalizer.tokenize(values[field.ordinal()])) {
+                Set<String> list = fieldPostings.get(token);
+                if (list != null) {
+                    list.remove(isbn);
+                    if (list.isEmpty()) {
+                        fieldPostings.remove(token);
+                    }
+                }
+            }
+        }
+    }
+}
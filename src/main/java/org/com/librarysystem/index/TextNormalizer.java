@@ -0,0 +1,60 @@
+package org.com.librarysystem.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared text normalization for the catalog indexes.
+ * Every index must normalize indexed values and queries the same way,
+ * otherwise lookups silently miss.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+        // utility class
+    }
+
+    /**
+     * Lower-cases the text and collapses runs of whitespace to a single space.
+     *
+     * @param text The raw text (may be null).
+     * @return The normalized text, or an empty string for null input.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * Splits text into lower-cased alphanumeric tokens.
+     * "Dune: Messiah" becomes ["dune", "messiah"].
+     *
+     * @param text The raw text (may be null).
+     * @return The list of tokens, possibly empty (never null).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.isLetterOrDigit(lower.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(lower.substring(start));
+        }
+        return tokens;
+    }
+}
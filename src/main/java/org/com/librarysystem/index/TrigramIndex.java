@@ -0,0 +1,271 @@
+package org.com.librarysystem.index;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A trigram (3-character n-gram) index over book titles and authors.
+ * <p>
+ * Any string that contains the query also contains every trigram of the query,
+ * so intersecting the trigram postings gives a small superset of the books that
+ * match a case-insensitive "contains" search. Callers verify those candidates
+ * against the real field value to get exactly what a full scan would return.
+ * <p>
+ * Queries shorter than three characters are answered by scanning the trigram
+ * dictionary (bounded by the number of distinct trigrams, not by catalog size)
+ * plus the few values that are themselves too short to have a trigram.
+ */
+public class TrigramIndex implements CatalogObserver {
+
+    // Many concurrent searches, rare catalog changes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    private static final int GRAM_LENGTH = 3;
+
+    // Field -> trigram -> sorted doc IDs
+    private final Map<BookField, Map<String, IntPostings>> postings;
+
+    // Field -> doc IDs whose value is shorter than a trigram (always verified)
+    private final Map<BookField, Set<Integer>> shortValues;
+
+    // Key: ISBN, Value: internal doc ID (doc IDs are never reused)
+    private final Map<String, Integer> docIds;
+
+    // Index: doc ID, Value: ISBN
+    private final List<String> isbns;
+
+    // Index: doc ID, Value: the lower-cased field values as indexed
+    private final List<String[]> indexedValues;
+
+    public TrigramIndex() {
+        this.postings = new EnumMap<>(BookField.class);
+        this.shortValues = new EnumMap<>(BookField.class);
+        for (BookField field : BookField.values()) {
+            postings.put(field, new HashMap<>());
+            shortValues.put(field, new TreeSet<>());
+        }
+        this.docIds = new HashMap<>();
+        this.isbns = new ArrayList<>();
+        this.indexedValues = new ArrayList<>();
+    }
+
+    @Override
+    public void onBookAdded(Book book) {
+        writeLock.lock();
+        try {
+            index(book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onBookUpdated(Book previous, Book updated) {
+        writeLock.lock();
+        try {
+            index(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ISBNs of books whose field <i>may</i> contain the query.
+     * The result is a superset of the true matches; use {@link #matches} to verify.
+     *
+     * @param field The field to search.
+     * @param query The raw query (matched case-insensitively).
+     * @return Candidate ISBNs, in doc ID order.
+     */
+    public Set<String> candidates(BookField field, String query) {
+        readLock.lock();
+        try {
+            String lower = query.toLowerCase();
+            Set<String> result = new LinkedHashSet<>();
+
+            if (lower.isEmpty()) {
+                // Every non-null value "contains" the empty string
+                for (int doc = 0; doc < isbns.size(); doc++) {
+                    if (indexedValues.get(doc)[field.ordinal()] != null) {
+                        result.add(isbns.get(doc));
+                    }
+                }
+                return result;
+            }
+
+            if (lower.length() < GRAM_LENGTH) {
+                Set<Integer> docs = new TreeSet<>(shortValues.get(field));
+                for (Map.Entry<String, IntPostings> entry : postings.get(field).entrySet()) {
+                    if (entry.getKey().contains(lower)) {
+                        for (int doc : entry.getValue().toArray()) {
+                            docs.add(doc);
+                        }
+                    }
+                }
+                for (int doc : docs) {
+                    result.add(isbns.get(doc));
+                }
+                return result;
+            }
+
+            List<IntPostings> lists = new ArrayList<>();
+            for (String gram : trigrams(lower)) {
+                IntPostings list = postings.get(field).get(gram);
+                if (list == null) {
+                    return result;
+                }
+                lists.add(list);
+            }
+
+            // Intersect starting from the shortest postings list
+            lists.sort(Comparator.comparingInt(IntPostings::size));
+            int[] current = lists.get(0).toArray();
+            for (int i = 1; i < lists.size() && current.length > 0; i++) {
+                current = lists.get(i).intersect(current, current.length);
+            }
+            for (int doc : current) {
+                result.add(isbns.get(doc));
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Estimates how many candidates {@link #candidates} would return, without
+     * materializing them: the size of the rarest trigram's postings list.
+     * Used by the query planner to order predicates by selectivity.
+     *
+     * @param field The field to search.
+     * @param query The raw query.
+     * @return An upper bound on the number of candidate books.
+     */
+    public int estimateCandidates(BookField field, String query) {
+        readLock.lock();
+        try {
+            String lower = query.toLowerCase();
+            if (lower.length() < GRAM_LENGTH) {
+                // Short fragments are unselective; assume they touch everything
+                return isbns.size();
+            }
+            int estimate = Integer.MAX_VALUE;
+            for (String gram : trigrams(lower)) {
+                IntPostings list = postings.get(field).get(gram);
+                if (list == null) {
+                    return 0;
+                }
+                estimate = Math.min(estimate, list.size());
+            }
+            return estimate;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * The verification step: the exact predicate the scan strategies use.
+     *
+     * @param field The field to check.
+     * @param book  The candidate book.
+     * @param query The raw query.
+     * @return true if the book's field contains the query, ignoring case.
+     */
+    public static boolean matches(BookField field, Book book, String query) {
+        String value = field.valueOf(book);
+        return value != null && value.toLowerCase().contains(query.toLowerCase());
+    }
+
+    /**
+     * Returns the number of distinct trigrams indexed for a field.
+     */
+    public int getTrigramCount(BookField field) {
+        readLock.lock();
+        try {
+            return postings.get(field).size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private void index(Book book) {
+        Integer existing = docIds.get(book.getIsbn());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unindex(doc);
+        } else {
+            doc = isbns.size();
+            docIds.put(book.getIsbn(), doc);
+            isbns.add(book.getIsbn());
+            indexedValues.add(null);
+        }
+
+        String[] values = new String[BookField.values().length];
+        for (BookField field : BookField.values()) {
+            String raw = field.valueOf(book);
+            if (raw == null) {
+                continue;
+            }
+            String lower = raw.toLowerCase();
+            values[field.ordinal()] = lower;
+            if (lower.length() < GRAM_LENGTH) {
+                shortValues.get(field).add(doc);
+                continue;
+            }
+            Map<String, IntPostings> fieldPostings = postings.get(field);
+            for (String gram : trigrams(lower)) {
+                fieldPostings.computeIfAbsent(gram, g -> new IntPostings()).add(doc);
+            }
+        }
+        indexedValues.set(doc, values);
+    }
+
+    private void unindex(int doc) {
+        String[] values = indexedValues.get(doc);
+        for (BookField field : BookField.values()) {
+            String lower = values[field.ordinal()];
+            if (lower == null) {
+                continue;
+            }
+            shortValues.get(field).remove(doc);
+            Map<String, IntPostings> fieldPostings = postings.get(field);
+            for (String gram : trigrams(lower)) {
+                IntPostings list = fieldPostings.get(gram);
+                if (list != null) {
+                    list.remove(doc);
+                    if (list.isEmpty()) {
+                        fieldPostings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> trigrams(String lower) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
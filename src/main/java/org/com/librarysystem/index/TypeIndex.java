@@ -0,0 +1,98 @@
+package org.com.librarysystem.index;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A secondary index on BookType, one ISBN set per type.
+ * Since there are only a handful of types, counts are O(1).
+ */
+public class TypeIndex implements CatalogObserver {
+
+    // Many concurrent searches, rare catalog changes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    private final Map<BookType, Set<String>> byType;
+
+    // Key: ISBN, Value: the type it was indexed under
+    private final Map<String, BookType> typeByIsbn;
+
+    public TypeIndex() {
+        this.byType = new EnumMap<>(BookType.class);
+        for (BookType type : BookType.values()) {
+            byType.put(type, new HashSet<>());
+        }
+        this.typeByIsbn = new HashMap<>();
+    }
+
+    @Override
+    public void onBookAdded(Book book) {
+        writeLock.lock();
+        try {
+            index(book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onBookUpdated(Book previous, Book updated) {
+        writeLock.lock();
+        try {
+            BookType oldType = typeByIsbn.get(updated.getIsbn());
+            if (oldType != null) {
+                byType.get(oldType).remove(updated.getIsbn());
+            }
+            index(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ISBNs of all books of the given type.
+     */
+    public Set<String> lookup(BookType type) {
+        readLock.lock();
+        try {
+            return new HashSet<>(byType.get(type));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the books of the given type.
+     */
+    public int count(BookType type) {
+        readLock.lock();
+        try {
+            return byType.get(type).size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private void index(Book book) {
+        if (book.getType() == null) {
+            typeByIsbn.remove(book.getIsbn());
+            return;
+        }
+        byType.get(book.getType()).add(book.getIsbn());
+        typeByIsbn.put(book.getIsbn(), book.getType());
+    }
+}
@@ -0,0 +1,115 @@
+package org.com.librarysystem.index;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A sorted secondary index on publication year.
+ * Range lookups only visit the years inside the range.
+ */
+public class YearIndex implements CatalogObserver {
+
+    // Many concurrent searches, rare catalog changes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // Key: publication year, Value: ISBNs published that year
+    private final NavigableMap<Integer, Set<String>> byYear;
+
+    // Key: ISBN, Value: the year it was indexed under
+    private final Map<String, Integer> yearByIsbn;
+
+    public YearIndex() {
+        this.byYear = new TreeMap<>();
+        this.yearByIsbn = new HashMap<>();
+    }
+
+    @Override
+    public void onBookAdded(Book book) {
+        writeLock.lock();
+        try {
+            index(book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onBookUpdated(Book previous, Book updated) {
+        writeLock.lock();
+        try {
+            Integer oldYear = yearByIsbn.get(updated.getIsbn());
+            if (oldYear != null) {
+                Set<String> isbns = byYear.get(oldYear);
+                isbns.remove(updated.getIsbn());
+                if (isbns.isEmpty()) {
+                    byYear.remove(oldYear);
+                }
+            }
+            index(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ISBNs published within an inclusive year range.
+     */
+    public Set<String> lookup(int fromYear, int toYear) {
+        readLock.lock();
+        try {
+            Set<String> result = new LinkedHashSet<>();
+            for (Set<String> isbns : range(fromYear, toYear)) {
+                result.addAll(isbns);
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the books published within an inclusive year range,
+     * without materializing them.
+     */
+    public int count(int fromYear, int toYear) {
+        readLock.lock();
+        try {
+            int count = 0;
+            for (Set<String> isbns : range(fromYear, toYear)) {
+                count += isbns.size();
+            }
+            return count;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private Collection<Set<String>> range(int fromYear, int toYear) {
+        if (fromYear > toYear) {
+            return List.of();
+        }
+        return byYear.subMap(fromYear, true, toYear, true).values();
+    }
+
+    private void index(Book book) {
+        byYear.computeIfAbsent(book.getPublicationYear(), y -> new HashSet<>()).add(book.getIsbn());
+        yearByIsbn.put(book.getIsbn(), book.getPublicationYear());
+    }
+}
@@ -0,0 +1,196 @@
+package org.com.librarysystem.logging;
+
+import org.com.librarysystem.enums.LogLevel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends log lines to a rolling file from a background thread.
+ * <p>
+ * Callers only put the message into a bounded ring buffer and return; they
+ * never touch the disk. If the buffer is full the message is dropped and
+ * counted rather than blocking a checkout. The writer thread drains whatever
+ * has accumulated (up to a batch), writes it with one buffered write and one
+ * flush, and rolls the file when it passes the size limit:
+ * {@code library.log} becomes {@code library.log.1}, {@code .1} becomes
+ * {@code .2}, and so on, keeping a fixed number of old files.
+ */
+public class AsyncRollingFileAppender implements LogAppender {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    public static final int DEFAULT_MAX_BACKUPS = 5;
+
+    private static final int MAX_BATCH = 1024;
+
+    /** One buffered log event; the line is built on the writer thread. */
+    private static final class Event {
+        final long timestampMillis;
+        final LogLevel level;
+        final String message;
+
+        Event(long timestampMillis, LogLevel level, String message) {
+            this.timestampMillis = timestampMillis;
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxBackups;
+    private final BlockingQueue<Event> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private Writer writer; // Writer thread only
+    private long fileBytes; // Writer thread only
+
+    public AsyncRollingFileAppender(Path file) {
+        this(file, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_BACKUPS);
+    }
+
+    /**
+     * @param file         The active log file.
+     * @param bufferSize   Messages that may wait before new ones are dropped.
+     * @param maxFileBytes Size at which the file is rolled.
+     * @param maxBackups   How many rolled files to keep.
+     */
+    public AsyncRollingFileAppender(Path file, int bufferSize, long maxFileBytes, int maxBackups) {
+        if (bufferSize < 1 || maxFileBytes < 1 || maxBackups < 0) {
+            throw new IllegalArgumentException("Buffer size and file size must be positive, backups non-negative.");
+        }
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxBackups = maxBackups;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        try {
+            openWriter();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log file " + file, e);
+        }
+        this.writerThread = new Thread(this::drainLoop, "log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void append(LogLevel level, String message) {
+        if (!running || !buffer.offer(new Event(System.currentTimeMillis(), level, message))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return How many messages were dropped because the buffer was full (or after close).
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting messages, writes out what is buffered and closes the file.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void drainLoop() {
+        List<Event> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (running || !buffer.isEmpty()) {
+                Event first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Closing log file failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(List<Event> batch) {
+        try {
+            StringBuilder lines = new StringBuilder(batch.size() * 96);
+            for (Event event : batch) {
+                lines.append(Instant.ofEpochMilli(event.timestampMillis))
+                        .append(" [").append(event.level).append("] ")
+                        .append(event.message).append('\n');
+            }
+            String text = lines.toString();
+            writer.write(text);
+            writer.flush(); // One flush per batch, not per line
+            fileBytes += text.getBytes(StandardCharsets.UTF_8).length;
+            if (fileBytes >= maxFileBytes) {
+                roll();
+            }
+        } catch (IOException e) {
+            dropped.add(batch.size());
+            System.err.println("[ERROR] Writing log file failed: " + e.getMessage());
+        }
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        if (maxBackups == 0) {
+            Files.deleteIfExists(file);
+        } else {
+            Files.deleteIfExists(backup(maxBackups));
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                if (Files.exists(backup(i))) {
+                    Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openWriter();
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openWriter() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        fileBytes = Files.size(file);
+    }
+}
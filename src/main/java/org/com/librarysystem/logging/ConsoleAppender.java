@@ -0,0 +1,19 @@
+package org.com.librarysystem.logging;
+
+import org.com.librarysystem.enums.LogLevel;
+
+/**
+ * Writes "[LEVEL] message" to standard out, and errors to standard error.
+ * This is the Logger's default appender.
+ */
+public class ConsoleAppender implements LogAppender {
+
+    @Override
+    public void append(LogLevel level, String message) {
+        if (level == LogLevel.ERROR) {
+            System.err.println("[" + level + "] " + message);
+        } else {
+            System.out.println("[" + level + "] " + message);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.com.librarysystem.logging;
+
+import org.com.librarysystem.enums.LogLevel;
+
+/**
+ * Where the Logger sends formatted messages.
+ * Implementations must be thread-safe; append is called on the logging thread.
+ */
+public interface LogAppender {
+
+    /**
+     * @param level   The message level (never OFF).
+     * @param message The formatted message (without level prefix).
+     */
+    void append(LogLevel level, String message);
+
+    /**
+     * Flushes anything buffered and releases resources. The default does nothing.
+     */
+    default void close() {
+    }
+}
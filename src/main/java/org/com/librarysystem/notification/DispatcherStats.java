@@ -0,0 +1,56 @@
+package org.com.librarysystem.notification;
+
+/**
+ * An immutable snapshot of the notification dispatcher counters.
+ */
+public class DispatcherStats {
+
+    private final long submitted;
+    private final long coalesced;
+    private final long rejected;
+    private final long delivered;
+    private final long failed;
+    private final long retries;
+    private final int queueDepth;
+    private final double averageLatencyMillis;
+    private final double maxLatencyMillis;
+
+    public DispatcherStats(long submitted, long coalesced, long rejected, long delivered, long failed, long retries,
+                           int queueDepth, double averageLatencyMillis, double maxLatencyMillis) {
+        this.submitted = submitted;
+        this.coalesced = coalesced;
+        this.rejected = rejected;
+        this.delivered = delivered;
+        this.failed = failed;
+        this.retries = retries;
+        this.queueDepth = queueDepth;
+        this.averageLatencyMillis = averageLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    public long getSubmitted() { return submitted; }
+    public long getCoalesced() { return coalesced; }
+    public long getRejected() { return rejected; }
+    public long getDelivered() { return delivered; }
+    public long getFailed() { return failed; }
+    public long getRetries() { return retries; }
+    public int getQueueDepth() { return queueDepth; }
+
+    /**
+     * @return Mean time from submission to successful delivery.
+     */
+    public double getAverageLatencyMillis() { return averageLatencyMillis; }
+
+    /**
+     * @return Longest time from submission to successful delivery.
+     */
+    public double getMaxLatencyMillis() { return maxLatencyMillis; }
+
+    @Override
+    public String toString() {
+        return "DispatcherStats{submitted=" + submitted + ", coalesced=" + coalesced + ", rejected=" + rejected
+                + ", delivered=" + delivered + ", failed=" + failed + ", retries=" + retries
+                + ", queueDepth=" + queueDepth + ", avgLatencyMs=" + String.format("%.2f", averageLatencyMillis)
+                + ", maxLatencyMs=" + String.format("%.2f", maxLatencyMillis) + "}";
+    }
+}
@@ -0,0 +1,51 @@
+package org.com.librarysystem.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-process stand-in for an SMTP server: "sends" by recording the
+ * messages, and can be told to fail, for tests and local runs.
+ */
+public class InMemorySmtpSink implements NotificationChannel {
+
+    private final List<OutboundNotification> delivered = new ArrayList<>();
+    private int batches;
+    private int failuresToInject;
+
+    @Override
+    public String getName() {
+        return "smtp";
+    }
+
+    @Override
+    public synchronized void sendBatch(List<OutboundNotification> batch) throws Exception {
+        if (failuresToInject > 0) {
+            failuresToInject--;
+            throw new IllegalStateException("Simulated SMTP failure");
+        }
+        delivered.addAll(batch);
+        batches++;
+    }
+
+    /**
+     * Makes the next {@code count} batches fail.
+     */
+    public synchronized void failNextBatches(int count) {
+        this.failuresToInject = count;
+    }
+
+    /**
+     * @return A copy of every message delivered so far, in delivery order.
+     */
+    public synchronized List<OutboundNotification> getDelivered() {
+        return new ArrayList<>(delivered);
+    }
+
+    /**
+     * @return How many batches were delivered successfully.
+     */
+    public synchronized int getBatchCount() {
+        return batches;
+    }
+}
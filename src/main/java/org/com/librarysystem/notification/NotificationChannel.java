@@ -0,0 +1,27 @@
+package org.com.librarysystem.notification;
+
+import java.util.List;
+
+/**
+ * An external delivery channel (email, SMS, push).
+ * <p>
+ * Implementations are called from the dispatcher's worker for that channel
+ * only, never from a checkout or return, so they may block on I/O.
+ */
+public interface NotificationChannel {
+
+    /**
+     * @return A short name for logs and metrics (e.g., "smtp").
+     */
+    String getName();
+
+    /**
+     * Delivers a batch of messages. Throwing means none of the batch counts as
+     * delivered, and the dispatcher retries the whole batch with backoff, so
+     * implementations should make redelivery harmless where they can.
+     *
+     * @param batch The messages, in submission order.
+     * @throws Exception If delivery failed.
+     */
+    void sendBatch(List<OutboundNotification> batch) throws Exception;
+}
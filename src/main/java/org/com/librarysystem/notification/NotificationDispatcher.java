@@ -0,0 +1,245 @@
+package org.com.librarysystem.notification;
+
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.patterns.singleton.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers notifications to external channels off the request path.
+ * <p>
+ * Each channel gets its own lane: a bounded queue and one worker on a virtual
+ * thread. {@link #submit(Patron, String)} never blocks; when a lane is full the
+ * message is rejected and counted (backpressure), so a slow mail server can
+ * never stall a checkout or return. The worker drains up to a batch of messages
+ * at a time and hands them to the channel in one call. A message that is
+ * already waiting for the same patron is coalesced instead of queued twice.
+ * A failed batch is retried with exponential backoff, blocking only its lane,
+ * and dropped (and counted) after the last attempt.
+ */
+public class NotificationDispatcher {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(100);
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long POLL_MILLIS = 100;
+
+    private final List<Lane> lanes = new ArrayList<>();
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private volatile boolean running;
+    private final Logger logger = Logger.getInstance();
+
+    // --- Metrics ---
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    /** One channel's queue, pending-duplicate set and worker. */
+    private static final class Lane {
+        final NotificationChannel channel;
+        final BlockingQueue<OutboundNotification> queue;
+        final Set<String> pending = ConcurrentHashMap.newKeySet();
+        Thread worker;
+
+        Lane(NotificationChannel channel, int capacity) {
+            this.channel = channel;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * Creates a dispatcher with the default queue size, batch size and retry policy.
+     *
+     * @param channels The channels every notification is delivered to.
+     */
+    public NotificationDispatcher(List<NotificationChannel> channels) {
+        this(channels, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF);
+    }
+
+    /**
+     * @param channels      The channels every notification is delivered to.
+     * @param queueCapacity Messages each channel may have waiting before new ones are rejected.
+     * @param maxBatchSize  The most messages handed to a channel in one call.
+     * @param maxAttempts   Delivery attempts per batch before it is dropped.
+     * @param baseBackoff   Wait before the first retry; doubled for each further retry.
+     */
+    public NotificationDispatcher(List<NotificationChannel> channels, int queueCapacity, int maxBatchSize,
+                                  int maxAttempts, Duration baseBackoff) {
+        if (channels == null || channels.isEmpty()) {
+            throw new IllegalArgumentException("At least one notification channel is required.");
+        }
+        if (queueCapacity < 1 || maxBatchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Queue capacity, batch size and attempts must be positive.");
+        }
+        for (NotificationChannel channel : channels) {
+            lanes.add(new Lane(channel, queueCapacity));
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoff.toMillis();
+    }
+
+    /**
+     * Starts one worker per channel. Calling it again has no effect.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Lane lane : lanes) {
+            lane.worker = Thread.ofVirtual()
+                    .name("notify-" + lane.channel.getName())
+                    .start(() -> work(lane));
+        }
+        logger.info("NotificationDispatcher started with {} channel(s).", lanes.size());
+    }
+
+    /**
+     * Queues a notification for every channel without blocking.
+     *
+     * @param patron  The recipient.
+     * @param message The message text.
+     * @return false if any channel's queue was full and rejected the message.
+     */
+    public boolean submit(Patron patron, String message) {
+        submitted.increment();
+        OutboundNotification notification =
+                new OutboundNotification(patron.getPatronId(), patron.getEmail(), message, System.nanoTime());
+        String key = notification.coalescingKey();
+        boolean accepted = true;
+        for (Lane lane : lanes) {
+            if (!lane.pending.add(key)) {
+                coalesced.increment(); // Same message already waiting for this patron
+                continue;
+            }
+            if (!lane.queue.offer(notification)) {
+                lane.pending.remove(key);
+                rejected.increment();
+                accepted = false;
+            }
+        }
+        if (!accepted) {
+            logger.warn("Notification queue full; message to {} rejected", patron.getPatronId());
+        }
+        return accepted;
+    }
+
+    /**
+     * Stops accepting work once the queues are drained and waits for the workers.
+     *
+     * @param timeout How long to wait in total.
+     * @return true if every queued message was handled in time.
+     */
+    public boolean shutdown(Duration timeout) throws InterruptedException {
+        synchronized (this) {
+            running = false;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained = true;
+        for (Lane lane : lanes) {
+            if (lane.worker == null) {
+                drained &= lane.queue.isEmpty();
+                continue;
+            }
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            drained &= lane.worker.join(Duration.ofNanos(remaining));
+        }
+        return drained;
+    }
+
+    /**
+     * @return A snapshot of the counters, queue depth and delivery latency.
+     */
+    public DispatcherStats getStats() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        long deliveredCount = delivered.sum();
+        double averageMillis = deliveredCount == 0 ? 0.0 : totalLatencyNanos.sum() / 1e6 / deliveredCount;
+        return new DispatcherStats(submitted.sum(), coalesced.sum(), rejected.sum(), deliveredCount,
+                failed.sum(), retries.sum(), depth, averageMillis, maxLatencyNanos.get() / 1e6);
+    }
+
+    // --- Worker ---
+
+    private void work(Lane lane) {
+        List<OutboundNotification> batch = new ArrayList<>(maxBatchSize);
+        while (running || !lane.queue.isEmpty()) {
+            OutboundNotification first;
+            try {
+                first = lane.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            lane.queue.drainTo(batch, maxBatchSize - 1);
+            // From here on, a repeat of one of these messages is a new notification
+            for (OutboundNotification notification : batch) {
+                lane.pending.remove(notification.coalescingKey());
+            }
+            deliver(lane.channel, batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(NotificationChannel channel, List<OutboundNotification> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                channel.sendBatch(batch);
+                long now = System.nanoTime();
+                for (OutboundNotification notification : batch) {
+                    long latency = now - notification.getEnqueuedAtNanos();
+                    totalLatencyNanos.add(latency);
+                    maxLatencyNanos.accumulate(latency);
+                }
+                delivered.add(batch.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    failed.add(batch.size());
+                    int attempts = attempt;
+                    logger.error(() -> "Channel " + channel.getName() + " failed " + attempts + " times; dropped "
+                            + batch.size() + " notification(s): " + e.getMessage());
+                    return;
+                }
+                retries.increment();
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, baseBackoffMillis << Math.min(attempt - 1, 20));
+                int attempts = attempt;
+                logger.warn(() -> "Channel " + channel.getName() + " failed (attempt " + attempts + "), retrying in "
+                        + backoff + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    failed.add(batch.size());
+                    return;
+                }
+            }
+        }
+    }
+}
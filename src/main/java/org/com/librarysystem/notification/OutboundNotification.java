@@ -0,0 +1,46 @@
+package org.com.librarysystem.notification;
+
+/**
+ * One message waiting to be delivered to a patron over an external channel.
+ */
+public class OutboundNotification {
+    private final String patronId;
+    private final String recipient; // e.g., the patron's email address
+    private final String message;
+    private final long enqueuedAtNanos;
+
+    public OutboundNotification(String patronId, String recipient, String message, long enqueuedAtNanos) {
+        this.patronId = patronId;
+        this.recipient = recipient;
+        this.message = message;
+        this.enqueuedAtNanos = enqueuedAtNanos;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getEnqueuedAtNanos() {
+        return enqueuedAtNanos;
+    }
+
+    /**
+     * @return Two notifications with the same key are duplicates (same patron, same text).
+     */
+    String coalescingKey() {
+        return patronId + '\u0000' + message;
+    }
+
+    @Override
+    public String toString() {
+        return recipient + ": " + message;
+    }
+}
@@ -2,11 +2,30 @@ package org.com.librarysystem.patterns.facade;
 
 // Core models
 import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookAvailability;
 import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.LendingRecord;
 import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.BulkItemResult;
+import org.com.librarysystem.core.HoldHandOff;
 import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.BookOrdering;
+import org.com.librarysystem.enums.BookStatus;
 import org.com.librarysystem.enums.BookType;
 
+// Indexes
+import org.com.librarysystem.index.AutocompleteIndex;
+
+// Persistence
+import org.com.librarysystem.persistence.JournaledChange;
+import org.com.librarysystem.persistence.LibraryPersistence;
+
+// Query engine
+import org.com.librarysystem.query.BookQuery;
+import org.com.librarysystem.query.QueryEngine;
+import org.com.librarysystem.query.QueryPlan;
+
 // Services
 import org.com.librarysystem.service.BookManagementService;
 import org.com.librarysystem.service.LendingService;
@@ -15,11 +34,24 @@ import org.com.librarysystem.service.ReservationService;
 
 // Patterns
 import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.patterns.strategy.AvailableOnlySearchStrategy;
+import org.com.librarysystem.patterns.strategy.CachingSearchService;
+import org.com.librarysystem.patterns.strategy.ParallelSearchExecutor;
+import org.com.librarysystem.patterns.strategy.SearchCacheStats;
+import org.com.librarysystem.patterns.strategy.SearchPage;
 import org.com.librarysystem.patterns.strategy.SearchService;
 import org.com.librarysystem.patterns.strategy.SearchStrategy;
 
 // Java utilities
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 public class LibraryFacade {
@@ -30,6 +62,10 @@ public class LibraryFacade {
     private final PatronManagementService patronManagementService;
     private final SearchService searchService;
     private final ReservationService reservationService;
+    private final AutocompleteIndex autocompleteIndex;
+    private final QueryEngine queryEngine;
+    private final ParallelSearchExecutor parallelSearchExecutor;
+    private final LibraryPersistence persistence; // Null = in memory only
 
     private final Logger logger = Logger.getInstance();
 
@@ -37,52 +73,265 @@ public class LibraryFacade {
                          BookManagementService bookManagementService,
                          PatronManagementService patronManagementService,
                          SearchService searchService,
-                         ReservationService reservationService) {
+                         ReservationService reservationService,
+                         AutocompleteIndex autocompleteIndex,
+                         QueryEngine queryEngine,
+                         ParallelSearchExecutor parallelSearchExecutor) {
+        this(lendingService, bookManagementService, patronManagementService, searchService,
+                reservationService, autocompleteIndex, queryEngine, parallelSearchExecutor, null);
+    }
+
+    /**
+     * Creates a facade whose mutations (books, copies, patrons, checkouts,
+     * returns, reservations) are journaled, and durable, before they are
+     * applied. The persistence must already be open, i.e. the services
+     * already recovered.
+     *
+     * @param persistence The open journal and snapshot store (null = in memory only).
+     */
+    public LibraryFacade(LendingService lendingService,
+                         BookManagementService bookManagementService,
+                         PatronManagementService patronManagementService,
+                         SearchService searchService,
+                         ReservationService reservationService,
+                         AutocompleteIndex autocompleteIndex,
+                         QueryEngine queryEngine,
+                         ParallelSearchExecutor parallelSearchExecutor,
+                         LibraryPersistence persistence) {
         this.lendingService = lendingService;
         this.bookManagementService = bookManagementService;
         this.patronManagementService = patronManagementService;
         this.searchService = searchService;
         this.reservationService = reservationService;
+        this.autocompleteIndex = autocompleteIndex;
+        this.queryEngine = queryEngine;
+        this.parallelSearchExecutor = parallelSearchExecutor;
+        this.persistence = persistence;
     }
 
     public Book addNewBook(String title, String author, String isbn, int year, BookType type) {
-        logger.info("Facade: Adding new book title with ISBN " + isbn);
+        logger.info("Facade: Adding new book title with ISBN {}", isbn);
         // We assume the Book constructor exists and is public
         Book book = new Book(isbn, title, author, year, type);
-        bookManagementService.addBook(book);
-        return book;
+        return durably(isbn, () -> {
+            bookManagementService.addBook(book);
+            return book;
+        }, () -> {
+            bookManagementService.validateNewBook(book);
+            return JournaledChange.of(batch -> batch.recordBookAdded(book), () -> {
+                bookManagementService.addBook(book);
+                return book;
+            });
+        });
     }
 
 
     public BookItem addBookItem(Book book, Branch branch) {
-        logger.info("Facade: Adding new physical item for book " + book.getIsbn());
-        return bookManagementService.addBookItem(book, branch);
+        logger.info("Facade: Adding new physical item for book {}", book.getIsbn());
+        return durably(book.getIsbn(), () -> {
+            BookItem item = bookManagementService.addBookItem(book, branch);
+            // A new copy goes straight to a waiting patron, if there is one
+            if (reservationService.offerAvailableCopy(item)) {
+                logger.info("Facade: New item {} held for a waiting reservation", item.getBarcode());
+            }
+            return item;
+        }, () -> {
+            String barcode = bookManagementService.prepareBookItem(book);
+            HoldHandOff handOff = reservationService.planHandOffs(book.getIsbn(),
+                    Collections.singletonList(branch)).get(0);
+            return JournaledChange.of(batch -> batch.recordItemAdded(barcode, book, branch, handOff), () -> {
+                BookItem item = bookManagementService.restoreBookItem(barcode, book, branch, BookStatus.AVAILABLE);
+                if (reservationService.offerAvailableCopy(item, handOff)) {
+                    logger.info("Facade: New item {} held for a waiting reservation", barcode);
+                }
+                return item;
+            });
+        });
     }
 
 
     public List<Book> searchBooks(String query, SearchStrategy strategy) {
-        logger.info("Facade: Executing search with query '" + query + "'");
-        // Set the strategy on the search service
-        searchService.setStrategy(strategy);
-        return searchService.executeSearch(query, bookManagementService.getBookCatalog());
+        logger.info("Facade: Executing search with query '{}'", query);
+        // The strategy is passed per call, so concurrent searches can't swap it
+        return searchService.executeSearch(strategy, query, bookManagementService.getBookCatalog());
+    }
+
+    /**
+     * Searches with a strategy registered on the SearchService (e.g., "title").
+     *
+     * @param query        The search query.
+     * @param strategyName The registered strategy name.
+     * @return The matching books.
+     */
+    public List<Book> searchBooks(String query, String strategyName) {
+        logger.info("Facade: Executing '{}' search with query '{}'", strategyName, query);
+        return searchService.executeSearch(strategyName, query, bookManagementService.getBookCatalog());
+    }
+
+    /**
+     * Searches with a registered strategy, optionally keeping only titles that
+     * have a copy on the shelf, and annotates each result with its copy counts.
+     * Both the filter and the annotation are O(1) counter reads per result.
+     *
+     * @param query         The search query.
+     * @param strategyName  The registered strategy name.
+     * @param availableOnly true to drop titles with no AVAILABLE copy.
+     * @return The matching books with their availability.
+     */
+    public List<BookAvailability> searchBooksWithAvailability(String query, String strategyName, boolean availableOnly) {
+        logger.info("Facade: Executing availability search with query '{}'", query);
+        SearchStrategy strategy = searchService.getStrategy(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No search strategy registered as '" + strategyName + "'.");
+        }
+        if (availableOnly) {
+            strategy = new AvailableOnlySearchStrategy(strategy, bookManagementService.getAvailability());
+        }
+        // Streamed directly (not through the cache): availability changes on every loan
+        return searchService.streamSearch(strategy, query, bookManagementService.getBookCatalog())
+                .map(book -> new BookAvailability(book, bookManagementService.getAvailability().getCounts(book.getIsbn())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the copy counts of a title.
+     *
+     * @param isbn The ISBN of the title.
+     * @return The availability snapshot, or null if the ISBN is unknown.
+     */
+    public BookAvailability getAvailability(String isbn) {
+        Book book = bookManagementService.getBookByIsbn(isbn);
+        if (book == null) {
+            return null;
+        }
+        return new BookAvailability(book, bookManagementService.getAvailability().getCounts(isbn));
+    }
+
+    /**
+     * Runs a scanning strategy on every catalog shard in parallel.
+     * Use it for queries that can't be served by an index.
+     *
+     * @param query    The search query.
+     * @param strategy The (scanning) strategy to fan out.
+     * @return The merged matches.
+     */
+    public List<Book> searchBooksParallel(String query, SearchStrategy strategy) {
+        logger.info("Facade: Executing parallel search with query '{}'", query);
+        return parallelSearchExecutor.search(strategy, query, bookManagementService.getCatalogShards());
+    }
+
+    /**
+     * Returns one page of results for a registered strategy. Memory used is
+     * proportional to the page (plus the offset for TITLE/YEAR ordering),
+     * not to the total number of matches.
+     *
+     * @param query        The search query.
+     * @param strategyName The registered strategy name.
+     * @param ordering     RELEVANCE (strategy order), TITLE or YEAR.
+     * @param offset       How many results to skip.
+     * @param limit        The page size.
+     * @return The requested page.
+     */
+    public SearchPage searchBooksPage(String query, String strategyName, BookOrdering ordering, int offset, int limit) {
+        logger.info(() -> "Facade: Executing paged '" + strategyName + "' search with query '" + query
+                + "' (offset " + offset + ", limit " + limit + ")");
+        SearchStrategy strategy = searchService.getStrategy(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No search strategy registered as '" + strategyName + "'.");
+        }
+        return searchService.searchPage(strategy, query, bookManagementService.getBookCatalog(), ordering, offset, limit);
+    }
+
+    /**
+     * Streams the results for a registered strategy, for callers that want a cursor.
+     *
+     * @param query        The search query.
+     * @param strategyName The registered strategy name.
+     * @return A lazy stream of matching books.
+     */
+    public Stream<Book> streamBooks(String query, String strategyName) {
+        SearchStrategy strategy = searchService.getStrategy(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No search strategy registered as '" + strategyName + "'.");
+        }
+        return searchService.streamSearch(strategy, query, bookManagementService.getBookCatalog());
+    }
+
+    /**
+     * Runs a composite query (title, author, year range, type) using the
+     * secondary indexes and a selectivity-based plan.
+     *
+     * @param query The query to run.
+     * @return The books matching every predicate of the query.
+     */
+    public List<Book> searchBooks(BookQuery query) {
+        logger.info("Facade: Executing composite search {}", query);
+        return queryEngine.execute(query);
+    }
+
+    /**
+     * Shows the plan the query engine would use for a composite query.
+     *
+     * @param query The query to plan.
+     * @return The chosen plan (see QueryPlan.explain()).
+     */
+    public QueryPlan explainSearch(BookQuery query) {
+        return queryEngine.explain(query);
+    }
+
+    /**
+     * Returns the search result cache statistics.
+     *
+     * @return The current stats, or null if the SearchService does not cache.
+     */
+    public SearchCacheStats getSearchCacheStats() {
+        if (searchService instanceof CachingSearchService cachingSearchService) {
+            return cachingSearchService.getStats();
+        }
+        return null;
+    }
+
+    /**
+     * Returns autocomplete suggestions (titles and authors) for a typed prefix.
+     * Meant to be called on every keystroke, so it does not log.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  Maximum number of suggestions to return.
+     * @return The suggestions, best first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            return List.of();
+        }
+        return autocompleteIndex.suggest(prefix, limit);
     }
 
     // --- 4. Patron Management Methods ---
 
 
     public Patron addNewPatron(String name, String email) {
-        logger.info("Facade: Registering new patron '" + name + "'");
-        return patronManagementService.addPatron(name, email);
+        logger.info("Facade: Registering new patron '{}'", name);
+        // Emails are unique regardless of case, so registrations of one address share a stripe
+        String key = email != null ? email.toLowerCase(Locale.ROOT) : null;
+        return durably(key, () -> patronManagementService.addPatron(name, email), () -> {
+            Patron patron = patronManagementService.preparePatron(name, email);
+            return JournaledChange.of(batch -> batch.recordPatronAdded(patron), () ->
+                    patronManagementService.restorePatron(patron.getPatronId(), patron.getName(), patron.getEmail()));
+        });
     }
 
 
     public void checkoutBook(String patronId, String barcode) {
-        logger.info("Facade: Attempting checkout for patron " + patronId + " and item " + barcode);
+        logger.info("Facade: Attempting checkout for patron {} and item {}", patronId, barcode);
         try {
-            lendingService.checkoutBook(patronId, barcode);
+            durably(titleKey(barcode), () -> lendingService.checkoutBook(patronId, barcode), () -> {
+                LendingRecord loan = lendingService.prepareCheckout(patronId, barcode);
+                return JournaledChange.of(batch -> batch.recordCheckout(loan),
+                        () -> lendingService.applyCheckout(loan), () -> lendingService.abandonCheckout(loan));
+            });
             logger.info("Facade: Checkout successful.");
         } catch (Exception e) {
-            logger.error("Facade: Checkout failed. " + e.getMessage());
+            logger.error("Facade: Checkout failed. {}", e.getMessage());
             // Re-throw the exception so the 'Main' class can handle it
             throw e;
         }
@@ -90,18 +339,94 @@ public class LibraryFacade {
 
 
     public void returnBook(String barcode) {
-        logger.info("Facade: Attempting return for item " + barcode);
+        logger.info("Facade: Attempting return for item {}", barcode);
         try {
-            lendingService.returnBook(barcode);
+            durably(titleKey(barcode), () -> lendingService.returnBook(barcode), () -> {
+                LendingService.PlannedReturn planned = lendingService.prepareReturn(barcode);
+                return JournaledChange.of(batch -> batch.recordReturn(planned), () -> lendingService.applyReturn(planned));
+            });
             logger.info("Facade: Return successful.");
         } catch (Exception e) {
-            logger.error("Facade: Return failed. " + e.getMessage());
+            logger.error("Facade: Return failed. {}", e.getMessage());
             throw e;
         }
     }
 
-    public void reserveBook(String patronId, String isbn) {
-        logger.info("Facade: Attempting reservation for patron " + patronId + " and book " + isbn);
+    /**
+     * Checks out a batch of items to one patron (self-check kiosks).
+     * Never throws for a bad item; each barcode gets its own result.
+     *
+     * @param patronId The ID of the patron.
+     * @param barcodes The barcodes of the items.
+     * @return One result per barcode, in order.
+     */
+    public List<BulkItemResult> checkoutBooks(String patronId, List<String> barcodes) {
+        logger.info("Facade: Bulk checkout of {} item(s) for patron {}", barcodes.size(), patronId);
+        return durably(titleKeys(barcodes), () -> lendingService.checkoutBooks(patronId, barcodes), () -> {
+            List<BulkItemResult> prepared = lendingService.prepareCheckouts(patronId, barcodes);
+            return JournaledChange.of(batch -> {
+                for (BulkItemResult result : prepared) {
+                    if (result.isSuccess()) {
+                        batch.recordCheckout(result.getRecord());
+                    }
+                }
+            }, () -> lendingService.applyCheckouts(patronId, prepared), () -> lendingService.abandonCheckouts(prepared));
+        });
+    }
+
+    /**
+     * Returns a batch of items (automated book drops).
+     * Never throws for a bad item; each barcode gets its own result.
+     *
+     * @param barcodes The barcodes of the returned items.
+     * @return One result per barcode, in order.
+     */
+    public List<BulkItemResult> returnBooks(List<String> barcodes) {
+        logger.info("Facade: Bulk return of {} item(s)", barcodes.size());
+        return durably(titleKeys(barcodes), () -> lendingService.returnBooks(barcodes), () -> {
+            List<LendingService.PlannedReturn> planned = lendingService.prepareReturns(barcodes);
+            return JournaledChange.of(batch -> {
+                for (LendingService.PlannedReturn plan : planned) {
+                    if (plan.isValid()) {
+                        batch.recordReturn(plan);
+                    }
+                }
+            }, () -> lendingService.applyReturns(planned));
+        });
+    }
+
+    /**
+     * Returns every loan that is currently overdue, earliest due date first.
+     */
+    public List<LendingRecord> getOverdueLoans() {
+        return lendingService.getOverdueLoans();
+    }
+
+    /**
+     * Returns only the loans that became overdue since the previous call.
+     * Intended for dashboards that poll for overdue transitions.
+     */
+    public List<LendingRecord> getNewlyOverdueLoans() {
+        return lendingService.getNewlyOverdueLoans();
+    }
+
+    /**
+     * Places a hold on a title for a patron.
+     *
+     * @return The reservation ID (for cancellation and queue-position queries).
+     */
+    public String reserveBook(String patronId, String isbn) {
+        return reserveBook(patronId, isbn, null);
+    }
+
+    /**
+     * Places a hold on a title, to be collected at a given branch.
+     *
+     * @param pickupBranch Where the patron will collect it (null = any branch).
+     * @return The reservation ID (for cancellation and queue-position queries).
+     */
+    public String reserveBook(String patronId, String isbn, Branch pickupBranch) {
+        logger.info("Facade: Attempting reservation for patron {} and book {}", patronId, isbn);
         try {
             // The facade's job is to find the *objects* the service needs
             Patron patron = patronManagementService.getPatronById(patronId);
@@ -115,11 +440,120 @@ public class LibraryFacade {
                 throw new IllegalArgumentException("Book not found with ISBN: " + isbn);
             }
 
-            reservationService.makeReservation(patron, book);
+            Reservation reservation = durably(isbn, () -> reservationService.makeReservation(patron, book, pickupBranch), () -> {
+                Reservation made = reservationService.prepareReservation(patron, book, pickupBranch);
+                return JournaledChange.of(batch -> batch.recordReservation(made), () -> {
+                    reservationService.restoreReservation(made);
+                    return made;
+                });
+            });
             logger.info("Facade: Reservation successful.");
+            return reservation.getReservationId();
         } catch (Exception e) {
-            logger.error("Facade: Reservation failed. " + e.getMessage());
+            logger.error("Facade: Reservation failed. {}", e.getMessage());
             throw e;
         }
     }
+
+    /**
+     * Expires hold-shelf copies whose pickup deadline has passed
+     * (meant to be run by a scheduler, e.g. once a minute).
+     *
+     * @return How many holds expired.
+     */
+    public int expireHolds() {
+        int expired = durablyExclusive(reservationService::expireHolds, () -> {
+            List<ReservationService.HoldExpiry> expiries = reservationService.prepareHoldExpiries();
+            return JournaledChange.of(batch -> {
+                for (ReservationService.HoldExpiry expiry : expiries) {
+                    batch.recordHoldExpired(expiry.getBarcode(), expiry.getNext());
+                }
+            }, () -> {
+                for (ReservationService.HoldExpiry expiry : expiries) {
+                    reservationService.applyHoldExpiry(expiry.getBarcode(), expiry.getNext());
+                }
+                return expiries.size();
+            }, () -> reservationService.abandonHoldExpiries(expiries));
+        });
+        if (expired > 0) {
+            logger.info("Facade: {} hold(s) expired", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Cancels a waiting hold.
+     *
+     * @param reservationId The reservation ID.
+     */
+    public void cancelReservation(String reservationId) {
+        logger.info("Facade: Cancelling reservation {}", reservationId);
+        Reservation waiting = reservationService.getReservation(reservationId);
+        durably(waiting != null ? waiting.getBook().getIsbn() : reservationId,
+                () -> reservationService.cancelReservation(reservationId), () -> {
+            if (reservationService.getReservation(reservationId) == null) {
+                logger.warn("Cancel failed: No waiting reservation with ID {}", reservationId);
+                throw new IllegalArgumentException("No waiting reservation with ID " + reservationId);
+            }
+            return JournaledChange.of(batch -> batch.recordReservationCancelled(reservationId),
+                    () -> reservationService.cancelReservation(reservationId));
+        });
+    }
+
+    /**
+     * @return The 1-based queue position of a waiting hold, or -1 if it is not waiting.
+     */
+    public int getReservationPosition(String reservationId) {
+        return reservationService.getQueuePosition(reservationId);
+    }
+
+    /**
+     * @return A patron's waiting holds.
+     */
+    public List<Reservation> getPendingReservations(String patronId) {
+        return reservationService.getPendingReservations(patronId);
+    }
+
+    // --- Persistence ---
+
+    /**
+     * Writes a snapshot of all library state, so recovery replays less journal
+     * (meant to be run by a scheduler, e.g. hourly).
+     *
+     * @return The snapshot file.
+     */
+    public Path takeSnapshot() {
+        if (persistence == null) {
+            throw new IllegalStateException("This library has no persistence configured.");
+        }
+        return persistence.snapshot();
+    }
+
+    // In memory the service call validates and applies in one go; with persistence the
+    // change is prepared, journaled and made durable under its title's stripe, then applied
+    private <T> T durably(String key, Supplier<T> inMemory, Supplier<JournaledChange<T>> journaled) {
+        return persistence == null ? inMemory.get() : persistence.execute(key, journaled);
+    }
+
+    private <T> T durably(Collection<String> keys, Supplier<T> inMemory, Supplier<JournaledChange<T>> journaled) {
+        return persistence == null ? inMemory.get() : persistence.execute(keys, journaled);
+    }
+
+    private <T> T durablyExclusive(Supplier<T> inMemory, Supplier<JournaledChange<T>> journaled) {
+        return persistence == null ? inMemory.get() : persistence.executeExclusive(journaled);
+    }
+
+    // Mutations of one copy are ordered by its title (unknown barcodes fail without touching state)
+    private String titleKey(String barcode) {
+        BookItem item = bookManagementService.getBookItemByBarcode(barcode);
+        return item != null ? item.getBook().getIsbn() : barcode;
+    }
+
+    private List<String> titleKeys(List<String> barcodes) {
+        List<String> keys = new ArrayList<>(barcodes.size());
+        for (String barcode : barcodes) {
+            keys.add(titleKey(barcode));
+        }
+        return keys;
+    }
 }
@@ -0,0 +1,27 @@
+package org.com.librarysystem.patterns.observer;
+
+import org.com.librarysystem.core.Book;
+
+/**
+ * Observer for changes to the book catalog.
+ * BookManagementService notifies every registered observer after a book
+ * title is added or its metadata is updated, so that search indexes
+ * (and anything else derived from the catalog) stay in sync.
+ */
+public interface CatalogObserver {
+
+    /**
+     * Called after a new book title has been added to the catalog.
+     *
+     * @param book The book that was added.
+     */
+    void onBookAdded(Book book);
+
+    /**
+     * Called after an existing book title has been replaced in the catalog.
+     *
+     * @param previous The book object that was stored before the update.
+     * @param updated  The book object that is stored now.
+     */
+    void onBookUpdated(Book previous, Book updated);
+}
@@ -0,0 +1,120 @@
+package org.com.librarysystem.patterns.singleton;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Central, lock-free generator for every ID in the system (barcodes, patron IDs,
+ * reservation IDs, loan record IDs, branch IDs).
+ *
+ * Each ID is a 64-bit, time-ordered value laid out as:
+ * <pre>
+ *   | 41 bits: ms since EPOCH | 10 bits: node | 12 bits: sequence |
+ * </pre>
+ * The last issued value is kept in a single AtomicLong, and the next value is
+ * the now-based value or, if that is not ahead of the last ID, the last ID's
+ * successor, installed with a CAS. The successor bumps the sequence; once the
+ * 4096 per-ms sequence is used up it moves to sequence 0 of the next
+ * millisecond, so the node bits never change. IDs are therefore strictly
+ * increasing on a node, never repeat even if the wall clock steps back, and
+ * never stray into another node's ID space.
+ */
+public class IdGenerator {
+    /** 2024-01-01T00:00:00Z; 41 bits of milliseconds from here last ~69 years. */
+    private static final long EPOCH = 1_704_067_200_000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    /** System property that selects the node number (0-1023) of this process. */
+    public static final String NODE_ID_PROPERTY = "library.nodeId";
+
+    private static final IdGenerator instance = new IdGenerator(Integer.getInteger(NODE_ID_PROPERTY, 0));
+
+    private final long nodeBits;
+    private final AtomicLong lastId = new AtomicLong();
+
+    // Package-private so tests can run generators for several nodes side by side
+    IdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public static IdGenerator getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return The next unique, time-ordered 64-bit ID.
+     */
+    public long nextLong() {
+        long floor = ((System.currentTimeMillis() - EPOCH) << TIMESTAMP_SHIFT) | nodeBits;
+        while (true) {
+            long last = lastId.get();
+            long next = floor > last ? floor : successor(last);
+            if (lastId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * The smallest ID after {@code last} on this node: the next sequence number,
+     * or sequence 0 of the next millisecond when the sequence is used up.
+     * Only the timestamp ever absorbs the carry, never the node bits.
+     */
+    private long successor(long last) {
+        if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+            return last + 1;
+        }
+        return (((last >>> TIMESTAMP_SHIFT) + 1) << TIMESTAMP_SHIFT) | nodeBits;
+    }
+
+    /**
+     * Returns the next ID as a compact string (e.g., "bc-" + base-36 digits).
+     *
+     * @param prefix Entity prefix such as "bc-", "p-", "r-".
+     * @return The prefixed ID.
+     */
+    public String nextId(String prefix) {
+        return prefix + Long.toString(nextLong(), Character.MAX_RADIX);
+    }
+
+    /**
+     * Formats a numeric ID the same way {@link #nextId(String)} does.
+     */
+    public static String format(String prefix, long id) {
+        return prefix + Long.toString(id, Character.MAX_RADIX);
+    }
+
+    /**
+     * Parses an ID produced by {@link #nextId(String)} back to its 64-bit value.
+     *
+     * @param prefix The expected prefix.
+     * @param id     The string ID.
+     * @return The numeric ID, or -1 if the string was not issued with this prefix.
+     */
+    public static long parse(String prefix, String id) {
+        if (id == null || !id.startsWith(prefix) || id.length() == prefix.length()) {
+            return -1;
+        }
+        try {
+            long value = Long.parseLong(id, prefix.length(), id.length(), Character.MAX_RADIX);
+            // Only accept the canonical form, so format(parse(id)) always gives back id
+            return value >= 0 && format(prefix, value).equals(id) ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The node number this generator stamps into every ID.
+     */
+    public int getNodeId() {
+        return (int) (nodeBits >>> SEQUENCE_BITS);
+    }
+}
@@ -1,23 +1,211 @@
 package org.com.librarysystem.patterns.singleton;
 
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.logging.AsyncRollingFileAppender;
+import org.com.librarysystem.logging.ConsoleAppender;
+import org.com.librarysystem.logging.LogAppender;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide logger.
+ * <p>
+ * Messages below the current level are discarded before any string is built:
+ * use the parameterized overloads ({@code "Checked out {} to {}"}, up to three
+ * arguments, no varargs array) or the Supplier overloads on hot paths, and the
+ * cost of a disabled call is one volatile read.
+ * <p>
+ * Output goes to a pluggable appender: the console by default, or an
+ * asynchronous rolling file. Both can be chosen at startup with the system
+ * properties {@value #LEVEL_PROPERTY} (e.g., WARN) and {@value #FILE_PROPERTY}
+ * (a file path), or changed at runtime.
+ */
 public class Logger {
+    public static final String LEVEL_PROPERTY = "library.log.level";
+    public static final String FILE_PROPERTY = "library.log.file";
+
     private static final Logger instance = new Logger();
 
+    private volatile LogLevel level;
+    private volatile LogAppender appender;
+
     private Logger() {
         // private constructor
+        this.level = LogLevel.valueOf(System.getProperty(LEVEL_PROPERTY, LogLevel.INFO.name()).toUpperCase());
+        String file = System.getProperty(FILE_PROPERTY);
+        this.appender = file != null ? new AsyncRollingFileAppender(Path.of(file)) : new ConsoleAppender();
     }
 
     public static Logger getInstance() {
         return instance;
     }
 
+    // --- Configuration ---
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Replaces the appender; the previous one is closed (flushing anything it buffered).
+     */
+    public void setAppender(LogAppender appender) {
+        LogAppender previous = this.appender;
+        this.appender = appender;
+        if (previous != appender) {
+            previous.close();
+        }
+    }
+
+    /**
+     * @return true if messages at this level are written.
+     */
+    public boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel != LogLevel.OFF && messageLevel.compareTo(level) >= 0;
+    }
+
+    // --- Logging ---
+
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            appender.append(LogLevel.DEBUG, message.get());
+        }
+    }
+
+    public void debug(String pattern, Object arg) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            appender.append(LogLevel.DEBUG, format(pattern, arg, null, null, 1));
+        }
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            appender.append(LogLevel.DEBUG, format(pattern, arg1, arg2, null, 2));
+        }
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            appender.append(LogLevel.DEBUG, format(pattern, arg1, arg2, arg3, 3));
+        }
+    }
+
     public void info(String message) {
-        System.out.println("[INFO] " + message);
+        log(LogLevel.INFO, message);
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(LogLevel.INFO)) {
+            appender.append(LogLevel.INFO, message.get());
+        }
+    }
+
+    public void info(String pattern, Object arg) {
+        if (isEnabled(LogLevel.INFO)) {
+            appender.append(LogLevel.INFO, format(pattern, arg, null, null, 1));
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.INFO)) {
+            appender.append(LogLevel.INFO, format(pattern, arg1, arg2, null, 2));
+        }
     }
+
+    public void info(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(LogLevel.INFO)) {
+            appender.append(LogLevel.INFO, format(pattern, arg1, arg2, arg3, 3));
+        }
+    }
+
     public void warn(String message) {
-        System.out.println("[WARN] " + message);
+        log(LogLevel.WARN, message);
+    }
+
+    public void warn(Supplier<String> message) {
+        if (isEnabled(LogLevel.WARN)) {
+            appender.append(LogLevel.WARN, message.get());
+        }
+    }
+
+    public void warn(String pattern, Object arg) {
+        if (isEnabled(LogLevel.WARN)) {
+            appender.append(LogLevel.WARN, format(pattern, arg, null, null, 1));
+        }
+    }
+
+    public void warn(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.WARN)) {
+            appender.append(LogLevel.WARN, format(pattern, arg1, arg2, null, 2));
+        }
+    }
+
+    public void warn(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(LogLevel.WARN)) {
+            appender.append(LogLevel.WARN, format(pattern, arg1, arg2, arg3, 3));
+        }
     }
+
     public void error(String message) {
-        System.err.println("[ERROR] " + message);
+        log(LogLevel.ERROR, message);
+    }
+
+    public void error(Supplier<String> message) {
+        if (isEnabled(LogLevel.ERROR)) {
+            appender.append(LogLevel.ERROR, message.get());
+        }
+    }
+
+    public void error(String pattern, Object arg) {
+        if (isEnabled(LogLevel.ERROR)) {
+            appender.append(LogLevel.ERROR, format(pattern, arg, null, null, 1));
+        }
+    }
+
+    public void error(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.ERROR)) {
+            appender.append(LogLevel.ERROR, format(pattern, arg1, arg2, null, 2));
+        }
+    }
+
+    public void error(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(LogLevel.ERROR)) {
+            appender.append(LogLevel.ERROR, format(pattern, arg1, arg2, arg3, 3));
+        }
+    }
+
+    private void log(LogLevel messageLevel, String message) {
+        if (isEnabled(messageLevel)) {
+            appender.append(messageLevel, message);
+        }
+    }
+
+    /**
+     * Replaces each "{}" in the pattern with the next argument.
+     */
+    private static String format(String pattern, Object arg1, Object arg2, Object arg3, int argCount) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 32 * argCount);
+        int start = 0;
+        int used = 0;
+        while (used < argCount) {
+            int placeholder = pattern.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            sb.append(pattern, start, placeholder);
+            sb.append(used == 0 ? arg1 : used == 1 ? arg2 : arg3);
+            start = placeholder + 2;
+            used++;
+        }
+        return sb.append(pattern, start, pattern.length()).toString();
     }
 }
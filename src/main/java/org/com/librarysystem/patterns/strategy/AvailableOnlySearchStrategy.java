@@ -0,0 +1,48 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.index.AvailabilityIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A strategy that wraps another one and keeps only titles with at least
+ * one AVAILABLE copy. The check is an O(1) counter lookup per result.
+ * <p>
+ * Availability changes on every checkout and return, which the search cache
+ * does not observe, so don't run this strategy through CachingSearchService.
+ */
+public class AvailableOnlySearchStrategy implements SearchStrategy {
+
+    private final SearchStrategy delegate;
+    private final AvailabilityIndex availability;
+
+    public AvailableOnlySearchStrategy(SearchStrategy delegate, AvailabilityIndex availability) {
+        this.delegate = delegate;
+        this.availability = availability;
+    }
+
+    @Override
+    public List<Book> search(String query, Map<String, Book> bookCatalog) {
+        return stream(query, bookCatalog).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
+        return delegate.stream(query, bookCatalog)
+                .filter(book -> availability.isAvailable(book.getIsbn()));
+    }
+
+    @Override
+    public String normalizeQuery(String query) {
+        return delegate.normalizeQuery(query);
+    }
+
+    @Override
+    public boolean matches(String query, Book book) {
+        return availability.isAvailable(book.getIsbn()) && delegate.matches(query, book);
+    }
+}
@@ -0,0 +1,295 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A SearchService with a bounded result cache in front of it.
+ * <p>
+ * Entries are keyed by strategy instance, catalog instance and the strategy's
+ * normalized query, and evicted approximately least-recently-used once the
+ * total weight (cached books plus one per entry) exceeds the limit. Hits are
+ * a ConcurrentHashMap read and take no lock; only the thread that pushes the
+ * cache over its limit evicts, and it never makes hits wait.
+ * <p>
+ * Registered as a CatalogObserver, it drops only the entries a change touches.
+ * Entries that contained the changed book are found through an ISBN reverse
+ * index and removed at once. Entries whose query the new version of the book
+ * now matches are caught lazily: every change is appended to a short change
+ * log, and a hit re-checks only the changes made since its entry was last
+ * validated. An entry older than the log is treated as a miss. Register the
+ * cache <i>after</i> the search indexes, so index-backed strategies see the
+ * updated index when re-checking a book.
+ */
+public class CachingSearchService extends SearchService implements CatalogObserver {
+
+    // Catalog changes remembered for lazy validation; older entries are recomputed
+    private static final int CHANGE_LOG_SIZE = 1024;
+
+    // Eviction trims to this fraction of the limit, so it runs once per many inserts
+    private static final double EVICT_TO = 0.9;
+
+    // A hit only refreshes an entry's access time if it is older than this
+    private static final long ACCESS_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long maxWeight;
+
+    private final ConcurrentHashMap<CacheKey, CacheEntry> cache = new ConcurrentHashMap<>();
+    // Key: ISBN, Value: the keys of every entry whose results contain that book
+    private final ConcurrentHashMap<String, Set<CacheKey>> keysByIsbn = new ConcurrentHashMap<>();
+    private final AtomicLong currentWeight = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Ring of recent catalog changes; a slot is written before the sequence is published
+    private final AtomicReferenceArray<CatalogChange> changeLog = new AtomicReferenceArray<>(CHANGE_LOG_SIZE);
+    private final Object changeLogWriteLock = new Object();
+    private volatile long changeSequence;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxWeight Upper bound on the number of cached books across all entries.
+     */
+    public CachingSearchService(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache weight limit must be positive.");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public List<Book> executeSearch(SearchStrategy strategy, String query, Map<String, Book> catalog) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Search strategy must not be null.");
+        }
+        CacheKey key = new CacheKey(strategy, catalog, strategy.normalizeQuery(query));
+        CacheEntry entry = cache.get(key);
+        if (entry != null) {
+            if (isStillValid(key, entry)) {
+                hits.increment();
+                entry.touch();
+                return entry.results;
+            }
+            removeEntry(key, entry);
+            invalidations.increment();
+        }
+        misses.increment();
+
+        // Changes published after this point are re-checked on the first hit
+        long validatedUpTo = changeSequence;
+        List<Book> results = Collections.unmodifiableList(new ArrayList<>(strategy.search(query, catalog)));
+        CacheEntry created = new CacheEntry(query, results, validatedUpTo);
+
+        CacheEntry previous = cache.put(key, created);
+        if (previous != null) {
+            unindex(key, previous);
+            currentWeight.addAndGet(-previous.weight());
+        }
+        for (String isbn : created.isbns) {
+            keysByIsbn.computeIfAbsent(isbn, k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        if (cache.get(key) != created) {
+            unindex(key, created); // Evicted meanwhile; the change log still guards correctness
+        }
+        if (currentWeight.addAndGet(created.weight()) > maxWeight) {
+            evictIfNeeded();
+        }
+        return results;
+    }
+
+    @Override
+    public void onBookAdded(Book book) {
+        invalidate(book);
+    }
+
+    @Override
+    public void onBookUpdated(Book previous, Book updated) {
+        invalidate(updated);
+    }
+
+    /**
+     * Drops every cached entry.
+     */
+    public void clear() {
+        for (Map.Entry<CacheKey, CacheEntry> e : cache.entrySet()) {
+            if (removeEntry(e.getKey(), e.getValue())) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the hit/miss/eviction/invalidation counters.
+     * Taken without a lock, so under load the counters may be mid-update.
+     */
+    public SearchCacheStats getStats() {
+        return new SearchCacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                invalidations.sum(), cache.size(), currentWeight.get());
+    }
+
+    // --- Helper Methods ---
+
+    private void invalidate(Book current) {
+        // Entries that held the book: found through the reverse index, dropped now
+        Set<CacheKey> keys = keysByIsbn.get(current.getIsbn());
+        if (keys != null) {
+            for (CacheKey key : keys) {
+                CacheEntry entry = cache.get(key);
+                if (entry != null && removeEntry(key, entry)) {
+                    invalidations.increment();
+                }
+            }
+        }
+        // Entries the book may now match: checked on their next hit
+        synchronized (changeLogWriteLock) {
+            long sequence = changeSequence;
+            changeLog.set((int) (sequence % CHANGE_LOG_SIZE), new CatalogChange(sequence, current));
+            changeSequence = sequence + 1;
+        }
+    }
+
+    private boolean isStillValid(CacheKey key, CacheEntry entry) {
+        long latest = changeSequence;
+        long from = entry.validatedUpTo;
+        if (from == latest) {
+            return true;
+        }
+        if (latest - from > CHANGE_LOG_SIZE) {
+            return false;
+        }
+        for (long sequence = from; sequence < latest; sequence++) {
+            CatalogChange change = changeLog.get((int) (sequence % CHANGE_LOG_SIZE));
+            if (change == null || change.sequence != sequence) {
+                return false; // Overwritten by a later change, so no longer known
+            }
+            if (entry.isbns.contains(change.book.getIsbn()) || key.strategy.matches(entry.query, change.book)) {
+                return false;
+            }
+        }
+        entry.validatedUpTo = latest;
+        return true;
+    }
+
+    private boolean removeEntry(CacheKey key, CacheEntry entry) {
+        if (!cache.remove(key, entry)) {
+            return false; // Already removed or replaced by another thread
+        }
+        unindex(key, entry);
+        currentWeight.addAndGet(-entry.weight());
+        return true;
+    }
+
+    private void unindex(CacheKey key, CacheEntry entry) {
+        for (String isbn : entry.isbns) {
+            keysByIsbn.computeIfPresent(isbn, (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private void evictIfNeeded() {
+        // One evictor at a time; everyone else carries on instead of waiting
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (currentWeight.get() <= maxWeight) {
+                return;
+            }
+            List<Map.Entry<CacheKey, CacheEntry>> byAge = new ArrayList<>(cache.entrySet());
+            byAge.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            long target = (long) (maxWeight * EVICT_TO);
+            for (Map.Entry<CacheKey, CacheEntry> e : byAge) {
+                if (currentWeight.get() <= target) {
+                    break;
+                }
+                if (removeEntry(e.getKey(), e.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // --- Cache Structures ---
+
+    private static final class CacheKey {
+        private final SearchStrategy strategy;
+        private final Map<String, Book> catalog;
+        private final String query;
+
+        private CacheKey(SearchStrategy strategy, Map<String, Book> catalog, String query) {
+            this.strategy = strategy;
+            this.catalog = catalog;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey other)) {
+                return false;
+            }
+            // Strategies and catalogs are compared by identity, not by content
+            return strategy == other.strategy && catalog == other.catalog && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(strategy) + System.identityHashCode(catalog)) + query.hashCode();
+        }
+    }
+
+    private static final class CacheEntry {
+        private final String query;
+        private final List<Book> results;
+        private final Set<String> isbns;
+        // Change-log sequence up to which this entry is known to be current
+        private volatile long validatedUpTo;
+        private volatile long lastAccess;
+
+        private CacheEntry(String query, List<Book> results, long validatedUpTo) {
+            this.query = query;
+            this.results = results;
+            this.isbns = new HashSet<>();
+            for (Book book : results) {
+                isbns.add(book.getIsbn());
+            }
+            this.validatedUpTo = validatedUpTo;
+            this.lastAccess = System.nanoTime();
+        }
+
+        private void touch() {
+            // Skip the write on hot entries, so concurrent hits don't fight over the field
+            long now = System.nanoTime();
+            if (now - lastAccess > ACCESS_RESOLUTION_NANOS) {
+                lastAccess = now;
+            }
+        }
+
+        private long weight() {
+            return results.size() + 1L;
+        }
+    }
+
+    private record CatalogChange(long sequence, Book book) {
+    }
+}
@@ -0,0 +1,105 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.index.InvertedTokenIndex;
+import org.com.librarysystem.index.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A concrete strategy for typo-tolerant searches on title or author.
+ * Implements the SearchStrategy interface.
+ * <p>
+ * Each query word is matched against the field's term dictionary (a BK-tree)
+ * within a small edit distance, so "Frank Herbet" still finds "Frank Herbert".
+ * Only the books posted under the matching terms are looked at. A book must
+ * match every query word; results are ranked by total edit distance, then title.
+ */
+public class FuzzySearchStrategy implements SearchStrategy {
+
+    private static final int MAX_ALLOWED_DISTANCE = 2;
+
+    private final InvertedTokenIndex index;
+    private final BookField field;
+    private final int maxDistance;
+
+    /**
+     * @param index       The token index holding the term dictionary and postings.
+     * @param field       The field to search.
+     * @param maxDistance The maximum edit distance per word (0 to 2).
+     */
+    public FuzzySearchStrategy(InvertedTokenIndex index, BookField field, int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_ALLOWED_DISTANCE) {
+            throw new IllegalArgumentException("Max edit distance must be between 0 and " + MAX_ALLOWED_DISTANCE);
+        }
+        this.index = index;
+        this.field = field;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Searches for books whose field contains a close match for every query word.
+     *
+     * @param query       The (possibly misspelled) words to search for.
+     * @param bookCatalog The master map of all book titles, keyed by ISBN.
+     * @return Matching books, closest first.
+     */
+    @Override
+    public List<Book> search(String query, Map<String, Book> bookCatalog) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Key: ISBN, Value: summed best distance over the query words seen so far
+        Map<String, Integer> scores = null;
+        for (String token : tokens) {
+            Map<String, Integer> tokenScores = new HashMap<>();
+            for (Map.Entry<String, Integer> term : index.findSimilarTerms(field, token, maxDistance).entrySet()) {
+                for (String isbn : index.getPostings(field, term.getKey())) {
+                    tokenScores.merge(isbn, term.getValue(), Math::min);
+                }
+            }
+
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // AND semantics: keep books matched by every word so far
+                Map<String, Integer> combined = new HashMap<>();
+                for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+                    Integer distance = tokenScores.get(entry.getKey());
+                    if (distance != null) {
+                        combined.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Book> results = new ArrayList<>();
+        for (String isbn : scores.keySet()) {
+            Book book = bookCatalog.get(isbn);
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        Map<String, Integer> finalScores = scores;
+        results.sort(Comparator
+                .comparingInt((Book b) -> finalScores.get(b.getIsbn()))
+                .thenComparing(b -> String.valueOf(b.getTitle())));
+        return results;
+    }
+
+    @Override
+    public String normalizeQuery(String query) {
+        return String.join(" ", TextNormalizer.tokenize(query));
+    }
+}
@@ -0,0 +1,63 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.index.InvertedTokenIndex;
+import org.com.librarysystem.index.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * A concrete strategy for searching books by whole words in their title.
+ * Implements the SearchStrategy interface.
+ * <p>
+ * Unlike SearchByTitleStrategy, this does not scan the catalog. It asks the
+ * InvertedTokenIndex for the books containing every word of the query and
+ * only resolves those ISBNs against the catalog.
+ */
+public class IndexedTitleSearchStrategy implements SearchStrategy {
+
+    private final InvertedTokenIndex index;
+
+    public IndexedTitleSearchStrategy(InvertedTokenIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Searches for books whose title contains every word of the query.
+     *
+     * @param query       One or more words to search for (case-insensitive).
+     * @param bookCatalog The master map of all book titles, keyed by ISBN.
+     * @return A List of Book objects that match the title query.
+     */
+    @Override
+    public List<Book> search(String query, Map<String, Book> bookCatalog) {
+        List<Book> results = new ArrayList<>();
+        for (String isbn : index.lookup(BookField.TITLE, query)) {
+            Book book = bookCatalog.get(isbn);
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lazily resolves the matching ISBNs against the catalog.
+     */
+    @Override
+    public Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
+        return index.lookup(BookField.TITLE, query).stream()
+                .map(bookCatalog::get)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public String normalizeQuery(String query) {
+        return String.join(" ", TextNormalizer.tokenize(query));
+    }
+}
@@ -0,0 +1,80 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a search strategy over every catalog shard in parallel and merges the results.
+ * <p>
+ * Meant for strategies that really have to scan (regex, complex predicates, the
+ * built-in title/author scans). Index-backed strategies already avoid the scan
+ * and gain nothing from being fanned out.
+ */
+public class ParallelSearchExecutor {
+
+    private final ExecutorService executor;
+
+    /**
+     * Uses the common ForkJoinPool.
+     */
+    public ParallelSearchExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor The executor to fan the shard searches out on.
+     */
+    public ParallelSearchExecutor(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null.");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Searches each shard on the executor and concatenates the results in shard order.
+     *
+     * @param strategy The strategy to run on every shard.
+     * @param query    The search query.
+     * @param shards   The catalog shards (see BookManagementService.getCatalogShards()).
+     * @return The merged matches.
+     */
+    public List<Book> search(SearchStrategy strategy, String query, List<Map<String, Book>> shards) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Search strategy must not be null.");
+        }
+        if (shards.size() == 1) {
+            return strategy.search(query, shards.get(0));
+        }
+
+        List<Future<List<Book>>> futures = new ArrayList<>(shards.size());
+        for (Map<String, Book> shard : shards) {
+            futures.add(executor.submit(() -> strategy.search(query, shard)));
+        }
+
+        List<Book> results = new ArrayList<>();
+        try {
+            for (Future<List<Book>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Parallel search was interrupted.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Parallel search failed.", e.getCause());
+        }
+        return results;
+    }
+}
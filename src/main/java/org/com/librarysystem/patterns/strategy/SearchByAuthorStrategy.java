@@ -5,6 +5,7 @@ import org.com.librarysystem.core.Book;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * A concrete strategy for searching books by their author.
@@ -22,6 +23,19 @@ public class SearchByAuthorStrategy implements SearchStrategy {
      */
     @Override
     public List<Book> search(String query, Map<String, Book> bookCatalog) {
+        return stream(query, bookCatalog)
+                .collect(Collectors.toList()); // Collect the matching books into a list
+    }
+
+    /**
+     * Lazily filters the catalog for books whose author matches the query.
+     *
+     * @param query       The author name (or part of it) to search for.
+     * @param bookCatalog The master map of all book titles, keyed by ISBN.
+     * @return A stream of Book objects that match the author query.
+     */
+    @Override
+    public Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
         // Convert the query to lower case once for efficiency
         String lowerCaseQuery = query.toLowerCase();
 
@@ -34,7 +48,22 @@ public class SearchByAuthorStrategy implements SearchStrategy {
                     }
                     // Perform a case-insensitive "contains" search
                     return book.getAuthor().toLowerCase().contains(lowerCaseQuery);
-                })
-                .collect(Collectors.toList()); // Collect the matching books into a list
+                });
+    }
+
+    /**
+     * The search is case-insensitive, so queries differing only in case are equal.
+     */
+    @Override
+    public String normalizeQuery(String query) {
+        return query.toLowerCase();
+    }
+
+    /**
+     * Checks a single book with the same predicate as {@link #search}.
+     */
+    @Override
+    public boolean matches(String query, Book book) {
+        return book.getAuthor() != null && book.getAuthor().toLowerCase().contains(query.toLowerCase());
     }
 }
\ No newline at end of file
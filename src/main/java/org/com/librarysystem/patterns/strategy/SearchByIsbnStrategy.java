@@ -36,4 +36,12 @@ public class SearchByIsbnStrategy implements SearchStrategy {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Checks a single book: the ISBN must match exactly.
+     */
+    @Override
+    public boolean matches(String query, Book book) {
+        return query.equals(book.getIsbn());
+    }
 }
\ No newline at end of file
@@ -5,13 +5,29 @@ import org.com.librarysystem.core.Book;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // Concrete Strategy 1
 public class SearchByTitleStrategy implements SearchStrategy {
     @Override
     public List<Book> search(String query, Map<String, Book> bookCatalog) {
+        return stream(query, bookCatalog).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
+        String lowerCaseQuery = query.toLowerCase();
         return bookCatalog.values().stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(query.toLowerCase()))
-                .collect(Collectors.toList());
+                .filter(book -> book.getTitle() != null && book.getTitle().toLowerCase().contains(lowerCaseQuery));
+    }
+
+    @Override
+    public String normalizeQuery(String query) {
+        return query.toLowerCase();
+    }
+
+    @Override
+    public boolean matches(String query, Book book) {
+        return book.getTitle() != null && book.getTitle().toLowerCase().contains(query.toLowerCase());
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package org.com.librarysystem.patterns.strategy;
+
+/**
+ * An immutable snapshot of the search result cache counters.
+ */
+public class SearchCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+    private final int entries;
+    private final long weight;
+
+    public SearchCacheStats(long hits, long misses, long evictions, long invalidations, int entries, long weight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.entries = entries;
+        this.weight = weight;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getInvalidations() { return invalidations; }
+    public int getEntries() { return entries; }
+    public long getWeight() { return weight; }
+
+    /**
+     * @return The fraction of lookups served from the cache (0 when unused).
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCacheStats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", invalidations=" + invalidations + ", entries=" + entries + ", weight=" + weight + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of search results.
+ * Holds only the books on the page, plus whether another page follows.
+ */
+public class SearchPage {
+
+    private final List<Book> results;
+    private final int offset;
+    private final int limit;
+    private final boolean hasMore;
+
+    public SearchPage(List<Book> results, int offset, int limit, boolean hasMore) {
+        this.results = Collections.unmodifiableList(results);
+        this.offset = offset;
+        this.limit = limit;
+        this.hasMore = hasMore;
+    }
+
+    public List<Book> getResults() { return results; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+
+    /**
+     * @return true if at least one more result exists after this page.
+     */
+    public boolean hasMore() { return hasMore; }
+
+    /**
+     * @return The offset of the next page.
+     */
+    public int getNextOffset() { return offset + results.size(); }
+}
@@ -1,23 +1,160 @@
 package org.com.librarysystem.patterns.strategy;
 
 import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookOrdering;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-// The Context class that uses a strategy
+/**
+ * The Context class that runs a search strategy.
+ * <p>
+ * It holds no per-query state: the strategy is passed in on every call,
+ * either directly or by the name it was registered under. One instance can
+ * therefore serve any number of concurrent searches, and reads of the
+ * registry never take a lock.
+ */
 public class SearchService {
-    private SearchStrategy strategy;
 
-    // The client can set which strategy to use at runtime
-    public void setStrategy(SearchStrategy strategy) {
-        this.strategy = strategy;
+    public static final String BY_TITLE = "title";
+    public static final String BY_AUTHOR = "author";
+    public static final String BY_ISBN = "isbn";
+
+    // Key: strategy name, Value: a reusable, stateless strategy instance
+    private final Map<String, SearchStrategy> strategies;
+
+    /**
+     * Creates the service with the built-in scan strategies pre-registered.
+     */
+    public SearchService() {
+        this.strategies = new ConcurrentHashMap<>();
+        strategies.put(BY_TITLE, new SearchByTitleStrategy());
+        strategies.put(BY_AUTHOR, new SearchByAuthorStrategy());
+        strategies.put(BY_ISBN, new SearchByIsbnStrategy());
+    }
+
+    /**
+     * Registers (or replaces) a named strategy. Strategies must be safe to
+     * share between threads, since one instance serves every caller.
+     *
+     * @param name     The name callers will use to select the strategy.
+     * @param strategy The strategy instance.
+     */
+    public void registerStrategy(String name, SearchStrategy strategy) {
+        if (name == null || strategy == null) {
+            throw new IllegalArgumentException("Strategy name and strategy must not be null.");
+        }
+        strategies.put(name, strategy);
+    }
+
+    /**
+     * Looks up a registered strategy.
+     *
+     * @param name The registered name.
+     * @return The strategy, or null if none is registered under that name.
+     */
+    public SearchStrategy getStrategy(String name) {
+        return strategies.get(name);
+    }
+
+    /**
+     * Returns the names of all registered strategies.
+     */
+    public Set<String> getStrategyNames() {
+        return Collections.unmodifiableSet(strategies.keySet());
     }
 
-    public List<Book> executeSearch(String query, Map<String, Book> catalog) {
+    /**
+     * Runs a search with the given strategy.
+     *
+     * @param strategy The strategy to use for this call only.
+     * @param query    The search query.
+     * @param catalog  The book catalog to search, keyed by ISBN.
+     * @return The matching books.
+     */
+    public List<Book> executeSearch(SearchStrategy strategy, String query, Map<String, Book> catalog) {
         if (strategy == null) {
-            throw new IllegalStateException("Search strategy not set.");
+            throw new IllegalArgumentException("Search strategy must not be null.");
         }
         return strategy.search(query, catalog);
     }
+
+    /**
+     * Runs a search with a registered strategy.
+     *
+     * @param strategyName The name the strategy was registered under.
+     * @param query        The search query.
+     * @param catalog      The book catalog to search, keyed by ISBN.
+     * @return The matching books.
+     */
+    public List<Book> executeSearch(String strategyName, String query, Map<String, Book> catalog) {
+        SearchStrategy strategy = getStrategy(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No search strategy registered as '" + strategyName + "'.");
+        }
+        return executeSearch(strategy, query, catalog);
+    }
+
+    /**
+     * Streams the results of a search without materializing them.
+     *
+     * @param strategy The strategy to use for this call only.
+     * @param query    The search query.
+     * @param catalog  The book catalog to search, keyed by ISBN.
+     * @return A lazy stream of matching books, in the strategy's order.
+     */
+    public Stream<Book> streamSearch(SearchStrategy strategy, String query, Map<String, Book> catalog) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Search strategy must not be null.");
+        }
+        return strategy.stream(query, catalog);
+    }
+
+    /**
+     * Returns one page of results.
+     * <p>
+     * For RELEVANCE the strategy's stream is skipped and cut, so memory is
+     * proportional to the page. For TITLE or YEAR a bounded heap keeps only
+     * the best (offset + limit) books while the matches stream past.
+     *
+     * @param strategy The strategy to use for this call only.
+     * @param query    The search query.
+     * @param catalog  The book catalog to search, keyed by ISBN.
+     * @param ordering The result order.
+     * @param offset   How many results to skip (0-based).
+     * @param limit    The page size.
+     * @return The requested page.
+     */
+    public SearchPage searchPage(SearchStrategy strategy, String query, Map<String, Book> catalog,
+                                 BookOrdering ordering, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Offset must be >= 0 and limit must be > 0.");
+        }
+        Comparator<Book> comparator = ordering == null ? null : ordering.comparator();
+
+        if (comparator == null) {
+            // Fetch one extra element to know whether another page follows
+            List<Book> window = streamSearch(strategy, query, catalog)
+                    .skip(offset)
+                    .limit(limit + 1L)
+                    .collect(Collectors.toList());
+            boolean hasMore = window.size() > limit;
+            return new SearchPage(hasMore ? window.subList(0, limit) : window, offset, limit, hasMore);
+        }
+
+        int keep = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        TopKCollector<Book> topK = new TopKCollector<>(keep, comparator);
+        streamSearch(strategy, query, catalog).forEach(topK::offer);
+
+        List<Book> best = topK.toSortedList();
+        List<Book> page = offset >= best.size() ? List.of() : best.subList(offset, best.size());
+        boolean hasMore = topK.getSeenCount() > (long) offset + page.size();
+        return new SearchPage(page, offset, limit, hasMore);
+    }
 }
@@ -4,10 +4,50 @@ import org.com.librarysystem.core.Book;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface SearchStrategy {
     List<Book> search(String query, Map<String, Book> bookCatalog);
+
+    /**
+     * Streams the matches instead of collecting them, so callers that only
+     * need a page (or the top k) don't pay for a full result list.
+     * The default materializes {@link #search}; strategies that can produce
+     * matches lazily override it.
+     *
+     * @param query       The search query.
+     * @param bookCatalog The master map of all book titles, keyed by ISBN.
+     * @return A stream of matching books, in the strategy's result order.
+     */
+    default Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
+        return search(query, bookCatalog).stream();
+    }
+
+    /**
+     * Normalizes a query so that queries this strategy treats identically
+     * map to the same value (used as part of the search cache key).
+     * The default keeps the query as-is, which is always safe.
+     *
+     * @param query The raw query.
+     * @return The normalized query.
+     */
+    default String normalizeQuery(String query) {
+        return query;
+    }
+
+    /**
+     * Tells whether a single book would be returned for the query.
+     * Used by the search cache to invalidate only the entries a catalog
+     * change affects. The default runs the search over a one-book catalog;
+     * scan strategies override it with their predicate.
+     *
+     * @param query The search query.
+     * @param book  The book to test.
+     * @return true if the book matches the query.
+     */
+    default boolean matches(String query, Book book) {
+        return !search(query, Map.of(book.getIsbn(), book)).isEmpty();
+    }
 }
 
 
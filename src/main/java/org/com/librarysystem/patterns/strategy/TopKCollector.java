@@ -0,0 +1,63 @@
+package org.com.librarysystem.patterns.strategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k smallest elements (by a comparator) seen in a stream,
+ * using a bounded max-heap. Memory is O(k) no matter how many elements
+ * are offered; each offer costs O(log k).
+ *
+ * @param <T> The element type.
+ */
+public class TopKCollector<T> {
+
+    private final int k;
+    private final Comparator<? super T> comparator;
+    // Max-heap: the head is the worst element currently kept
+    private final PriorityQueue<T> heap;
+    private long seen;
+
+    public TopKCollector(int k, Comparator<? super T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative.");
+        }
+        this.k = k;
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), comparator.reversed());
+    }
+
+    /**
+     * Offers an element; it is kept only if it ranks among the best k so far.
+     */
+    public void offer(T element) {
+        seen++;
+        if (k == 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(element);
+        } else if (comparator.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    /**
+     * @return How many elements were offered in total.
+     */
+    public long getSeenCount() {
+        return seen;
+    }
+
+    /**
+     * @return The kept elements, best first.
+     */
+    public List<T> toSortedList() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
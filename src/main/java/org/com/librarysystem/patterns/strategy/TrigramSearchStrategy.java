@@ -0,0 +1,62 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.index.TrigramIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A concrete strategy for case-insensitive "contains" searches on title or author.
+ * Implements the SearchStrategy interface.
+ * <p>
+ * Returns the same books as SearchByTitleStrategy / SearchByAuthorStrategy
+ * (so fragments like "erber" still find "Herbert"), but gets its candidates
+ * from the TrigramIndex and only verifies those, instead of scanning every book.
+ */
+public class TrigramSearchStrategy implements SearchStrategy {
+
+    private final TrigramIndex index;
+    private final BookField field;
+
+    public TrigramSearchStrategy(TrigramIndex index, BookField field) {
+        this.index = index;
+        this.field = field;
+    }
+
+    /**
+     * Searches for books whose field contains the query, ignoring case.
+     *
+     * @param query       The text (or fragment) to search for.
+     * @param bookCatalog The master map of all book titles, keyed by ISBN.
+     * @return A List of Book objects that match the query.
+     */
+    @Override
+    public List<Book> search(String query, Map<String, Book> bookCatalog) {
+        return stream(query, bookCatalog).collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily resolves and verifies the trigram candidates.
+     */
+    @Override
+    public Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
+        return index.candidates(field, query).stream()
+                .map(bookCatalog::get)
+                // Verification step: drop trigram false positives
+                .filter(book -> book != null && TrigramIndex.matches(field, book, query));
+    }
+
+    @Override
+    public String normalizeQuery(String query) {
+        return query.toLowerCase();
+    }
+
+    @Override
+    public boolean matches(String query, Book book) {
+        return TrigramIndex.matches(field, book, query);
+    }
+}
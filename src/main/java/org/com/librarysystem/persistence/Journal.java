@@ -0,0 +1,503 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.enums.JournalSyncMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal, split into numbered segment files, with group commit.
+ * <p>
+ * A segment is a 16-byte header (magic, version, segment number) followed by
+ * records framed as {@code [int length][int CRC32][payload]}. A record torn by
+ * a crash fails its length or CRC check, and reading stops there.
+ * <p>
+ * Callers encode their record on their own thread and copy it into a shared
+ * buffer under a short lock. One writer thread swaps that buffer for an empty
+ * one, writes the whole batch with a single write call and, depending on the
+ * {@link JournalSyncMode}, a single fsync, then wakes every caller whose record
+ * was in the batch. Under load many mutations share one fsync; when idle, a
+ * record is written as soon as it arrives. If the buffer is full, appends wait.
+ * <p>
+ * {@link #rotate()} closes the current segment and starts the next one, so a
+ * snapshot can name the first segment it does not cover.
+ */
+final class Journal {
+
+    static final int HEADER_BYTES = 16;
+    private static final int MAGIC = 0x4C4D534A; // "LMSJ"
+    private static final int VERSION = 2; // 2: returns, new copies and hold expiries carry their hand-off
+    private static final int FRAME_BYTES = 8; // Length and CRC before each payload
+    static final int MAX_RECORD_BYTES = 16 << 20;
+    private static final int READ_CHUNK_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final JournalSyncMode syncMode;
+    private final long syncIntervalNanos;
+    private final int bufferBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final Condition progress = lock.newCondition();
+
+    // --- Guarded by lock ---
+    private ByteBuffer filling; // Records waiting for the writer
+    private ByteBuffer spare; // The other half of the double buffer
+    private long appendedSeq; // Last sequence number handed out
+    private long writtenSeq; // Last sequence written to the OS
+    private long syncedSeq; // Last sequence forced to disk
+    private long segment;
+    private long rotateTo = -1;
+    private boolean closed;
+    private IOException failure;
+    private long batchCount;
+    private long syncCount;
+
+    private FileChannel channel; // Writer thread only, once started
+    private final Thread writerThread;
+
+    /**
+     * Creates the first segment and starts the writer thread.
+     *
+     * @param directory    Where segment files live.
+     * @param segment      Number of the segment to start (must not exist yet).
+     * @param syncMode     When writes are forced to disk.
+     * @param syncInterval Longest time between fsyncs in INTERVAL mode.
+     * @param bufferBytes  Capacity of each half of the double buffer (the largest batch).
+     */
+    Journal(Path directory, long segment, JournalSyncMode syncMode, Duration syncInterval, int bufferBytes) {
+        if (bufferBytes < 1024 || syncInterval.isNegative()) {
+            throw new IllegalArgumentException("Buffer must be at least 1 KiB and the sync interval non-negative.");
+        }
+        this.directory = directory;
+        this.syncMode = syncMode;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.bufferBytes = bufferBytes;
+        this.filling = ByteBuffer.allocateDirect(bufferBytes);
+        this.spare = ByteBuffer.allocateDirect(bufferBytes);
+        this.segment = segment;
+        try {
+            this.channel = openSegment(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + segmentFile(directory, segment), e);
+        }
+        this.writerThread = new Thread(this::writeLoop, "journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a record. Returns once the record is in the buffer, not once it is on disk.
+     *
+     * @return The record's sequence number, for {@link #awaitDurable(long)}.
+     */
+    long append(RecordBuffer record) {
+        checkSize(record);
+        int frameLength = FRAME_BYTES + record.length();
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.length());
+
+        lock.lock();
+        try {
+            checkOpen();
+            while (filling.remaining() < frameLength) {
+                spaceAvailable.awaitUninterruptibly();
+                checkOpen();
+            }
+            boolean wasEmpty = filling.position() == 0;
+            filling.putInt(record.length()).putInt((int) crc.getValue()).put(record.array(), 0, record.length());
+            if (wasEmpty) {
+                workAvailable.signal();
+            }
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues several records in order. Every record's size is checked before
+     * any is queued, so a record the journal cannot take leaves none behind.
+     *
+     * @return The last record's sequence number (0 if there were none).
+     */
+    long append(List<RecordBuffer> records) {
+        for (RecordBuffer record : records) {
+            checkSize(record);
+        }
+        long sequence = 0;
+        for (RecordBuffer record : records) {
+            sequence = append(record);
+        }
+        return sequence;
+    }
+
+    private void checkSize(RecordBuffer record) {
+        if (FRAME_BYTES + record.length() > bufferBytes || record.length() > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Journal record of " + record.length() + " bytes is larger than the journal accepts.");
+        }
+    }
+
+    /**
+     * @return The sequence number of the last record appended so far.
+     */
+    long getAppendedSequence() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a record is durable: fsynced in EVERY_BATCH mode, handed to
+     * the OS in the other modes (so it survives a crash of this process).
+     *
+     * @param sequence A sequence number returned by {@link #append}.
+     */
+    void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while ((syncMode == JournalSyncMode.EVERY_BATCH ? syncedSeq : writtenSeq) < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+                progress.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and fsyncs everything appended so far, then starts a new segment.
+     * Callers must make sure nothing is appended concurrently.
+     *
+     * @return The number of the new segment.
+     */
+    long rotate() {
+        lock.lock();
+        try {
+            checkOpen();
+            rotateTo = segment + 1;
+            workAvailable.signal();
+            while (rotateTo >= 0) {
+                checkOpen();
+                progress.awaitUninterruptibly();
+            }
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and fsyncs what is buffered, then closes the segment.
+     */
+    void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getSegment() {
+        lock.lock();
+        try {
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return How many batches the writer has written (each is one write call).
+     */
+    long getBatchCount() {
+        lock.lock();
+        try {
+            return batchCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return How many times the writer has forced the segment to disk.
+     */
+    long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void writeLoop() {
+        long lastSyncNanos = System.nanoTime();
+        long synced = 0;
+        while (true) {
+            ByteBuffer batch;
+            long batchSeq;
+            long rotation;
+            boolean closing;
+            lock.lock();
+            try {
+                while (filling.position() == 0 && rotateTo < 0 && !closed) {
+                    if (syncMode == JournalSyncMode.INTERVAL && synced < writtenSeq) {
+                        long remaining = syncIntervalNanos - (System.nanoTime() - lastSyncNanos);
+                        if (remaining <= 0) {
+                            break; // Time for the deferred fsync
+                        }
+                        try {
+                            workAvailable.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    } else {
+                        workAvailable.awaitUninterruptibly();
+                    }
+                }
+                batch = filling;
+                filling = spare;
+                spare = batch;
+                batchSeq = appendedSeq;
+                rotation = rotateTo;
+                closing = closed;
+                spaceAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            boolean wrote = batch.position() > 0;
+            boolean sync;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                batch.clear();
+
+                long now = System.nanoTime();
+                sync = batchSeq > synced && (rotation >= 0 || closing || switch (syncMode) {
+                    case EVERY_BATCH -> true;
+                    case INTERVAL -> now - lastSyncNanos >= syncIntervalNanos;
+                    case NONE -> false;
+                });
+                if (sync) {
+                    channel.force(false);
+                    lastSyncNanos = now;
+                    synced = batchSeq;
+                }
+                if (rotation >= 0 || closing) {
+                    channel.close();
+                }
+                if (rotation >= 0 && !closing) {
+                    channel = openSegment(rotation);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    spaceAvailable.signalAll();
+                    progress.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                writtenSeq = batchSeq;
+                if (sync) {
+                    syncedSeq = batchSeq;
+                    syncCount++;
+                }
+                if (wrote) {
+                    batchCount++;
+                }
+                if (rotation >= 0) {
+                    segment = rotation;
+                    rotateTo = -1;
+                }
+                progress.signalAll();
+                if (closing) {
+                    return; // Appends are refused once closed, so nothing is left
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel created = FileChannel.open(segmentFile(directory, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(number).flip();
+        while (header.hasRemaining()) {
+            created.write(header);
+        }
+        syncDirectory(directory);
+        return created;
+    }
+
+    // --- Files ---
+
+    static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(String.format("journal-%016x.log", segment));
+    }
+
+    /**
+     * @return The segment numbers present in a directory, in ascending order.
+     */
+    static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseUnsignedLong(name.substring(8, name.length() - 4), 16));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Reads a segment's records in order, stopping at the first torn or
+     * corrupt one.
+     * <p>
+     * The file is streamed through a buffer of about 1 MiB (grown for a larger
+     * record), so segments of any size can be read; offsets are longs.
+     *
+     * @param file    The segment file.
+     * @param handler Receives each record's payload (positioned at its first
+     *                byte); the bytes are only valid until the handler returns.
+     * @return The length of the valid prefix of the file (0 if the header is torn).
+     * @throws IOException if the file cannot be read or has another format version.
+     */
+    static long read(Path file, Consumer<ByteBuffer> handler) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_BYTES) {
+                return 0;
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) Math.min(size, READ_CHUNK_BYTES));
+            data.limit(0);
+            if (!fill(in, data, HEADER_BYTES) || data.getInt() != MAGIC) {
+                return 0;
+            }
+            int version = data.getInt();
+            if (version != VERSION) {
+                // Written by another release: not torn, and must not be cut
+                throw new IOException("Journal segment " + file + " has unsupported version " + version);
+            }
+            data.getLong(); // Segment number
+            long offset = HEADER_BYTES; // File offset of data.position()
+            CRC32 crc = new CRC32();
+            while (fill(in, data, FRAME_BYTES)) {
+                int length = data.getInt(data.position());
+                int expected = data.getInt(data.position() + 4);
+                if (length < 1 || length > MAX_RECORD_BYTES || length > size - offset - FRAME_BYTES) {
+                    return offset;
+                }
+                if (data.capacity() < FRAME_BYTES + length) {
+                    data = ByteBuffer.allocate(FRAME_BYTES + length).put(data).flip();
+                }
+                if (!fill(in, data, FRAME_BYTES + length)) {
+                    return offset; // The file shrank while being read
+                }
+                ByteBuffer payload = data.slice(data.position() + FRAME_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expected) {
+                    return offset;
+                }
+                handler.accept(payload);
+                data.position(data.position() + FRAME_BYTES + length);
+                offset += FRAME_BYTES + length;
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Makes at least {@code needed} bytes readable in a buffer (in read mode),
+     * moving the unread bytes to the front and reading more from the file.
+     *
+     * @return false if the file ends first.
+     */
+    private static boolean fill(FileChannel in, ByteBuffer data, int needed) throws IOException {
+        if (data.remaining() >= needed) {
+            return true;
+        }
+        data.compact();
+        try {
+            while (data.position() < needed) {
+                if (in.read(data) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            data.flip();
+        }
+    }
+
+    /**
+     * Makes a file creation or rename in a directory durable (best effort;
+     * not every platform can open a directory).
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+}
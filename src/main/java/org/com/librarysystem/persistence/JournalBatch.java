@@ -0,0 +1,106 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.HoldHandOff;
+import org.com.librarysystem.core.LendingRecord;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.JournalRecordType;
+import org.com.librarysystem.service.LendingService;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The journal records of one {@link JournaledChange}, encoded on the caller's
+ * thread and appended together. Each record carries everything replay needs
+ * to repeat the change exactly: original IDs, dates and hold hand-offs.
+ */
+public final class JournalBatch {
+
+    private final List<RecordBuffer> records = new ArrayList<>();
+
+    JournalBatch() {
+    }
+
+    public void recordBookAdded(Book book) {
+        records.add(new RecordBuffer(JournalRecordType.ADD_BOOK)
+                .putString(book.getIsbn())
+                .putString(book.getTitle())
+                .putString(book.getAuthor())
+                .putInt(book.getPublicationYear())
+                .putByte(book.getType() != null ? book.getType().ordinal() : -1));
+    }
+
+    public void recordItemAdded(String barcode, Book book, Branch branch, HoldHandOff handOff) {
+        records.add(putHandOff(new RecordBuffer(JournalRecordType.ADD_BOOK_ITEM)
+                .putString(barcode)
+                .putString(book.getIsbn())
+                .putString(branch != null ? branch.getBranchId() : null)
+                .putString(branch != null ? branch.getName() : null), handOff));
+    }
+
+    public void recordPatronAdded(Patron patron) {
+        records.add(new RecordBuffer(JournalRecordType.ADD_PATRON)
+                .putString(patron.getPatronId())
+                .putString(patron.getName())
+                .putString(patron.getEmail()));
+    }
+
+    public void recordCheckout(LendingRecord record) {
+        records.add(new RecordBuffer(JournalRecordType.CHECKOUT)
+                .putString(record.getRecordId())
+                .putString(record.getPatronId())
+                .putString(record.getBookItemBarcode())
+                .putLong(record.getCheckoutDate().toEpochDay())
+                .putLong(record.getDueDate().toEpochDay()));
+    }
+
+    public void recordReturn(LendingService.PlannedReturn planned) {
+        records.add(putHandOff(new RecordBuffer(JournalRecordType.RETURN)
+                .putString(planned.getBarcode())
+                .putLong(planned.getReturnDate().toEpochDay()), planned.getHandOff()));
+    }
+
+    public void recordReservation(Reservation reservation) {
+        Branch pickup = reservation.getPickupBranch();
+        records.add(new RecordBuffer(JournalRecordType.RESERVE)
+                .putString(reservation.getReservationId())
+                .putString(reservation.getPatron().getPatronId())
+                .putString(reservation.getBook().getIsbn())
+                .putString(pickup != null ? pickup.getBranchId() : null)
+                .putString(pickup != null ? pickup.getName() : null)
+                .putLong(reservation.getDateReserved().toEpochDay()));
+    }
+
+    public void recordReservationCancelled(String reservationId) {
+        records.add(new RecordBuffer(JournalRecordType.CANCEL_RESERVATION).putString(reservationId));
+    }
+
+    public void recordHoldExpired(String barcode, HoldHandOff next) {
+        records.add(putHandOff(new RecordBuffer(JournalRecordType.EXPIRE_HOLD).putString(barcode), next));
+    }
+
+    boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    List<RecordBuffer> getRecords() {
+        return records;
+    }
+
+    // Reservation ID (null = shelved), then the pickup deadline in epoch millis if there is one
+    private static RecordBuffer putHandOff(RecordBuffer record, HoldHandOff handOff) {
+        record.putString(handOff.getReservationId());
+        return handOff.isShelved() ? record : record.putLong(handOff.getPickupDeadline().toEpochMilli());
+    }
+
+    static HoldHandOff getHandOff(ByteBuffer in) {
+        String reservationId = RecordBuffer.getString(in);
+        return reservationId == null ? HoldHandOff.shelved()
+                : HoldHandOff.to(reservationId, Instant.ofEpochMilli(in.getLong()));
+    }
+}
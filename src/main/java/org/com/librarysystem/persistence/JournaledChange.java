@@ -0,0 +1,59 @@
+package org.com.librarysystem.persistence;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A mutation that has been validated and decided (IDs, dates, hold hand-offs)
+ * but not applied yet. {@link LibraryPersistence} journals it, waits until the
+ * records are durable, and only then applies it, so memory never shows a
+ * change the journal could lose.
+ *
+ * @param <T> The mutation's result.
+ */
+public interface JournaledChange<T> {
+
+    /**
+     * Adds the records that describe the change (none if it changes nothing).
+     *
+     * @param batch The records to append together.
+     */
+    void journal(JournalBatch batch);
+
+    /**
+     * Makes the change in memory, once its records are durable.
+     *
+     * @return The mutation's result.
+     */
+    T apply();
+
+    /**
+     * Gives back what preparing the change took (e.g., a patron's loan slot)
+     * when its records could not be made durable. Nothing else has changed.
+     */
+    default void abandon() {
+    }
+
+    static <T> JournaledChange<T> of(Consumer<JournalBatch> journal, Supplier<T> apply) {
+        return of(journal, apply, () -> { });
+    }
+
+    static <T> JournaledChange<T> of(Consumer<JournalBatch> journal, Supplier<T> apply, Runnable abandon) {
+        return new JournaledChange<>() {
+            @Override
+            public void journal(JournalBatch batch) {
+                journal.accept(batch);
+            }
+
+            @Override
+            public T apply() {
+                return apply.get();
+            }
+
+            @Override
+            public void abandon() {
+                abandon.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,447 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.JournalRecordType;
+import org.com.librarysystem.enums.JournalSyncMode;
+import org.com.librarysystem.enums.ReservationStatus;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.service.BookManagementService;
+import org.com.librarysystem.service.LendingService;
+import org.com.librarysystem.service.PatronManagementService;
+import org.com.librarysystem.service.ReservationService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Makes the library's state durable: a write-ahead journal of every mutation
+ * plus periodic snapshots, both in one directory.
+ * <p>
+ * The facade runs each mutation through {@link #execute} in three steps,
+ * under a lock stripe chosen by the title's ISBN: the mutation is validated
+ * and decided without changing anything (IDs, dates, which reservation a copy
+ * goes to), its journal records are appended and the caller waits until they
+ * are durable, and only then is it applied in memory. Mutations that can
+ * affect each other (same copy, same title's hold queue) share a stripe, so
+ * the journal holds them in the order they are applied, while unrelated
+ * titles run in parallel and share fsyncs through the journal's group commit.
+ * <p>
+ * If the journal rejects a record or a write fails, the mutation is abandoned
+ * and memory is left as it was. The records may still have reached the disk,
+ * so the outcome of that mutation is decided by what recovery finds after a
+ * restart; a write failure is sticky, so nothing later is acknowledged in the
+ * meantime.
+ * <p>
+ * {@link #open()} recovers before the journal starts: it loads the newest
+ * snapshot that passes its checks, replays the journal segments written after
+ * it with the original IDs and dates, and cuts off a torn tail. A record that
+ * is intact but cannot be applied stops recovery: every later record may
+ * depend on it, so nothing after it is applied and the files are left as they
+ * are for inspection.
+ * {@link #snapshot()} (run from a scheduler, e.g. hourly) pauses mutations only
+ * while the state is copied in memory; the file is written afterwards, and
+ * then segments and snapshots older than the previous snapshot are deleted,
+ * so one older generation is always kept to fall back on.
+ * <p>
+ * Not journaled: catalog and patron edits (updateBook, updatePatron), item
+ * removal and status changes outside lending, and notifications.
+ */
+public class LibraryPersistence {
+
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(50);
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path directory;
+    private final JournalSyncMode syncMode;
+    private final Duration syncInterval;
+    private final int bufferBytes;
+
+    private final BookManagementService bookSvc;
+    private final PatronManagementService patronSvc;
+    private final LendingService lendingSvc;
+    private final ReservationService reservationSvc;
+
+    // Branch objects by ID, so restored items and holds share the live branches
+    private final Map<String, Branch> branches = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private volatile Journal journal;
+    private volatile long recordsAtSnapshot;
+
+    private static final Logger logger = Logger.getInstance();
+
+    /**
+     * Group commit (every write batch fsynced) with the default buffer.
+     */
+    public LibraryPersistence(Path directory, BookManagementService bookSvc, PatronManagementService patronSvc,
+                              LendingService lendingSvc, ReservationService reservationSvc) {
+        this(directory, JournalSyncMode.EVERY_BATCH, DEFAULT_SYNC_INTERVAL, DEFAULT_BUFFER_BYTES,
+                bookSvc, patronSvc, lendingSvc, reservationSvc);
+    }
+
+    /**
+     * @param directory    Where journal segments and snapshots are kept.
+     * @param syncMode     When journal writes are forced to disk.
+     * @param syncInterval Longest time between fsyncs in INTERVAL mode.
+     * @param bufferBytes  Journal buffer size (the largest write batch).
+     */
+    public LibraryPersistence(Path directory, JournalSyncMode syncMode, Duration syncInterval, int bufferBytes,
+                              BookManagementService bookSvc, PatronManagementService patronSvc,
+                              LendingService lendingSvc, ReservationService reservationSvc) {
+        this.directory = directory;
+        this.syncMode = syncMode;
+        this.syncInterval = syncInterval;
+        this.bufferBytes = bufferBytes;
+        this.bookSvc = bookSvc;
+        this.patronSvc = patronSvc;
+        this.lendingSvc = lendingSvc;
+        this.reservationSvc = reservationSvc;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Registers a live branch before {@link #open()}, so restored copies and
+     * holds point at it instead of a new Branch with the same ID.
+     */
+    public void registerBranch(Branch branch) {
+        branches.put(branch.getBranchId(), branch);
+    }
+
+    /**
+     * Restores the services (which must be empty) from the directory, then
+     * starts a new journal segment. Call once, before the library takes requests.
+     *
+     * @return What was recovered and how long it took.
+     * @throws IllegalStateException if an intact journal record cannot be
+     *                               replayed, a segment other than the last
+     *                               is damaged, or a segment is missing.
+     *                               The services are then partly
+     *                               restored and must be discarded; no journal
+     *                               is started and no file is changed.
+     */
+    public synchronized RecoveryReport open() {
+        if (journal != null) {
+            throw new IllegalStateException("Persistence is already open.");
+        }
+        long start = System.nanoTime();
+        long snapshotSegment = -1;
+        long replayed = 0;
+        long truncated = 0;
+        long nextSegment = 0;
+
+        reservationSvc.setNotificationsSuppressed(true); // Patrons were told the first time
+        try {
+            Files.createDirectories(directory);
+
+            // --- Newest snapshot that passes its checks (it is verified before anything is restored) ---
+            for (long segment : SnapshotFile.listSnapshots(directory)) {
+                Path file = SnapshotFile.snapshotFile(directory, segment);
+                try {
+                    snapshotSegment = SnapshotFile.load(file, bookSvc, patronSvc, lendingSvc, reservationSvc, branches);
+                    nextSegment = snapshotSegment;
+                    break;
+                } catch (IOException e) {
+                    logger.error("Skipping unreadable snapshot {}: {}", file, e.getMessage());
+                }
+            }
+
+            // --- Journal tail: consecutive segments from the snapshot's (or from 0) ---
+            long firstSegment = nextSegment;
+            List<Long> segments = Journal.listSegments(directory);
+            segments.removeIf(segment -> segment < firstSegment);
+            for (int i = 0; i < segments.size(); i++) {
+                long segment = segments.get(i);
+                if (segment != nextSegment) {
+                    logger.error("Journal segment {} is missing; found {} next", nextSegment, segment);
+                    throw new IllegalStateException("Recovery stopped: journal segment " + nextSegment
+                            + " is missing, so the records after it cannot be replayed.");
+                }
+                Path file = Journal.segmentFile(directory, segment);
+                long[] applied = new long[1];
+                long valid = Journal.read(file, payload -> {
+                    try {
+                        replay(payload);
+                        applied[0]++;
+                    } catch (RuntimeException e) {
+                        // Later records may depend on this one, so applying them would diverge further
+                        logger.error("Journal replay failed at record {} of segment {}: {}",
+                                applied[0], segment, e.getMessage());
+                        throw new IllegalStateException("Recovery stopped: record " + applied[0] + " of journal segment "
+                                + segment + " could not be replayed.", e);
+                    }
+                });
+                replayed += applied[0];
+                long size = Files.size(file);
+                if (valid < size) {
+                    if (i < segments.size() - 1) {
+                        // Only the segment being written at a crash can be torn; damage here loses later history
+                        logger.error("Journal segment {} is damaged at byte {} of {}", segment, valid, size);
+                        throw new IllegalStateException("Recovery stopped: journal segment " + segment
+                                + " is damaged at byte " + valid + ", and later segments depend on it.");
+                    }
+                    truncated += size - valid;
+                    logger.warn("Cutting torn journal tail of {} byte(s) from {}", size - valid, file);
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                        channel.force(true);
+                    }
+                }
+                nextSegment = segment + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Recovery from " + directory + " failed", e);
+        } finally {
+            reservationSvc.setNotificationsSuppressed(false);
+        }
+
+        journal = new Journal(directory, nextSegment, syncMode, syncInterval, bufferBytes);
+        RecoveryReport report = new RecoveryReport(snapshotSegment, replayed, truncated,
+                Duration.ofNanos(System.nanoTime() - start));
+        logger.info("Persistence opened in {}: {}", directory, report);
+        return report;
+    }
+
+    // --- Running mutations ---
+
+    /**
+     * Runs a mutation under the stripe for one key (an ISBN, or another key
+     * for mutations that touch no title): prepares it, journals it and waits
+     * until its records are durable, then applies it.
+     *
+     * @param prepare Validates the mutation and decides it, without changing anything.
+     * @return The mutation's result.
+     */
+    public <T> T execute(String key, Supplier<? extends JournaledChange<T>> prepare) {
+        ReentrantLock stripe = stripes[stripeOf(key)];
+        stripe.lock();
+        try {
+            return commit(prepare.get());
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #execute(String, Supplier)} for a mutation spanning several
+     * keys (e.g., a bulk checkout across titles). Stripes are taken in index
+     * order, so two bulk mutations cannot deadlock.
+     */
+    public <T> T execute(Collection<String> keys, Supplier<? extends JournaledChange<T>> prepare) {
+        boolean[] needed = new boolean[LOCK_STRIPES];
+        for (String key : keys) {
+            needed[stripeOf(key)] = true;
+        }
+        return runLocked(needed, prepare);
+    }
+
+    /**
+     * Runs a mutation with every stripe held (e.g., hold expiry, which can
+     * touch any title).
+     */
+    public <T> T executeExclusive(Supplier<? extends JournaledChange<T>> prepare) {
+        boolean[] all = new boolean[LOCK_STRIPES];
+        Arrays.fill(all, true);
+        return runLocked(all, prepare);
+    }
+
+    private <T> T runLocked(boolean[] needed, Supplier<? extends JournaledChange<T>> prepare) {
+        int locked = 0;
+        try {
+            for (; locked < LOCK_STRIPES; locked++) {
+                if (needed[locked]) {
+                    stripes[locked].lock();
+                }
+            }
+            return commit(prepare.get());
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (needed[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+    }
+
+    // Caller holds the change's stripes, so nothing it decided can change before it is applied
+    private <T> T commit(JournaledChange<T> change) {
+        Journal current = openJournal();
+        JournalBatch batch = new JournalBatch();
+        try {
+            change.journal(batch);
+            if (!batch.isEmpty()) {
+                current.awaitDurable(current.append(batch.getRecords()));
+            }
+        } catch (RuntimeException e) {
+            change.abandon();
+            throw e;
+        }
+        try {
+            return change.apply();
+        } catch (RuntimeException e) {
+            // The records are durable: recovery will try to apply them too, and stop there
+            logger.error("CRITICAL: A journaled change could not be applied: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    // --- Snapshots ---
+
+    /**
+     * Writes a snapshot and deletes what the previous snapshot made obsolete.
+     * Mutations wait only while the state is copied in memory.
+     *
+     * @return The snapshot file.
+     */
+    public synchronized Path snapshot() {
+        Journal current = openJournal();
+        bookSvc.materializeAll(); // Copies still only in a mapped catalog image must be in the snapshot
+        long start = System.nanoTime();
+        long segment;
+        SnapshotFile.Image image;
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            segment = current.rotate();
+            image = SnapshotFile.capture(bookSvc, patronSvc, reservationSvc);
+            recordsAtSnapshot = current.getAppendedSequence();
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+        long paused = System.nanoTime() - start;
+
+        try {
+            Path file = SnapshotFile.write(directory, segment, image);
+            deleteObsolete();
+            logger.info("Snapshot {} written in {} ms (mutations paused {} ms)", file.getFileName(),
+                    (System.nanoTime() - start) / 1_000_000, paused / 1_000_000);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing snapshot for segment " + segment + " failed", e);
+        }
+    }
+
+    /**
+     * @return How many journal records were appended since the last snapshot
+     *         (a scheduler can snapshot once this grows large).
+     */
+    public long getRecordsSinceSnapshot() {
+        return openJournal().getAppendedSequence() - recordsAtSnapshot;
+    }
+
+    /**
+     * Writes out and fsyncs the journal, then closes it.
+     */
+    public synchronized void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // Keeps the two newest snapshots and the segments the older of them needs
+    private void deleteObsolete() throws IOException {
+        List<Long> snapshots = SnapshotFile.listSnapshots(directory);
+        if (snapshots.size() < 2) {
+            return;
+        }
+        long keepFrom = snapshots.get(1);
+        for (int i = 2; i < snapshots.size(); i++) {
+            Files.deleteIfExists(SnapshotFile.snapshotFile(directory, snapshots.get(i)));
+        }
+        for (long segment : Journal.listSegments(directory)) {
+            if (segment < keepFrom) {
+                Files.deleteIfExists(Journal.segmentFile(directory, segment));
+            }
+        }
+    }
+
+    // --- Replay ---
+
+    private void replay(ByteBuffer in) {
+        JournalRecordType type = JournalRecordType.fromCode(in.get());
+        if (type == null) {
+            throw new IllegalStateException("Unknown journal record type.");
+        }
+        switch (type) {
+            case ADD_BOOK -> {
+                String isbn = RecordBuffer.getString(in);
+                String title = RecordBuffer.getString(in);
+                String author = RecordBuffer.getString(in);
+                int year = in.getInt();
+                int bookType = in.get();
+                bookSvc.restoreBook(new Book(isbn, title, author, year, bookType < 0 ? null : BookType.values()[bookType]));
+            }
+            case ADD_BOOK_ITEM -> {
+                String barcode = RecordBuffer.getString(in);
+                Book book = bookSvc.getBookByIsbn(RecordBuffer.getString(in));
+                Branch branch = branch(RecordBuffer.getString(in), RecordBuffer.getString(in));
+                BookItem item = bookSvc.restoreBookItem(barcode, book, branch, BookStatus.AVAILABLE);
+                reservationSvc.offerAvailableCopy(item, JournalBatch.getHandOff(in));
+            }
+            case ADD_PATRON -> patronSvc.restorePatron(RecordBuffer.getString(in),
+                    RecordBuffer.getString(in), RecordBuffer.getString(in));
+            case CHECKOUT -> lendingSvc.replayCheckout(RecordBuffer.getString(in), RecordBuffer.getString(in),
+                    RecordBuffer.getString(in), LocalDate.ofEpochDay(in.getLong()), LocalDate.ofEpochDay(in.getLong()));
+            case RETURN -> lendingSvc.applyReturn(new LendingService.PlannedReturn(RecordBuffer.getString(in),
+                    LocalDate.ofEpochDay(in.getLong()), JournalBatch.getHandOff(in)));
+            case RESERVE -> {
+                String reservationId = RecordBuffer.getString(in);
+                Patron patron = patronSvc.getPatronById(RecordBuffer.getString(in));
+                Book book = bookSvc.getBookByIsbn(RecordBuffer.getString(in));
+                Branch pickup = branch(RecordBuffer.getString(in), RecordBuffer.getString(in));
+                if (patron == null || book == null) {
+                    throw new IllegalStateException("Reservation " + reservationId + " names an unknown patron or book.");
+                }
+                Reservation reservation = new Reservation(reservationId, patron, book,
+                        ReservationStatus.PENDING, LocalDate.ofEpochDay(in.getLong()));
+                reservation.setPickupBranch(pickup);
+                reservationSvc.restoreReservation(reservation);
+            }
+            case CANCEL_RESERVATION -> reservationSvc.cancelReservation(RecordBuffer.getString(in));
+            case EXPIRE_HOLD -> reservationSvc.applyHoldExpiry(RecordBuffer.getString(in), JournalBatch.getHandOff(in));
+        }
+    }
+
+    private Branch branch(String branchId, String name) {
+        return branchId == null ? null : branches.computeIfAbsent(branchId, id -> new Branch(id, name));
+    }
+
+    private Journal openJournal() {
+        Journal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("Persistence is not open.");
+        }
+        return current;
+    }
+
+    private static int stripeOf(String key) {
+        int h = key == null ? 0 : key.hashCode();
+        return ((h ^ (h >>> 16)) & 0x7fffffff) % LOCK_STRIPES;
+    }
+}
@@ -0,0 +1,83 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.enums.JournalRecordType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte array that one journal record is encoded into, on the
+ * caller's thread, before it is copied into the journal's shared buffer.
+ * <p>
+ * Integers are big-endian (as ByteBuffer reads them); strings are an int
+ * byte count (-1 for null) followed by UTF-8 bytes.
+ */
+final class RecordBuffer {
+
+    private byte[] bytes = new byte[128];
+    private int length;
+
+    RecordBuffer(JournalRecordType type) {
+        putByte(type.getCode());
+    }
+
+    RecordBuffer putByte(int value) {
+        ensure(1);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+
+    RecordBuffer putInt(int value) {
+        ensure(4);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+
+    RecordBuffer putLong(long value) {
+        putInt((int) (value >>> 32));
+        return putInt((int) value);
+    }
+
+    RecordBuffer putString(String value) {
+        if (value == null) {
+            return putInt(-1);
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        putInt(utf8.length);
+        ensure(utf8.length);
+        System.arraycopy(utf8, 0, bytes, length, utf8.length);
+        length += utf8.length;
+        return this;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * Reads a string written by {@link #putString} (or the snapshot writer).
+     */
+    static String getString(ByteBuffer in) {
+        int size = in.getInt();
+        if (size < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[size];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
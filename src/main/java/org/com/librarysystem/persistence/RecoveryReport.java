@@ -0,0 +1,59 @@
+package org.com.librarysystem.persistence;
+
+import java.time.Duration;
+
+/**
+ * What {@link LibraryPersistence#open()} did to bring the library back.
+ */
+public class RecoveryReport {
+    private final long snapshotSegment;
+    private final long replayedRecords;
+    private final long truncatedBytes;
+    private final Duration elapsed;
+
+    RecoveryReport(long snapshotSegment, long replayedRecords, long truncatedBytes, Duration elapsed) {
+        this.snapshotSegment = snapshotSegment;
+        this.replayedRecords = replayedRecords;
+        this.truncatedBytes = truncatedBytes;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return Whether state was loaded from a snapshot before the journal was replayed.
+     */
+    public boolean isSnapshotLoaded() {
+        return snapshotSegment >= 0;
+    }
+
+    /**
+     * @return The first journal segment replayed after the snapshot, or -1 without a snapshot.
+     */
+    public long getSnapshotSegment() {
+        return snapshotSegment;
+    }
+
+    /**
+     * @return How many journal records were applied.
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * @return How many bytes of torn or corrupt journal tail were cut off.
+     */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "RecoveryReport{snapshot=" + (isSnapshotLoaded() ? snapshotSegment : "none")
+                + ", replayed=" + replayedRecords + ", truncatedBytes=" + truncatedBytes
+                + ", elapsed=" + elapsed.toMillis() + " ms}";
+    }
+}
@@ -0,0 +1,444 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.LendingRecord;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.ReservationStatus;
+import org.com.librarysystem.service.BookManagementService;
+import org.com.librarysystem.service.LendingService;
+import org.com.librarysystem.service.PatronManagementService;
+import org.com.librarysystem.service.ReservationService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A compact binary image of all library state, taken at a journal segment boundary.
+ * <p>
+ * The file {@code snapshot-<segment>.bin} holds everything written to the
+ * journal before that segment. Layout, after a header (magic, version,
+ * segment, creation time): branches, books, items, patrons with their
+ * borrowing history, waiting reservations in arrival order (with their
+ * passover counts) and holds on the shelf, then a CRC32 of everything before
+ * it. Books and branches are written once and referenced by index; dates
+ * are epoch days. Enum values are written as ordinals, so {@link #VERSION}
+ * must change if BookType, BookStatus or the layout changes.
+ * <p>
+ * A snapshot is written to a temporary file, fsynced and renamed into place,
+ * so a crash never leaves a half-written snapshot under the real name. It is
+ * checked against its CRC before anything is restored from it.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x4C4D5353; // "LMSS"
+    private static final int VERSION = 2; // 2: waiting holds carry their passover count
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private SnapshotFile() {
+    }
+
+    // --- Captured state (copied while mutations are paused, written afterwards) ---
+
+    static final class Image {
+        final List<Book> books = new ArrayList<>();
+        final List<ItemImage> items = new ArrayList<>();
+        final List<PatronImage> patrons = new ArrayList<>();
+        final List<HoldImage> waiting = new ArrayList<>();
+        final List<HoldImage> ready = new ArrayList<>();
+    }
+
+    private static final class ItemImage {
+        final String barcode;
+        final String isbn;
+        final Branch branch;
+        final BookStatus status;
+
+        ItemImage(BookItem item) {
+            this.barcode = item.getBarcode();
+            this.isbn = item.getBook().getIsbn();
+            this.branch = item.getCurrentBranch();
+            this.status = item.getStatus();
+        }
+    }
+
+    private static final class PatronImage {
+        final String patronId;
+        final String name;
+        final String email;
+        final List<LoanImage> history;
+
+        PatronImage(Patron patron) {
+            this.patronId = patron.getPatronId();
+            this.name = patron.getName();
+            this.email = patron.getEmail();
+            List<LendingRecord> records = patron.getHistory().toList();
+            this.history = new ArrayList<>(records.size());
+            for (LendingRecord record : records) {
+                history.add(new LoanImage(record));
+            }
+        }
+    }
+
+    private static final class LoanImage {
+        final String recordId;
+        final String barcode;
+        final LocalDate checkoutDate;
+        final LocalDate dueDate;
+        final LocalDate returnDate;
+
+        LoanImage(LendingRecord record) {
+            this.recordId = record.getRecordId();
+            this.barcode = record.getBookItemBarcode();
+            this.checkoutDate = record.getCheckoutDate();
+            this.dueDate = record.getDueDate();
+            this.returnDate = record.getReturnDate();
+        }
+    }
+
+    private static final class HoldImage {
+        final String reservationId;
+        final String patronId;
+        final String isbn;
+        final Branch pickupBranch;
+        final LocalDate dateReserved;
+        final String heldBarcode; // Ready holds only
+        final Instant pickupDeadline; // Ready holds only
+        final int passovers; // Waiting holds only
+
+        HoldImage(Reservation reservation, int passovers) {
+            this.reservationId = reservation.getReservationId();
+            this.patronId = reservation.getPatron().getPatronId();
+            this.isbn = reservation.getBook().getIsbn();
+            this.pickupBranch = reservation.getPickupBranch();
+            this.dateReserved = reservation.getDateReserved();
+            this.heldBarcode = reservation.getHeldItem() != null ? reservation.getHeldItem().getBarcode() : null;
+            this.pickupDeadline = reservation.getPickupDeadline();
+            this.passovers = passovers;
+        }
+    }
+
+    /**
+     * Copies the mutable parts of the library state. The caller must keep
+     * mutations paused for the duration; no I/O happens here.
+     */
+    static Image capture(BookManagementService bookSvc, PatronManagementService patronSvc,
+                         ReservationService reservationSvc) {
+        Image image = new Image();
+        image.books.addAll(bookSvc.getBookCatalog().values());
+        for (BookItem item : bookSvc.getBookItems().values()) {
+            image.items.add(new ItemImage(item));
+        }
+        for (Patron patron : patronSvc.getPatrons().values()) {
+            image.patrons.add(new PatronImage(patron));
+        }
+        for (Reservation reservation : reservationSvc.getWaitingReservations()) {
+            image.waiting.add(new HoldImage(reservation, reservationSvc.getPassovers(reservation.getReservationId())));
+        }
+        for (Reservation reservation : reservationSvc.getReadyHolds()) {
+            image.ready.add(new HoldImage(reservation, 0));
+        }
+        return image;
+    }
+
+    // --- Writing ---
+
+    /**
+     * Writes a snapshot covering every journal segment before {@code segment}.
+     *
+     * @return The snapshot file.
+     */
+    static Path write(Path directory, long segment, Image image) throws IOException {
+        Path file = snapshotFile(directory, segment);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        // Branches and books are written once and referenced by index
+        Map<String, Integer> bookIndex = new HashMap<>();
+        for (int i = 0; i < image.books.size(); i++) {
+            bookIndex.put(image.books.get(i).getIsbn(), i);
+        }
+        Map<String, Branch> branches = new LinkedHashMap<>();
+        for (ItemImage item : image.items) {
+            addBranch(branches, item.branch);
+        }
+        for (HoldImage hold : image.waiting) {
+            addBranch(branches, hold.pickupBranch);
+        }
+        for (HoldImage hold : image.ready) {
+            addBranch(branches, hold.pickupBranch);
+        }
+        Map<String, Integer> branchIndex = new HashMap<>();
+
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(new CheckedOutputStream(fileOut, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(segment);
+            out.writeLong(System.currentTimeMillis());
+
+            out.writeInt(branches.size());
+            for (Branch branch : branches.values()) {
+                branchIndex.put(branch.getBranchId(), branchIndex.size());
+                writeString(out, branch.getBranchId());
+                writeString(out, branch.getName());
+            }
+
+            out.writeInt(image.books.size());
+            for (Book book : image.books) {
+                writeString(out, book.getIsbn());
+                writeString(out, book.getTitle());
+                writeString(out, book.getAuthor());
+                out.writeInt(book.getPublicationYear());
+                out.writeByte(book.getType() != null ? book.getType().ordinal() : -1);
+            }
+
+            out.writeInt(image.items.size());
+            for (ItemImage item : image.items) {
+                writeString(out, item.barcode);
+                out.writeInt(bookIndex.get(item.isbn));
+                out.writeInt(indexOf(branchIndex, item.branch));
+                out.writeByte(item.status.ordinal());
+            }
+
+            out.writeInt(image.patrons.size());
+            for (PatronImage patron : image.patrons) {
+                writeString(out, patron.patronId);
+                writeString(out, patron.name);
+                writeString(out, patron.email);
+                out.writeInt(patron.history.size());
+                for (LoanImage loan : patron.history) {
+                    writeString(out, loan.recordId);
+                    writeString(out, loan.barcode);
+                    out.writeInt(toDay(loan.checkoutDate));
+                    out.writeInt(toDay(loan.dueDate));
+                    out.writeInt(toDay(loan.returnDate));
+                }
+            }
+
+            out.writeInt(image.waiting.size());
+            for (HoldImage hold : image.waiting) {
+                writeHold(out, hold, bookIndex, branchIndex);
+                out.writeInt(hold.passovers);
+            }
+
+            out.writeInt(image.ready.size());
+            for (HoldImage hold : image.ready) {
+                writeHold(out, hold, bookIndex, branchIndex);
+                writeString(out, hold.heldBarcode);
+                out.writeLong(hold.pickupDeadline.toEpochMilli());
+            }
+
+            out.flush();
+            int checksum = (int) crc.getValue();
+            out.writeInt(checksum);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Journal.syncDirectory(directory);
+        return file;
+    }
+
+    private static void writeHold(DataOutputStream out, HoldImage hold,
+                                  Map<String, Integer> bookIndex, Map<String, Integer> branchIndex) throws IOException {
+        writeString(out, hold.reservationId);
+        writeString(out, hold.patronId);
+        out.writeInt(bookIndex.get(hold.isbn));
+        out.writeInt(indexOf(branchIndex, hold.pickupBranch));
+        out.writeInt(toDay(hold.dateReserved));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void addBranch(Map<String, Branch> branches, Branch branch) {
+        if (branch != null) {
+            branches.putIfAbsent(branch.getBranchId(), branch);
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> branchIndex, Branch branch) {
+        return branch == null ? -1 : branchIndex.get(branch.getBranchId());
+    }
+
+    private static int toDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private static LocalDate fromDay(int day) {
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    // --- Reading ---
+
+    /**
+     * Checks a snapshot's CRC, then restores it into empty services.
+     * Nothing is restored if the file is damaged.
+     *
+     * @param branches Known branches by ID; branches not in it are created and added.
+     * @return The first journal segment the snapshot does not cover.
+     * @throws IOException if the file cannot be read or fails its checks.
+     */
+    static long load(Path file, BookManagementService bookSvc, PatronManagementService patronSvc,
+                     LendingService lendingSvc, ReservationService reservationSvc,
+                     Map<String, Branch> branches) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " has an invalid size.");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != in.getInt((int) size - 4)) {
+                throw new IOException("Snapshot " + file + " fails its checksum.");
+            }
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Snapshot " + file + " has an unknown format.");
+            }
+            long segment = in.getLong();
+            in.getLong(); // Creation time
+
+            int branchCount = in.getInt();
+            List<Branch> branchTable = new ArrayList<>(branchCount);
+            for (int i = 0; i < branchCount; i++) {
+                String branchId = RecordBuffer.getString(in);
+                String name = RecordBuffer.getString(in);
+                branchTable.add(branches.computeIfAbsent(branchId, id -> new Branch(id, name)));
+            }
+
+            BookType[] bookTypes = BookType.values();
+            int bookCount = in.getInt();
+            List<Book> bookTable = new ArrayList<>(bookCount);
+            for (int i = 0; i < bookCount; i++) {
+                String isbn = RecordBuffer.getString(in);
+                String title = RecordBuffer.getString(in);
+                String author = RecordBuffer.getString(in);
+                int year = in.getInt();
+                int type = in.get();
+                // An image-backed catalog hands back the title it already has
+                bookTable.add(bookSvc.restoreBook(new Book(isbn, title, author, year, type < 0 ? null : bookTypes[type])));
+            }
+
+            BookStatus[] statuses = BookStatus.values();
+            int itemCount = in.getInt();
+            Map<String, BookItem> items = new HashMap<>(itemCount * 2);
+            for (int i = 0; i < itemCount; i++) {
+                String barcode = RecordBuffer.getString(in);
+                Book book = bookTable.get(in.getInt());
+                Branch branch = branchAt(branchTable, in.getInt());
+                BookStatus status = statuses[in.get()];
+                items.put(barcode, bookSvc.restoreBookItem(barcode, book, branch, status));
+            }
+
+            int patronCount = in.getInt();
+            for (int i = 0; i < patronCount; i++) {
+                String patronId = RecordBuffer.getString(in);
+                String name = RecordBuffer.getString(in);
+                String email = RecordBuffer.getString(in);
+                Patron patron = patronSvc.restorePatron(patronId, name, email);
+                int loans = in.getInt();
+                for (int n = 0; n < loans; n++) {
+                    String recordId = RecordBuffer.getString(in);
+                    String barcode = RecordBuffer.getString(in);
+                    LendingRecord record = new LendingRecord(recordId, barcode, patronId,
+                            fromDay(in.getInt()), fromDay(in.getInt()));
+                    record.setReturnDate(fromDay(in.getInt()));
+                    patron.getHistory().add(record);
+                    if (record.getReturnDate() == null) {
+                        lendingSvc.restoreLoan(record);
+                    }
+                }
+            }
+
+            int waitingCount = in.getInt();
+            for (int i = 0; i < waitingCount; i++) {
+                Reservation reservation = readHold(in, patronSvc, bookTable, branchTable);
+                reservationSvc.restoreReservation(reservation, in.getInt());
+            }
+
+            int readyCount = in.getInt();
+            for (int i = 0; i < readyCount; i++) {
+                Reservation reservation = readHold(in, patronSvc, bookTable, branchTable);
+                BookItem item = items.get(RecordBuffer.getString(in));
+                reservationSvc.restoreReadyHold(reservation, item, Instant.ofEpochMilli(in.getLong()));
+            }
+            return segment;
+        }
+    }
+
+    private static Reservation readHold(ByteBuffer in, PatronManagementService patronSvc,
+                                        List<Book> bookTable, List<Branch> branchTable) {
+        String reservationId = RecordBuffer.getString(in);
+        Patron patron = patronSvc.getPatronById(RecordBuffer.getString(in));
+        Book book = bookTable.get(in.getInt());
+        Branch pickupBranch = branchAt(branchTable, in.getInt());
+        Reservation reservation = new Reservation(reservationId, patron, book,
+                ReservationStatus.PENDING, fromDay(in.getInt()));
+        reservation.setPickupBranch(pickupBranch);
+        return reservation;
+    }
+
+    private static Branch branchAt(List<Branch> branchTable, int index) {
+        return index < 0 ? null : branchTable.get(index);
+    }
+
+    // --- Files ---
+
+    static Path snapshotFile(Path directory, long segment) {
+        return directory.resolve(String.format("snapshot-%016x.bin", segment));
+    }
+
+    /**
+     * @return The segment numbers of the snapshots in a directory, newest first.
+     */
+    static List<Long> listSnapshots(Path directory) throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.bin")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    snapshots.add(Long.parseUnsignedLong(name.substring(9, name.length() - 4), 16));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        snapshots.sort(Collections.reverseOrder());
+        return snapshots;
+    }
+}
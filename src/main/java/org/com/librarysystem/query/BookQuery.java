@@ -0,0 +1,105 @@
+package org.com.librarysystem.query;
+
+import org.com.librarysystem.enums.BookType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A composite book query: every predicate that is set must match (AND).
+ * <p>
+ * Title and author are case-insensitive "contains" matches, the year range is
+ * inclusive, and the type predicate matches any of the given types.
+ * Instances are immutable; build them with {@link #builder()}.
+ */
+public class BookQuery {
+
+    private final String titleContains;
+    private final String authorContains;
+    private final Integer yearFrom;
+    private final Integer yearTo;
+    private final Set<BookType> types;
+
+    private BookQuery(Builder builder) {
+        this.titleContains = builder.titleContains;
+        this.authorContains = builder.authorContains;
+        this.yearFrom = builder.yearFrom;
+        this.yearTo = builder.yearTo;
+        this.types = builder.types.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(builder.types));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // --- Getters ---
+
+    public String getTitleContains() { return titleContains; }
+    public String getAuthorContains() { return authorContains; }
+    public Integer getYearFrom() { return yearFrom; }
+    public Integer getYearTo() { return yearTo; }
+    public Set<BookType> getTypes() { return types; }
+
+    public boolean hasYearRange() {
+        return yearFrom != null || yearTo != null;
+    }
+
+    @Override
+    public String toString() {
+        return "BookQuery{title=" + titleContains + ", author=" + authorContains
+                + ", years=" + yearFrom + ".." + yearTo + ", types=" + types + "}";
+    }
+
+    /**
+     * Builder for BookQuery. Unset predicates are simply not applied.
+     */
+    public static class Builder {
+        private String titleContains;
+        private String authorContains;
+        private Integer yearFrom;
+        private Integer yearTo;
+        private final Set<BookType> types = EnumSet.noneOf(BookType.class);
+
+        public Builder title(String fragment) {
+            this.titleContains = fragment;
+            return this;
+        }
+
+        public Builder author(String fragment) {
+            this.authorContains = fragment;
+            return this;
+        }
+
+        public Builder yearFrom(int year) {
+            this.yearFrom = year;
+            return this;
+        }
+
+        public Builder yearTo(int year) {
+            this.yearTo = year;
+            return this;
+        }
+
+        public Builder yearBetween(int fromYear, int toYear) {
+            return yearFrom(fromYear).yearTo(toYear);
+        }
+
+        public Builder type(BookType type) {
+            if (type == null) {
+                throw new IllegalArgumentException("Book type must not be null.");
+            }
+            this.types.add(type);
+            return this;
+        }
+
+        public BookQuery build() {
+            if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+                throw new IllegalArgumentException("yearFrom must not be after yearTo.");
+            }
+            return new BookQuery(this);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.com.librarysystem.query;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookField;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.index.TrigramIndex;
+import org.com.librarysystem.index.TypeIndex;
+import org.com.librarysystem.index.YearIndex;
+import org.com.librarysystem.service.BookManagementService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs composite BookQuery searches over the per-field secondary indexes.
+ * <p>
+ * The planner estimates each predicate's cardinality from its index (trigram
+ * postings for title/author, the sorted year index, the type index), runs the
+ * most selective one first to get a candidate set, and then either intersects
+ * with the next predicate's set (when that set is smaller than the candidates)
+ * or just checks the predicate on each candidate. Every surviving book is
+ * verified against all predicates, since trigram candidates are a superset.
+ */
+public class QueryEngine {
+
+    private final BookManagementService bookSvc;
+    private final TrigramIndex trigramIndex;
+    private final YearIndex yearIndex;
+    private final TypeIndex typeIndex;
+
+    public QueryEngine(BookManagementService bookSvc, TrigramIndex trigramIndex,
+                       YearIndex yearIndex, TypeIndex typeIndex) {
+        this.bookSvc = bookSvc;
+        this.trigramIndex = trigramIndex;
+        this.yearIndex = yearIndex;
+        this.typeIndex = typeIndex;
+    }
+
+    /**
+     * Chooses a plan for the query without executing it.
+     *
+     * @param query The query to plan.
+     * @return The plan, with per-step cardinality estimates.
+     */
+    public QueryPlan explain(BookQuery query) {
+        return plan(predicates(query)).plan;
+    }
+
+    /**
+     * Executes the query.
+     *
+     * @param query The query to run.
+     * @return The books matching every predicate.
+     */
+    public List<Book> execute(BookQuery query) {
+        List<IndexedPredicate> predicates = predicates(query);
+        Map<String, Book> catalog = bookSvc.getBookCatalog();
+
+        if (predicates.isEmpty()) {
+            return new ArrayList<>(catalog.values());
+        }
+
+        Planned planned = plan(predicates);
+        Set<String> candidates = null;
+        for (int i = 0; i < planned.order.size(); i++) {
+            IndexedPredicate predicate = planned.order.get(i);
+            QueryPlan.Access access = planned.plan.getSteps().get(i).getAccess();
+            if (access == QueryPlan.Access.INDEX_SCAN) {
+                candidates = new LinkedHashSet<>(predicate.fetch.get());
+            } else if (access == QueryPlan.Access.INTERSECT) {
+                candidates.retainAll(predicate.fetch.get());
+            }
+            if (candidates.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Book> results = new ArrayList<>();
+        for (String isbn : candidates) {
+            Book book = catalog.get(isbn);
+            if (book != null && predicates.stream().allMatch(p -> p.test.test(book))) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    // --- Planning ---
+
+    private Planned plan(List<IndexedPredicate> predicates) {
+        Planned planned = new Planned();
+        if (predicates.isEmpty()) {
+            planned.plan.addStep(new QueryPlan.Step("(all books)", QueryPlan.Access.FULL_SCAN,
+                    bookSvc.getBookCatalog().size()));
+            return planned;
+        }
+
+        // Most selective predicate first
+        planned.order.addAll(predicates);
+        planned.order.sort(Comparator.comparingInt(p -> p.estimate));
+
+        int expectedCandidates = 0;
+        for (int i = 0; i < planned.order.size(); i++) {
+            IndexedPredicate predicate = planned.order.get(i);
+            QueryPlan.Access access;
+            if (i == 0) {
+                access = QueryPlan.Access.INDEX_SCAN;
+                expectedCandidates = predicate.estimate;
+            } else if (predicate.estimate <= expectedCandidates) {
+                access = QueryPlan.Access.INTERSECT;
+                expectedCandidates = Math.min(expectedCandidates, predicate.estimate);
+            } else {
+                access = QueryPlan.Access.FILTER;
+            }
+            planned.plan.addStep(new QueryPlan.Step(predicate.description, access, predicate.estimate));
+        }
+        return planned;
+    }
+
+    private List<IndexedPredicate> predicates(BookQuery query) {
+        List<IndexedPredicate> predicates = new ArrayList<>();
+
+        if (query.getTitleContains() != null) {
+            String fragment = query.getTitleContains();
+            predicates.add(new IndexedPredicate("title contains '" + fragment + "'",
+                    trigramIndex.estimateCandidates(BookField.TITLE, fragment),
+                    () -> trigramIndex.candidates(BookField.TITLE, fragment),
+                    book -> TrigramIndex.matches(BookField.TITLE, book, fragment)));
+        }
+
+        if (query.getAuthorContains() != null) {
+            String fragment = query.getAuthorContains();
+            predicates.add(new IndexedPredicate("author contains '" + fragment + "'",
+                    trigramIndex.estimateCandidates(BookField.AUTHOR, fragment),
+                    () -> trigramIndex.candidates(BookField.AUTHOR, fragment),
+                    book -> TrigramIndex.matches(BookField.AUTHOR, book, fragment)));
+        }
+
+        if (query.hasYearRange()) {
+            int from = query.getYearFrom() != null ? query.getYearFrom() : Integer.MIN_VALUE;
+            int to = query.getYearTo() != null ? query.getYearTo() : Integer.MAX_VALUE;
+            predicates.add(new IndexedPredicate("year between " + from + " and " + to,
+                    yearIndex.count(from, to),
+                    () -> yearIndex.lookup(from, to),
+                    book -> book.getPublicationYear() >= from && book.getPublicationYear() <= to));
+        }
+
+        if (!query.getTypes().isEmpty()) {
+            Set<BookType> types = query.getTypes();
+            int estimate = 0;
+            for (BookType type : types) {
+                estimate += typeIndex.count(type);
+            }
+            predicates.add(new IndexedPredicate("type in " + types, estimate,
+                    () -> {
+                        Set<String> isbns = new LinkedHashSet<>();
+                        for (BookType type : types) {
+                            isbns.addAll(typeIndex.lookup(type));
+                        }
+                        return isbns;
+                    },
+                    book -> types.contains(book.getType())));
+        }
+        return predicates;
+    }
+
+    // --- Internal Structures ---
+
+    private static final class IndexedPredicate {
+        private final String description;
+        private final int estimate;
+        private final Supplier<Set<String>> fetch;
+        private final Predicate<Book> test;
+
+        private IndexedPredicate(String description, int estimate,
+                                 Supplier<Set<String>> fetch, Predicate<Book> test) {
+            this.description = description;
+            this.estimate = estimate;
+            this.fetch = fetch;
+            this.test = test;
+        }
+    }
+
+    private static final class Planned {
+        private final QueryPlan plan = new QueryPlan();
+        private final List<IndexedPredicate> order = new ArrayList<>();
+    }
+}
@@ -0,0 +1,70 @@
+package org.com.librarysystem.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The execution plan chosen by the QueryEngine for a BookQuery.
+ * Steps are listed in execution order, most selective first.
+ */
+public class QueryPlan {
+
+    /**
+     * How a predicate is applied.
+     */
+    public enum Access {
+        FULL_SCAN,  // No predicate: walk the whole catalog
+        INDEX_SCAN, // Drives the query: its index produces the first candidate set
+        INTERSECT,  // Its index set is intersected with the candidates
+        FILTER      // Checked on each remaining candidate (cheaper than fetching its set)
+    }
+
+    /**
+     * One step of the plan.
+     */
+    public static class Step {
+        private final String predicate;
+        private final Access access;
+        private final int estimatedRows;
+
+        public Step(String predicate, Access access, int estimatedRows) {
+            this.predicate = predicate;
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+        }
+
+        public String getPredicate() { return predicate; }
+        public Access getAccess() { return access; }
+        public int getEstimatedRows() { return estimatedRows; }
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+
+    void addStep(Step step) {
+        steps.add(step);
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Renders the plan in a human-readable, EXPLAIN-like form.
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder("QueryPlan:");
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            sb.append("\n  ").append(i + 1).append(". ").append(step.getAccess())
+                    .append(' ').append(step.getPredicate())
+                    .append(" (est. ").append(step.getEstimatedRows()).append(" rows)");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
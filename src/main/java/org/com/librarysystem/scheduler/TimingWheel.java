@@ -0,0 +1,222 @@
+package org.com.librarysystem.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel for large numbers of coarse deadlines
+ * (e.g., hold-shelf pickup deadlines).
+ * <p>
+ * Time is divided into ticks. Level 0 has one slot per tick for the next
+ * {@value #SLOTS} ticks, level 1 one slot per {@value #SLOTS} ticks, and so on
+ * for {@value #LEVELS} levels; a slot is a doubly linked list of timeouts.
+ * Scheduling and cancelling are O(1), and advancing visits only the slots of
+ * the ticks that have passed, moving each timeout down a level at most
+ * {@value #LEVELS} times before it fires. Nothing runs per timeout in between,
+ * and there is no scan of pending timeouts, so millions of deadlines cost one
+ * small node each.
+ * <p>
+ * The wheel does not own a thread: callers invoke {@link #advance()} (from a
+ * scheduled task, or lazily), and time comes from an injectable Clock.
+ * All methods are synchronized on the wheel.
+ *
+ * @param <T> The payload handed back when a timeout fires.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /** A scheduled payload; keep it to cancel the timeout. */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private Slot<T> slot; // null once fired or cancelled
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+
+    private static final class Slot<T> {
+        Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.slot = null;
+        }
+
+        Timeout<T> detachAll() {
+            Timeout<T> all = head;
+            head = null;
+            return all;
+        }
+    }
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final Slot<T>[][] wheels;
+
+    // The next tick to process; everything before it has fired
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param clock The time source.
+     * @param tick  The resolution of the wheel (deadlines fire at most one tick late).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(Clock clock, Duration tick) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond.");
+        }
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.wheels = new Slot[LEVELS][SLOTS];
+        for (Slot<T>[] level : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Slot<>();
+            }
+        }
+        this.currentTick = toTick(clock.instant());
+    }
+
+    /**
+     * Schedules a payload to fire at (or within one tick after) a deadline.
+     *
+     * @param payload  What {@link #advance()} returns when the deadline passes.
+     * @param deadline When the payload is due.
+     * @return A handle for {@link #cancel(Timeout)}.
+     */
+    public synchronized Timeout<T> schedule(T payload, Instant deadline) {
+        Timeout<T> timeout = new Timeout<>(payload, toTick(deadline));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a pending timeout in O(1).
+     *
+     * @return true if it was still pending.
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.slot == null) {
+            return false;
+        }
+        timeout.slot.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to the clock's current time.
+     *
+     * @return The payloads whose deadlines have passed, in deadline order (by tick).
+     */
+    public synchronized List<T> advance() {
+        long nowTick = toTick(clock.instant());
+        List<T> expired = new ArrayList<>();
+        while (currentTick <= nowTick) {
+            if (size == 0) {
+                currentTick = nowTick + 1; // Nothing pending: skip the idle ticks
+                break;
+            }
+            cascade();
+            Slot<T> slot = wheels[0][(int) (currentTick & SLOT_MASK)];
+            for (Timeout<T> t = slot.detachAll(); t != null; ) {
+                Timeout<T> next = t.next;
+                t.prev = null;
+                t.next = null;
+                t.slot = null;
+                if (t.deadlineTick > currentTick) {
+                    place(t); // Was beyond the top level's range; not due yet
+                } else {
+                    expired.add(t.payload);
+                    size--;
+                }
+                t = next;
+            }
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * @return How many timeouts are pending.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // --- Internals ---
+
+    private long toTick(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+    }
+
+    private void place(Timeout<T> timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // Too far out for the top level: park it in the farthest slot and re-place it later
+            deadline = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int index = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+        wheels[level][index].add(timeout);
+    }
+
+    /**
+     * When level 0 wraps, redistributes the next slot of level 1 (and of higher
+     * levels when they wrap too) into the lower levels.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            long lowerBits = currentTick & ((1L << (SLOT_BITS * level)) - 1);
+            if (lowerBits != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            for (Timeout<T> t = wheels[level][index].detachAll(); t != null; ) {
+                Timeout<T> next = t.next;
+                place(t);
+                t = next;
+            }
+        }
+    }
+}
@@ -4,34 +4,101 @@ import org.com.librarysystem.core.Book;
 import org.com.librarysystem.core.BookItem;
 import org.com.librarysystem.core.Branch;
 import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.index.AvailabilityIndex;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+import org.com.librarysystem.patterns.singleton.IdGenerator;
 import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.store.MappedCatalog;
 
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Manages the master catalog of book titles and the inventory of physical book items.
  * This class can be treated as a Singleton or as a single instance managed by the Facade.
+ * <p>
+ * Thread-safe: lookups and item status changes are lock-free (concurrent maps
+ * and atomic status transitions); catalog edits, which are rare, are
+ * serialized so every observer sees them in the same order.
+ * <p>
+ * The service can start on top of a memory-mapped catalog image instead of
+ * rebuilding every Book and BookItem: lookups by ISBN or barcode that miss
+ * the in-memory maps are answered from the image, and the Book or BookItem is
+ * built on that first lookup and kept (observers are told as if it had just
+ * been added). Catalog-wide views, search indexes and availability counters
+ * only cover what has been materialized until {@link #materializeAll()} has
+ * run, e.g. from a background thread right after startup.
+ * <p>
+ * The image holds no loans or holds, so its copies come up with their shelf
+ * status (see MappedCatalog). With LibraryPersistence on top, snapshot load
+ * and journal replay go through {@link #restoreBook} and
+ * {@link #restoreBookItem}, which accept titles and copies already in the
+ * image and apply the restored branch and status to them.
  */
 public class BookManagementService {
 
-    // Master catalog of all book titles
-    private final Map<String, Book> bookCatalog; // Key: ISBN
+    // Master catalog of all book titles, split into shards by ISBN hash
+    private final ShardedCatalog bookCatalog; // Key: ISBN
+
+    // One long-lived read-only view, so callers (e.g. the search cache) see a stable identity
+    private final Map<String, Book> bookCatalogView;
 
     // Master list of all physical items
     private final Map<String, BookItem> bookItems; // Key: Barcode
 
+    // Per-ISBN copy counters by status
+    private final AvailabilityIndex availability;
+
+    // Indexes and caches that must follow catalog changes
+    private final List<CatalogObserver> catalogObservers;
+
+    // Serializes addBook/updateBook so the catalog and its observers change together
+    private final ReentrantLock catalogWriteLock = new ReentrantLock();
+
+    // Read-only base layer, or null; lookups fall through to it
+    private final MappedCatalog catalogImage;
+
+    // Barcodes of image copies that were built and then removed; they must not come back
+    private final Set<String> removedImageItems = ConcurrentHashMap.newKeySet();
+
     private final Logger logger = Logger.getInstance();
 
     /**
-     * Initializes the Book Management Service.
+     * Initializes the Book Management Service with one catalog shard per core.
      */
     public BookManagementService() {
-        this.bookCatalog = new HashMap<>();
-        this.bookItems = new HashMap<>();
-        logger.info("BookManagementService initialized.");
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes the Book Management Service.
+     *
+     * @param catalogShards How many shards to split the catalog into (for parallel scans).
+     */
+    public BookManagementService(int catalogShards) {
+        this(catalogShards, null);
+    }
+
+    /**
+     * Initializes the Book Management Service on top of a mapped catalog image.
+     * Nothing is read from the image until it is looked up.
+     *
+     * @param catalogShards How many shards to split the catalog into (for parallel scans).
+     * @param catalogImage  The titles and copies to start with (null = start empty).
+     */
+    public BookManagementService(int catalogShards, MappedCatalog catalogImage) {
+        this.catalogImage = catalogImage;
+        this.bookCatalog = new ShardedCatalog(catalogShards);
+        this.bookCatalogView = Collections.unmodifiableMap(bookCatalog);
+        this.bookItems = new ConcurrentHashMap<>();
+        this.availability = new AvailabilityIndex();
+        this.catalogObservers = new CopyOnWriteArrayList<>();
+        logger.info("BookManagementService initialized with {} catalog shard(s).", catalogShards);
     }
 
     /**
@@ -45,13 +112,73 @@ public class BookManagementService {
             throw new IllegalArgumentException("Book and ISBN must not be null.");
         }
 
-        if (bookCatalog.containsKey(book.getIsbn())) {
-            logger.warn("Attempted to add duplicate book with ISBN: " + book.getIsbn());
+        catalogWriteLock.lock();
+        try {
+            if (inImage(book.getIsbn()) || bookCatalog.putIfAbsent(book.getIsbn(), book) != null) {
+                logger.warn("Attempted to add duplicate book with ISBN: {}", book.getIsbn());
+                throw new IllegalStateException("Book with this ISBN already exists.");
+            }
+            for (CatalogObserver observer : catalogObservers) {
+                observer.onBookAdded(book);
+            }
+        } finally {
+            catalogWriteLock.unlock();
+        }
+        logger.info("Added new book title to catalog: {}", book.getTitle());
+    }
+
+    /**
+     * Checks that a title could be added now, without adding it. The journaled
+     * path appends the title first and then calls {@link #addBook}.
+     *
+     * @param book The Book object to check.
+     */
+    public void validateNewBook(Book book) {
+        if (book == null || book.getIsbn() == null) {
+            logger.warn("Attempted to add a null book or book with no ISBN.");
+            throw new IllegalArgumentException("Book and ISBN must not be null.");
+        }
+        if (getBookByIsbn(book.getIsbn()) != null) {
+            logger.warn("Attempted to add duplicate book with ISBN: {}", book.getIsbn());
             throw new IllegalStateException("Book with this ISBN already exists.");
         }
+    }
+
+    /**
+     * Re-adds a title during journal replay or snapshot load. A title that is
+     * in the catalog image is the same title, so it is materialized from the
+     * image and returned instead; any other duplicate is rejected.
+     *
+     * @param book The title as journaled or snapshotted.
+     * @return The title now in the catalog; callers must use this instance.
+     */
+    public Book restoreBook(Book book) {
+        if (book != null && inImage(book.getIsbn()) && !bookCatalog.containsKey(book.getIsbn())) {
+            return getBookByIsbn(book.getIsbn());
+        }
+        addBook(book);
+        return book;
+    }
 
-        bookCatalog.put(book.getIsbn(), book);
-        logger.info("Added new book title to catalog: " + book.getTitle());
+    /**
+     * Registers an observer (e.g., a search index) to be told about catalog changes.
+     * Books already in the catalog are replayed to the observer so it starts in sync.
+     *
+     * @param observer The observer to register.
+     */
+    public void addCatalogObserver(CatalogObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer must not be null.");
+        }
+        catalogWriteLock.lock();
+        try {
+            for (Book book : bookCatalog.values()) {
+                observer.onBookAdded(book);
+            }
+            catalogObservers.add(observer);
+        } finally {
+            catalogWriteLock.unlock();
+        }
     }
 
     /**
@@ -62,27 +189,97 @@ public class BookManagementService {
      * @return The newly created BookItem.
      */
     public BookItem addBookItem(Book book, Branch branch) {
-        if (book == null || !bookCatalog.containsKey(book.getIsbn())) {
-            logger.error("Attempted to add item for a book not in the catalog. ISBN: " + (book != null ? book.getIsbn() : "null"));
-            throw new IllegalArgumentException("Book must exist in the catalog before adding an item.");
-        }
-
-        // Generate a unique barcode
-        String barcode = "bc-" + UUID.randomUUID().toString().substring(0, 8);
+        String barcode = prepareBookItem(book);
 
         // We assume BookItem has a constructor:
         // (barcode, book, status, branch)
         BookItem newItem = new BookItem(barcode, book, BookStatus.AVAILABLE, branch);
+        register(newItem);
 
-        bookItems.put(barcode, newItem);
+        logger.info("Added new item (copy) for book '{}' with barcode {}", book.getTitle(), barcode);
+        return newItem;
+    }
 
-        // (Optional) If we are tracking inventory per-branch
-        if (branch != null) {
-            branch.addBookItem(newItem);
+    /**
+     * Checks that a copy of a title can be added and picks its barcode,
+     * without adding it. The journaled path appends the copy first and then
+     * calls {@link #restoreBookItem}.
+     *
+     * @param book The book title the copy will be of.
+     * @return The new copy's barcode.
+     */
+    public String prepareBookItem(Book book) {
+        if (book == null || getBookByIsbn(book.getIsbn()) == null) {
+            logger.error("Attempted to add item for a book not in the catalog. ISBN: {}", book != null ? book.getIsbn() : null);
+            throw new IllegalArgumentException("Book must exist in the catalog before adding an item.");
         }
+        return IdGenerator.getInstance().nextId("bc-"); // Generate a unique barcode
+    }
 
-        logger.info("Added new item (copy) for book '" + book.getTitle() + "' with barcode " + barcode);
-        return newItem;
+    /**
+     * Re-creates a copy with its original barcode and status (journal replay
+     * or snapshot load). A copy that is still only in the catalog image is
+     * materialized from it, then given the restored branch and status, so
+     * loans and holds can be restored on top of the image.
+     *
+     * @param barcode The copy's barcode.
+     * @param book    The book title, already in the catalog.
+     * @param branch  The branch where the copy is located (can be null).
+     * @param status  The copy's status.
+     * @return The restored BookItem.
+     */
+    public BookItem restoreBookItem(String barcode, Book book, Branch branch, BookStatus status) {
+        if (book == null || getBookByIsbn(book.getIsbn()) == null) {
+            throw new IllegalArgumentException("Book must exist in the catalog before adding an item.");
+        }
+        if (bookItems.containsKey(barcode)) {
+            throw new IllegalStateException("Book item with barcode " + barcode + " already exists.");
+        }
+        int imageIndex = catalogImage != null ? catalogImage.findItem(barcode) : -1;
+        if (imageIndex >= 0) {
+            return restoreImageItem(imageIndex, barcode, book, branch, status);
+        }
+        BookItem item = new BookItem(barcode, book, status, branch);
+        register(item);
+        return item;
+    }
+
+    private BookItem restoreImageItem(int index, String barcode, Book book, Branch branch, BookStatus status) {
+        BookItem item = materializeItem(index, barcode);
+        if (item == null) {
+            throw new IllegalStateException("Book item with barcode " + barcode + " already exists.");
+        }
+        if (!item.getBook().getIsbn().equals(book.getIsbn())) {
+            throw new IllegalStateException("Book item " + barcode + " belongs to another title in the catalog image.");
+        }
+        // The restored record is newer than the image, so its branch and status win
+        Branch imageBranch = item.getCurrentBranch();
+        if (imageBranch != branch) {
+            if (imageBranch != null) {
+                imageBranch.removeBookItem(item);
+            }
+            if (branch != null) {
+                branch.addBookItem(item);
+            } else {
+                item.setCurrentBranch(null);
+            }
+        }
+        updateItemStatus(item, status);
+        return item;
+    }
+
+    private boolean inImage(String isbn) {
+        return catalogImage != null && catalogImage.findBook(isbn) >= 0;
+    }
+
+    private void register(BookItem item) {
+        bookItems.put(item.getBarcode(), item);
+        availability.onItemAdded(item.getBook().getIsbn(), item.getStatus());
+
+        // (Optional) If we are tracking inventory per-branch
+        if (item.getCurrentBranch() != null) {
+            item.getCurrentBranch().addBookItem(item);
+        }
     }
 
     /**
@@ -92,7 +289,12 @@ public class BookManagementService {
      * @return The Book object, or null if not found.
      */
     public Book getBookByIsbn(String isbn) {
-        return bookCatalog.get(isbn);
+        Book book = bookCatalog.get(isbn);
+        if (book != null || catalogImage == null) {
+            return book;
+        }
+        int index = catalogImage.findBook(isbn);
+        return index < 0 ? null : materializeBook(index);
     }
 
     /**
@@ -102,7 +304,95 @@ public class BookManagementService {
      * @return The BookItem object, or null if not found.
      */
     public BookItem getBookItemByBarcode(String barcode) {
-        return bookItems.get(barcode);
+        BookItem item = bookItems.get(barcode);
+        if (item != null || catalogImage == null) {
+            return item;
+        }
+        int index = catalogImage.findItem(barcode);
+        return index < 0 ? null : materializeItem(index, barcode);
+    }
+
+    /**
+     * Builds every title and copy of the catalog image that has not been
+     * looked up yet, so catalog-wide views, indexes and counters are complete.
+     * Safe to run while the service is in use.
+     *
+     * @return How many titles and copies were built by this call.
+     */
+    public int materializeAll() {
+        if (catalogImage == null) {
+            return 0;
+        }
+        int built = 0;
+        for (int i = 0; i < catalogImage.getBookCount(); i++) {
+            if (!bookCatalog.containsKey(catalogImage.getIsbn(i))) {
+                materializeBook(i);
+                built++;
+            }
+        }
+        for (int i = 0; i < catalogImage.getItemCount(); i++) {
+            String barcode = catalogImage.getBarcode(i);
+            if (!bookItems.containsKey(barcode) && materializeItem(i, barcode) != null) {
+                built++;
+            }
+        }
+        logger.info("Materialized {} record(s) from catalog image {}", built, catalogImage.getFile());
+        return built;
+    }
+
+    // Titles are never removed, so the catalog map itself says whether one was built
+    private Book materializeBook(int index) {
+        String isbn = catalogImage.getIsbn(index);
+        catalogWriteLock.lock();
+        try {
+            Book existing = bookCatalog.get(isbn);
+            if (existing != null) {
+                return existing;
+            }
+            Book book = catalogImage.toBook(index);
+            bookCatalog.put(isbn, book);
+            for (CatalogObserver observer : catalogObservers) {
+                observer.onBookAdded(book);
+            }
+            return book;
+        } finally {
+            catalogWriteLock.unlock();
+        }
+    }
+
+    // The claim bit picks the one thread that builds a copy. The title is built
+    // first, outside any map lock, because that takes catalogWriteLock and runs
+    // observers; the copy is registered before it is published, so whoever finds
+    // it in bookItems (e.g. to remove it) sees it fully counted.
+    private BookItem materializeItem(int index, String barcode) {
+        Book book = materializeBook(catalogImage.getItemBook(index));
+        if (!catalogImage.claimItem(index)) {
+            return awaitClaimedItem(barcode);
+        }
+        BookItem item;
+        try {
+            item = catalogImage.toBookItem(index, book);
+        } catch (RuntimeException e) {
+            removedImageItems.add(barcode); // Never published, so don't let other lookups wait for it
+            throw e;
+        }
+        availability.onItemAdded(item.getBook().getIsbn(), item.getStatus());
+        if (item.getCurrentBranch() != null) {
+            item.getCurrentBranch().addBookItem(item);
+        }
+        bookItems.put(barcode, item);
+        return item;
+    }
+
+    // Another lookup claimed the copy: it is published in a moment, unless it was removed since
+    private BookItem awaitClaimedItem(String barcode) {
+        while (true) {
+            BookItem item = bookItems.get(barcode);
+            if (item != null || removedImageItems.contains(barcode)) {
+                return item;
+            }
+            Thread.onSpinWait();
+        }
     }
 
     /**
@@ -112,19 +402,70 @@ public class BookManagementService {
      * @return true if the item was removed, false otherwise.
      */
     public boolean removeBookItem(String barcode) {
+        if (catalogImage != null && catalogImage.findItem(barcode) >= 0
+                && getBookItemByBarcode(barcode) != null) { // Built first, so its counters stay right
+            removedImageItems.add(barcode);
+        }
         BookItem item = bookItems.remove(barcode);
 
         if (item != null) {
+            availability.onItemRemoved(item.getBook().getIsbn(), item.getStatus());
             // (Optional) Remove from branch inventory
             if (item.getCurrentBranch() != null) {
                 item.getCurrentBranch().removeBookItem(item);
             }
-            logger.info("Removed book item: " + barcode);
+            logger.info("Removed book item: {}", barcode);
             return true;
         } else {
-            logger.warn("Could not remove book item: No item found with barcode " + barcode);
+            logger.warn("Could not remove book item: No item found with barcode {}", barcode);
+            return false;
+        }
+    }
+
+    /**
+     * Changes the status of a physical item and keeps the availability
+     * counters in step. Services must use this instead of BookItem.setStatus.
+     *
+     * @param item      The item whose status changes.
+     * @param newStatus The new status.
+     */
+    public void updateItemStatus(BookItem item, BookStatus newStatus) {
+        BookStatus oldStatus;
+        do {
+            oldStatus = item.getStatus();
+        } while (!item.compareAndSetStatus(oldStatus, newStatus));
+        if (bookItems.get(item.getBarcode()) == item) {
+            availability.onStatusChanged(item.getBook().getIsbn(), oldStatus, newStatus);
+        }
+    }
+
+    /**
+     * Atomically moves an item from an expected status to a new one
+     * (compare-and-set), keeping the availability counters in step.
+     * This is how two desks are prevented from lending the same copy.
+     *
+     * @param item      The item whose status changes.
+     * @param expected  The status the item must currently have.
+     * @param newStatus The new status.
+     * @return true if this call made the transition, false if the item was in another status.
+     */
+    public boolean transitionItemStatus(BookItem item, BookStatus expected, BookStatus newStatus) {
+        if (!item.compareAndSetStatus(expected, newStatus)) {
             return false;
         }
+        if (bookItems.get(item.getBarcode()) == item) {
+            availability.onStatusChanged(item.getBook().getIsbn(), expected, newStatus);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the per-status copy counters of every title.
+     *
+     * @return The availability index owned by this service.
+     */
+    public AvailabilityIndex getAvailability() {
+        return availability;
     }
 
     /**
@@ -137,13 +478,22 @@ public class BookManagementService {
             throw new IllegalArgumentException("Book and ISBN must not be null.");
         }
 
-        if (!bookCatalog.containsKey(updatedBook.getIsbn())) {
-            logger.warn("Attempted to update a book that doesn't exist: " + updatedBook.getIsbn());
-            throw new IllegalArgumentException("No book found with this ISBN to update.");
-        }
+        catalogWriteLock.lock();
+        try {
+            // A title still only in the image is built first, so observers see add then update
+            if (getBookByIsbn(updatedBook.getIsbn()) == null) {
+                logger.warn("Attempted to update a book that doesn't exist: {}", updatedBook.getIsbn());
+                throw new IllegalArgumentException("No book found with this ISBN to update.");
+            }
 
-        bookCatalog.put(updatedBook.getIsbn(), updatedBook);
-        logger.info("Updated book metadata for ISBN: " + updatedBook.getIsbn());
+            Book previous = bookCatalog.put(updatedBook.getIsbn(), updatedBook);
+            for (CatalogObserver observer : catalogObservers) {
+                observer.onBookUpdated(previous, updatedBook);
+            }
+        } finally {
+            catalogWriteLock.unlock();
+        }
+        logger.info("Updated book metadata for ISBN: {}", updatedBook.getIsbn());
     }
 
     /**
@@ -153,7 +503,17 @@ public class BookManagementService {
      * @return An unmodifiable Map of the book catalog.
      */
     public Map<String, Book> getBookCatalog() {
-        return Collections.unmodifiableMap(bookCatalog);
+        return bookCatalogView;
+    }
+
+    /**
+     * Returns read-only views of the catalog shards, so a scan can be run
+     * on each shard in parallel (see ParallelSearchExecutor).
+     *
+     * @return The list of shard views; together they hold the whole catalog.
+     */
+    public List<Map<String, Book>> getCatalogShards() {
+        return bookCatalog.getShards();
     }
 
     /**
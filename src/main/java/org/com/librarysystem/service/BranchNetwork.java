@@ -0,0 +1,142 @@
+package org.com.librarysystem.service;
+
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.patterns.singleton.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The library's branches and the cost of moving a copy between them.
+ * <p>
+ * Direct transfer costs (e.g., courier hours between two branches) are
+ * turned into a full shortest-path distance matrix (Floyd-Warshall) whenever
+ * the network changes. Changes are rare and the branch count is small, so the
+ * matrix is rebuilt and published as an immutable snapshot, and routing reads
+ * any distance lock-free with two hash lookups and an array access.
+ */
+public class BranchNetwork {
+
+    /** Distance between branches with no transfer route. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final Logger logger = Logger.getInstance();
+
+    /** Immutable snapshot of the network used for routing. */
+    private static final class Matrix {
+        final Map<String, Integer> index;
+        final int[][] distance;
+
+        Matrix(Map<String, Integer> index, int[][] distance) {
+            this.index = index;
+            this.distance = distance;
+        }
+    }
+
+    // --- Source of truth, guarded by 'this' ---
+    private final Map<String, Branch> branches = new HashMap<>();
+    private final List<String> branchIds = new ArrayList<>();
+    private final Map<String, Map<String, Integer>> transferCosts = new HashMap<>();
+
+    private volatile Matrix matrix = new Matrix(Collections.emptyMap(), new int[0][0]);
+
+    /**
+     * Registers a branch.
+     *
+     * @param branch The branch (its ID must be set).
+     */
+    public synchronized void addBranch(Branch branch) {
+        if (branch == null || branch.getBranchId() == null) {
+            throw new IllegalArgumentException("Branch and branch ID must not be null.");
+        }
+        if (branches.putIfAbsent(branch.getBranchId(), branch) == null) {
+            branchIds.add(branch.getBranchId());
+            rebuild();
+        }
+    }
+
+    /**
+     * Sets the cost of moving a copy directly between two branches (both ways).
+     *
+     * @param fromBranchId One branch.
+     * @param toBranchId   The other branch.
+     * @param cost         The transfer cost (non-negative).
+     */
+    public synchronized void setTransferCost(String fromBranchId, String toBranchId, int cost) {
+        if (!branches.containsKey(fromBranchId) || !branches.containsKey(toBranchId)) {
+            throw new IllegalArgumentException("Both branches must be registered first.");
+        }
+        if (cost < 0) {
+            throw new IllegalArgumentException("Transfer cost must not be negative.");
+        }
+        transferCosts.computeIfAbsent(fromBranchId, k -> new HashMap<>()).put(toBranchId, cost);
+        transferCosts.computeIfAbsent(toBranchId, k -> new HashMap<>()).put(fromBranchId, cost);
+        rebuild();
+    }
+
+    /**
+     * Returns the cheapest transfer cost between two branches.
+     *
+     * @return 0 for the same branch, {@link #UNREACHABLE} if there is no route
+     *         or either branch is unknown.
+     */
+    public int getDistance(String fromBranchId, String toBranchId) {
+        if (fromBranchId.equals(toBranchId)) {
+            return 0;
+        }
+        Matrix current = matrix;
+        Integer from = current.index.get(fromBranchId);
+        Integer to = current.index.get(toBranchId);
+        return from == null || to == null ? UNREACHABLE : current.distance[from][to];
+    }
+
+    /**
+     * @return The registered branch with this ID, or null.
+     */
+    public synchronized Branch getBranch(String branchId) {
+        return branches.get(branchId);
+    }
+
+    /**
+     * Recomputes all-pairs distances and publishes them.
+     */
+    private void rebuild() {
+        int n = branchIds.size();
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            index.put(branchIds.get(i), i);
+        }
+        int[][] distance = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(distance[i], UNREACHABLE);
+            distance[i][i] = 0;
+            Map<String, Integer> links = transferCosts.get(branchIds.get(i));
+            if (links != null) {
+                for (Map.Entry<String, Integer> link : links.entrySet()) {
+                    distance[i][index.get(link.getKey())] = link.getValue();
+                }
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                if (distance[i][k] == UNREACHABLE) {
+                    continue;
+                }
+                for (int j = 0; j < n; j++) {
+                    if (distance[k][j] != UNREACHABLE) {
+                        long viaK = (long) distance[i][k] + distance[k][j];
+                        if (viaK < distance[i][j]) {
+                            distance[i][j] = (int) Math.min(viaK, UNREACHABLE - 1);
+                        }
+                    }
+                }
+            }
+        }
+        matrix = new Matrix(index, distance);
+        logger.info("Branch distance matrix rebuilt for {} branch(es)", n);
+    }
+}
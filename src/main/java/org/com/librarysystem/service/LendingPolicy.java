@@ -0,0 +1,59 @@
+package org.com.librarysystem.service;
+
+import org.com.librarysystem.core.PatronCounters;
+
+/**
+ * Borrowing rules checked on every checkout.
+ * Decisions read only the patron's counters, so they cost the same no matter
+ * how many loans the patron has had.
+ */
+public class LendingPolicy {
+
+    /** Default rules: at most 20 items out, and no checkouts while anything is overdue. */
+    public static final LendingPolicy DEFAULT = new LendingPolicy(20, true);
+
+    private final int maxActiveLoans;
+    private final boolean blockWhenOverdue;
+
+    /**
+     * @param maxActiveLoans   The most loans a patron may have out at once.
+     * @param blockWhenOverdue Whether a patron with an overdue loan may borrow more.
+     */
+    public LendingPolicy(int maxActiveLoans, boolean blockWhenOverdue) {
+        if (maxActiveLoans < 1) {
+            throw new IllegalArgumentException("Loan limit must be at least 1.");
+        }
+        this.maxActiveLoans = maxActiveLoans;
+        this.blockWhenOverdue = blockWhenOverdue;
+    }
+
+    public int getMaxActiveLoans() {
+        return maxActiveLoans;
+    }
+
+    public boolean isBlockWhenOverdue() {
+        return blockWhenOverdue;
+    }
+
+    /**
+     * Checks the rules that do not depend on the item being borrowed.
+     * The loan limit itself is enforced atomically by
+     * {@link PatronCounters#tryAcquireLoan(int)}.
+     *
+     * @param counters The patron's counters.
+     * @return Why the patron may not borrow, or null if they may.
+     */
+    public String checkPatron(PatronCounters counters) {
+        if (blockWhenOverdue && counters.getOverdueLoans() > 0) {
+            return "Patron has " + counters.getOverdueLoans() + " overdue loan(s).";
+        }
+        return null;
+    }
+
+    /**
+     * @return The message used when the loan limit is reached.
+     */
+    public String loanLimitMessage() {
+        return "Patron has reached the limit of " + maxActiveLoans + " active loans.";
+    }
+}
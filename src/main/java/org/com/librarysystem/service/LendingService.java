@@ -2,25 +2,49 @@ package org.com.librarysystem.service;
 
 import org.com.librarysystem.core.Book;
 import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.BulkItemResult;
+import org.com.librarysystem.core.HoldHandOff;
 import org.com.librarysystem.core.LendingRecord;
 import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.PatronCounters;
 import org.com.librarysystem.enums.BookStatus;
 import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.patterns.singleton.IdGenerator;
 import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.store.ActiveLoanStore;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Handles checkouts and returns.
+ * <p>
+ * Safe to call from many desks at once: each copy changes status with an
+ * atomic compare-and-set, and active loans live in a concurrent store, so
+ * there is no global lock and different copies never contend.
+ */
 public class LendingService {
 
     private final BookManagementService bookSvc;
     private final PatronManagementService patronSvc;
     private final ReservationService reservationSvc; // To notify on return
-    private final List<LendingRecord> activeLoans;
+    private final ActiveLoanStore activeLoans; // Indexed by barcode, patron and due date
+    private final Clock clock; // Injectable, so due dates can be tested
+    private final LendingPolicy policy; // Loan limit and overdue rules
+
+    // Loans due before this date have been added to their patrons' overdue counters
+    private volatile LocalDate overdueCountedThrough;
+
+    // Loans due before this date have already been reported by getNewlyOverdueLoans()
+    private volatile LocalDate overdueWatermark;
 
     private static final Logger logger = Logger.getInstance(); // Logging
     private static final int STANDARD_LOAN_DAYS = 30;
@@ -33,10 +57,39 @@ public class LendingService {
      * @param r ReservationService instance
      */
     public LendingService(BookManagementService b, PatronManagementService p, ReservationService r) {
+        this(b, p, r, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructor with an explicit clock (e.g., a fixed clock in tests).
+     *
+     * @param b     BookManagementService instance
+     * @param p     PatronManagementService instance
+     * @param r     ReservationService instance
+     * @param clock The clock used for checkout, due and return dates
+     */
+    public LendingService(BookManagementService b, PatronManagementService p, ReservationService r, Clock clock) {
+        this(b, p, r, clock, LendingPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with an explicit clock and borrowing policy.
+     *
+     * @param b      BookManagementService instance
+     * @param p      PatronManagementService instance
+     * @param r      ReservationService instance
+     * @param clock  The clock used for checkout, due and return dates
+     * @param policy The borrowing rules enforced on checkout
+     */
+    public LendingService(BookManagementService b, PatronManagementService p, ReservationService r,
+                          Clock clock, LendingPolicy policy) {
         this.bookSvc = b;
         this.patronSvc = p;
         this.reservationSvc = r;
-        this.activeLoans = new ArrayList<>();
+        this.clock = clock;
+        this.policy = policy;
+        this.activeLoans = new ActiveLoanStore();
+        this.overdueCountedThrough = LocalDate.MIN; // First refresh counts everything
     }
 
     /**
@@ -44,94 +97,646 @@ public class LendingService {
      *
      * @param patronId The ID of the patron
      * @param barcode  The barcode of the specific book item
+     * @return The new loan
+     */
+    public LendingRecord checkoutBook(String patronId, String barcode) {
+        return applyCheckout(prepareCheckout(patronId, barcode));
+    }
+
+    /**
+     * Validates a checkout and takes one of the patron's loan slots, without
+     * lending the item yet. The journaled path appends the returned loan and
+     * calls {@link #applyCheckout} once it is durable (or
+     * {@link #abandonCheckout} if the journal fails).
+     *
+     * @param patronId The ID of the patron
+     * @param barcode  The barcode of the specific book item
+     * @return The loan to open (new ID and dates), not active yet
      */
-    public void checkoutBook(String patronId, String barcode) {
+    public LendingRecord prepareCheckout(String patronId, String barcode) {
         BookItem item = bookSvc.getBookItemByBarcode(barcode);
         if (item == null) {
-            logger.error("Checkout failed: No book item found with barcode " + barcode);
+            logger.error("Checkout failed: No book item found with barcode {}", barcode);
             throw new IllegalArgumentException("No book item found with barcode " + barcode);
         }
 
         Patron patron = patronSvc.getPatronById(patronId);
         if (patron == null) {
-            logger.error("Checkout failed: No patron found with ID " + patronId);
+            logger.error("Checkout failed: No patron found with ID {}", patronId);
             throw new IllegalArgumentException("No patron found with ID " + patronId);
         }
 
         // --- Validation Logic ---
         if (item.getBook().getType() == BookType.REFERENCE) {
-            logger.warn("Attempt to check out reference book: " + barcode);
+            logger.warn("Attempt to check out reference book: {}", barcode);
             throw new IllegalStateException("Reference books cannot be checked out.");
         }
-        if (item.getStatus() != BookStatus.AVAILABLE) {
-            logger.warn("Book not available: " + barcode + " (Status: " + item.getStatus() + ")");
+
+        // --- Policy Check (counters only) ---
+        refreshOverdueCounters();
+        PatronCounters counters = patron.getCounters();
+        String violation = policy.checkPatron(counters);
+        if (violation != null) {
+            logger.warn("Checkout refused for {}: {}", patronId, violation);
+            throw new IllegalStateException(violation);
+        }
+        if (!counters.tryAcquireLoan(policy.getMaxActiveLoans())) {
+            logger.warn("Checkout refused for {}: loan limit reached", patronId);
+            throw new IllegalStateException(policy.loanLimitMessage());
+        }
+        if (!isAvailableTo(item, patronId)) {
+            counters.loanClosed(); // Give the loan slot back
+            logger.warn("Book not available: {} (Status: {})", barcode, item.getStatus());
             throw new IllegalStateException("Book is not available.");
         }
 
-        // --- Process the Loan ---
-        item.setStatus(BookStatus.BORROWED);
+        LocalDate checkoutDate = LocalDate.now(clock);
+        return new LendingRecord(newLoanId(), barcode, patronId, checkoutDate, calculateDueDate(checkoutDate));
+    }
+
+    /**
+     * Lends the item of a prepared checkout and opens its loan.
+     *
+     * @param loan A loan from {@link #prepareCheckout} (its slot already taken)
+     * @return The loan, now active
+     */
+    public LendingRecord applyCheckout(LendingRecord loan) {
+        String barcode = loan.getBookItemBarcode();
+        BookItem item = bookSvc.getBookItemByBarcode(barcode);
+        Patron patron = patronSvc.getPatronById(loan.getPatronId());
+        if (item == null || patron == null) {
+            abandonCheckout(loan);
+            throw new IllegalArgumentException("Unknown item " + barcode + " or patron " + loan.getPatronId());
+        }
+        if (!lend(item, patron, loan)) {
+            logger.warn("Book not available: {} (Status: {})", barcode, item.getStatus());
+            throw new IllegalStateException("Book is not available. Status: " + item.getStatus());
+        }
+        logger.info("Book checked out: {} to {}", barcode, patron.getPatronId());
+        return loan;
+    }
+
+    /**
+     * Gives back the loan slot of a prepared checkout that will not be applied.
+     */
+    public void abandonCheckout(LendingRecord loan) {
+        Patron patron = patronSvc.getPatronById(loan.getPatronId());
+        if (patron != null) {
+            patron.getCounters().loanClosed();
+        }
+    }
+
+    /**
+     * Checks out a batch of items to one patron (e.g., a self-check kiosk).
+     * The patron is looked up once, dates are computed once, and a single
+     * summary line is logged. Each item succeeds or fails on its own.
+     *
+     * @param patronId The ID of the patron
+     * @param barcodes The barcodes of the items, in scan order
+     * @return One result per barcode, in the same order
+     */
+    public List<BulkItemResult> checkoutBooks(String patronId, List<String> barcodes) {
+        return applyCheckouts(patronId, prepareCheckouts(patronId, barcodes));
+    }
+
+    /**
+     * Validates a bulk checkout item by item and takes a loan slot for each
+     * item that can be lent, without lending anything yet (see
+     * {@link #prepareCheckout}). Successful results carry the loan to open.
+     *
+     * @param patronId The ID of the patron
+     * @param barcodes The barcodes of the items, in scan order
+     * @return One result per barcode, in the same order
+     */
+    public List<BulkItemResult> prepareCheckouts(String patronId, List<String> barcodes) {
+        List<BulkItemResult> results = new ArrayList<>(barcodes.size());
+        Patron patron = patronSvc.getPatronById(patronId);
+        if (patron == null) {
+            logger.error("Bulk checkout failed: No patron found with ID {}", patronId);
+            for (String barcode : barcodes) {
+                results.add(BulkItemResult.failure(barcode, "No patron found with ID " + patronId));
+            }
+            return results;
+        }
+
+        refreshOverdueCounters();
+        PatronCounters counters = patron.getCounters();
+        String violation = policy.checkPatron(counters);
+        if (violation != null) {
+            logger.warn("Bulk checkout refused for {}: {}", patronId, violation);
+            for (String barcode : barcodes) {
+                results.add(BulkItemResult.failure(barcode, violation));
+            }
+            return results;
+        }
 
-        LocalDate checkoutDate = LocalDate.now();
+        LocalDate checkoutDate = LocalDate.now(clock);
         LocalDate dueDate = calculateDueDate(checkoutDate);
-        String recordId = UUID.randomUUID().toString(); // Generate a unique ID for the loan
+        Set<String> seen = new HashSet<>();
 
-        // We assume LendingRecord has a constructor:
-        // (recordId, bookItemBarcode, patronId, checkoutDate, dueDate)
-        LendingRecord record = new LendingRecord(recordId, barcode, patronId, checkoutDate, dueDate);
+        for (String barcode : barcodes) {
+            if (!seen.add(barcode)) {
+                results.add(BulkItemResult.failure(barcode, "Duplicate barcode in batch."));
+                continue;
+            }
+            BookItem item = bookSvc.getBookItemByBarcode(barcode);
+            if (item == null) {
+                results.add(BulkItemResult.failure(barcode, "No book item found with barcode " + barcode));
+            } else if (item.getBook().getType() == BookType.REFERENCE) {
+                results.add(BulkItemResult.failure(barcode, "Reference books cannot be checked out."));
+            } else if (!counters.tryAcquireLoan(policy.getMaxActiveLoans())) {
+                results.add(BulkItemResult.failure(barcode, policy.loanLimitMessage()));
+            } else if (!isAvailableTo(item, patronId)) {
+                counters.loanClosed(); // Give the loan slot back
+                results.add(BulkItemResult.failure(barcode, "Book is not available. Status: " + item.getStatus()));
+            } else {
+                LendingRecord loan = new LendingRecord(newLoanId(), barcode, patronId, checkoutDate, dueDate);
+                results.add(BulkItemResult.success(barcode, "Due " + dueDate, loan));
+            }
+        }
+        return results;
+    }
 
-        activeLoans.add(record);
-        patron.getBorrowingHistory().add(record); // Add to patron's permanent history
+    /**
+     * Applies the successful items of {@link #prepareCheckouts}, in batch
+     * order. An item another desk took in the meantime fails on its own, and
+     * its loan slot is given back.
+     *
+     * @param patronId The ID of the patron
+     * @param prepared The prepared results
+     * @return One result per barcode, in the same order
+     */
+    public List<BulkItemResult> applyCheckouts(String patronId, List<BulkItemResult> prepared) {
+        List<BulkItemResult> results = new ArrayList<>(prepared.size());
+        Patron patron = patronSvc.getPatronById(patronId);
+        int succeeded = 0;
+        for (BulkItemResult result : prepared) {
+            if (!result.isSuccess()) {
+                results.add(result);
+                continue;
+            }
+            BookItem item = bookSvc.getBookItemByBarcode(result.getBarcode());
+            if (item == null || patron == null) {
+                abandonCheckout(result.getRecord());
+                results.add(BulkItemResult.failure(result.getBarcode(),
+                        "No book item found with barcode " + result.getBarcode()));
+            } else if (!lend(item, patron, result.getRecord())) {
+                results.add(BulkItemResult.failure(result.getBarcode(),
+                        "Book is not available. Status: " + item.getStatus()));
+            } else {
+                results.add(result);
+                succeeded++;
+            }
+        }
 
-        logger.info("Book checked out: " + barcode + " to " + patronId);
+        logger.info("Bulk checkout for {}: {} of {} item(s) checked out.", patronId, succeeded, prepared.size());
+        return results;
+    }
+
+    /**
+     * Gives back the loan slots of a prepared bulk checkout that will not be applied.
+     */
+    public void abandonCheckouts(List<BulkItemResult> prepared) {
+        for (BulkItemResult result : prepared) {
+            if (result.isSuccess()) {
+                abandonCheckout(result.getRecord());
+            }
+        }
     }
 
     /**
      * Returns a book item to the library.
      *
      * @param barcode The barcode of the specific book item
+     * @return The closed loan
      */
-    public void returnBook(String barcode) {
+    public LendingRecord returnBook(String barcode) {
+        return closeLoan(barcode, LocalDate.now(clock), null);
+    }
+
+    // handOff == null routes the copy to the best waiting reservation; otherwise the journaled decision is repeated
+    private LendingRecord closeLoan(String barcode, LocalDate returnDate, HoldHandOff handOff) {
         BookItem item = bookSvc.getBookItemByBarcode(barcode);
         if (item == null) {
-            logger.error("Return failed: No book item found with barcode " + barcode);
+            logger.error("Return failed: No book item found with barcode {}", barcode);
             throw new IllegalArgumentException("No book item found with barcode " + barcode);
         }
 
-        if (item.getStatus() != BookStatus.BORROWED) {
-            logger.warn("Return failed: Book " + barcode + " is not currently checked out.");
+        // --- Find and remove the LendingRecord (O(1) barcode lookup and removal) ---
+        // The removal is atomic and decides who owns the return: of two concurrent
+        // returns, or a return racing a checkout that hasn't opened its loan yet,
+        // only a caller that gets the record goes on to change the item's status
+        LendingRecord record = activeLoans.removeByBarcode(barcode);
+        if (record == null) {
+            logger.warn("Return failed: Book {} is not currently checked out.", barcode);
             throw new IllegalStateException("Book is not currently checked out. Status: " + item.getStatus());
         }
 
-        // --- Find and update LendingRecord ---
-        Optional<LendingRecord> recordOpt = activeLoans.stream()
-                .filter(record -> record.getBookItemBarcode().equals(barcode) && record.getReturnDate() == null)
-                .findFirst();
-
-        if (!recordOpt.isPresent()) {
-            logger.error("CRITICAL: No active loan record found for borrowed item: " + barcode);
-            throw new IllegalStateException("Data inconsistency: No active loan record found for borrowed item.");
-        }
-
-        LendingRecord record = recordOpt.get();
-        record.setReturnDate(LocalDate.now());
-        activeLoans.remove(record);
+        record.setReturnDate(returnDate);
+        closeLoanCounters(record);
 
-        logger.info("Loan record updated for item " + barcode);
+        logger.info("Loan record updated for item {}", barcode);
 
         // --- THIS IS THE UPDATED LOGIC ---
         // Directly ask ReservationService to process the return
         // and tell us what the new status should be.
-        BookStatus newStatus = reservationSvc.processBookReturn(item.getBook());
+        BookStatus newStatus = handOff == null
+                ? reservationSvc.processBookReturn(item)
+                : reservationSvc.setAside(item, handOff);
 
-        // Set the status returned by the service
-        item.setStatus(newStatus);
+        // Set the status returned by the service (keeps availability counters in step)
+        if (!bookSvc.transitionItemStatus(item, BookStatus.BORROWED, newStatus)) {
+            logger.error("CRITICAL: Item {} changed status during return; forcing {}", barcode, newStatus);
+            bookSvc.updateItemStatus(item, newStatus);
+        }
 
         if (newStatus == BookStatus.RESERVED) {
-            logger.info("Book returned and held for reservation: " + barcode);
+            logger.info("Book returned and held for reservation: {}", barcode);
         } else {
-            logger.info("Book returned and available: " + barcode);
+            logger.info("Book returned and available: {}", barcode);
+        }
+        return record;
+    }
+
+    /**
+     * Returns a batch of items (e.g., from an automated book drop).
+     * Loans are closed item by item, then reservations are processed once
+     * per title for all of its returned copies, and a single summary line
+     * is logged. Each item succeeds or fails on its own.
+     *
+     * @param barcodes The barcodes of the returned items
+     * @return One result per barcode, in the same order
+     */
+    public List<BulkItemResult> returnBooks(List<String> barcodes) {
+        BulkItemResult[] results = new BulkItemResult[barcodes.size()];
+        LocalDate returnDate = LocalDate.now(clock);
+        Set<String> seen = new HashSet<>();
+
+        // Key: ISBN, Value: positions (in the batch) of the copies of that title that were returned
+        Map<String, List<Integer>> returnedByTitle = new LinkedHashMap<>();
+        List<BookItem> items = new ArrayList<>(barcodes.size());
+        LendingRecord[] closed = new LendingRecord[barcodes.size()];
+
+        // --- Pass 1: validate and close the loans ---
+        for (int i = 0; i < barcodes.size(); i++) {
+            String barcode = barcodes.get(i);
+            BookItem item = bookSvc.getBookItemByBarcode(barcode);
+            items.add(item);
+            if (!seen.add(barcode)) {
+                results[i] = BulkItemResult.failure(barcode, "Duplicate barcode in batch.");
+                continue;
+            }
+            if (item == null) {
+                results[i] = BulkItemResult.failure(barcode, "No book item found with barcode " + barcode);
+                continue;
+            }
+            LendingRecord record = activeLoans.removeByBarcode(barcode);
+            if (record == null) {
+                results[i] = BulkItemResult.failure(barcode, "Book is not currently checked out. Status: " + item.getStatus());
+                continue;
+            }
+            record.setReturnDate(returnDate);
+            closeLoanCounters(record);
+            closed[i] = record;
+            returnedByTitle.computeIfAbsent(item.getBook().getIsbn(), k -> new ArrayList<>()).add(i);
+        }
+
+        // --- Pass 2: one reservation hand-off per title ---
+        int held = 0;
+        int returned = 0;
+        for (List<Integer> positions : returnedByTitle.values()) {
+            List<BookItem> copies = new ArrayList<>(positions.size());
+            for (int i : positions) {
+                copies.add(items.get(i));
+            }
+            int reserved = reservationSvc.processBookReturns(copies);
+            for (int n = 0; n < positions.size(); n++) {
+                int i = positions.get(n);
+                BookItem item = items.get(i);
+                BookStatus newStatus = n < reserved ? BookStatus.RESERVED : BookStatus.AVAILABLE;
+                if (!bookSvc.transitionItemStatus(item, BookStatus.BORROWED, newStatus)) {
+                    bookSvc.updateItemStatus(item, newStatus);
+                }
+                results[i] = BulkItemResult.success(item.getBarcode(),
+                        newStatus == BookStatus.RESERVED ? "Held for reservation." : "Available.", closed[i]);
+                returned++;
+                if (newStatus == BookStatus.RESERVED) {
+                    held++;
+                }
+            }
+        }
+
+        logger.info("Bulk return: {} of {} item(s) returned, {} held for reservations.", returned, barcodes.size(), held);
+        return List.of(results);
+    }
+
+    // --- Prepared returns (journaled path) ---
+
+    /**
+     * A validated return and where its copy will go, decided before anything
+     * changes so the decision can be journaled first.
+     */
+    public static final class PlannedReturn {
+        private final String barcode;
+        private final LocalDate returnDate;
+        private final HoldHandOff handOff;
+        private final String failure;
+
+        /**
+         * @param barcode    The barcode of the item
+         * @param returnDate The return date
+         * @param handOff    The reservation the copy is set aside for, or shelved
+         */
+        public PlannedReturn(String barcode, LocalDate returnDate, HoldHandOff handOff) {
+            this(barcode, returnDate, handOff, null);
+        }
+
+        private PlannedReturn(String barcode, LocalDate returnDate, HoldHandOff handOff, String failure) {
+            this.barcode = barcode;
+            this.returnDate = returnDate;
+            this.handOff = handOff;
+            this.failure = failure;
+        }
+
+        private static PlannedReturn failed(String barcode, String failure) {
+            return new PlannedReturn(barcode, null, null, failure);
+        }
+
+        /**
+         * @return false if the item failed validation (see {@link #getFailure()}).
+         */
+        public boolean isValid() {
+            return failure == null;
+        }
+
+        public String getBarcode() {
+            return barcode;
+        }
+
+        public LocalDate getReturnDate() {
+            return returnDate;
+        }
+
+        public HoldHandOff getHandOff() {
+            return handOff;
         }
+
+        public String getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * Validates a return and decides where the copy goes, without changing
+     * anything. The caller must keep the item's title from changing until
+     * {@link #applyReturn} (the persistence layer holds its stripe).
+     *
+     * @param barcode The barcode of the specific book item
+     * @return The return to apply
+     */
+    public PlannedReturn prepareReturn(String barcode) {
+        BookItem item = bookSvc.getBookItemByBarcode(barcode);
+        if (item == null) {
+            logger.error("Return failed: No book item found with barcode {}", barcode);
+            throw new IllegalArgumentException("No book item found with barcode " + barcode);
+        }
+        if (activeLoans.getByBarcode(barcode) == null) {
+            logger.warn("Return failed: Book {} is not currently checked out.", barcode);
+            throw new IllegalStateException("Book is not currently checked out. Status: " + item.getStatus());
+        }
+        HoldHandOff handOff = reservationSvc.planHandOffs(item.getBook().getIsbn(),
+                Collections.singletonList(item.getCurrentBranch())).get(0);
+        return new PlannedReturn(barcode, LocalDate.now(clock), handOff);
+    }
+
+    /**
+     * Applies a prepared (or journaled) return. The copy goes where the plan
+     * says, not where routing would send it now: on replay, routing depends on
+     * branch distances and passover counts that may have changed since.
+     *
+     * @param planned A valid planned return
+     * @return The closed loan
+     */
+    public LendingRecord applyReturn(PlannedReturn planned) {
+        return closeLoan(planned.getBarcode(), planned.getReturnDate(), planned.getHandOff());
+    }
+
+    /**
+     * Validates a batch of returns item by item and decides, once per title,
+     * where the returned copies go (see {@link #prepareReturn}).
+     *
+     * @param barcodes The barcodes of the returned items
+     * @return One plan per barcode, in the same order; invalid items carry their failure
+     */
+    public List<PlannedReturn> prepareReturns(List<String> barcodes) {
+        PlannedReturn[] planned = new PlannedReturn[barcodes.size()];
+        LocalDate returnDate = LocalDate.now(clock);
+        Set<String> seen = new HashSet<>();
+
+        // Key: ISBN, Value: positions (in the batch) of the copies of that title being returned
+        Map<String, List<Integer>> returnedByTitle = new LinkedHashMap<>();
+        BookItem[] items = new BookItem[barcodes.size()];
+        for (int i = 0; i < barcodes.size(); i++) {
+            String barcode = barcodes.get(i);
+            BookItem item = bookSvc.getBookItemByBarcode(barcode);
+            if (!seen.add(barcode)) {
+                planned[i] = PlannedReturn.failed(barcode, "Duplicate barcode in batch.");
+            } else if (item == null) {
+                planned[i] = PlannedReturn.failed(barcode, "No book item found with barcode " + barcode);
+            } else if (activeLoans.getByBarcode(barcode) == null) {
+                planned[i] = PlannedReturn.failed(barcode, "Book is not currently checked out. Status: " + item.getStatus());
+            } else {
+                items[i] = item;
+                returnedByTitle.computeIfAbsent(item.getBook().getIsbn(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> title : returnedByTitle.entrySet()) {
+            List<Integer> positions = title.getValue();
+            List<Branch> branches = new ArrayList<>(positions.size());
+            for (int i : positions) {
+                branches.add(items[i].getCurrentBranch());
+            }
+            List<HoldHandOff> handOffs = reservationSvc.planHandOffs(title.getKey(), branches);
+            for (int n = 0; n < positions.size(); n++) {
+                int i = positions.get(n);
+                planned[i] = new PlannedReturn(barcodes.get(i), returnDate, handOffs.get(n));
+            }
+        }
+        return List.of(planned);
+    }
+
+    /**
+     * Applies a batch of prepared (or journaled) returns in order.
+     *
+     * @param planned The plans from {@link #prepareReturns}
+     * @return One result per plan, in the same order
+     */
+    public List<BulkItemResult> applyReturns(List<PlannedReturn> planned) {
+        List<BulkItemResult> results = new ArrayList<>(planned.size());
+        int held = 0;
+        int returned = 0;
+        for (PlannedReturn plan : planned) {
+            if (!plan.isValid()) {
+                results.add(BulkItemResult.failure(plan.getBarcode(), plan.getFailure()));
+                continue;
+            }
+            try {
+                LendingRecord record = applyReturn(plan);
+                boolean isHeld = !plan.getHandOff().isShelved();
+                results.add(BulkItemResult.success(plan.getBarcode(), isHeld ? "Held for reservation." : "Available.", record));
+                returned++;
+                if (isHeld) {
+                    held++;
+                }
+            } catch (RuntimeException e) {
+                results.add(BulkItemResult.failure(plan.getBarcode(), e.getMessage()));
+            }
+        }
+
+        logger.info("Bulk return: {} of {} item(s) returned, {} held for reservations.", returned, planned.size(), held);
+        return results;
+    }
+
+    /**
+     * Moves an item to BORROWED for a patron: either it is AVAILABLE, or it is
+     * RESERVED on the hold shelf for this very patron.
+     *
+     * @return false if the item cannot be lent to this patron right now.
+     */
+    private boolean takeItem(BookItem item, String patronId) {
+        if (bookSvc.transitionItemStatus(item, BookStatus.AVAILABLE, BookStatus.BORROWED)) {
+            return true;
+        }
+        if (item.getStatus() == BookStatus.RESERVED && reservationSvc.claimHold(item, patronId)) {
+            if (!bookSvc.transitionItemStatus(item, BookStatus.RESERVED, BookStatus.BORROWED)) {
+                logger.error("CRITICAL: Held item {} changed status during pickup; forcing BORROWED", item.getBarcode());
+                bookSvc.updateItemStatus(item, BookStatus.BORROWED);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lends an item for a prepared loan whose slot is already taken, or gives
+     * the slot back.
+     *
+     * @return false if the item cannot be lent to the patron right now.
+     */
+    private boolean lend(BookItem item, Patron patron, LendingRecord loan) {
+        // Atomic AVAILABLE -> BORROWED (or a hold pickup): if two desks race for this copy, only one wins
+        if (!takeItem(item, patron.getPatronId())) {
+            patron.getCounters().loanClosed(); // Give the loan slot back
+            return false;
+        }
+        openLoan(loan, patron);
+        return true;
+    }
+
+    /**
+     * @return true if the item is on the shelf, or on the hold shelf for this patron.
+     */
+    private boolean isAvailableTo(BookItem item, String patronId) {
+        BookStatus status = item.getStatus();
+        return status == BookStatus.AVAILABLE
+                || status == BookStatus.RESERVED && reservationSvc.isHeldFor(item.getBarcode(), patronId);
+    }
+
+    // --- Recovery ---
+
+    /**
+     * Re-applies a journaled checkout with its original loan ID and dates.
+     * The borrowing policy is not checked again; it was checked when the loan was made.
+     *
+     * @param recordId     The loan ID
+     * @param patronId     The ID of the patron
+     * @param barcode      The barcode of the item
+     * @param checkoutDate The original checkout date
+     * @param dueDate      The original due date
+     * @return The re-opened loan
+     */
+    public LendingRecord replayCheckout(String recordId, String patronId, String barcode,
+                                       LocalDate checkoutDate, LocalDate dueDate) {
+        Patron patron = patronSvc.getPatronById(patronId);
+        if (patron == null) {
+            throw new IllegalArgumentException("No patron found with ID " + patronId);
+        }
+        patron.getCounters().tryAcquireLoan(Integer.MAX_VALUE);
+        return applyCheckout(new LendingRecord(recordId, barcode, patronId, checkoutDate, dueDate));
+    }
+
+    /**
+     * Puts a loan loaded from a snapshot back into the active store and the
+     * patron's loan count. The item's status and the patron's history are
+     * restored by the caller.
+     *
+     * @param record An open loan (no return date)
+     */
+    public void restoreLoan(LendingRecord record) {
+        Patron patron = patronSvc.getPatronById(record.getPatronId());
+        if (patron == null) {
+            throw new IllegalArgumentException("No patron found with ID " + record.getPatronId());
+        }
+        activeLoans.add(record);
+        patron.getCounters().tryAcquireLoan(Integer.MAX_VALUE);
     }
+
+    private static String newLoanId() {
+        return IdGenerator.getInstance().nextId("ln-"); // Generate a unique ID for the loan
+    }
+
+    /**
+     * Activates the loan record for an item that was just moved to BORROWED.
+     */
+    private void openLoan(LendingRecord record, Patron patron) {
+        activeLoans.add(record);
+        patron.getHistory().add(record); // Add to patron's permanent history
+    }
+
+    /**
+     * Releases the patron's loan slot (and overdue count, if it was counted)
+     * for a loan that has just been removed from the active store, and lets
+     * the patron's history compact the loan if it was archived while out.
+     */
+    private void closeLoanCounters(LendingRecord record) {
+        Patron patron = patronSvc.getPatronById(record.getPatronId());
+        boolean wasOverdue = record.closeOverdueCount();
+        if (patron == null) {
+            return;
+        }
+        patron.getCounters().loanClosed();
+        if (wasOverdue) {
+            patron.getCounters().overdueClosed();
+        }
+        patron.getHistory().onReturned(record);
+    }
+
+    /**
+     * Brings the patrons' overdue counters up to today.
+     * Only the due-date buckets between the last refresh and today are visited,
+     * and on the same day this is a single volatile read.
+     */
+    private void refreshOverdueCounters() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.isAfter(overdueCountedThrough)) {
+            return;
+        }
+        synchronized (activeLoans) {
+            LocalDate from = overdueCountedThrough;
+            if (!today.isAfter(from)) {
+                return;
+            }
+            for (LendingRecord record : activeLoans.getDueBetween(from, today)) {
+                Patron patron = patronSvc.getPatronById(record.getPatronId());
+                if (patron != null && record.markOverdueCounted()) {
+                    patron.getCounters().overdueOpened();
+                }
+            }
+            overdueCountedThrough = today;
+        }
+    }
+
     /**
      * Helper method to calculate the due date.
      * (Could be expanded with rules for different BookTypes or PatronTypes)
@@ -141,19 +746,43 @@ public class LendingService {
     }
 
     /**
-     * Gets a list of all currently active loans.
+     * Gets a list of all currently active loans, earliest due date first.
      */
     public List<LendingRecord> getActiveLoans() {
-        return new ArrayList<>(activeLoans); // Return a copy
+        return activeLoans.getAllInDueDateOrder(); // Return a copy
+    }
+
+    /**
+     * Gets the active loans of one patron.
+     *
+     * @param patronId The ID of the patron
+     */
+    public List<LendingRecord> getActiveLoansForPatron(String patronId) {
+        return activeLoans.getByPatron(patronId);
     }
 
     /**
-     * Gets all overdue loans.
+     * Gets all overdue loans, earliest due date first.
+     * Only the due-date buckets before today are visited.
      */
     public List<LendingRecord> getOverdueLoans() {
-        LocalDate today = LocalDate.now();
-        return activeLoans.stream()
-                .filter(loan -> loan.getDueDate().isBefore(today))
-                .collect(Collectors.toList());
+        return activeLoans.getDueBefore(LocalDate.now(clock));
+    }
+
+    /**
+     * Gets the loans that became overdue since the previous call, so a
+     * dashboard can consume overdue transitions incrementally instead of
+     * recomputing the whole set. The first call reports every overdue loan.
+     * Loans returned in the meantime are not reported.
+     */
+    public synchronized List<LendingRecord> getNewlyOverdueLoans() {
+        LocalDate today = LocalDate.now(clock);
+        List<LendingRecord> newlyOverdue = overdueWatermark == null
+                ? activeLoans.getDueBefore(today)
+                : activeLoans.getDueBetween(overdueWatermark, today);
+        if (overdueWatermark == null || today.isAfter(overdueWatermark)) {
+            overdueWatermark = today;
+        }
+        return newlyOverdue;
     }
 }
\ No newline at end of file
@@ -1,20 +1,32 @@
 package org.com.librarysystem.service;
 
 import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.NotificationTemplate;
+import org.com.librarysystem.notification.NotificationDispatcher;
 import org.com.librarysystem.patterns.singleton.Logger;
 
 /**
  * Handles sending notifications to patrons.
  *
- * In this simple implementation, it adds a message to the patron's
- * internal notification list. In a real system, this service would
- * be responsible for sending emails, SMS, or push notifications.
+ * It always adds the message to the patron's internal notification list.
+ * If a NotificationDispatcher is configured, the message is also queued for
+ * the external channels (email, SMS, ...); that hand-off never blocks, so
+ * returns and reservations don't wait on mail servers.
  */
 public class NotificationService {
 
     private final Logger logger = Logger.getInstance();
+    private final NotificationDispatcher dispatcher; // null = in-app notifications only
 
     public NotificationService() {
+        this(null);
+    }
+
+    /**
+     * @param dispatcher Asynchronous delivery to external channels (may be null).
+     */
+    public NotificationService(NotificationDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
         logger.info("NotificationService initialized.");
     }
 
@@ -31,23 +43,42 @@ public class NotificationService {
         }
 
         if (message == null || message.trim().isEmpty()) {
-            logger.warn("Attempted to send a null or empty message to patron: " + patron.getPatronId());
+            logger.warn("Attempted to send a null or empty message to patron: {}", patron.getPatronId());
             return;
         }
 
         // In our LLD, "sending" just means adding to the patron's internal list.
         patron.addNotification(message);
 
-        logger.info("Notification sent to " + patron.getName() + " (ID: " + patron.getPatronId() + "): " + message);
-
-        // --- Future Extension ---
-        // This is where you would add integration with an email service:
-        //
-        // try {
-        //   EmailClient.send(patron.getEmail(), "Library Notification", message);
-        //   logger.info("Notification email successfully sent to " + patron.getEmail());
-        // } catch (EmailException e) {
-        //   logger.error("Failed to send email to " + patron.getEmail(), e);
-        // }
+        logger.info("Notification sent to {} (ID: {}): {}", patron.getName(), patron.getPatronId(), message);
+
+        // External channels (email, SMS) are delivered asynchronously, with batching and retries
+        if (dispatcher != null) {
+            dispatcher.submit(patron, message);
+        }
+    }
+
+    /**
+     * Sends a templated notification. The patron's inbox stores only the
+     * template and its argument; text is rendered for external channels
+     * (if any) and later when the patron reads it.
+     *
+     * @param patron   The patron to notify.
+     * @param template The kind of notification.
+     * @param argument The template argument (e.g., a book title).
+     */
+    public void sendNotification(Patron patron, NotificationTemplate template, String argument) {
+        if (patron == null) {
+            logger.warn("Attempted to send notification to a null patron.");
+            return;
+        }
+
+        patron.addNotification(template, argument);
+
+        logger.info("Notification {} sent to patron {}: {}", template, patron.getPatronId(), argument);
+
+        if (dispatcher != null) {
+            dispatcher.submit(patron, template.render(argument));
+        }
     }
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 package org.com.librarysystem.service;
 
 import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.patterns.singleton.IdGenerator;
 import org.com.librarysystem.patterns.singleton.Logger;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages the collection of all patrons (members) in the library system.
@@ -22,7 +22,7 @@ public class PatronManagementService {
      * Initializes the PatronManagementService.
      */
     public PatronManagementService() {
-        this.patrons = new HashMap<>();
+        this.patrons = new ConcurrentHashMap<>();
         logger.info("PatronManagementService initialized.");
     }
 
@@ -35,6 +35,24 @@ public class PatronManagementService {
      * @return The newly created Patron object.
      */
     public Patron addPatron(String name, String email) {
+        Patron newPatron = preparePatron(name, email);
+
+        patrons.put(newPatron.getPatronId(), newPatron);
+        logger.info("Added new patron: {} (ID: {})", name, newPatron.getPatronId());
+
+        return newPatron;
+    }
+
+    /**
+     * Validates a new patron and assigns their ID, without registering them.
+     * The journaled path appends the patron first and then calls
+     * {@link #restorePatron}.
+     *
+     * @param name  The full name of the patron.
+     * @param email The patron's email address.
+     * @return The patron to register.
+     */
+    public Patron preparePatron(String name, String email) {
         if (name == null || name.trim().isEmpty() || email == null || email.trim().isEmpty()) {
             logger.warn("Attempted to add patron with invalid name or email.");
             throw new IllegalArgumentException("Patron name and email must not be null or empty.");
@@ -42,20 +60,31 @@ public class PatronManagementService {
 
         // (Optional) Check for duplicate email
         if (isEmailInUse(email)) {
-            logger.warn("Attempted to add patron with duplicate email: " + email);
+            logger.warn("Attempted to add patron with duplicate email: {}", email);
             throw new IllegalStateException("A patron with this email already exists.");
         }
 
         // Generate a unique ID
-        String patronId = "p-" + UUID.randomUUID().toString().substring(0, 8);
+        String patronId = IdGenerator.getInstance().nextId("p-");
 
         // We assume Patron has a constructor: (patronId, name, email)
-        Patron newPatron = new Patron(patronId, name, email);
-
-        patrons.put(patronId, newPatron);
-        logger.info("Added new patron: " + name + " (ID: " + patronId + ")");
+        return new Patron(patronId, name, email);
+    }
 
-        return newPatron;
+    /**
+     * Re-creates a patron with their original ID (journal replay or snapshot load).
+     *
+     * @param patronId The patron's ID.
+     * @param name     The full name of the patron.
+     * @param email    The patron's email address.
+     * @return The restored Patron object.
+     */
+    public Patron restorePatron(String patronId, String name, String email) {
+        Patron patron = new Patron(patronId, name, email);
+        if (patrons.putIfAbsent(patronId, patron) != null) {
+            throw new IllegalStateException("Patron with ID " + patronId + " already exists.");
+        }
+        return patron;
     }
 
     /**
@@ -79,12 +108,12 @@ public class PatronManagementService {
         }
 
         if (!patrons.containsKey(updatedPatron.getPatronId())) {
-            logger.warn("Attempted to update a patron that doesn't exist: " + updatedPatron.getPatronId());
+            logger.warn("Attempted to update a patron that doesn't exist: {}", updatedPatron.getPatronId());
             throw new IllegalArgumentException("No patron found with this ID to update.");
         }
 
         patrons.put(updatedPatron.getPatronId(), updatedPatron);
-        logger.info("Updated information for patron: " + updatedPatron.getPatronId());
+        logger.info("Updated information for patron: {}", updatedPatron.getPatronId());
     }
 
     /**
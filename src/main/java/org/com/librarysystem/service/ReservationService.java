@@ -1,18 +1,32 @@
 package org.com.librarysystem.service;
 
 import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.HoldHandOff;
 import org.com.librarysystem.core.Patron;
 import org.com.librarysystem.core.Reservation;
 import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.NotificationTemplate;
 import org.com.librarysystem.enums.ReservationStatus;
+import org.com.librarysystem.patterns.singleton.IdGenerator;
 import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.scheduler.TimingWheel;
+import org.com.librarysystem.store.ReservationEngine;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
 
 /**
  * Manages book reservations.
@@ -20,42 +34,287 @@ import java.util.UUID;
  * NOTE: We have REMOVED the "implements Observer" part,
  * as it created a race condition. This class is now
  * called directly by LendingService.
+ * <p>
+ * Waiting holds live in a ReservationEngine (per-title FIFO queues with
+ * O(1) cancellation, a per-patron index and queue positions). It is
+ * thread-safe, so a reservation, a cancellation and a return of the same
+ * title can run on different threads; each returned copy goes to exactly
+ * one waiting patron.
+ * <p>
+ * Each patron's pending-hold counter goes up when a reservation is made
+ * and down when a copy is set aside for it.
+ * <p>
+ * A copy set aside for a patron must be picked up within the hold period.
+ * Pickup deadlines sit in a hierarchical timing wheel, so there is no timer
+ * per hold and no scan of the hold shelf: {@link #expireHolds()} (run from a
+ * scheduled task, e.g. once a minute) only visits the wheel slots that have
+ * come due. An expired copy goes to the next patron in line, or back to
+ * AVAILABLE if nobody is waiting.
+ * <p>
+ * Holds name a pickup branch. A copy coming back (or newly added) goes to the
+ * waiting patron whose pickup branch is nearest to where the copy is, using the
+ * BranchNetwork's precomputed distances; only the head of each branch queue
+ * for the title is considered, so routing does not depend on queue lengths.
  */
 public class ReservationService {
 
-    // Key: ISBN, Value: A queue of patrons waiting for that book
-    private final Map<String, Queue<Reservation>> reservationQueues;
+    /** How long a patron has to pick up a copy set aside for them. */
+    public static final Duration DEFAULT_HOLD_PERIOD = Duration.ofDays(7);
+
+    // Resolution of the pickup deadlines
+    private static final Duration EXPIRY_TICK = Duration.ofMinutes(1);
+
+    // Waiting holds, by title, reservation ID and patron
+    private final ReservationEngine reservations;
     private final NotificationService notificationSvc;
+    private final BookManagementService bookSvc; // To release copies whose hold expired
+    private final BranchNetwork branchNetwork; // Distances for routing copies to pickup branches
+    private final Clock clock;
+    private final Duration holdPeriod;
+
+    // Key: barcode of a copy on the hold shelf
+    private final ConcurrentHashMap<String, ReadyHold> readyHolds;
+    private final TimingWheel<ReadyHold> pickupDeadlines;
+
+    // Set while recovery replays history the patrons were already notified about
+    private volatile boolean notificationsSuppressed;
     private final Logger logger = Logger.getInstance();
 
-    public ReservationService(NotificationService notificationSvc) {
+    /** A copy on the hold shelf and its pending expiry. */
+    private static final class ReadyHold {
+        final Reservation reservation;
+        volatile TimingWheel.Timeout<ReadyHold> timeout;
+
+        ReadyHold(Reservation reservation) {
+            this.reservation = reservation;
+        }
+    }
+
+    /**
+     * A hold whose pickup deadline has passed, taken off the timing wheel by
+     * {@link #prepareHoldExpiries()}, and where its copy goes next.
+     */
+    public static final class HoldExpiry {
+        private final ReadyHold hold;
+        private final HoldHandOff next;
+
+        private HoldExpiry(ReadyHold hold, HoldHandOff next) {
+            this.hold = hold;
+            this.next = next;
+        }
+
+        public String getBarcode() {
+            return hold.reservation.getHeldItem().getBarcode();
+        }
+
+        public HoldHandOff getNext() {
+            return next;
+        }
+    }
+
+    public ReservationService(NotificationService notificationSvc, BookManagementService bookSvc) {
+        this(notificationSvc, bookSvc, new BranchNetwork(), Clock.systemDefaultZone(), DEFAULT_HOLD_PERIOD);
+    }
+
+    public ReservationService(NotificationService notificationSvc, BookManagementService bookSvc,
+                              BranchNetwork branchNetwork) {
+        this(notificationSvc, bookSvc, branchNetwork, Clock.systemDefaultZone(), DEFAULT_HOLD_PERIOD);
+    }
+
+    /**
+     * Constructor with an explicit clock and hold period (e.g., a fixed clock in tests).
+     *
+     * @param notificationSvc NotificationService instance
+     * @param bookSvc         BookManagementService instance
+     * @param branchNetwork   The branches and transfer costs used for routing
+     * @param clock           The clock used for reservation dates and pickup deadlines
+     * @param holdPeriod      How long a copy stays on the hold shelf (at least one minute)
+     */
+    public ReservationService(NotificationService notificationSvc, BookManagementService bookSvc,
+                              BranchNetwork branchNetwork, Clock clock, Duration holdPeriod) {
+        if (holdPeriod.compareTo(EXPIRY_TICK) < 0) {
+            throw new IllegalArgumentException("Hold period must be at least " + EXPIRY_TICK.toMinutes() + " minute.");
+        }
         this.notificationSvc = notificationSvc;
-        this.reservationQueues = new HashMap<>();
+        this.bookSvc = bookSvc;
+        this.branchNetwork = branchNetwork;
+        this.clock = clock;
+        this.holdPeriod = holdPeriod;
+        this.reservations = new ReservationEngine();
+        this.readyHolds = new ConcurrentHashMap<>();
+        this.pickupDeadlines = new TimingWheel<>(clock, EXPIRY_TICK);
     }
 
     /**
      * Creates a new reservation for a book by a patron.
+     *
+     * @return The new reservation (its ID is used to cancel it or query its position).
      */
-    public void makeReservation(Patron patron, Book book) {
+    public Reservation makeReservation(Patron patron, Book book) {
+        return makeReservation(patron, book, null);
+    }
+
+    /**
+     * Creates a new reservation to be collected at a given branch.
+     *
+     * @param pickupBranch Where the patron will collect the copy (null = any branch).
+     * @return The new reservation (its ID is used to cancel it or query its position).
+     */
+    public Reservation makeReservation(Patron patron, Book book, Branch pickupBranch) {
+        Reservation newReservation = prepareReservation(patron, book, pickupBranch);
+        enqueue(newReservation);
+        logger.info("Reservation made for {} by {}", book.getIsbn(), patron.getPatronId());
+
+        // --- OBSERVER LOGIC REMOVED ---
+        // We no longer need to add this service as an observer
+        // book.addObserver(this);
+        return newReservation;
+    }
+
+    /**
+     * Creates a reservation with a new ID and today's date without queuing it
+     * (the journaled path queues it with {@link #restoreReservation} once its
+     * record is durable).
+     *
+     * @param pickupBranch Where the patron will collect the copy (null = any branch).
+     * @return The new PENDING reservation.
+     */
+    public Reservation prepareReservation(Patron patron, Book book, Branch pickupBranch) {
         if (patron == null || book == null) {
             throw new IllegalArgumentException("Patron and Book cannot be null.");
         }
 
-        // Get or create the queue for this book's ISBN
-        reservationQueues.putIfAbsent(book.getIsbn(), new LinkedList<>());
-
         // We assume Reservation has a constructor: (id, patron, book, status, date)
-        String resId = "r-" + UUID.randomUUID().toString().substring(0, 8);
+        String resId = IdGenerator.getInstance().nextId("r-");
         Reservation newReservation = new Reservation(
-                resId, patron, book, ReservationStatus.PENDING, LocalDate.now()
+                resId, patron, book, ReservationStatus.PENDING, LocalDate.now(clock)
         );
+        newReservation.setPickupBranch(pickupBranch);
+        return newReservation;
+    }
 
-        reservationQueues.get(book.getIsbn()).add(newReservation);
-        logger.info("Reservation made for " + book.getIsbn() + " by " + patron.getPatronId());
+    /**
+     * Re-queues a reservation with its original ID and date, behind the holds
+     * already waiting (journal replay, snapshot load, or a journaled
+     * reservation whose record is durable).
+     *
+     * @param reservation A PENDING reservation.
+     */
+    public void restoreReservation(Reservation reservation) {
+        restoreReservation(reservation, 0);
+    }
 
-        // --- OBSERVER LOGIC REMOVED ---
-        // We no longer need to add this service as an observer
-        // book.addObserver(this);
+    /**
+     * Same as {@link #restoreReservation(Reservation)}, with the passovers the
+     * hold had counted when the snapshot was taken, so later copies are
+     * routed exactly as they would have been.
+     *
+     * @param reservation A PENDING reservation.
+     * @param passovers   How often it had been passed over for a nearer hold.
+     */
+    public void restoreReservation(Reservation reservation, int passovers) {
+        reservation.getPatron().getCounters().holdOpened();
+        reservations.add(reservation, passovers);
+    }
+
+    /**
+     * Puts a copy back on the hold shelf for a reservation (snapshot load).
+     * The copy's RESERVED status is restored by the caller.
+     *
+     * @param reservation The reservation the copy is held for.
+     * @param item        The copy on the hold shelf.
+     * @param deadline    The original pickup deadline (may already have passed).
+     */
+    public void restoreReadyHold(Reservation reservation, BookItem item, Instant deadline) {
+        reservation.setStatus(ReservationStatus.READY_FOR_PICKUP);
+        reservation.setHeldItem(item);
+        reservation.setPickupDeadline(deadline);
+        ReadyHold hold = new ReadyHold(reservation);
+        if (readyHolds.putIfAbsent(item.getBarcode(), hold) != null) {
+            throw new IllegalStateException("Item " + item.getBarcode() + " is already on the hold shelf.");
+        }
+        hold.timeout = pickupDeadlines.schedule(hold, deadline);
+    }
+
+    /**
+     * @return Every waiting reservation, in the order they were placed.
+     */
+    public List<Reservation> getWaitingReservations() {
+        return reservations.getAllWaiting();
+    }
+
+    /**
+     * @return How often a waiting reservation has been passed over for a
+     *         nearer one (0 if it is not waiting).
+     */
+    public int getPassovers(String reservationId) {
+        return reservations.getPassovers(reservationId);
+    }
+
+    /**
+     * @return The reservations whose copy is on the hold shelf.
+     */
+    public List<Reservation> getReadyHolds() {
+        List<Reservation> ready = new ArrayList<>(readyHolds.size());
+        for (ReadyHold hold : readyHolds.values()) {
+            ready.add(hold.reservation);
+        }
+        return ready;
+    }
+
+    /**
+     * Turns patron notifications off (or back on), e.g. while recovery replays
+     * holds that patrons were already told about.
+     */
+    public void setNotificationsSuppressed(boolean suppressed) {
+        this.notificationsSuppressed = suppressed;
+    }
+
+    /**
+     * Cancels a waiting reservation.
+     *
+     * @param reservationId The reservation ID.
+     * @return The cancelled reservation.
+     */
+    public Reservation cancelReservation(String reservationId) {
+        Reservation cancelled = reservations.cancel(reservationId);
+        if (cancelled == null) {
+            logger.warn("Cancel failed: No waiting reservation with ID {}", reservationId);
+            throw new IllegalArgumentException("No waiting reservation with ID " + reservationId);
+        }
+        cancelled.setStatus(ReservationStatus.CANCELED);
+        cancelled.getPatron().getCounters().holdClosed();
+        logger.info("Reservation cancelled: {}", reservationId);
+        return cancelled;
+    }
+
+    /**
+     * @return The 1-based queue position of a waiting reservation
+     *         (1 = next in line), or -1 if it is not waiting.
+     */
+    public int getQueuePosition(String reservationId) {
+        return reservations.getPosition(reservationId);
+    }
+
+    /**
+     * @return How many patrons are waiting for a title.
+     */
+    public int getQueueLength(String isbn) {
+        return reservations.getQueueLength(isbn);
+    }
+
+    /**
+     * @return The waiting reservation with this ID, or null.
+     */
+    public Reservation getReservation(String reservationId) {
+        return reservations.getById(reservationId);
+    }
+
+    /**
+     * @return A patron's waiting reservations.
+     */
+    public List<Reservation> getPendingReservations(String patronId) {
+        return reservations.getByPatron(patronId);
     }
 
     /**
@@ -63,29 +322,333 @@ public class ReservationService {
      * It checks if a reservation exists, processes it, and returns the
      * correct status (RESERVED or AVAILABLE) for the book item.
      *
-     * @param book The book (title) that was returned.
+     * @param item The copy that was returned.
      * @return The BookStatus that the physical item should be set to.
      */
-    public BookStatus processBookReturn(Book book) {
-        Queue<Reservation> queue = reservationQueues.get(book.getIsbn());
+    public BookStatus processBookReturn(BookItem item) {
+        // Tell LendingService to mark the physical item as RESERVED, or AVAILABLE if nobody is waiting
+        return holdForNextInLine(item) ? BookStatus.RESERVED : BookStatus.AVAILABLE;
+    }
+
+    /**
+     * Bulk variant of processBookReturn: hands several returned copies of the
+     * same title to the patrons at the front of its queue in one call.
+     *
+     * @param items Returned copies of one title.
+     * @return How many of those copies, from the start of the list, are now
+     *         held for a reservation (the rest should become AVAILABLE).
+     */
+    public int processBookReturns(List<BookItem> items) {
+        int reserved = 0;
+        while (reserved < items.size() && holdForNextInLine(items.get(reserved))) {
+            reserved++;
+        }
+        return reserved;
+    }
 
-        if (queue != null && !queue.isEmpty()) {
-            // A reservation exists! Process it.
-            Reservation nextInLine = queue.poll(); // Dequeue the reservation
-            nextInLine.setStatus(ReservationStatus.READY_FOR_PICKUP);
+    /**
+     * Claims a copy on the hold shelf for checkout.
+     *
+     * @param item     The copy (status RESERVED).
+     * @param patronId The patron checking it out.
+     * @return true if the copy was held for this patron; the hold is now FULFILLED.
+     */
+    public boolean claimHold(BookItem item, String patronId) {
+        ReadyHold hold = readyHolds.get(item.getBarcode());
+        if (hold == null || !hold.reservation.getPatron().getPatronId().equals(patronId)) {
+            return false;
+        }
+        // Atomic: a concurrent expiry of the same hold can't also win
+        if (!readyHolds.remove(item.getBarcode(), hold)) {
+            return false;
+        }
+        TimingWheel.Timeout<ReadyHold> timeout = hold.timeout;
+        if (timeout != null) {
+            pickupDeadlines.cancel(timeout);
+        }
+        hold.reservation.setStatus(ReservationStatus.FULFILLED);
+        logger.info("Hold picked up: {} by {}", item.getBarcode(), patronId);
+        return true;
+    }
+
+    /**
+     * Expires every hold whose pickup deadline has passed. Each expired copy
+     * goes to the next patron in line, or back to AVAILABLE.
+     * Only the timing-wheel slots that came due since the last call are visited.
+     *
+     * @return How many holds expired.
+     */
+    public int expireHolds() {
+        return expireDueHolds().size();
+    }
 
-            // Send notification
-            notificationSvc.sendNotification(nextInLine.getPatron(),
-                    "Your reserved book '" + book.getTitle() + "' is ready for pickup!");
+    /**
+     * Same as {@link #expireHolds()}, but reports which copies were affected.
+     *
+     * @return The barcodes of the copies whose hold expired, in expiry order.
+     */
+    public List<String> expireDueHolds() {
+        List<String> expired = new ArrayList<>();
+        for (ReadyHold hold : pickupDeadlines.advance()) {
+            BookItem item = hold.reservation.getHeldItem();
+            if (!readyHolds.remove(item.getBarcode(), hold)) {
+                continue; // Picked up at the last moment
+            }
+            expire(hold, null);
+            expired.add(item.getBarcode());
+        }
+        return expired;
+    }
 
-            // Tell LendingService to mark the physical item as RESERVED
-            return BookStatus.RESERVED;
+    /**
+     * Takes the holds whose pickup deadline has passed off the timing wheel
+     * and decides where each copy goes next, without changing anything else.
+     * The caller journals the result, then applies each expiry with
+     * {@link #applyHoldExpiry}, or gives them back with
+     * {@link #abandonHoldExpiries} if the journal fails. Hand-offs and pickups
+     * must be kept out meanwhile.
+     *
+     * @return The due holds, in expiry order.
+     */
+    public List<HoldExpiry> prepareHoldExpiries() {
+        List<ReadyHold> due = new ArrayList<>();
+        // Key: ISBN, Value: the branches of its expiring copies, in expiry order
+        Map<String, List<Branch>> copiesByTitle = new LinkedHashMap<>();
+        for (ReadyHold hold : pickupDeadlines.advance()) {
+            BookItem item = hold.reservation.getHeldItem();
+            if (readyHolds.get(item.getBarcode()) != hold) {
+                continue; // Picked up at the last moment
+            }
+            due.add(hold);
+            copiesByTitle.computeIfAbsent(item.getBook().getIsbn(), k -> new ArrayList<>()).add(item.getCurrentBranch());
+        }
+        Map<String, Iterator<HoldHandOff>> plans = new HashMap<>();
+        copiesByTitle.forEach((isbn, branches) -> plans.put(isbn, planHandOffs(isbn, branches).iterator()));
 
+        List<HoldExpiry> expiries = new ArrayList<>(due.size());
+        for (ReadyHold hold : due) {
+            expiries.add(new HoldExpiry(hold, plans.get(hold.reservation.getBook().getIsbn()).next()));
+        }
+        return expiries;
+    }
+
+    /**
+     * Puts holds taken off the timing wheel by {@link #prepareHoldExpiries()}
+     * back on it. Their deadlines have passed, so they come due again on the
+     * first advance after the wheel's next tick (one minute).
+     */
+    public void abandonHoldExpiries(List<HoldExpiry> expiries) {
+        for (HoldExpiry expiry : expiries) {
+            ReadyHold hold = expiry.hold;
+            hold.timeout = pickupDeadlines.schedule(hold, hold.reservation.getPickupDeadline());
+        }
+    }
+
+    /**
+     * Re-applies a journaled hold expiry, whatever the copy's current deadline,
+     * and hands the copy on as the journal says.
+     *
+     * @param barcode The copy whose hold expired.
+     * @param next    Where the copy went next.
+     */
+    public void applyHoldExpiry(String barcode, HoldHandOff next) {
+        ReadyHold hold = readyHolds.remove(barcode);
+        if (hold == null) {
+            throw new IllegalStateException("Item " + barcode + " is not on the hold shelf.");
+        }
+        TimingWheel.Timeout<ReadyHold> timeout = hold.timeout;
+        if (timeout != null) {
+            pickupDeadlines.cancel(timeout);
+        }
+        expire(hold, next);
+    }
+
+    // Caller has already removed the hold from readyHolds; next == null routes the copy here
+    private void expire(ReadyHold hold, HoldHandOff next) {
+        Reservation expired = hold.reservation;
+        BookItem item = expired.getHeldItem();
+        expired.setStatus(ReservationStatus.EXPIRED);
+        notifyPatron(expired.getPatron(), NotificationTemplate.HOLD_EXPIRED, item.getBook().getTitle());
+
+        boolean passedOn = next == null ? holdForNextInLine(item) : setAside(item, next) == BookStatus.RESERVED;
+        if (!passedOn) {
+            if (!bookSvc.transitionItemStatus(item, BookStatus.RESERVED, BookStatus.AVAILABLE)) {
+                bookSvc.updateItemStatus(item, BookStatus.AVAILABLE);
+            }
+            logger.info("Hold expired, item released: {}", item.getBarcode());
         } else {
-            // No reservations pending.
-            // Tell LendingService to mark the physical item as AVAILABLE
+            logger.info("Hold expired, item passed to next in line: {}", item.getBarcode());
+        }
+    }
+
+    /**
+     * Offers a copy that just became AVAILABLE without a return (e.g., a newly
+     * added copy) to the waiting patrons of its title.
+     *
+     * @param item The copy.
+     * @return true if the copy is now RESERVED for a waiting patron.
+     */
+    public boolean offerAvailableCopy(BookItem item) {
+        if (reservations.getQueueLength(item.getBook().getIsbn()) == 0) {
+            return false;
+        }
+        // Take the copy off the shelf first, so no checkout can grab it while we route it
+        if (!bookSvc.transitionItemStatus(item, BookStatus.AVAILABLE, BookStatus.RESERVED)) {
+            return false;
+        }
+        if (holdForNextInLine(item)) {
+            return true;
+        }
+        bookSvc.transitionItemStatus(item, BookStatus.RESERVED, BookStatus.AVAILABLE); // Queue emptied meanwhile
+        return false;
+    }
+
+    /**
+     * Decides which waiting reservations copies of a title would go to, in
+     * order, without handing any of them out. The caller must keep other
+     * hand-offs of the title out until the plan is applied with
+     * {@link #setAside} or {@link #offerAvailableCopy(BookItem, HoldHandOff)}.
+     *
+     * @param isbn         The title's ISBN.
+     * @param copyBranches Where each copy is (null = unknown), in hand-out order.
+     * @return One hand-off per copy; shelved once nobody would be left waiting.
+     */
+    public List<HoldHandOff> planHandOffs(String isbn, List<Branch> copyBranches) {
+        List<ToIntFunction<String>> copies = new ArrayList<>(copyBranches.size());
+        for (Branch copyBranch : copyBranches) {
+            copies.add(distanceFrom(copyBranch));
+        }
+        Instant deadline = nextPickupDeadline();
+        List<HoldHandOff> handOffs = new ArrayList<>(copyBranches.size());
+        for (Reservation next : reservations.plan(isbn, copies)) {
+            handOffs.add(next == null ? HoldHandOff.shelved() : HoldHandOff.to(next.getReservationId(), deadline));
+        }
+        return handOffs;
+    }
+
+    /**
+     * @return true if a copy is on the hold shelf for this patron.
+     */
+    public boolean isHeldFor(String barcode, String patronId) {
+        ReadyHold hold = readyHolds.get(barcode);
+        return hold != null && hold.reservation.getPatron().getPatronId().equals(patronId);
+    }
+
+    /**
+     * Re-applies a journaled offer of a new copy: sets the AVAILABLE copy aside
+     * for the reservation the journal names, if any.
+     *
+     * @param item    The copy (status AVAILABLE).
+     * @param handOff Where the copy went.
+     * @return true if the copy is now RESERVED.
+     */
+    public boolean offerAvailableCopy(BookItem item, HoldHandOff handOff) {
+        if (handOff.isShelved()) {
+            return false;
+        }
+        if (!bookSvc.transitionItemStatus(item, BookStatus.AVAILABLE, BookStatus.RESERVED)) {
+            throw new IllegalStateException("Item " + item.getBarcode() + " is not available. Status: " + item.getStatus());
+        }
+        setAside(item, handOff);
+        return true;
+    }
+
+    /**
+     * Sets a copy aside for the reservation a hand-off names (a journaled
+     * decision), instead of routing it. Like {@link #processBookReturn}, the
+     * item's own status is left to the caller.
+     *
+     * @param item    The copy.
+     * @param handOff Where the copy goes.
+     * @return RESERVED if it was set aside, AVAILABLE if the hand-off shelves it.
+     * @throws IllegalStateException if the reservation is not next in line at
+     *                               its pickup branch.
+     */
+    public BookStatus setAside(BookItem item, HoldHandOff handOff) {
+        if (handOff.isShelved()) {
             return BookStatus.AVAILABLE;
         }
+        Reservation reservation = reservations.take(handOff.getReservationId());
+        if (reservation == null) {
+            throw new IllegalStateException("Reservation " + handOff.getReservationId() + " is not waiting.");
+        }
+        hold(item, reservation, handOff.getPickupDeadline());
+        return BookStatus.RESERVED;
+    }
+
+    /**
+     * @return Where a copy went after it became free: the reservation it is
+     *         on the hold shelf for, or shelved.
+     */
+    public HoldHandOff getHandOff(String barcode) {
+        ReadyHold hold = readyHolds.get(barcode);
+        return hold == null ? HoldHandOff.shelved()
+                : HoldHandOff.to(hold.reservation.getReservationId(), hold.reservation.getPickupDeadline());
+    }
+
+    /**
+     * @return How many copies are on the hold shelf awaiting pickup.
+     */
+    public int getReadyHoldCount() {
+        return readyHolds.size();
+    }
+
+    /**
+     * Sets a copy aside for the best waiting patron of its title, if any:
+     * the nearest pickup branch to the copy, in arrival order among equals.
+     */
+    private boolean holdForNextInLine(BookItem item) {
+        // poll() is atomic: a concurrent return can't hand out the same reservation
+        Reservation nextInLine = reservations.poll(item.getBook().getIsbn(), distanceFrom(item.getCurrentBranch()));
+        if (nextInLine == null) {
+            return false;
+        }
+        hold(item, nextInLine, nextPickupDeadline());
+        return true;
+    }
+
+    // Puts a copy on the hold shelf for a reservation that has just left the queue
+    private void hold(BookItem item, Reservation reservation, Instant deadline) {
+        Branch copyBranch = item.getCurrentBranch();
+        Branch pickupBranch = reservation.getPickupBranch();
+        if (copyBranch != null && pickupBranch != null && !pickupBranch.getBranchId().equals(copyBranch.getBranchId())) {
+            logger.info("Transfer needed: {} from {} to {}", item.getBarcode(), copyBranch.getName(),
+                    pickupBranch.getName());
+        }
+        reservation.setStatus(ReservationStatus.READY_FOR_PICKUP);
+        reservation.setHeldItem(item);
+        reservation.setPickupDeadline(deadline);
+        reservation.getPatron().getCounters().holdClosed();
+
+        // Published before the deadline is scheduled, so an expiry always finds it
+        ReadyHold hold = new ReadyHold(reservation);
+        readyHolds.put(item.getBarcode(), hold);
+        hold.timeout = pickupDeadlines.schedule(hold, deadline);
+
+        // Send notification
+        notifyPatron(reservation.getPatron(), NotificationTemplate.HOLD_READY, item.getBook().getTitle());
+    }
+
+    private ToIntFunction<String> distanceFrom(Branch copyBranch) {
+        return copyBranch == null
+                ? pickupBranchId -> 0
+                : pickupBranchId -> branchNetwork.getDistance(copyBranch.getBranchId(), pickupBranchId);
+    }
+
+    // Millisecond precision, as the journal and snapshots store it
+    private Instant nextPickupDeadline() {
+        return clock.instant().truncatedTo(ChronoUnit.MILLIS).plus(holdPeriod);
+    }
+
+    // Appended to the end of this book's queue (created only the first time)
+    private void enqueue(Reservation reservation) {
+        restoreReservation(reservation, 0);
+    }
+
+    private void notifyPatron(Patron patron, NotificationTemplate template, String argument) {
+        if (!notificationsSuppressed) {
+            notificationSvc.sendNotification(patron, template, argument);
+        }
     }
 
     // --- The 'update' and 'handleBookReturn' methods are no longer needed ---
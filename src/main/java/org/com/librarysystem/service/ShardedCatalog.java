@@ -0,0 +1,135 @@
+package org.com.librarysystem.service;
+
+import org.com.librarysystem.core.Book;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The book catalog split into N shards by ISBN hash.
+ * <p>
+ * It behaves like a single Map (so existing lookups are unchanged: one hash
+ * picks the shard, a second finds the book), while also handing out the
+ * shards so a scan can be fanned out across cores. Shards are concurrent maps,
+ * so lookups and scans are safe while books are being added.
+ */
+class ShardedCatalog extends AbstractMap<String, Book> {
+
+    private final List<Map<String, Book>> shards;
+    private final List<Map<String, Book>> shardViews;
+
+    ShardedCatalog(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        this.shards = new ArrayList<>(shardCount);
+        this.shardViews = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            Map<String, Book> shard = new ConcurrentHashMap<>();
+            shards.add(shard);
+            shardViews.add(Collections.unmodifiableMap(shard));
+        }
+    }
+
+    /**
+     * @return Read-only views of every shard (stable instances).
+     */
+    List<Map<String, Book>> getShards() {
+        return Collections.unmodifiableList(shardViews);
+    }
+
+    @Override
+    public Book get(Object key) {
+        return key instanceof String isbn ? shardFor(isbn).get(isbn) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String isbn && shardFor(isbn).containsKey(isbn);
+    }
+
+    @Override
+    public Book put(String isbn, Book book) {
+        return shardFor(isbn).put(isbn, book);
+    }
+
+    @Override
+    public Book putIfAbsent(String isbn, Book book) {
+        return shardFor(isbn).putIfAbsent(isbn, book);
+    }
+
+    @Override
+    public Book remove(Object key) {
+        return key instanceof String isbn ? shardFor(isbn).remove(isbn) : null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Map<String, Book> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Book>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Book>> iterator() {
+                return new ShardIterator();
+            }
+
+            @Override
+            public int size() {
+                return ShardedCatalog.this.size();
+            }
+        };
+    }
+
+    // --- Helper Methods ---
+
+    private Map<String, Book> shardFor(String isbn) {
+        // Pick by the high bits of a multiplicative hash: each shard indexes its table by the
+        // low bits of the key's hash, so choosing shards by those bits would leave most buckets empty
+        long h = (isbn.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL;
+        return shards.get((int) ((h * shards.size()) >>> 32));
+    }
+
+    /**
+     * Iterates the shards one after another.
+     */
+    private class ShardIterator implements Iterator<Entry<String, Book>> {
+        private int shardIndex;
+        private Iterator<Entry<String, Book>> current = shards.get(0).entrySet().iterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && shardIndex < shards.size() - 1) {
+                current = shards.get(++shardIndex).entrySet().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Entry<String, Book> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            current.remove();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.LendingRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Indexed storage for the loans that are currently out.
+ * <p>
+ * Primary index by item barcode, secondary index by patron, and a calendar of
+ * due dates bucketed by day. Insert and remove are hash operations plus a
+ * lookup in the day calendar, whose size is bounded by the number of distinct
+ * due dates (a few dozen), not by the number of open loans.
+ * <p>
+ * Thread-safe without a global lock: all indexes are concurrent maps, and the
+ * per-patron and per-day buckets are created and pruned inside the map's
+ * per-key compute, so desks working on different patrons never contend.
+ */
+public class ActiveLoanStore {
+
+    // Key: item barcode
+    private final Map<String, LendingRecord> byBarcode;
+
+    // Key: patron ID, Value: that patron's open loans
+    private final ConcurrentHashMap<String, Set<LendingRecord>> byPatron;
+
+    // Key: due date, Value: loans due that day (keyed by barcode)
+    private final ConcurrentHashMap<LocalDate, Map<String, LendingRecord>> byDueDate;
+
+    // The due dates that currently have a bucket, in calendar order
+    private final NavigableSet<LocalDate> dueDates;
+
+    public ActiveLoanStore() {
+        this.byBarcode = new ConcurrentHashMap<>();
+        this.byPatron = new ConcurrentHashMap<>();
+        this.byDueDate = new ConcurrentHashMap<>();
+        this.dueDates = new ConcurrentSkipListSet<>();
+    }
+
+    /**
+     * Adds an open loan.
+     * <p>
+     * The secondary indexes are filled first and the barcode index last, so a
+     * concurrent {@link #removeByBarcode} only ever sees a fully indexed loan
+     * and never leaves patron or due-date entries behind.
+     *
+     * @param record The loan record (its barcode must not already be on loan).
+     */
+    public void add(LendingRecord record) {
+        if (byBarcode.containsKey(record.getBookItemBarcode())) {
+            throw alreadyOnLoan(record);
+        }
+        indexSecondary(record);
+        if (byBarcode.putIfAbsent(record.getBookItemBarcode(), record) != null) {
+            unindexSecondary(record); // Lost a race with another add of the same barcode
+            throw alreadyOnLoan(record);
+        }
+    }
+
+    /**
+     * Removes the open loan of an item.
+     *
+     * @param barcode The item barcode.
+     * @return The removed record, or null if the item wasn't on loan.
+     */
+    public LendingRecord removeByBarcode(String barcode) {
+        LendingRecord record = byBarcode.remove(barcode);
+        if (record == null) {
+            return null;
+        }
+        unindexSecondary(record);
+        return record;
+    }
+
+    /**
+     * @return The open loan of an item, or null if it isn't on loan.
+     */
+    public LendingRecord getByBarcode(String barcode) {
+        return byBarcode.get(barcode);
+    }
+
+    /**
+     * @return A copy of a patron's open loans (empty if none).
+     */
+    public List<LendingRecord> getByPatron(String patronId) {
+        Set<LendingRecord> patronLoans = byPatron.get(patronId);
+        return patronLoans == null ? Collections.emptyList() : new ArrayList<>(patronLoans);
+    }
+
+    /**
+     * @return How many loans a patron has open.
+     */
+    public int countByPatron(String patronId) {
+        Set<LendingRecord> patronLoans = byPatron.get(patronId);
+        return patronLoans == null ? 0 : patronLoans.size();
+    }
+
+    /**
+     * @return A copy of all open loans, earliest due date first.
+     */
+    public List<LendingRecord> getAllInDueDateOrder() {
+        return collect(dueDates);
+    }
+
+    /**
+     * Returns the open loans due strictly before a date (i.e., overdue on that date).
+     * Only the day buckets before the date are visited.
+     *
+     * @param date The reference date (exclusive).
+     * @return A copy of the matching loans, earliest due date first.
+     */
+    public List<LendingRecord> getDueBefore(LocalDate date) {
+        return collect(dueDates.headSet(date, false));
+    }
+
+    /**
+     * Returns the open loans due within a date range.
+     *
+     * @param fromInclusive The first due date to include.
+     * @param toExclusive   The first due date to exclude.
+     * @return A copy of the matching loans, earliest due date first.
+     */
+    public List<LendingRecord> getDueBetween(LocalDate fromInclusive, LocalDate toExclusive) {
+        if (!fromInclusive.isBefore(toExclusive)) {
+            return new ArrayList<>();
+        }
+        return collect(dueDates.subSet(fromInclusive, true, toExclusive, false));
+    }
+
+    public int size() {
+        return byBarcode.size();
+    }
+
+    public boolean isEmpty() {
+        return byBarcode.isEmpty();
+    }
+
+    // --- Helper Methods ---
+
+    private void indexSecondary(LendingRecord record) {
+        byPatron.compute(record.getPatronId(), (patronId, loans) -> {
+            Set<LendingRecord> result = loans != null ? loans : ConcurrentHashMap.newKeySet();
+            result.add(record);
+            return result;
+        });
+        byDueDate.compute(record.getDueDate(), (date, day) -> {
+            Map<String, LendingRecord> result = day;
+            if (result == null) {
+                result = new ConcurrentHashMap<>();
+                dueDates.add(date);
+            }
+            result.put(record.getBookItemBarcode(), record);
+            return result;
+        });
+    }
+
+    private void unindexSecondary(LendingRecord record) {
+        byPatron.computeIfPresent(record.getPatronId(), (patronId, loans) -> {
+            loans.remove(record);
+            return loans.isEmpty() ? null : loans;
+        });
+        byDueDate.computeIfPresent(record.getDueDate(), (date, day) -> {
+            day.remove(record.getBookItemBarcode(), record); // Leave another record for the barcode alone
+            if (day.isEmpty()) {
+                dueDates.remove(date);
+                return null;
+            }
+            return day;
+        });
+    }
+
+    private static IllegalStateException alreadyOnLoan(LendingRecord record) {
+        return new IllegalStateException("Item " + record.getBookItemBarcode() + " already has an active loan.");
+    }
+
+    private List<LendingRecord> collect(Set<LocalDate> dates) {
+        List<LendingRecord> result = new ArrayList<>();
+        for (LocalDate date : dates) {
+            Map<String, LendingRecord> day = byDueDate.get(date);
+            if (day != null) {
+                result.addAll(day.values());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package org.com.librarysystem.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps item barcodes to dense int codes so compacted history can store a
+ * 4-byte code per loan instead of a String reference.
+ * <p>
+ * Codes are never reassigned, and the barcode strings are the same instances
+ * the BookItems already hold, so the dictionary costs one map entry per item,
+ * not per loan.
+ */
+class BarcodeDictionary {
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final List<String> barcodes = new ArrayList<>();
+
+    /**
+     * @return The code for this barcode, assigning the next one on first use.
+     */
+    int encode(String barcode) {
+        Integer code = codes.get(barcode);
+        if (code != null) {
+            return code;
+        }
+        return codes.computeIfAbsent(barcode, b -> {
+            synchronized (barcodes) {
+                barcodes.add(b);
+                return barcodes.size() - 1;
+            }
+        });
+    }
+
+    String decode(int code) {
+        synchronized (barcodes) {
+            return barcodes.get(code);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A read-only, memory-mapped image of the catalog and the item inventory,
+ * so startup does not have to rebuild millions of objects first.
+ * <p>
+ * The file is laid out for lookups in place:
+ * <pre>
+ *   header     magic, version, counts, section offsets
+ *   books      fixed 20-byte records: ISBN, title, author (string refs), year, type
+ *   items      fixed 16-byte records: barcode (string ref), book index, branch index, status
+ *   branches   fixed 8-byte records: ID and name (string refs)
+ *   ISBN hash  open addressing, 8-byte slots: String.hashCode of the key, record index + 1
+ *   barcode hash, same layout
+ *   strings    [int UTF-8 length][bytes]; refs are offsets into this pool
+ * </pre>
+ * Opening the file maps it and reads the header; nothing is decoded up front.
+ * A lookup hashes the key, probes the table and compares the key's UTF-8
+ * bytes against the pool without creating a String; only a hit is turned into
+ * a Book or BookItem. Authors and branch strings are pooled once.
+ * <p>
+ * The image is a base layer: it holds titles and copies, but not loans or
+ * holds, which live in the journal and snapshots. A copy is therefore stored
+ * with its shelf status: one that is out on loan or held for a patron is
+ * written (and read back) as AVAILABLE, and the loan or hold that explains a
+ * BORROWED or RESERVED status is restored on top of it
+ * (BookManagementService.restoreBookItem). MAINTENANCE and LOST depend on
+ * nothing else and are kept.
+ * <p>
+ * The image is a cache derived from the live catalog (see {@link #write}), so
+ * it is checked by its header and size only; a full checksum would read the
+ * whole file and defeat the point. Files must stay under 2 GiB (one mapping).
+ * <p>
+ * Each image keeps one claim bit per item, so an item is handed out (to be
+ * materialized) at most once; an image should back one BookManagementService.
+ */
+public class MappedCatalog {
+
+    private static final int MAGIC = 0x4C4D5343; // "LMSC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int BOOK_BYTES = 20;
+    private static final int ITEM_BYTES = 16;
+    private static final int BRANCH_BYTES = 8;
+    private static final int SLOT_BYTES = 8;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final int bookCount;
+    private final int itemCount;
+    private final int bookSlots;
+    private final int itemSlots;
+    private final int booksOffset;
+    private final int itemsOffset;
+    private final int bookHashOffset;
+    private final int itemHashOffset;
+    private final int stringsOffset;
+    private final Branch[] branches; // Few, so decoded on open
+    private final AtomicLongArray claimedItems;
+
+    private MappedCatalog(Path file, MappedByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Catalog image " + file + " has an unknown format.");
+        }
+        this.bookCount = data.getInt(8);
+        this.itemCount = data.getInt(12);
+        int branchCount = data.getInt(16);
+        this.bookSlots = data.getInt(20);
+        this.itemSlots = data.getInt(24);
+        this.booksOffset = data.getInt(28);
+        this.itemsOffset = data.getInt(32);
+        int branchesOffset = data.getInt(36);
+        this.bookHashOffset = data.getInt(40);
+        this.itemHashOffset = data.getInt(44);
+        this.stringsOffset = data.getInt(48);
+        if (data.getInt(52) != data.capacity()) {
+            throw new IOException("Catalog image " + file + " is truncated.");
+        }
+        this.branches = new Branch[branchCount];
+        for (int i = 0; i < branchCount; i++) {
+            int record = branchesOffset + i * BRANCH_BYTES;
+            branches[i] = new Branch(string(data.getInt(record)), string(data.getInt(record + 4)));
+        }
+        this.claimedItems = new AtomicLongArray((itemCount + 63) / 64);
+    }
+
+    /**
+     * Maps an image written by {@link #write}.
+     */
+    public static MappedCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog image " + file + " is larger than 2 GiB.");
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedCatalog(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // --- Lookups ---
+
+    /**
+     * @return The record index of a title, or -1 if it is not in the image.
+     */
+    public int findBook(String isbn) {
+        return find(isbn, bookHashOffset, bookSlots, booksOffset, BOOK_BYTES);
+    }
+
+    /**
+     * @return The record index of an item, or -1 if it is not in the image.
+     */
+    public int findItem(String barcode) {
+        return find(barcode, itemHashOffset, itemSlots, itemsOffset, ITEM_BYTES);
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public String getIsbn(int book) {
+        return string(data.getInt(booksOffset + book * BOOK_BYTES));
+    }
+
+    public String getBarcode(int item) {
+        return string(data.getInt(itemsOffset + item * ITEM_BYTES));
+    }
+
+    /**
+     * @return The record index of an item's title.
+     */
+    public int getItemBook(int item) {
+        return data.getInt(itemsOffset + item * ITEM_BYTES + 4);
+    }
+
+    /**
+     * @return The branches named by items (decoded once, shared by every item built from this image).
+     */
+    public List<Branch> getBranches() {
+        return List.of(branches);
+    }
+
+    /**
+     * Builds a new Book from a title record.
+     */
+    public Book toBook(int book) {
+        int record = booksOffset + book * BOOK_BYTES;
+        int type = data.get(record + 16);
+        return new Book(string(data.getInt(record)), string(data.getInt(record + 4)),
+                string(data.getInt(record + 8)), data.getInt(record + 12),
+                type < 0 ? null : BookType.values()[type]);
+    }
+
+    /**
+     * Builds a new BookItem from an item record.
+     *
+     * @param book The item's title, already materialized.
+     */
+    public BookItem toBookItem(int item, Book book) {
+        int record = itemsOffset + item * ITEM_BYTES;
+        int branch = data.getInt(record + 8);
+        return new BookItem(string(data.getInt(record)), book,
+                shelfStatus(BookStatus.values()[data.get(record + 12)]), branch < 0 ? null : branches[branch]);
+    }
+
+    /**
+     * The status a copy has in the image: BORROWED and RESERVED need a loan or
+     * hold that the image does not hold, so they become AVAILABLE.
+     */
+    public static BookStatus shelfStatus(BookStatus status) {
+        return status == BookStatus.BORROWED || status == BookStatus.RESERVED ? BookStatus.AVAILABLE : status;
+    }
+
+    /**
+     * Claims an item for materialization. Only the first call for an index
+     * returns true, so a copy that was materialized (and maybe removed since)
+     * is never built a second time.
+     */
+    public boolean claimItem(int item) {
+        int word = item >>> 6;
+        long bit = 1L << (item & 63);
+        while (true) {
+            long bits = claimedItems.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+            if (claimedItems.compareAndSet(word, bits, bits | bit)) {
+                return true;
+            }
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private int find(String key, int hashOffset, int slots, int recordsOffset, int recordBytes) {
+        if (key == null || slots == 0) {
+            return -1;
+        }
+        int hash = key.hashCode();
+        byte[] utf8 = null;
+        int mask = slots - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = hashOffset + slot * SLOT_BYTES;
+            int index = data.getInt(entry + 4) - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (data.getInt(entry) == hash) {
+                if (utf8 == null) {
+                    utf8 = key.getBytes(StandardCharsets.UTF_8);
+                }
+                if (stringEquals(data.getInt(recordsOffset + index * recordBytes), utf8)) {
+                    return index;
+                }
+            }
+        }
+    }
+
+    private boolean stringEquals(int ref, byte[] utf8) {
+        int at = stringsOffset + ref;
+        if (data.getInt(at) != utf8.length) {
+            return false;
+        }
+        return data.slice(at + 4, utf8.length).equals(ByteBuffer.wrap(utf8));
+    }
+
+    private String string(int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        int at = stringsOffset + ref;
+        byte[] utf8 = new byte[data.getInt(at)];
+        data.get(at + 4, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // --- Writing ---
+
+    /**
+     * Writes an image of the given titles and copies. Every item's title must
+     * be among the books. The file is written next to its target and renamed
+     * into place, so a mapped older image is never overwritten.
+     *
+     * @param file  The image file.
+     * @param books The titles.
+     * @param items The copies, with their branch; status is reduced to the shelf status.
+     */
+    public static void write(Path file, Collection<Book> books, Collection<BookItem> items) throws IOException {
+        int bookCount = books.size();
+        int itemCount = items.size();
+        Map<String, Integer> bookIndex = new HashMap<>(bookCount * 2);
+        Map<String, Branch> branchById = new LinkedHashMap<>();
+        for (BookItem item : items) {
+            Branch branch = item.getCurrentBranch();
+            if (branch != null) {
+                branchById.putIfAbsent(branch.getBranchId(), branch);
+            }
+        }
+        Map<String, Integer> branchIndex = new HashMap<>();
+        for (String branchId : branchById.keySet()) {
+            branchIndex.put(branchId, branchIndex.size());
+        }
+
+        int bookSlots = tableSize(bookCount);
+        int itemSlots = tableSize(itemCount);
+        long booksOffset = HEADER_BYTES;
+        long itemsOffset = booksOffset + (long) bookCount * BOOK_BYTES;
+        long branchesOffset = itemsOffset + (long) itemCount * ITEM_BYTES;
+        long bookHashOffset = branchesOffset + (long) branchById.size() * BRANCH_BYTES;
+        long itemHashOffset = bookHashOffset + (long) bookSlots * SLOT_BYTES;
+        long stringsOffset = itemHashOffset + (long) itemSlots * SLOT_BYTES;
+        if (stringsOffset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Catalog too large for a single image.");
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            StringPool pool = new StringPool(channel, stringsOffset);
+            MappedByteBuffer fixed = channel.map(FileChannel.MapMode.READ_WRITE, 0, stringsOffset);
+
+            int index = 0;
+            for (Book book : books) {
+                int record = (int) booksOffset + index * BOOK_BYTES;
+                fixed.putInt(record, pool.add(book.getIsbn(), false));
+                fixed.putInt(record + 4, pool.add(book.getTitle(), false));
+                fixed.putInt(record + 8, pool.add(book.getAuthor(), true));
+                fixed.putInt(record + 12, book.getPublicationYear());
+                fixed.put(record + 16, (byte) (book.getType() != null ? book.getType().ordinal() : -1));
+                insert(fixed, (int) bookHashOffset, bookSlots, book.getIsbn().hashCode(), index);
+                bookIndex.put(book.getIsbn(), index++);
+            }
+
+            index = 0;
+            for (BookItem item : items) {
+                Integer book = bookIndex.get(item.getBook().getIsbn());
+                if (book == null) {
+                    throw new IllegalArgumentException("Item " + item.getBarcode() + " has a title that is not in the image.");
+                }
+                Branch branch = item.getCurrentBranch();
+                int record = (int) itemsOffset + index * ITEM_BYTES;
+                fixed.putInt(record, pool.add(item.getBarcode(), false));
+                fixed.putInt(record + 4, book);
+                fixed.putInt(record + 8, branch != null ? branchIndex.get(branch.getBranchId()) : -1);
+                fixed.put(record + 12, (byte) shelfStatus(item.getStatus()).ordinal());
+                insert(fixed, (int) itemHashOffset, itemSlots, item.getBarcode().hashCode(), index++);
+            }
+
+            index = 0;
+            for (Branch branch : branchById.values()) {
+                int record = (int) branchesOffset + index++ * BRANCH_BYTES;
+                fixed.putInt(record, pool.add(branch.getBranchId(), true));
+                fixed.putInt(record + 4, pool.add(branch.getName(), true));
+            }
+
+            long fileLength = pool.finish();
+            if (fileLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Catalog too large for a single image.");
+            }
+            fixed.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, bookCount).putInt(12, itemCount)
+                    .putInt(16, branchById.size()).putInt(20, bookSlots).putInt(24, itemSlots)
+                    .putInt(28, (int) booksOffset).putInt(32, (int) itemsOffset).putInt(36, (int) branchesOffset)
+                    .putInt(40, (int) bookHashOffset).putInt(44, (int) itemHashOffset)
+                    .putInt(48, (int) stringsOffset).putInt(52, (int) fileLength);
+            fixed.force();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // At most half full, so probe sequences stay short
+    private static int tableSize(int count) {
+        int slots = 16;
+        while (slots < count * 2L) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    private static void insert(ByteBuffer table, int offset, int slots, int hash, int index) {
+        int mask = slots - 1;
+        int slot = spread(hash) & mask;
+        while (table.getInt(offset + slot * SLOT_BYTES + 4) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.putInt(offset + slot * SLOT_BYTES, hash);
+        table.putInt(offset + slot * SLOT_BYTES + 4, index + 1);
+    }
+
+    /** Appends strings after the fixed sections, pooling the ones that repeat. */
+    private static final class StringPool {
+        private final FileChannel channel;
+        private final long base;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private final Map<String, Integer> shared = new HashMap<>();
+        private long size;
+
+        StringPool(FileChannel channel, long base) {
+            this.channel = channel;
+            this.base = base;
+        }
+
+        int add(String value, boolean pooled) throws IOException {
+            if (value == null) {
+                return -1;
+            }
+            if (pooled) {
+                Integer ref = shared.get(value);
+                if (ref != null) {
+                    return ref;
+                }
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            if (buffer.remaining() < 4 + utf8.length) {
+                flush();
+            }
+            if (size > Integer.MAX_VALUE - 4 - utf8.length) {
+                throw new IllegalArgumentException("Catalog too large for a single image.");
+            }
+            int ref = (int) size;
+            if (utf8.length + 4 > buffer.capacity()) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, utf8.length), base + size);
+                channel.write(ByteBuffer.wrap(utf8), base + size + 4);
+            } else {
+                buffer.putInt(utf8.length).put(utf8);
+            }
+            size += 4 + utf8.length;
+            if (pooled) {
+                shared.put(value, ref);
+            }
+            return ref;
+        }
+
+        long finish() throws IOException {
+            flush();
+            return base + size;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            long at = base + size - buffer.remaining();
+            while (buffer.hasRemaining()) {
+                at += channel.write(buffer, at);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.Reservation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Indexed storage for the holds that are still waiting for a copy.
+ * <p>
+ * Per ISBN, one FIFO queue per pickup branch; an index by reservation ID for
+ * O(1) cancellation; and an index by patron for "my holds" without scanning
+ * every queue. Queue positions come from each queue's Fenwick tree in O(log n).
+ * A returned copy is routed by looking only at the head of each branch queue
+ * of its title (see {@link TitleHolds#pollBest}).
+ * <p>
+ * Thread-safe: each title's holds are guarded by their own monitor, so holds on
+ * different titles never contend. The ID and patron indexes are concurrent
+ * maps, updated under the same monitor as the queue they describe.
+ */
+public class ReservationEngine {
+
+    // Key: ISBN
+    private final ConcurrentHashMap<String, TitleHolds> titles;
+
+    // Key: reservation ID
+    private final ConcurrentHashMap<String, ReservationQueue.Node> byId;
+
+    // Key: patron ID, Value: that patron's waiting holds
+    private final ConcurrentHashMap<String, Set<Reservation>> byPatron;
+
+    private final AtomicLong arrivals = new AtomicLong();
+
+    public ReservationEngine() {
+        this.titles = new ConcurrentHashMap<>();
+        this.byId = new ConcurrentHashMap<>();
+        this.byPatron = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Appends a hold to the end of its title's queue at its pickup branch
+     * (or the any-branch queue if it has no pickup branch).
+     *
+     * @param reservation The new hold (its ID must be unique).
+     */
+    public void add(Reservation reservation) {
+        add(reservation, 0);
+    }
+
+    /**
+     * Same as {@link #add(Reservation)}, for a hold restored from a snapshot
+     * with the passovers it had already counted.
+     *
+     * @param passovers How often the hold was passed over for a nearer one.
+     */
+    public void add(Reservation reservation, int passovers) {
+        String isbn = reservation.getBook().getIsbn();
+        String branchKey = reservation.getPickupBranch() != null
+                ? reservation.getPickupBranch().getBranchId() : TitleHolds.ANY_BRANCH;
+        ReservationQueue.Node node = new ReservationQueue.Node(reservation, arrivals.getAndIncrement());
+        node.passovers = passovers;
+        while (true) {
+            TitleHolds title = titles.computeIfAbsent(isbn, k -> new TitleHolds());
+            synchronized (title) {
+                // An emptied title may have been dropped from the map in the meantime
+                if (titles.get(isbn) != title) {
+                    continue;
+                }
+                if (byId.putIfAbsent(reservation.getReservationId(), node) != null) {
+                    dropIfEmpty(isbn, title);
+                    throw new IllegalStateException("Duplicate reservation ID: " + reservation.getReservationId());
+                }
+                byPatron.compute(reservation.getPatron().getPatronId(), (patronId, holds) -> {
+                    Set<Reservation> result = holds != null ? holds : ConcurrentHashMap.newKeySet();
+                    result.add(reservation);
+                    return result;
+                });
+                title.add(node, branchKey);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the oldest waiting hold of a title, ignoring branches.
+     *
+     * @param isbn The title's ISBN.
+     * @return The hold that was first in line, or null if nobody is waiting.
+     */
+    public Reservation poll(String isbn) {
+        return poll(isbn, branchId -> 0);
+    }
+
+    /**
+     * Removes and returns the hold that should get a copy of a title: the one
+     * whose pickup branch is nearest to the copy, oldest first among equals,
+     * with a bound on how often the oldest hold can be passed over.
+     *
+     * @param isbn             The title's ISBN.
+     * @param distanceToPickup Distance from the copy to a pickup branch ID.
+     * @return The chosen hold, or null if nobody is waiting.
+     */
+    public Reservation poll(String isbn, ToIntFunction<String> distanceToPickup) {
+        TitleHolds title = titles.get(isbn);
+        if (title == null) {
+            return null;
+        }
+        synchronized (title) {
+            ReservationQueue.Node node = title.pollBest(distanceToPickup);
+            dropIfEmpty(isbn, title);
+            if (node == null) {
+                return null;
+            }
+            unindex(node.reservation);
+            return node.reservation;
+        }
+    }
+
+    /**
+     * Works out which holds a sequence of copies of a title would go to, one
+     * {@link #poll} after another, without removing any. Nothing changes, so
+     * the caller must keep other hand-offs of the title out until it has
+     * applied the plan with {@link #take}.
+     *
+     * @param isbn   The title's ISBN.
+     * @param copies Distance from each copy to a pickup branch ID, in hand-out order.
+     * @return The hold for each copy, or null once nobody would be left waiting.
+     */
+    public List<Reservation> plan(String isbn, List<ToIntFunction<String>> copies) {
+        List<Reservation> result = new ArrayList<>(copies.size());
+        TitleHolds title = titles.get(isbn);
+        if (title == null) {
+            for (int i = 0; i < copies.size(); i++) {
+                result.add(null);
+            }
+            return result;
+        }
+        synchronized (title) {
+            for (ReservationQueue.Node node : title.planBest(copies)) {
+                result.add(node != null ? node.reservation : null);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a hold that was chosen for a copy by {@link #plan} (live, or a
+     * journaled hand-off being replayed), with the same passover accounting
+     * as {@link #poll}.
+     *
+     * @param reservationId The reservation ID.
+     * @return The removed hold, or null if it was not waiting.
+     * @throws IllegalStateException if the hold is waiting but not next in
+     *                               line at its pickup branch.
+     */
+    public Reservation take(String reservationId) {
+        ReservationQueue.Node node = byId.get(reservationId);
+        ReservationQueue queue = node != null ? node.queue : null;
+        if (queue == null) {
+            return null;
+        }
+        TitleHolds title = queue.title;
+        synchronized (title) {
+            if (node.queue != queue) {
+                return null; // Polled or cancelled by another thread
+            }
+            title.take(node);
+            dropIfEmpty(node.reservation.getBook().getIsbn(), title);
+            unindex(node.reservation);
+        }
+        return node.reservation;
+    }
+
+    /**
+     * Removes a waiting hold wherever it is in its queue, in O(1).
+     *
+     * @param reservationId The reservation ID.
+     * @return The removed hold, or null if it was not waiting (unknown, already
+     *         handed a copy, or already cancelled).
+     */
+    public Reservation cancel(String reservationId) {
+        ReservationQueue.Node node = byId.get(reservationId);
+        ReservationQueue queue = node != null ? node.queue : null;
+        if (queue == null) {
+            return null;
+        }
+        TitleHolds title = queue.title;
+        synchronized (title) {
+            if (node.queue != queue) {
+                return null; // Polled or cancelled by another thread
+            }
+            title.unlink(node);
+            dropIfEmpty(node.reservation.getBook().getIsbn(), title);
+            unindex(node.reservation);
+        }
+        return node.reservation;
+    }
+
+    /**
+     * @return The 1-based position of a waiting hold in the queue of its pickup
+     *         branch (1 = next in line there), or -1 if it is not waiting.
+     */
+    public int getPosition(String reservationId) {
+        ReservationQueue.Node node = byId.get(reservationId);
+        ReservationQueue queue = node != null ? node.queue : null;
+        if (queue == null) {
+            return -1;
+        }
+        synchronized (queue.title) {
+            return node.queue == queue ? queue.positionOf(node) : -1;
+        }
+    }
+
+    /**
+     * @return How often a waiting hold has been passed over for a nearer one
+     *         (0 if it is not waiting).
+     */
+    public int getPassovers(String reservationId) {
+        ReservationQueue.Node node = byId.get(reservationId);
+        ReservationQueue queue = node != null ? node.queue : null;
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue.title) {
+            return node.passovers;
+        }
+    }
+
+    /**
+     * @return The waiting hold with this ID, or null.
+     */
+    public Reservation getById(String reservationId) {
+        ReservationQueue.Node node = byId.get(reservationId);
+        return node != null ? node.reservation : null;
+    }
+
+    /**
+     * @return A copy of a patron's waiting holds (empty if none).
+     */
+    public List<Reservation> getByPatron(String patronId) {
+        Set<Reservation> holds = byPatron.get(patronId);
+        return holds == null ? Collections.emptyList() : new ArrayList<>(holds);
+    }
+
+    /**
+     * @return Every waiting hold, in the order they were placed.
+     */
+    public List<Reservation> getAllWaiting() {
+        List<ReservationQueue.Node> nodes = new ArrayList<>(byId.values());
+        nodes.sort(Comparator.comparingLong(node -> node.arrival));
+        List<Reservation> result = new ArrayList<>(nodes.size());
+        for (ReservationQueue.Node node : nodes) {
+            result.add(node.reservation);
+        }
+        return result;
+    }
+
+    /**
+     * @return How many holds are waiting for a title, across all branches.
+     */
+    public int getQueueLength(String isbn) {
+        TitleHolds title = titles.get(isbn);
+        if (title == null) {
+            return 0;
+        }
+        synchronized (title) {
+            return title.size();
+        }
+    }
+
+    /**
+     * @return How many holds are waiting across all titles.
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    // Caller holds the title's monitor (as for unindex, so the indexes always agree with the queues)
+    private void dropIfEmpty(String isbn, TitleHolds title) {
+        if (title.isEmpty()) {
+            titles.remove(isbn, title);
+        }
+    }
+
+    private void unindex(Reservation reservation) {
+        byId.remove(reservation.getReservationId());
+        byPatron.computeIfPresent(reservation.getPatron().getPatronId(), (patronId, holds) -> {
+            holds.remove(reservation);
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+}
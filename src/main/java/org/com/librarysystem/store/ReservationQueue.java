@@ -0,0 +1,156 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.Reservation;
+
+/**
+ * The FIFO hold queue of one title at one pickup branch.
+ * <p>
+ * Holds are kept in a doubly linked list, so enqueue, poll and cancellation of
+ * any hold are O(1). Each hold also gets a sequence number, and a Fenwick
+ * (binary indexed) tree over the sequence numbers marks which holds are still
+ * waiting, so "how many are ahead of me" is a prefix sum in O(log n) instead of
+ * a walk down the queue. When sequence numbers run out the live holds are
+ * renumbered, keeping the tree at most about twice the queue length.
+ * <p>
+ * Not thread-safe on its own: ReservationEngine locks the owning TitleHolds
+ * for every call.
+ */
+class ReservationQueue {
+
+    /** A hold in the queue. Removed nodes are unlinked and have queue == null. */
+    static final class Node {
+        final Reservation reservation;
+        final long arrival; // Engine-wide arrival order, for fairness across branches
+        int passovers; // How often a newer hold at a nearer branch got a copy first
+        ReservationQueue queue;
+        Node prev;
+        Node next;
+        int seq;
+
+        Node(Reservation reservation, long arrival) {
+            this.reservation = reservation;
+            this.arrival = arrival;
+        }
+    }
+
+    final TitleHolds title;
+    final String branchKey;
+
+    private Node head;
+    private Node tail;
+    private int size;
+
+    ReservationQueue(TitleHolds title, String branchKey) {
+        this.title = title;
+        this.branchKey = branchKey;
+    }
+
+    // Fenwick tree over sequence numbers (1-based internally); 1 = still waiting
+    private int[] tree = new int[16 + 1];
+    private int nextSeq;
+
+    void addLast(Node node) {
+        if (nextSeq == tree.length - 1) {
+            renumber();
+        }
+        node.queue = this;
+        node.seq = nextSeq++;
+        node.prev = tail;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        size++;
+        update(node.seq, 1);
+    }
+
+    /**
+     * @return The first waiting hold (still queued), or null if none.
+     */
+    Node peekFirst() {
+        return head;
+    }
+
+    /**
+     * @return The first waiting hold (now removed), or null if none.
+     */
+    Node pollFirst() {
+        Node first = head;
+        if (first != null) {
+            unlink(first);
+        }
+        return first;
+    }
+
+    void unlink(Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        update(node.seq, -1);
+        node.prev = null;
+        node.next = null;
+        node.queue = null;
+        size--;
+    }
+
+    /**
+     * @return 1-based position of a waiting hold (1 = next in line).
+     */
+    int positionOf(Node node) {
+        int position = 0;
+        for (int i = node.seq + 1; i > 0; i -= i & -i) {
+            position += tree[i];
+        }
+        return position;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // --- Fenwick tree maintenance ---
+
+    private void update(int seq, int delta) {
+        for (int i = seq + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Gives the waiting holds the sequence numbers 0..size-1 (in queue order) and
+     * rebuilds the tree in O(n), doubling it only if the queue itself has grown.
+     */
+    private void renumber() {
+        int capacity = tree.length - 1;
+        if (size * 2 > capacity) {
+            capacity *= 2;
+        }
+        int[] rebuilt = new int[capacity + 1];
+        int seq = 0;
+        for (Node node = head; node != null; node = node.next) {
+            node.seq = seq++;
+            rebuilt[seq] = 1;
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                rebuilt[parent] += rebuilt[i];
+            }
+        }
+        tree = rebuilt;
+        nextSeq = seq;
+    }
+}
@@ -0,0 +1,158 @@
+package org.com.librarysystem.store;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * All waiting holds on one title, split into one FIFO queue per pickup branch.
+ * <p>
+ * Picking the hold for a copy looks only at the head of each branch queue,
+ * so it costs O(number of branches with holds on this title), independent of
+ * how many holds are waiting. Not thread-safe on its own: ReservationEngine
+ * synchronizes on the TitleHolds for every call.
+ */
+class TitleHolds {
+
+    /** Queue key for holds that can be picked up at any branch. */
+    static final String ANY_BRANCH = "";
+
+    /** After this many passovers the oldest hold gets the next copy regardless of distance. */
+    static final int MAX_PASSOVERS = 3;
+
+    // Key: pickup branch ID (or ANY_BRANCH)
+    private final Map<String, ReservationQueue> byBranch = new LinkedHashMap<>();
+    private int size;
+
+    void add(ReservationQueue.Node node, String branchKey) {
+        byBranch.computeIfAbsent(branchKey, k -> new ReservationQueue(this, k)).addLast(node);
+        size++;
+    }
+
+    void unlink(ReservationQueue.Node node) {
+        ReservationQueue queue = node.queue;
+        queue.unlink(node);
+        if (queue.isEmpty()) {
+            byBranch.remove(queue.branchKey);
+        }
+        size--;
+    }
+
+    /**
+     * Removes the hold that should get a copy.
+     * <p>
+     * The nearest pickup branch wins, and holds at equal distance go in arrival
+     * order. To keep far-away patrons from waiting forever, the oldest hold on
+     * the title counts how often it is passed over, and after
+     * {@link #MAX_PASSOVERS} it gets the copy even if that means a transfer.
+     *
+     * @param distanceToPickup Distance from the copy to a pickup branch ID.
+     * @return The chosen hold (now removed), or null if none is waiting.
+     */
+    ReservationQueue.Node pollBest(ToIntFunction<String> distanceToPickup) {
+        ReservationQueue.Node best = choose(distanceToPickup, null, null);
+        if (best != null) {
+            take(best);
+        }
+        return best;
+    }
+
+    /**
+     * Works out which holds a sequence of copies would go to, one
+     * {@link #pollBest} after another, without changing anything (so the
+     * decisions can be journaled before they are applied with {@link #take}).
+     *
+     * @param copies Distance from each copy to a pickup branch ID, in the
+     *               order the copies are handed out.
+     * @return The hold for each copy, or null once nobody would be left waiting.
+     */
+    List<ReservationQueue.Node> planBest(List<ToIntFunction<String>> copies) {
+        Map<ReservationQueue, ReservationQueue.Node> heads = new IdentityHashMap<>();
+        Map<ReservationQueue.Node, Integer> passed = new IdentityHashMap<>();
+        List<ReservationQueue.Node> plan = new ArrayList<>(copies.size());
+        for (ToIntFunction<String> distanceToPickup : copies) {
+            ReservationQueue.Node chosen = choose(distanceToPickup, heads, passed);
+            if (chosen != null) {
+                heads.put(chosen.queue, chosen.next);
+            }
+            plan.add(chosen);
+        }
+        return plan;
+    }
+
+    /**
+     * The hold a copy goes to. Without a plan in progress (heads == null) the
+     * queues are read as they are; otherwise heads and passed hold the queue
+     * heads and extra passovers left by the earlier copies of the plan, and
+     * are updated for this one.
+     */
+    private ReservationQueue.Node choose(ToIntFunction<String> distanceToPickup,
+                                         Map<ReservationQueue, ReservationQueue.Node> heads,
+                                         Map<ReservationQueue.Node, Integer> passed) {
+        ReservationQueue.Node best = null;
+        ReservationQueue.Node oldest = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (ReservationQueue queue : byBranch.values()) {
+            ReservationQueue.Node head = heads != null && heads.containsKey(queue) ? heads.get(queue) : queue.peekFirst();
+            if (head == null) {
+                continue; // Emptied earlier in the plan
+            }
+            if (oldest == null || head.arrival < oldest.arrival) {
+                oldest = head;
+            }
+            int distance = queue.branchKey.equals(ANY_BRANCH) ? 0 : distanceToPickup.applyAsInt(queue.branchKey);
+            if (best == null || distance < bestDistance
+                    || (distance == bestDistance && head.arrival < best.arrival)) {
+                best = head;
+                bestDistance = distance;
+            }
+        }
+        if (best == null || best == oldest) {
+            return best;
+        }
+        int passovers = oldest.passovers + (passed != null ? passed.getOrDefault(oldest, 0) : 0);
+        if (passovers >= MAX_PASSOVERS) {
+            return oldest;
+        }
+        if (passed != null) {
+            passed.merge(oldest, 1, Integer::sum);
+        }
+        return best;
+    }
+
+    /**
+     * Removes a hold that was chosen for a copy (by {@link #pollBest}, or by a
+     * journaled decision being replayed), counting a passover for the oldest
+     * hold if a newer one was preferred.
+     *
+     * @param node A hold at the head of its branch queue.
+     */
+    void take(ReservationQueue.Node node) {
+        if (node.queue == null || node.queue.peekFirst() != node) {
+            throw new IllegalStateException("Reservation " + node.reservation.getReservationId()
+                    + " is not next in line at its pickup branch.");
+        }
+        ReservationQueue.Node oldest = null;
+        for (ReservationQueue queue : byBranch.values()) {
+            ReservationQueue.Node head = queue.peekFirst();
+            if (oldest == null || head.arrival < oldest.arrival) {
+                oldest = head;
+            }
+        }
+        if (node != oldest && oldest.passovers < MAX_PASSOVERS) {
+            oldest.passovers++;
+        }
+        unlink(node);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,133 @@
+package org.com.librarysystem.core;
+
+import org.com.librarysystem.enums.NotificationTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The inbox keeps the newest notifications in order however often the ring
+ * wraps (also across its growth steps), and the unread count stays right when
+ * read and unread records are overwritten.
+ */
+class PatronInboxTest {
+
+    @Test
+    void wraparoundKeepsTheNewestNotificationsOldestFirst() {
+        // 1 and 4 never grow, 5 and 6 grow to a length that is not a doubling, 32 grows 4 -> 8 -> 16 -> 32
+        for (int capacity : new int[]{1, 3, 4, 5, 6, 32}) {
+            PatronInbox inbox = new PatronInbox(capacity);
+            int added = 3 * capacity + 2;
+            for (int i = 0; i < added; i++) {
+                inbox.add(NotificationTemplate.MESSAGE, "m" + i);
+                int kept = Math.min(i + 1, capacity);
+                assertEquals(messages(i + 1 - kept, i + 1), inbox.getAll(), "capacity " + capacity + " after " + (i + 1));
+            }
+            assertEquals(capacity, inbox.size());
+            assertEquals(capacity, inbox.getUnreadCount());
+            assertEquals(added - capacity, inbox.getDroppedCount());
+        }
+    }
+
+    @Test
+    void readUnreadReturnsOnlyWhatArrivedSinceTheLastRead() {
+        PatronInbox inbox = new PatronInbox(8);
+        add(inbox, 0, 3);
+        assertEquals(3, inbox.getUnreadCount());
+        assertEquals(messages(0, 3), inbox.getAll()); // Looking does not mark anything read
+        assertEquals(3, inbox.getUnreadCount());
+
+        assertEquals(messages(0, 3), inbox.readUnread());
+        assertEquals(0, inbox.getUnreadCount());
+        assertTrue(inbox.readUnread().isEmpty());
+
+        add(inbox, 3, 5);
+        assertEquals(messages(3, 5), inbox.readUnread());
+        assertEquals(messages(0, 5), inbox.getAll());
+    }
+
+    @Test
+    void overwritingReadAndUnreadRecordsKeepsTheUnreadCount() {
+        PatronInbox inbox = new PatronInbox(3);
+        add(inbox, 0, 3);
+        inbox.readUnread();
+
+        add(inbox, 3, 4); // Overwrites read m0
+        assertEquals(1, inbox.getUnreadCount());
+        add(inbox, 4, 6); // Overwrites read m1, m2
+        assertEquals(3, inbox.getUnreadCount());
+        add(inbox, 6, 7); // Overwrites unread m3
+        assertEquals(3, inbox.getUnreadCount());
+        assertEquals(messages(4, 7), inbox.readUnread());
+        assertEquals(4, inbox.getDroppedCount());
+    }
+
+    @Test
+    void readFlagsSurviveGrowthAndWraparound() {
+        PatronInbox inbox = new PatronInbox(6);
+        add(inbox, 0, 3);
+        inbox.readUnread(); // m0..m2 read in the first 4 slots
+        add(inbox, 3, 9); // Grows to 6 slots, then overwrites m0..m2
+
+        assertEquals(messages(3, 9), inbox.getAll());
+        assertEquals(6, inbox.getUnreadCount());
+        assertEquals(messages(3, 9), inbox.readUnread());
+
+        add(inbox, 9, 11);
+        assertEquals(2, inbox.getUnreadCount());
+        assertEquals(messages(9, 11), inbox.readUnread());
+    }
+
+    @Test
+    void templatesAreRenderedWhenRead() {
+        PatronInbox inbox = new PatronInbox();
+        inbox.add(NotificationTemplate.HOLD_READY, "Dune");
+        inbox.add(NotificationTemplate.HOLD_EXPIRED, "Dune");
+        inbox.add(NotificationTemplate.MESSAGE, "Library closed on Monday");
+
+        assertEquals(List.of("Your reserved book 'Dune' is ready for pickup!",
+                "Your hold on 'Dune' has expired.",
+                "Library closed on Monday"), inbox.readUnread());
+
+        inbox.add(NotificationTemplate.MESSAGE, "Late");
+        inbox.markAllRead();
+        assertEquals(0, inbox.getUnreadCount());
+        inbox.clear();
+        assertEquals(0, inbox.size());
+        assertTrue(inbox.getAll().isEmpty());
+        inbox.add(NotificationTemplate.MESSAGE, "After clear");
+        assertEquals(List.of("After clear"), inbox.readUnread());
+    }
+
+    @Test
+    void patronKeepsItsListStyleNotificationApi() {
+        Patron patron = new Patron("p-1", "Reader", "reader@example.org");
+        patron.setNotifications(List.of("one", "two"));
+        patron.addNotification("three");
+        patron.addNotification(NotificationTemplate.HOLD_READY, "Emma");
+
+        assertEquals(List.of("one", "two", "three", "Your reserved book 'Emma' is ready for pickup!"),
+                patron.getNotifications());
+        assertEquals(4, patron.getInbox().getUnreadCount());
+    }
+
+    // --- Helpers ---
+
+    private static void add(PatronInbox inbox, int from, int to) {
+        for (int i = from; i < to; i++) {
+            inbox.add(NotificationTemplate.MESSAGE, "m" + i);
+        }
+    }
+
+    private static List<String> messages(int from, int to) {
+        List<String> messages = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            messages.add("m" + i);
+        }
+        return messages;
+    }
+}
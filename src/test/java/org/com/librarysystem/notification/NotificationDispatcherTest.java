@@ -0,0 +1,196 @@
+package org.com.librarysystem.notification;
+
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dispatch against the in-memory SMTP sink: messages go out in batches and in
+ * order, duplicates waiting for the same patron are coalesced, a full lane
+ * rejects instead of blocking, shutdown flushes what was accepted, and a
+ * failing channel is retried and finally dropped.
+ */
+class NotificationDispatcherTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    @BeforeEach
+    void quietLogs() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF);
+    }
+
+    @AfterEach
+    void restoreLogs() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void queuedMessagesGoOutInFullBatchesInSubmissionOrder() throws InterruptedException {
+        InMemorySmtpSink sink = new InMemorySmtpSink();
+        NotificationDispatcher dispatcher = dispatcher(sink, 1_000, 3);
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            sent.add("Message " + i);
+            assertTrue(dispatcher.submit(patron(i % 7), sent.get(i)));
+        }
+
+        dispatcher.start();
+        assertTrue(dispatcher.shutdown(TIMEOUT));
+
+        assertEquals(3, sink.getBatchCount()); // 100 + 100 + 50
+        assertEquals(sent, messages(sink.getDelivered()));
+        assertEquals(250, dispatcher.getStats().getDelivered());
+    }
+
+    @Test
+    void aDuplicateWaitingForTheSamePatronIsCoalesced() throws InterruptedException {
+        InMemorySmtpSink sink = new InMemorySmtpSink();
+        NotificationDispatcher dispatcher = dispatcher(sink, 1_000, 3);
+        assertTrue(dispatcher.submit(patron(1), "Your hold is ready"));
+        assertTrue(dispatcher.submit(patron(1), "Your hold is ready"));
+        assertTrue(dispatcher.submit(patron(2), "Your hold is ready"));
+        assertTrue(dispatcher.submit(patron(1), "Your loan is due"));
+
+        dispatcher.start();
+        assertTrue(dispatcher.shutdown(TIMEOUT));
+
+        assertEquals(List.of("Your hold is ready", "Your hold is ready", "Your loan is due"),
+                messages(sink.getDelivered()));
+        assertEquals("p-2", sink.getDelivered().get(1).getPatronId());
+        DispatcherStats stats = dispatcher.getStats();
+        assertEquals(4, stats.getSubmitted());
+        assertEquals(1, stats.getCoalesced());
+        assertEquals(3, stats.getDelivered());
+    }
+
+    @Test
+    void aFullQueueRejectsWithoutBlockingWhileTheChannelIsStuck() throws InterruptedException {
+        GatedChannel channel = new GatedChannel();
+        NotificationDispatcher dispatcher = dispatcher(channel, 5, 1);
+        dispatcher.start();
+        assertTrue(dispatcher.submit(patron(0), "In flight"));
+        assertTrue(channel.entered.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(dispatcher.submit(patron(i), "Queued " + i));
+        }
+        long start = System.nanoTime();
+        assertFalse(dispatcher.submit(patron(6), "Rejected"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        DispatcherStats stats = dispatcher.getStats();
+        assertEquals(1, stats.getRejected());
+        assertEquals(5, stats.getQueueDepth());
+
+        channel.release.countDown();
+        assertTrue(dispatcher.shutdown(TIMEOUT));
+        assertEquals(6, channel.sink.getDelivered().size());
+        assertFalse(messages(channel.sink.getDelivered()).contains("Rejected"));
+    }
+
+    @Test
+    void shutdownFlushesEverythingAlreadyAccepted() throws InterruptedException {
+        InMemorySmtpSink sink = new InMemorySmtpSink();
+        NotificationDispatcher dispatcher = dispatcher(sink, 10_000, 3);
+        dispatcher.start();
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(dispatcher.submit(patron(i % 50), "Message " + i));
+        }
+
+        assertTrue(dispatcher.shutdown(TIMEOUT));
+
+        assertEquals(5_000, sink.getDelivered().size());
+        DispatcherStats stats = dispatcher.getStats();
+        assertEquals(5_000, stats.getDelivered());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    void shutdownWithoutWorkersReportsWhatIsLeftUndelivered() throws InterruptedException {
+        InMemorySmtpSink sink = new InMemorySmtpSink();
+        NotificationDispatcher dispatcher = dispatcher(sink, 100, 3);
+        dispatcher.submit(patron(0), "Never sent");
+
+        assertFalse(dispatcher.shutdown(TIMEOUT));
+        assertEquals(0, sink.getBatchCount());
+        assertEquals(1, dispatcher.getStats().getQueueDepth());
+    }
+
+    @Test
+    void aFailingBatchIsRetriedThenDroppedAfterTheLastAttempt() throws InterruptedException {
+        InMemorySmtpSink recovering = new InMemorySmtpSink();
+        recovering.failNextBatches(2);
+        NotificationDispatcher first = dispatcher(recovering, 100, 3);
+        first.submit(patron(0), "Second time lucky");
+        first.start();
+        assertTrue(first.shutdown(TIMEOUT));
+        assertEquals(List.of("Second time lucky"), messages(recovering.getDelivered()));
+        assertEquals(2, first.getStats().getRetries());
+        assertEquals(0, first.getStats().getFailed());
+
+        InMemorySmtpSink down = new InMemorySmtpSink();
+        down.failNextBatches(3);
+        NotificationDispatcher second = dispatcher(down, 100, 3);
+        second.submit(patron(0), "Lost");
+        second.submit(patron(1), "Lost");
+        second.start();
+        assertTrue(second.shutdown(TIMEOUT));
+        assertTrue(down.getDelivered().isEmpty());
+        assertEquals(2, second.getStats().getRetries());
+        assertEquals(2, second.getStats().getFailed());
+        assertEquals(0, second.getStats().getDelivered());
+    }
+
+    // --- Helpers ---
+
+    private static NotificationDispatcher dispatcher(NotificationChannel channel, int queueCapacity, int maxAttempts) {
+        return new NotificationDispatcher(List.of(channel), queueCapacity, 100, maxAttempts, Duration.ofMillis(1));
+    }
+
+    private static Patron patron(int n) {
+        return new Patron("p-" + n, "Patron " + n, "patron" + n + "@example.org");
+    }
+
+    private static List<String> messages(List<OutboundNotification> delivered) {
+        List<String> messages = new ArrayList<>();
+        for (OutboundNotification notification : delivered) {
+            messages.add(notification.getMessage());
+        }
+        return messages;
+    }
+
+    // Holds its first batch until released, like a mail server that stopped answering
+    private static final class GatedChannel implements NotificationChannel {
+        final InMemorySmtpSink sink = new InMemorySmtpSink();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String getName() {
+            return sink.getName();
+        }
+
+        @Override
+        public void sendBatch(List<OutboundNotification> batch) throws Exception {
+            entered.countDown();
+            release.await();
+            sink.sendBatch(batch);
+        }
+    }
+}
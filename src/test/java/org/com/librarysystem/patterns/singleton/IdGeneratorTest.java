@@ -0,0 +1,168 @@
+package org.com.librarysystem.patterns.singleton;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uniqueness, node bits and ordering of generated IDs, plus a comparison with
+ * random UUIDs that is printed, not asserted.
+ */
+class IdGeneratorTest {
+
+    private static final int NODE_MASK = (1 << 10) - 1;
+
+    private static int nodeOf(long id) {
+        return (int) ((id >>> 12) & NODE_MASK);
+    }
+
+    @Test
+    void sequenceOverflowNeverTouchesTheNodeBits() {
+        // Far more than 4096 IDs per millisecond, so the sequence overflows many times
+        IdGenerator generator = new IdGenerator(0);
+        long previous = -1;
+        for (int i = 0; i < 200_000; i++) {
+            long id = generator.nextLong();
+            assertEquals(0, nodeOf(id), "node bits changed at ID #" + i);
+            assertTrue(id > previous, "IDs must be strictly increasing");
+            previous = id;
+        }
+    }
+
+    @Test
+    void burstsOnDifferentNodesNeverCollide() {
+        IdGenerator nodeA = new IdGenerator(1);
+        IdGenerator nodeB = new IdGenerator(2);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            long a = nodeA.nextLong();
+            long b = nodeB.nextLong();
+            assertEquals(1, nodeOf(a));
+            assertEquals(2, nodeOf(b));
+            assertTrue(seen.add(a) && seen.add(b), "duplicate ID across nodes");
+        }
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIds() throws Exception {
+        IdGenerator generator = new IdGenerator(7);
+        int threads = 16;
+        int perThread = 20_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        AtomicInteger wrongNode = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                List<Long> local = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    local.add(generator.nextLong());
+                }
+                for (long id : local) {
+                    if (nodeOf(id) != 7) {
+                        wrongNode.incrementAndGet();
+                    }
+                }
+                ids.addAll(local);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(0, wrongNode.get());
+    }
+
+    @Test
+    void stringIdsRoundTrip() {
+        IdGenerator generator = new IdGenerator(3);
+        String id = generator.nextId("bc-");
+        long value = IdGenerator.parse("bc-", id);
+        assertEquals(id, IdGenerator.format("bc-", value));
+        assertEquals(3, nodeOf(value));
+        assertEquals(-1, IdGenerator.parse("p-", id));
+    }
+
+    @Test
+    void generationCostAgainstRandomUuids() throws Exception {
+        IdGenerator generator = new IdGenerator(5);
+        int count = 1_000_000;
+        for (int threads : new int[]{1, 4}) {
+            for (int round = 0; round < 2; round++) { // The first round warms up
+                double idNanos = generate(threads, count, () -> generator.nextId("bc-"));
+                double uuidNanos = generate(threads, count, () -> UUID.randomUUID().toString());
+                if (round == 1) {
+                    System.out.printf("IdGeneratorTest: %d thread(s): nextId %5.1f ns/ID, UUID %6.1f ns/ID%n",
+                            threads, idNanos, uuidNanos);
+                }
+            }
+        }
+
+        // IDs are keys of ordered and hashed maps; time order keeps sorted inserts at the end
+        int keys = 200_000;
+        for (int round = 0; round < 2; round++) {
+            List<String> ids = new ArrayList<>(keys);
+            List<String> uuids = new ArrayList<>(keys);
+            for (int i = 0; i < keys; i++) {
+                ids.add(generator.nextId("bc-"));
+                uuids.add(UUID.randomUUID().toString());
+            }
+            double idInsert = insertSorted(ids);
+            double uuidInsert = insertSorted(uuids);
+            if (round == 1) {
+                System.out.printf("IdGeneratorTest: %s (%d chars) vs %s (%d chars); TreeMap insert %.1f vs %.1f ns/key%n",
+                        ids.get(0), ids.get(0).length(), uuids.get(0), uuids.get(0).length(), idInsert, uuidInsert);
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    private static double generate(int threads, int count, Supplier<String> next) throws InterruptedException {
+        int perThread = count / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger sink = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int length = 0;
+                for (int i = 0; i < perThread; i++) {
+                    length += next.get().length();
+                }
+                sink.addAndGet(length);
+                done.countDown();
+            }).start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        done.await();
+        assertTrue(sink.get() > 0);
+        return (System.nanoTime() - began) / (double) (perThread * threads);
+    }
+
+    private static double insertSorted(List<String> keys) {
+        Map<String, Boolean> map = new TreeMap<>();
+        long began = System.nanoTime();
+        for (String key : keys) {
+            map.put(key, Boolean.TRUE);
+        }
+        return (System.nanoTime() - began) / (double) keys.size();
+    }
+}
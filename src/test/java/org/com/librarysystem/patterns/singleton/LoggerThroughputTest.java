@@ -0,0 +1,144 @@
+package org.com.librarysystem.patterns.singleton;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.logging.AsyncRollingFileAppender;
+import org.com.librarysystem.logging.ConsoleAppender;
+import org.com.librarysystem.logging.LogAppender;
+import org.com.librarysystem.service.BookManagementService;
+import org.com.librarysystem.service.LendingService;
+import org.com.librarysystem.service.NotificationService;
+import org.com.librarysystem.service.PatronManagementService;
+import org.com.librarysystem.service.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checkout throughput with logging off and on, and a check that disabled
+ * levels never reach the appender.
+ */
+class LoggerThroughputTest {
+
+    private static final int COPIES = 16;
+    private static final int PAIRS = 50_000;
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    private LendingService lendingSvc;
+    private Patron patron;
+    private final List<String> barcodes = new ArrayList<>();
+
+    @TempDir
+    Path logDir;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF); // Keep setup quiet
+
+        BookManagementService bookSvc = new BookManagementService();
+        PatronManagementService patronSvc = new PatronManagementService();
+        ReservationService reservationSvc = new ReservationService(new NotificationService(), bookSvc);
+        lendingSvc = new LendingService(bookSvc, patronSvc, reservationSvc);
+
+        Book book = new Book("978-0000000002", "Logged Title", "Some Author", 2010, BookType.REGULAR);
+        bookSvc.addBook(book);
+        Branch branch = new Branch("br-log", "Log Branch");
+        for (int i = 0; i < COPIES; i++) {
+            barcodes.add(bookSvc.addBookItem(book, branch).getBarcode());
+        }
+        patron = patronSvc.addPatron("Logged Patron", "logged@example.org");
+    }
+
+    @AfterEach
+    void restoreLogger() {
+        logger.setAppender(new ConsoleAppender());
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void disabledLevelsNeverReachTheAppender() {
+        CountingAppender counting = new CountingAppender();
+        logger.setAppender(counting);
+
+        logger.setLevel(LogLevel.WARN);
+        runPairs(1_000);
+        assertEquals(0, counting.count.sum(), "successful checkouts and returns log at INFO");
+
+        logger.setLevel(LogLevel.INFO);
+        runPairs(1_000);
+        assertTrue(counting.count.sum() >= 2_000, "every checkout and return logs once at INFO");
+    }
+
+    @Test
+    void checkoutThroughputWithLoggingOffAndOn() throws IOException {
+        runPairs(PAIRS); // Warm-up
+
+        logger.setLevel(LogLevel.OFF);
+        double off = pairsPerSecond();
+
+        Path file = logDir.resolve("library.log");
+        AsyncRollingFileAppender async = new AsyncRollingFileAppender(file);
+        logger.setAppender(async);
+        logger.setLevel(LogLevel.INFO);
+        double asyncFile = pairsPerSecond();
+        long dropped = async.getDroppedCount();
+        logger.setAppender(new CountingAppender()); // Closes and drains the file appender
+
+        logger.setLevel(LogLevel.WARN);
+        double filtered = pairsPerSecond();
+
+        System.out.printf("LoggerThroughputTest: checkout+return pairs/s: logging OFF %,.0f, "
+                        + "INFO filtered at WARN %,.0f, INFO to async rolling file %,.0f (%,d dropped)%n",
+                off, filtered, asyncFile, dropped);
+
+        long written;
+        try (var lines = Files.lines(file)) {
+            written = lines.count();
+        }
+        // Everything not dropped under the burst must end up in the file
+        assertTrue(written > 0);
+        assertTrue(written + dropped >= 2L * PAIRS, written + " written, " + dropped + " dropped");
+    }
+
+    // --- Helpers ---
+
+    private double pairsPerSecond() {
+        long start = System.nanoTime();
+        runPairs(PAIRS);
+        return PAIRS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private void runPairs(int pairs) {
+        for (int i = 0; i < pairs; i++) {
+            String barcode = barcodes.get(i % COPIES);
+            lendingSvc.checkoutBook(patron.getPatronId(), barcode);
+            lendingSvc.returnBook(barcode);
+        }
+    }
+
+    private static final class CountingAppender implements LogAppender {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void append(LogLevel level, String message) {
+            count.increment();
+        }
+    }
+}
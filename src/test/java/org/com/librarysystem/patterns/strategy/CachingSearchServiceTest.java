@@ -0,0 +1,127 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingSearchServiceTest {
+
+    private final Map<String, Book> catalog = new ConcurrentHashMap<>();
+    private final CachingSearchService cache = new CachingSearchService(10_000);
+
+    @Test
+    void addedBookThatMatchesACachedQueryInvalidatesIt() {
+        add("1", "Dune", "Herbert");
+        assertEquals(1, cache.executeSearch(SearchService.BY_TITLE, "dune", catalog).size());
+        assertEquals(1, cache.executeSearch(SearchService.BY_TITLE, "dune", catalog).size());
+        assertEquals(1, cache.getStats().getHits());
+
+        add("2", "Dune Messiah", "Herbert");
+        assertEquals(2, cache.executeSearch(SearchService.BY_TITLE, "dune", catalog).size());
+    }
+
+    @Test
+    void updatedBookIsDroppedFromEntriesThatHeldIt() {
+        add("1", "Dune", "Herbert");
+        cache.executeSearch(SearchService.BY_AUTHOR, "herbert", catalog);
+        assertEquals(1, cache.getStats().getEntries());
+
+        Book previous = catalog.get("1");
+        Book updated = new Book("1", "Dune", "F. Herbert Jr", 1965, BookType.REGULAR);
+        catalog.put("1", updated);
+        cache.onBookUpdated(previous, updated);
+
+        // Removed eagerly through the ISBN reverse index, not on the next hit
+        assertEquals(0, cache.getStats().getEntries());
+        assertEquals(1, cache.executeSearch(SearchService.BY_AUTHOR, "herbert", catalog).size());
+    }
+
+    @Test
+    void unrelatedChangesKeepEntriesCached() {
+        add("1", "Dune", "Herbert");
+        cache.executeSearch(SearchService.BY_TITLE, "dune", catalog);
+        for (int i = 0; i < 100; i++) {
+            add("x" + i, "Foundation " + i, "Asimov");
+        }
+        cache.executeSearch(SearchService.BY_TITLE, "dune", catalog);
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    void entriesOlderThanTheChangeLogAreRecomputed() {
+        add("1", "Dune", "Herbert");
+        cache.executeSearch(SearchService.BY_TITLE, "dune", catalog);
+        for (int i = 0; i < 5_000; i++) {
+            add("x" + i, "Foundation " + i, "Asimov");
+        }
+        assertEquals(1, cache.executeSearch(SearchService.BY_TITLE, "dune", catalog).size());
+        assertEquals(0, cache.getStats().getHits());
+    }
+
+    @Test
+    void weightStaysBoundedUnderEviction() {
+        CachingSearchService small = new CachingSearchService(50);
+        for (int i = 0; i < 500; i++) {
+            add("b" + i, "Book " + i, "Author");
+        }
+        for (int i = 0; i < 500; i++) {
+            small.executeSearch(SearchService.BY_ISBN, "b" + i, catalog);
+        }
+        SearchCacheStats stats = small.getStats();
+        assertTrue(stats.getWeight() <= 50, stats.toString());
+        assertTrue(stats.getEvictions() > 0, stats.toString());
+    }
+
+    @Test
+    void concurrentHitsAndChangesNeverServeStaleResults() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            add("b" + i, "Saga part " + i, "Author " + (i % 10));
+        }
+        int threads = 16;
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2_000; i++) {
+                        if (seed == 0 && i % 10 == 0) {
+                            add("n" + i, "Saga part new " + i, "Author 3");
+                            continue;
+                        }
+                        // Books are only ever added, so a result may never shrink below what was seen before
+                        int before = (int) catalog.values().stream()
+                                .filter(b -> b.getAuthor().equals("Author 3")).count();
+                        List<Book> result = cache.executeSearch(SearchService.BY_AUTHOR, "author 3", catalog);
+                        if (result.size() < before) {
+                            failures.add("stale result: " + result.size() + " < " + before);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertTrue(failures.isEmpty(), () -> failures.size() + " stale hits, e.g. " + failures.peek());
+        long expected = catalog.values().stream().filter(b -> b.getAuthor().equals("Author 3")).count();
+        assertEquals(expected, cache.executeSearch(SearchService.BY_AUTHOR, "author 3", catalog).size());
+    }
+
+    // --- Helpers ---
+
+    private void add(String isbn, String title, String author) {
+        Book book = new Book(isbn, title, author, 2000, BookType.REGULAR);
+        catalog.put(isbn, book);
+        cache.onBookAdded(book);
+    }
+}
@@ -0,0 +1,139 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.service.BookManagementService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The parallel shard search returns what a single scan returns, plus a
+ * scaling measurement over shard counts and pool sizes that is printed, not
+ * asserted.
+ */
+class ParallelSearchExecutorTest {
+
+    private static final int TITLES = 200_000;
+    private static final int ROUNDS = 20;
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    @BeforeEach
+    void quietLogs() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF);
+    }
+
+    @AfterEach
+    void restoreLogs() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void shardedSearchReturnsTheSingleScanResults() {
+        BookManagementService sharded = catalog(8, 20_000);
+        BookManagementService single = catalog(1, 20_000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelSearchExecutor executor = new ParallelSearchExecutor(pool);
+            for (String query : new String[]{"volume 12", "title 7 ", "no such title"}) {
+                Set<String> expected = isbns(new SearchByTitleStrategy().search(query, single.getBookCatalog()));
+                List<Book> found = executor.search(new SearchByTitleStrategy(), query, sharded.getCatalogShards());
+                assertEquals(expected.size(), found.size(), query);
+                assertEquals(expected, isbns(found), query);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void regexScanScalingOverShardsAndThreads() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        SearchStrategy regex = new RegexTitleStrategy();
+        String query = "title 1\\d volume \\d*7$";
+        System.out.printf("ParallelSearchExecutorTest: %,d titles, regex title scan, %d core(s) available%n",
+                TITLES, cores);
+
+        for (int shards : new int[]{1, 2, 4, 8, 16}) {
+            BookManagementService bookSvc = catalog(shards, TITLES);
+            for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    ParallelSearchExecutor executor = new ParallelSearchExecutor(pool);
+                    for (int round = 0; round < 5; round++) {
+                        executor.search(regex, query, bookSvc.getCatalogShards()); // Warm up
+                    }
+                    long start = System.nanoTime();
+                    int matches = 0;
+                    for (int round = 0; round < ROUNDS; round++) {
+                        matches = executor.search(regex, query, bookSvc.getCatalogShards()).size();
+                    }
+                    double ms = (System.nanoTime() - start) / 1e6 / ROUNDS;
+                    System.out.printf("ParallelSearchExecutorTest: %2d shard(s), %2d thread(s): %7.2f ms per scan (%d matches)%n",
+                            shards, threads, ms, matches);
+                } finally {
+                    pool.shutdown();
+                }
+                if (threads >= cores) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    // Titles are added in random order: sequential ISBNs added in order would sit in memory in
+    // hash order, which flatters a single shard's scan with locality no real catalog has
+    private static BookManagementService catalog(int shards, int titles) {
+        BookManagementService bookSvc = new BookManagementService(shards);
+        List<Integer> order = new ArrayList<>(titles);
+        for (int i = 0; i < titles; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(titles));
+        for (int i : order) {
+            String isbn = String.format("978-%07d", i);
+            bookSvc.addBook(new Book(isbn, "Title " + (i % 100) + " volume " + i,
+                    "Author " + (i % 37), 1950 + (i % 70), BookType.REGULAR));
+        }
+        return bookSvc;
+    }
+
+    private static Set<String> isbns(List<Book> books) {
+        return books.stream().map(Book::getIsbn).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    // A scan nothing can index: the kind of query the parallel executor is for
+    private static final class RegexTitleStrategy implements SearchStrategy {
+        @Override
+        public List<Book> search(String query, Map<String, Book> bookCatalog) {
+            return stream(query, bookCatalog).collect(Collectors.toList());
+        }
+
+        @Override
+        public Stream<Book> stream(String query, Map<String, Book> bookCatalog) {
+            Pattern pattern = Pattern.compile(query, Pattern.CASE_INSENSITIVE);
+            return bookCatalog.values().stream().filter(book -> pattern.matcher(book.getTitle()).find());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.com.librarysystem.patterns.strategy;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.enums.BookType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test for the stateless SearchService: many threads run title,
+ * author and ISBN searches against one shared instance at the same time,
+ * mixing registered names and strategy instances, and every result must be
+ * exactly what the same search returns single-threaded.
+ */
+class SearchServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int QUERIES_PER_THREAD = 1_000;
+    private static final int TITLES = 1_000;
+
+    private final Map<String, Book> catalog = new HashMap<>();
+    private final SearchService searchService = new SearchService();
+
+    // Each query has a distinct answer per strategy, so a swapped strategy shows up as a wrong result
+    private final List<String[]> queries = new ArrayList<>();
+
+    @BeforeEach
+    void buildCatalog() {
+        for (int i = 0; i < TITLES; i++) {
+            String isbn = String.format("978-%06d", i);
+            catalog.put(isbn, new Book(isbn, "Title " + (i % 100) + " volume " + i,
+                    "Author " + (i % 37), 1950 + (i % 70), BookType.REGULAR));
+        }
+        for (int i = 0; i < 100; i++) {
+            queries.add(new String[]{SearchService.BY_TITLE, "title " + i + " volume"});
+            queries.add(new String[]{SearchService.BY_AUTHOR, "author " + (i % 37)});
+            queries.add(new String[]{SearchService.BY_ISBN, String.format("978-%06d", i * 7)});
+        }
+    }
+
+    @Test
+    void concurrentSearchesReturnTheSingleThreadedResults() throws Exception {
+        Map<String, Set<String>> expected = new HashMap<>();
+        for (String[] q : queries) {
+            expected.put(q[0] + '|' + q[1], isbns(searchService.executeSearch(q[0], q[1], catalog)));
+            assertTrue(!expected.get(q[0] + '|' + q[1]).isEmpty(), "every query must match something");
+        }
+
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> workerIds = new ConcurrentLinkedQueue<>();
+        AtomicLong blockedAfterWarmup = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final int seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    workerIds.add(Thread.currentThread().threadId());
+                    start.await();
+                    long blockedAtStart = blockedCount(mx);
+                    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                        String[] q = queries.get((seed * 31 + i) % queries.size());
+                        // Alternate between the registered name and the shared instance
+                        List<Book> result = (i & 1) == 0
+                                ? searchService.executeSearch(q[0], q[1], catalog)
+                                : searchService.executeSearch(searchService.getStrategy(q[0]), q[1], catalog);
+                        if (!isbns(result).equals(expected.get(q[0] + '|' + q[1]))) {
+                            failures.add(q[0] + " '" + q[1] + "' returned " + result.size() + " books");
+                        }
+                        completed.incrementAndGet();
+                    }
+                    blockedAfterWarmup.addAndGet(blockedCount(mx) - blockedAtStart);
+                } catch (Exception e) {
+                    failures.add(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            }, "search-stress-" + t);
+            worker.start();
+        }
+        done.await();
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " wrong results, e.g. " + failures.peek());
+        assertEquals((long) THREADS * QUERIES_PER_THREAD, completed.get());
+        assertEquals(THREADS, workerIds.size());
+        // No search path takes a monitor, so no worker ever blocked on one
+        assertEquals(0, blockedAfterWarmup.get(), "searches blocked on a monitor");
+    }
+
+    @Test
+    void strategiesCanBeRegisteredWhileSearchesRun() throws Exception {
+        Set<String> expected = isbns(searchService.executeSearch(SearchService.BY_AUTHOR, "author 3", catalog));
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final int seed = t;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        if (seed == 0) {
+                            searchService.registerStrategy("extra-" + i, new SearchByTitleStrategy());
+                        } else if (!isbns(searchService.executeSearch(SearchService.BY_AUTHOR, "author 3", catalog))
+                                .equals(expected)) {
+                            failures.add("author search changed while strategies were registered");
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertTrue(failures.isEmpty(), () -> String.valueOf(failures.peek()));
+        assertEquals(3 + 500, searchService.getStrategyNames().size());
+    }
+
+    // --- Helpers ---
+
+    private static Set<String> isbns(List<Book> books) {
+        return books.stream().map(Book::getIsbn).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static long blockedCount(ThreadMXBean mx) {
+        ThreadInfo info = mx.getThreadInfo(Thread.currentThread().threadId());
+        return info == null ? 0 : info.getBlockedCount();
+    }
+}
@@ -0,0 +1,89 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.enums.JournalRecordType;
+import org.com.librarysystem.enums.JournalSyncMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Segment reading: records larger than the read chunk and segments spanning
+ * many chunks come back intact, and a torn tail is still found.
+ */
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void segmentsLargerThanTheReadChunkAreStreamed() throws IOException {
+        List<String> written = writeSegment(new Random(3));
+        Path file = Journal.segmentFile(dir, 0);
+        long size = Files.size(file);
+
+        List<String> read = new ArrayList<>();
+        long valid = Journal.read(file, payload -> read.add(decode(payload)));
+
+        assertEquals(size, valid);
+        assertEquals(written, read);
+    }
+
+    @Test
+    void tornTailIsFoundAfterManyChunks() throws IOException {
+        List<String> written = writeSegment(new Random(4));
+        Path file = Journal.segmentFile(dir, 0);
+        long size = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 50, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<String> read = new ArrayList<>();
+        long valid = Journal.read(file, payload -> read.add(decode(payload)));
+
+        assertEquals(size, valid);
+        assertEquals(written, read);
+    }
+
+    // --- Helpers ---
+
+    /**
+     * Writes about 6 MiB of records, mostly small, with a few larger than the
+     * 1 MiB read chunk.
+     */
+    private List<String> writeSegment(Random random) {
+        Journal journal = new Journal(dir, 0, JournalSyncMode.NONE, Duration.ZERO, 4 << 20);
+        List<String> written = new ArrayList<>();
+        long bytes = 0;
+        while (bytes < 6 << 20) {
+            int length = random.nextInt(20) == 0 ? (1 << 20) + random.nextInt(1 << 20) : 1 + random.nextInt(4_000);
+            String text = randomText(random, length);
+            written.add(text);
+            journal.append(new RecordBuffer(JournalRecordType.ADD_PATRON).putString(text));
+            bytes += length;
+        }
+        journal.close();
+        return written;
+    }
+
+    private static String decode(ByteBuffer payload) {
+        payload.get(); // Record type
+        return RecordBuffer.getString(payload);
+    }
+
+    private static String randomText(Random random, int length) {
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(text);
+    }
+}
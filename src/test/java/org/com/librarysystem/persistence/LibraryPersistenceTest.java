@@ -0,0 +1,485 @@
+package org.com.librarysystem.persistence;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.HoldHandOff;
+import org.com.librarysystem.core.LendingRecord;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.JournalSyncMode;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.index.AutocompleteIndex;
+import org.com.librarysystem.patterns.facade.LibraryFacade;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.patterns.strategy.SearchService;
+import org.com.librarysystem.service.BookManagementService;
+import org.com.librarysystem.service.BranchNetwork;
+import org.com.librarysystem.service.LendingService;
+import org.com.librarysystem.service.NotificationService;
+import org.com.librarysystem.service.PatronManagementService;
+import org.com.librarysystem.service.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery tests for the journal and snapshots, plus write-throughput and
+ * recovery-time measurements that are printed, not asserted.
+ */
+class LibraryPersistenceTest {
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void quietLogs() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF);
+    }
+
+    @AfterEach
+    void restoreLogs() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void snapshotsPlusJournalTailRecoverTheSameState() {
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        Random random = new Random(42);
+        Workload workload = new Workload(library.facade);
+        for (int round = 0; round < 3; round++) {
+            workload.run(random, 2_000);
+            if (round < 2) {
+                library.facade.takeSnapshot();
+            }
+        }
+        String before = library.fingerprint();
+        library.persistence.close();
+
+        Library recovered = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        assertTrue(recovered.report.isSnapshotLoaded());
+        assertTrue(recovered.report.getReplayedRecords() > 0);
+        assertEquals(before, recovered.fingerprint());
+        recovered.persistence.close();
+    }
+
+    @Test
+    void tornTailIsCutOffAndRecoveryStillMatches() throws IOException {
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        new Workload(library.facade).run(new Random(7), 500);
+        String before = library.fingerprint();
+        library.persistence.close();
+
+        Path last = lastSegment();
+        Files.write(last, new byte[]{0, 0, 0, 50, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Library recovered = Library.open(dir, JournalSyncMode.INTERVAL);
+        assertEquals(7, recovered.report.getTruncatedBytes());
+        assertEquals(before, recovered.fingerprint());
+        recovered.persistence.close();
+    }
+
+    @Test
+    void handOffsAfterASnapshotTakenMidPassoverReplayAsTheyHappened() {
+        Branch near = new Branch("br-near", "Near");
+        Branch far = new Branch("br-far", "Far");
+        BranchNetwork network = twoBranches(near, far);
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH, network);
+        PassoverScenario scenario = new PassoverScenario(library.facade, near, far);
+
+        // Three copies go to nearer holds, passing over the older far hold each time
+        for (int i = 0; i < 3; i++) {
+            library.facade.returnBook(scenario.copies.get(i));
+        }
+        assertEquals(3, library.reservationSvc.getPassovers(scenario.farHold));
+        library.facade.takeSnapshot();
+
+        // The far hold has waited long enough: it gets the fourth copy, and its patron collects it
+        library.facade.returnBook(scenario.copies.get(3));
+        library.facade.checkoutBook(scenario.farPatron, scenario.copies.get(3));
+        String before = library.fingerprint();
+        library.persistence.close();
+
+        Library recovered = Library.open(dir, JournalSyncMode.EVERY_BATCH, network);
+        assertEquals(before, recovered.fingerprint());
+        recovered.persistence.close();
+    }
+
+    @Test
+    void passoversSurviveASnapshot() {
+        Branch near = new Branch("br-near", "Near");
+        Branch far = new Branch("br-far", "Far");
+        BranchNetwork network = twoBranches(near, far);
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH, network);
+        PassoverScenario scenario = new PassoverScenario(library.facade, near, far);
+        library.facade.returnBook(scenario.copies.get(0));
+        library.facade.returnBook(scenario.copies.get(1));
+        library.facade.takeSnapshot();
+        library.persistence.close();
+
+        Library recovered = Library.open(dir, JournalSyncMode.EVERY_BATCH, network);
+        assertEquals(2, recovered.reservationSvc.getPassovers(scenario.farHold));
+        recovered.facade.returnBook(scenario.copies.get(2));
+        recovered.facade.returnBook(scenario.copies.get(3));
+        Reservation held = recovered.reservationSvc.getReadyHolds().stream()
+                .filter(r -> r.getReservationId().equals(scenario.farHold)).findFirst().orElseThrow();
+        assertEquals(scenario.copies.get(3), held.getHeldItem().getBarcode());
+        recovered.persistence.close();
+    }
+
+    @Test
+    void damageBeforeTheLastSegmentStopsRecovery() throws IOException {
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        Workload workload = new Workload(library.facade);
+        workload.run(new Random(11), 300);
+        library.facade.takeSnapshot();
+        workload.run(new Random(12), 300);
+        library.persistence.close();
+
+        // Without the snapshot, segment 0 is needed, and its damage is not a torn tail
+        corrupt(newestSnapshot());
+        Path first = Journal.segmentFile(dir, 0);
+        Files.write(first, new byte[]{0, 0, 0, 50, 1, 2, 3}, StandardOpenOption.APPEND);
+        long sizeBefore = Files.size(first);
+        List<Path> filesBefore = listFiles();
+
+        Library broken = Library.create(dir, JournalSyncMode.EVERY_BATCH);
+        IllegalStateException error = assertThrows(IllegalStateException.class, broken.persistence::open);
+        assertTrue(error.getMessage().contains("segment 0 is damaged"), error.getMessage());
+        assertEquals(sizeBefore, Files.size(first));
+        assertEquals(filesBefore, listFiles());
+    }
+
+    @Test
+    void missingSegmentStopsRecovery() throws IOException {
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        Workload workload = new Workload(library.facade);
+        for (int round = 0; round < 3; round++) {
+            workload.run(new Random(20 + round), 300);
+            if (round < 2) {
+                library.facade.takeSnapshot();
+            }
+        }
+        library.persistence.close();
+
+        // Falling back to the older snapshot needs its segment, which is gone
+        corrupt(newestSnapshot());
+        Files.delete(Journal.segmentFile(dir, 1));
+
+        Library broken = Library.create(dir, JournalSyncMode.EVERY_BATCH);
+        IllegalStateException error = assertThrows(IllegalStateException.class, broken.persistence::open);
+        assertTrue(error.getMessage().contains("segment 1 is missing"), error.getMessage());
+    }
+
+    @Test
+    void recordThatCannotBeReplayedStopsRecovery() throws IOException {
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        Book book = library.facade.addNewBook("Title", "Author", "isbn-1", 2000, BookType.REGULAR);
+        String barcode = library.facade.addBookItem(book, null).getBarcode();
+        library.facade.addNewPatron("Early", "early@example.org");
+
+        // A return for a copy that was never lent: intact on disk, but it cannot be applied
+        LendingService.PlannedReturn bogus = new LendingService.PlannedReturn(barcode, LocalDate.now(), HoldHandOff.shelved());
+        library.persistence.execute("isbn-1", () -> JournaledChange.of(batch -> batch.recordReturn(bogus), () -> null));
+        library.facade.addNewPatron("Late", "late@example.org");
+        library.persistence.close();
+
+        Path segment = lastSegment();
+        long sizeBefore = Files.size(segment);
+        List<Path> filesBefore = listFiles();
+
+        Library broken = Library.create(dir, JournalSyncMode.EVERY_BATCH);
+        assertThrows(IllegalStateException.class, broken.persistence::open);
+
+        // Nothing after the bad record was applied, and no file was cut, added or removed
+        assertEquals(1, broken.patronSvc.getPatrons().size());
+        assertEquals("Early", broken.patronSvc.getPatrons().values().iterator().next().getName());
+        assertEquals(sizeBefore, Files.size(segment));
+        assertEquals(filesBefore, listFiles());
+    }
+
+    @Test
+    void mutationsTheJournalRefusesLeaveMemoryUnchanged() {
+        Library library = Library.open(dir, JournalSyncMode.EVERY_BATCH);
+        Book book = library.facade.addNewBook("Title", "Author", "isbn-1", 2000, BookType.REGULAR);
+        String barcode = library.facade.addBookItem(book, null).getBarcode();
+        String patronId = library.facade.addNewPatron("Reader", "reader@example.org").getPatronId();
+        String before = library.fingerprint();
+
+        // Larger than the journal buffer: rejected before anything is appended or registered
+        String longName = "x".repeat(LibraryPersistence.DEFAULT_BUFFER_BYTES);
+        assertThrows(IllegalArgumentException.class, () -> library.facade.addNewPatron(longName, "long@example.org"));
+        assertEquals(before, library.fingerprint());
+
+        // A journal that cannot write: the checkout is abandoned and its loan slot given back
+        library.persistence.close();
+        assertThrows(IllegalStateException.class, () -> library.facade.checkoutBook(patronId, barcode));
+        assertEquals(BookStatus.AVAILABLE, library.bookSvc.getBookItemByBarcode(barcode).getStatus());
+        assertEquals(0, library.patronSvc.getPatronById(patronId).getCounters().getActiveLoans());
+        assertEquals(before, library.fingerprint());
+
+        assertEquals(before, Library.open(dir, JournalSyncMode.EVERY_BATCH).fingerprint());
+    }
+
+    @Test
+    void writeThroughputAndRecoveryTime() throws Exception {
+        for (JournalSyncMode mode : new JournalSyncMode[]{JournalSyncMode.EVERY_BATCH, JournalSyncMode.NONE}) {
+            Path modeDir = dir.resolve(mode.name());
+            Library library = Library.open(modeDir, mode);
+            List<String> barcodes = new ArrayList<>();
+            List<String> patrons = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                Book book = library.facade.addNewBook("T" + i, "A", "i" + i, 2000, BookType.REGULAR);
+                for (int k = 0; k < 3; k++) {
+                    barcodes.add(library.facade.addBookItem(book, null).getBarcode());
+                }
+            }
+            for (int i = 0; i < 1_000; i++) {
+                patrons.add(library.facade.addNewPatron("P", "p" + i + "@example.org").getPatronId());
+            }
+
+            int threads = 8;
+            long millis = 1_000;
+            AtomicLong ops = new AtomicLong();
+            long end = System.nanoTime() + millis * 1_000_000;
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                workers.add(Thread.ofPlatform().start(() -> {
+                    long done = 0;
+                    while (System.nanoTime() < end) {
+                        String barcode = barcodes.get(random.nextInt(barcodes.size()));
+                        try {
+                            if (random.nextBoolean()) {
+                                library.facade.checkoutBook(patrons.get(random.nextInt(patrons.size())), barcode);
+                            } else {
+                                library.facade.returnBook(barcode);
+                            }
+                        } catch (RuntimeException refused) {
+                            // Copy already out (or not out); nothing was journaled
+                        }
+                        done++;
+                    }
+                    ops.addAndGet(done);
+                }));
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            String before = library.fingerprint();
+            long records = library.persistence.getRecordsSinceSnapshot();
+            library.persistence.close();
+
+            Library recovered = Library.open(modeDir, mode);
+            assertEquals(before, recovered.fingerprint());
+            System.out.printf("LibraryPersistenceTest: %s, %d threads: %,.0f facade ops/s, %,d journal records, "
+                            + "recovery %d ms (%,d replayed)%n",
+                    mode, threads, ops.get() * 1000.0 / millis, records,
+                    recovered.report.getElapsed().toMillis(), recovered.report.getReplayedRecords());
+            recovered.persistence.close();
+        }
+    }
+
+    // --- Helpers ---
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".log")).max(Comparator.naturalOrder()).orElseThrow();
+        }
+    }
+
+    private static BranchNetwork twoBranches(Branch near, Branch far) {
+        BranchNetwork network = new BranchNetwork();
+        network.addBranch(near);
+        network.addBranch(far);
+        network.setTransferCost(near.getBranchId(), far.getBranchId(), 5);
+        network.setTransferCost(far.getBranchId(), near.getBranchId(), 5);
+        return network;
+    }
+
+    private Path newestSnapshot() throws IOException {
+        return SnapshotFile.snapshotFile(dir, SnapshotFile.listSnapshots(dir).get(0));
+    }
+
+    private static void corrupt(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /**
+     * One set of services wired to a persistence directory.
+     */
+    private static final class Library {
+        final BookManagementService bookSvc = new BookManagementService(2);
+        final PatronManagementService patronSvc = new PatronManagementService();
+        final ReservationService reservationSvc;
+        final LendingService lendingSvc;
+        final LibraryPersistence persistence;
+        RecoveryReport report;
+        LibraryFacade facade;
+
+        private Library(Path dir, JournalSyncMode mode, BranchNetwork network) {
+            reservationSvc = new ReservationService(new NotificationService(), bookSvc, network);
+            lendingSvc = new LendingService(bookSvc, patronSvc, reservationSvc);
+            persistence = new LibraryPersistence(dir, mode, LibraryPersistence.DEFAULT_SYNC_INTERVAL,
+                    LibraryPersistence.DEFAULT_BUFFER_BYTES, bookSvc, patronSvc, lendingSvc, reservationSvc);
+        }
+
+        static Library create(Path dir, JournalSyncMode mode) {
+            return new Library(dir, mode, new BranchNetwork());
+        }
+
+        static Library open(Path dir, JournalSyncMode mode) {
+            return open(dir, mode, new BranchNetwork());
+        }
+
+        static Library open(Path dir, JournalSyncMode mode, BranchNetwork network) {
+            Library library = new Library(dir, mode, network);
+            library.report = library.persistence.open();
+            library.facade = new LibraryFacade(library.lendingSvc, library.bookSvc, library.patronSvc,
+                    new SearchService(), library.reservationSvc, new AutocompleteIndex(), null, null,
+                    library.persistence);
+            return library;
+        }
+
+        String fingerprint() {
+            StringBuilder sb = new StringBuilder();
+            new TreeMap<>(bookSvc.getBookCatalog()).forEach((isbn, book) ->
+                    sb.append(isbn).append(book.getTitle()).append(book.getType()).append('\n'));
+            new TreeMap<>(bookSvc.getBookItems()).forEach((barcode, item) -> sb.append(barcode)
+                    .append(item.getStatus())
+                    .append(item.getCurrentBranch() == null ? "-" : item.getCurrentBranch().getBranchId())
+                    .append('\n'));
+            new TreeMap<>(patronSvc.getPatrons()).forEach((id, patron) -> {
+                sb.append(id).append(patron.getEmail()).append(patron.getCounters()).append(' ');
+                for (LendingRecord loan : patron.getHistory().toList()) {
+                    sb.append(loan.getRecordId()).append(loan.getBookItemBarcode())
+                            .append(loan.getCheckoutDate()).append(loan.getReturnDate()).append(',');
+                }
+                for (Reservation r : reservationSvc.getPendingReservations(id).stream()
+                        .sorted(Comparator.comparing(Reservation::getReservationId)).toList()) {
+                    sb.append(r.getReservationId()).append('@')
+                            .append(reservationSvc.getQueuePosition(r.getReservationId())).append(';');
+                }
+                sb.append('\n');
+            });
+            reservationSvc.getReadyHolds().stream()
+                    .sorted(Comparator.comparing(Reservation::getReservationId))
+                    .forEach(r -> sb.append("ready ").append(r.getReservationId())
+                            .append(r.getHeldItem().getBarcode()).append(r.getPatron().getPatronId()).append('\n'));
+            return sb.append(lendingSvc.getActiveLoans().size()).toString();
+        }
+    }
+
+    /**
+     * One title with four copies at the near branch, all on loan, an old hold
+     * for the far branch and four newer holds for the near branch.
+     */
+    private static final class PassoverScenario {
+        final List<String> copies = new ArrayList<>();
+        final String farPatron;
+        final String farHold;
+
+        PassoverScenario(LibraryFacade facade, Branch near, Branch far) {
+            Book book = facade.addNewBook("Title", "Author", "isbn-1", 2000, BookType.REGULAR);
+            for (int i = 0; i < 4; i++) {
+                String copy = facade.addBookItem(book, near).getBarcode();
+                facade.checkoutBook(facade.addNewPatron("Borrower", "b" + i + "@example.org").getPatronId(), copy);
+                copies.add(copy);
+            }
+            farPatron = facade.addNewPatron("Far", "far@example.org").getPatronId();
+            farHold = facade.reserveBook(farPatron, "isbn-1", far);
+            for (int i = 0; i < 4; i++) {
+                facade.reserveBook(facade.addNewPatron("Near", "n" + i + "@example.org").getPatronId(), "isbn-1", near);
+            }
+        }
+    }
+
+    /**
+     * A random mix of every journaled mutation; refused operations are expected.
+     */
+    private static final class Workload {
+        private final LibraryFacade facade;
+        private final Branch[] branches = {null, new Branch("br-a", "A"), new Branch("br-b", "B")};
+        private final List<Book> books = new ArrayList<>();
+        private final List<String> items = new ArrayList<>();
+        private final List<String> patrons = new ArrayList<>();
+        private final List<String> reservations = new ArrayList<>();
+
+        Workload(LibraryFacade facade) {
+            this.facade = facade;
+        }
+
+        void run(Random random, int operations) {
+            for (int i = 0; i < operations; i++) {
+                int op = random.nextInt(100);
+                try {
+                    if (op < 5 || books.isEmpty()) {
+                        books.add(facade.addNewBook("T" + books.size(), "A", "isbn-" + books.size(), 2000,
+                                random.nextInt(10) == 0 ? BookType.REFERENCE : BookType.REGULAR));
+                    } else if (op < 15) {
+                        items.add(facade.addBookItem(pick(random, books), branches[random.nextInt(3)]).getBarcode());
+                    } else if (op < 20 || patrons.isEmpty()) {
+                        patrons.add(facade.addNewPatron("P", "p" + patrons.size() + "@example.org").getPatronId());
+                    } else if (op < 45 && !items.isEmpty()) {
+                        facade.checkoutBook(pick(random, patrons), pick(random, items));
+                    } else if (op < 65 && !items.isEmpty()) {
+                        facade.returnBook(pick(random, items));
+                    } else if (op < 75) {
+                        reservations.add(facade.reserveBook(pick(random, patrons), pick(random, books).getIsbn(),
+                                branches[random.nextInt(3)]));
+                    } else if (op < 78 && !reservations.isEmpty()) {
+                        facade.cancelReservation(pick(random, reservations));
+                    } else if (op < 88 && !items.isEmpty()) {
+                        facade.checkoutBooks(pick(random, patrons), batch(random));
+                    } else if (!items.isEmpty()) {
+                        facade.returnBooks(batch(random));
+                    }
+                } catch (RuntimeException refused) {
+                    // Not available, limit reached, duplicate hold, ...
+                }
+            }
+        }
+
+        private List<String> batch(Random random) {
+            List<String> batch = new ArrayList<>();
+            for (int k = 0; k < 4; k++) {
+                batch.add(pick(random, items));
+            }
+            return batch;
+        }
+
+        private static <T> T pick(Random random, List<T> list) {
+            return list.get(random.nextInt(list.size()));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.com.librarysystem.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deadlines on every level of the wheel (and beyond the top level) fire on
+ * the right tick, in order, after cascading down; cancelled ones never fire.
+ */
+class TimingWheelTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    // Level boundaries in ticks: 64, 64^2, 64^3, 64^4
+    private static final long[] EDGES = {1, 63, 64, 65, 4_095, 4_096, 4_097, 262_143, 262_144, 262_145,
+            16_777_215, 16_777_216, 16_777_217, 20_000_000};
+
+    @Test
+    void deadlinesAtEveryLevelFireOnTheirTick() {
+        MutableClock clock = new MutableClock(START);
+        TimingWheel<Long> wheel = new TimingWheel<>(clock, Duration.ofMillis(1));
+        for (long ticks : EDGES) {
+            wheel.schedule(ticks, START.plusMillis(ticks));
+        }
+
+        for (long ticks : EDGES) {
+            clock.set(START.plusMillis(ticks - 1));
+            assertEquals(List.of(), wheel.advance(), "fired early: " + ticks);
+            clock.set(START.plusMillis(ticks));
+            assertEquals(List.of(ticks), wheel.advance(), "did not fire on its tick: " + ticks);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void randomDeadlinesFireInOrderWhateverTheAdvanceSteps() {
+        MutableClock clock = new MutableClock(START);
+        TimingWheel<Long> wheel = new TimingWheel<>(clock, Duration.ofMillis(1));
+        Random random = new Random(19);
+        List<Long> pending = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly near, some on the upper levels, a few past the top level
+            long ticks = switch (random.nextInt(4)) {
+                case 0 -> random.nextInt(64);
+                case 1 -> random.nextInt(4_096);
+                case 2 -> random.nextInt(262_144);
+                default -> random.nextInt(20_000_000);
+            };
+            pending.add(ticks);
+            wheel.schedule(ticks, START.plusMillis(ticks));
+        }
+        pending.sort(Comparator.naturalOrder());
+
+        long now = 0;
+        int fired = 0;
+        while (fired < pending.size()) {
+            now += 1 + (long) Math.pow(random.nextDouble(), 4) * 2_000_000;
+            clock.set(START.plusMillis(now));
+            List<Long> expired = wheel.advance();
+            for (long ticks : expired) {
+                assertTrue(ticks <= now, "fired early: " + ticks + " at " + now);
+            }
+            int due = fired;
+            while (due < pending.size() && pending.get(due) <= now) {
+                due++;
+            }
+            assertEquals(pending.subList(fired, due), expired);
+            fired = due;
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() {
+        MutableClock clock = new MutableClock(START);
+        TimingWheel<String> wheel = new TimingWheel<>(clock, Duration.ofMinutes(1));
+        // A week of one-minute ticks: starts on level 2 and cascades through level 1 before it fires
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START.plus(Duration.ofDays(7)));
+        wheel.schedule("kept", START.plus(Duration.ofDays(7)));
+        TimingWheel.Timeout<String> soon = wheel.schedule("soon", START.plus(Duration.ofMinutes(5)));
+
+        clock.set(START.plus(Duration.ofDays(3)));
+        assertEquals(List.of("soon"), wheel.advance());
+        assertFalse(wheel.cancel(soon), "already fired");
+
+        // Cancelled after it cascaded part of the way down
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(1, wheel.size());
+
+        clock.set(START.plus(Duration.ofDays(8)));
+        assertEquals(List.of("kept"), wheel.advance());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void aDeadlineAlreadyPassedFiresOnTheNextAdvance() {
+        MutableClock clock = new MutableClock(START);
+        TimingWheel<String> wheel = new TimingWheel<>(clock, Duration.ofMinutes(1));
+        clock.set(START.plus(Duration.ofHours(2)));
+        wheel.schedule("late", START.plus(Duration.ofHours(1)));
+
+        assertEquals(List.of("late"), wheel.advance());
+        assertEquals(List.of(), wheel.advance());
+    }
+
+    // --- Helpers ---
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.com.librarysystem.service;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.BulkItemResult;
+import org.com.librarysystem.core.LendingRecord;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk checkout and return report one result per barcode, in batch order:
+ * bad items fail on their own without stopping the batch or leaking loan
+ * slots, and returned copies go to waiting reservations once per title.
+ * The journaled return path (prepare, then apply) gives the same results.
+ */
+class BulkLendingTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+    private static final int MAX_LOANS = 5;
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    private BookManagementService bookSvc;
+    private ReservationService reservationSvc;
+    private LendingService lendingSvc;
+    private LendingPolicy policy;
+    private Book regular;
+    private final List<String> copies = new ArrayList<>();
+    private String reference;
+    private String other;
+    private Patron alice;
+    private Patron bob;
+    private Patron carol;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF);
+
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        bookSvc = new BookManagementService();
+        PatronManagementService patronSvc = new PatronManagementService();
+        reservationSvc = new ReservationService(new NotificationService(), bookSvc, new BranchNetwork(), clock,
+                ReservationService.DEFAULT_HOLD_PERIOD);
+        policy = new LendingPolicy(MAX_LOANS, true);
+        lendingSvc = new LendingService(bookSvc, patronSvc, reservationSvc, clock, policy);
+
+        Branch branch = new Branch("br-main", "Main");
+        regular = new Book("isbn-regular", "Regular Title", "Author", 2020, BookType.REGULAR);
+        Book referenceBook = new Book("isbn-reference", "Reference Title", "Author", 2020, BookType.REFERENCE);
+        Book otherBook = new Book("isbn-other", "Other Title", "Author", 2020, BookType.REGULAR);
+        bookSvc.addBook(regular);
+        bookSvc.addBook(referenceBook);
+        bookSvc.addBook(otherBook);
+        for (int i = 0; i < 8; i++) {
+            copies.add(bookSvc.addBookItem(regular, branch).getBarcode());
+        }
+        reference = bookSvc.addBookItem(referenceBook, branch).getBarcode();
+        other = bookSvc.addBookItem(otherBook, branch).getBarcode();
+
+        alice = patronSvc.addPatron("Alice", "alice@example.org");
+        bob = patronSvc.addPatron("Bob", "bob@example.org");
+        carol = patronSvc.addPatron("Carol", "carol@example.org");
+    }
+
+    @AfterEach
+    void restoreLogs() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void checkoutReportsEachItemOnItsOwn() {
+        lendingSvc.checkoutBook(bob.getPatronId(), copies.get(2));
+
+        List<BulkItemResult> results = lendingSvc.checkoutBooks(alice.getPatronId(), List.of(
+                copies.get(0), "no-such-barcode", copies.get(1), copies.get(0), reference, copies.get(2)));
+
+        assertResults(results,
+                ok(copies.get(0), "Due " + TODAY.plusDays(30)),
+                failed("no-such-barcode", "No book item found with barcode no-such-barcode"),
+                ok(copies.get(1), "Due " + TODAY.plusDays(30)),
+                failed(copies.get(0), "Duplicate barcode in batch."),
+                failed(reference, "Reference books cannot be checked out."),
+                failed(copies.get(2), "Book is not available. Status: BORROWED"));
+        for (BulkItemResult result : results) {
+            if (result.isSuccess()) {
+                LendingRecord loan = result.getRecord();
+                assertEquals(alice.getPatronId(), loan.getPatronId());
+                assertEquals(result.getBarcode(), loan.getBookItemBarcode());
+                assertEquals(TODAY, loan.getCheckoutDate());
+            } else {
+                assertNull(result.getRecord());
+            }
+        }
+        assertEquals(BookStatus.BORROWED, bookSvc.getBookItemByBarcode(copies.get(1)).getStatus());
+        assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(reference).getStatus());
+        assertEquals(2, alice.getCounters().getActiveLoans()); // Failed items gave their slots back
+        assertEquals(2, lendingSvc.getActiveLoansForPatron(alice.getPatronId()).size());
+        assertEquals(1, bob.getCounters().getActiveLoans());
+    }
+
+    @Test
+    void checkoutStopsLendingAtTheLoanLimitButReportsEveryItem() {
+        List<String> batch = copies.subList(0, 7);
+
+        List<BulkItemResult> results = lendingSvc.checkoutBooks(alice.getPatronId(), batch);
+
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(batch.get(i), results.get(i).getBarcode());
+            assertEquals(i < MAX_LOANS, results.get(i).isSuccess(), results.get(i).toString());
+        }
+        assertEquals(policy.loanLimitMessage(), results.get(MAX_LOANS).getMessage());
+        assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(copies.get(MAX_LOANS)).getStatus());
+        assertEquals(MAX_LOANS, alice.getCounters().getActiveLoans());
+    }
+
+    @Test
+    void checkoutForAnUnknownPatronFailsEveryItem() {
+        List<BulkItemResult> results = lendingSvc.checkoutBooks("no-such-patron", List.of(copies.get(0), copies.get(1)));
+
+        assertResults(results,
+                failed(copies.get(0), "No patron found with ID no-such-patron"),
+                failed(copies.get(1), "No patron found with ID no-such-patron"));
+        assertTrue(lendingSvc.getActiveLoans().isEmpty());
+        assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(copies.get(0)).getStatus());
+    }
+
+    @Test
+    void returnClosesTheGoodItemsOfAPartlyBadBatch() {
+        lendBatchAndReserve();
+
+        assertReturnBatch(lendingSvc.returnBooks(returnBatch()));
+    }
+
+    @Test
+    void preparedReturnsChangeNothingUntilAppliedThenMatchTheLivePath() {
+        lendBatchAndReserve();
+
+        List<LendingService.PlannedReturn> planned = lendingSvc.prepareReturns(returnBatch());
+        assertEquals(4, lendingSvc.getActiveLoans().size());
+        assertEquals(BookStatus.BORROWED, bookSvc.getBookItemByBarcode(copies.get(0)).getStatus());
+        assertEquals(1, reservationSvc.getQueueLength(regular.getIsbn()));
+        assertFalse(planned.get(1).isValid());
+
+        assertReturnBatch(lendingSvc.applyReturns(planned));
+    }
+
+    // --- Helpers ---
+
+    // Alice borrows three copies of the regular title and the other title; Carol waits for the regular one
+    private void lendBatchAndReserve() {
+        List<BulkItemResult> lent = lendingSvc.checkoutBooks(alice.getPatronId(),
+                List.of(copies.get(0), copies.get(1), copies.get(2), other));
+        assertTrue(lent.stream().allMatch(BulkItemResult::isSuccess));
+        reservationSvc.makeReservation(carol, regular);
+    }
+
+    private List<String> returnBatch() {
+        return List.of(copies.get(0), copies.get(3), "no-such-barcode", copies.get(1), copies.get(0), other, copies.get(2));
+    }
+
+    private void assertReturnBatch(List<BulkItemResult> results) {
+        assertResults(results,
+                ok(copies.get(0), "Held for reservation."),
+                failed(copies.get(3), "Book is not currently checked out. Status: AVAILABLE"),
+                failed("no-such-barcode", "No book item found with barcode no-such-barcode"),
+                ok(copies.get(1), "Available."),
+                failed(copies.get(0), "Duplicate barcode in batch."),
+                ok(other, "Available."),
+                ok(copies.get(2), "Available."));
+        for (BulkItemResult result : results) {
+            if (result.isSuccess()) {
+                assertEquals(result.getBarcode(), result.getRecord().getBookItemBarcode());
+                assertEquals(TODAY, result.getRecord().getReturnDate());
+            }
+        }
+        assertEquals(BookStatus.RESERVED, bookSvc.getBookItemByBarcode(copies.get(0)).getStatus());
+        assertTrue(reservationSvc.isHeldFor(copies.get(0), carol.getPatronId()));
+        assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(copies.get(1)).getStatus());
+        assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(copies.get(3)).getStatus());
+        assertEquals(0, reservationSvc.getQueueLength(regular.getIsbn()));
+        assertTrue(lendingSvc.getActiveLoans().isEmpty());
+        assertEquals(0, alice.getCounters().getActiveLoans());
+    }
+
+    private static BulkItemResult ok(String barcode, String message) {
+        return BulkItemResult.success(barcode, message);
+    }
+
+    private static BulkItemResult failed(String barcode, String message) {
+        return BulkItemResult.failure(barcode, message);
+    }
+
+    // Compares barcode, outcome and message, in order
+    private static void assertResults(List<BulkItemResult> actual, BulkItemResult... expected) {
+        List<String> expectedLines = new ArrayList<>();
+        for (BulkItemResult result : expected) {
+            expectedLines.add(result.toString());
+        }
+        List<String> actualLines = new ArrayList<>();
+        for (BulkItemResult result : actual) {
+            actualLines.add(result.toString());
+        }
+        assertEquals(expectedLines, actualLines);
+    }
+}
@@ -0,0 +1,204 @@
+package org.com.librarysystem.service;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.enums.ReservationStatus;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hold-shelf expiry driven by an injected clock: holds expire on their pickup
+ * deadline (also when it is far enough out to start on an upper wheel level),
+ * not before, and a pickup or an abandoned expiry leaves the right hold behind.
+ */
+class HoldExpiryTest {
+
+    private static final Instant START = Instant.parse("2025-03-01T09:00:00Z");
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    private final MutableClock clock = new MutableClock(START);
+    private BookManagementService bookSvc;
+    private ReservationService reservationSvc;
+    private Book book;
+    private int patrons;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF);
+        bookSvc = new BookManagementService();
+        book = new Book("isbn-held", "Held Title", "Author", 2020, BookType.REGULAR);
+        bookSvc.addBook(book);
+    }
+
+    @AfterEach
+    void restoreLogs() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void expiredHoldPassesToTheNextInLineThenReleasesTheCopy() {
+        useHoldPeriod(Duration.ofDays(1));
+        Reservation first = reserve();
+        Reservation second = reserve();
+        BookItem copy = newCopyOnTheHoldShelf();
+        assertSame(copy, first.getHeldItem());
+
+        clock.advance(Duration.ofDays(1).minusMinutes(1));
+        assertEquals(0, reservationSvc.expireHolds());
+
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(1, reservationSvc.expireHolds());
+        assertEquals(ReservationStatus.EXPIRED, first.getStatus());
+        assertEquals(ReservationStatus.READY_FOR_PICKUP, second.getStatus());
+        assertEquals(second.getReservationId(), reservationSvc.getHandOff(copy.getBarcode()).getReservationId());
+        assertEquals(BookStatus.RESERVED, copy.getStatus());
+
+        // The second patron's deadline runs from the hand-off, not from the first hold
+        clock.advance(Duration.ofDays(1).minusMinutes(2));
+        assertEquals(0, reservationSvc.expireHolds());
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(1, reservationSvc.expireHolds());
+        assertEquals(ReservationStatus.EXPIRED, second.getStatus());
+        assertEquals(BookStatus.AVAILABLE, copy.getStatus());
+        assertEquals(0, reservationSvc.getReadyHoldCount());
+    }
+
+    @Test
+    void aMonthLongHoldCascadesDownTheWheelAndExpiresOnItsDay() {
+        // 30 days of one-minute ticks is past 64^2, so the deadline starts two levels up
+        useHoldPeriod(Duration.ofDays(30));
+        Reservation reservation = reserve();
+        newCopyOnTheHoldShelf();
+
+        for (int day = 1; day < 30; day++) {
+            clock.advance(Duration.ofDays(1));
+            assertEquals(0, reservationSvc.expireHolds(), "expired on day " + day);
+        }
+        clock.advance(Duration.ofHours(23));
+        assertEquals(0, reservationSvc.expireHolds());
+        clock.advance(Duration.ofHours(1).plusMinutes(1));
+        assertEquals(1, reservationSvc.expireHolds());
+        assertEquals(ReservationStatus.EXPIRED, reservation.getStatus());
+    }
+
+    @Test
+    void pickupBeforeTheDeadlineCancelsTheExpiry() {
+        useHoldPeriod(Duration.ofDays(1));
+        Reservation reservation = reserve();
+        reserve(); // Would get the copy if the picked-up hold still expired
+        BookItem copy = newCopyOnTheHoldShelf();
+
+        clock.advance(Duration.ofHours(12));
+        assertTrue(reservationSvc.claimHold(copy, reservation.getPatron().getPatronId()));
+        assertEquals(ReservationStatus.FULFILLED, reservation.getStatus());
+
+        clock.advance(Duration.ofDays(2));
+        assertEquals(0, reservationSvc.expireHolds());
+        assertEquals(0, reservationSvc.getReadyHoldCount());
+        assertEquals(1, reservationSvc.getQueueLength(book.getIsbn()));
+    }
+
+    @Test
+    void cancelledWaitingHoldIsSkippedWhenAHoldExpires() {
+        useHoldPeriod(Duration.ofDays(1));
+        Reservation held = reserve();
+        Reservation cancelled = reserve();
+        Reservation next = reserve();
+        BookItem copy = newCopyOnTheHoldShelf();
+        reservationSvc.cancelReservation(cancelled.getReservationId());
+
+        clock.advance(Duration.ofDays(2));
+        assertEquals(1, reservationSvc.expireHolds());
+        assertEquals(ReservationStatus.EXPIRED, held.getStatus());
+        assertEquals(ReservationStatus.CANCELED, cancelled.getStatus());
+        assertSame(copy, next.getHeldItem());
+    }
+
+    @Test
+    void abandonedExpiriesComeDueAgain() {
+        useHoldPeriod(Duration.ofDays(1));
+        Reservation first = reserve();
+        Reservation second = reserve();
+        BookItem copy = newCopyOnTheHoldShelf();
+
+        clock.advance(Duration.ofDays(2));
+        List<ReservationService.HoldExpiry> expiries = reservationSvc.prepareHoldExpiries();
+        assertEquals(1, expiries.size());
+        assertEquals(second.getReservationId(), expiries.get(0).getNext().getReservationId());
+
+        // Nothing changed, and the hold is back on the wheel, due from the next tick
+        reservationSvc.abandonHoldExpiries(expiries);
+        assertEquals(ReservationStatus.READY_FOR_PICKUP, first.getStatus());
+        assertEquals(1, reservationSvc.getQueueLength(book.getIsbn()));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, reservationSvc.expireHolds());
+        assertSame(copy, second.getHeldItem());
+    }
+
+    // --- Helpers ---
+
+    private void useHoldPeriod(Duration holdPeriod) {
+        reservationSvc = new ReservationService(new NotificationService(), bookSvc, new BranchNetwork(), clock, holdPeriod);
+    }
+
+    private Reservation reserve() {
+        int n = patrons++;
+        Patron patron = new Patron("p-" + n, "Patron " + n, "p" + n + "@example.org");
+        return reservationSvc.makeReservation(patron, book);
+    }
+
+    private BookItem newCopyOnTheHoldShelf() {
+        BookItem copy = bookSvc.addBookItem(book, null);
+        assertTrue(reservationSvc.offerAvailableCopy(copy));
+        return copy;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package org.com.librarysystem.service;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.LendingRecord;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Multi-threaded checkout/return test: many desks lend and take back the
+ * same small pool of copies at once. No copy may ever be out to two
+ * patrons, and afterwards every copy, loan and counter must be back in a
+ * consistent state. Returns of the same copy also race each other and
+ * in-flight checkouts. Also reports checkout+return throughput per thread count.
+ */
+class LendingServiceConcurrencyTest {
+
+    private static final int COPIES = 64;
+    private static final int PATRONS = 32;
+    private static final int OPS_PER_THREAD = 5_000;
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    private BookManagementService bookSvc;
+    private PatronManagementService patronSvc;
+    private ReservationService reservationSvc;
+    private LendingService lendingSvc;
+    private final List<String> barcodes = new ArrayList<>();
+    private final List<Patron> patrons = new ArrayList<>();
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.ERROR); // Refused checkouts are expected and log at WARN
+
+        bookSvc = new BookManagementService();
+        patronSvc = new PatronManagementService();
+        reservationSvc = new ReservationService(new NotificationService(), bookSvc);
+        lendingSvc = new LendingService(bookSvc, patronSvc, reservationSvc);
+
+        book = new Book("978-0000000001", "Contended Title", "Some Author", 2001, BookType.REGULAR);
+        bookSvc.addBook(book);
+        Branch branch = new Branch("br-test", "Test Branch");
+        for (int i = 0; i < COPIES; i++) {
+            barcodes.add(bookSvc.addBookItem(book, branch).getBarcode());
+        }
+        for (int i = 0; i < PATRONS; i++) {
+            patrons.add(patronSvc.addPatron("Patron " + i, "p" + i + "@example.org"));
+        }
+    }
+
+    @AfterEach
+    void restoreLogLevel() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void onlyOneDeskWinsARaceForTheSameCopy() throws Exception {
+        int threads = 32;
+        String barcode = barcodes.get(0);
+        AtomicInteger winners = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Patron patron = patrons.get(t % PATRONS);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    lendingSvc.checkoutBook(patron.getPatronId(), barcode);
+                    winners.incrementAndGet();
+                } catch (IllegalStateException expected) {
+                    // Lost the race
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertEquals(1, winners.get());
+        assertEquals(1, lendingSvc.getActiveLoans().size());
+        assertEquals(BookStatus.BORROWED, bookSvc.getBookItemByBarcode(barcode).getStatus());
+        assertEquals(COPIES - 1, bookSvc.getAvailability().getCount(book.getIsbn(), BookStatus.AVAILABLE));
+    }
+
+    @Test
+    void concurrentCheckoutsAndReturnsNeverDoubleLendACopy() throws Exception {
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            runDesks(threads);
+        }
+    }
+
+    @Test
+    void returnedCopyIsHandedToTheWaitingPatronOnlyOnce() throws Exception {
+        String barcode = barcodes.get(0);
+        // Take every copy so the reservation has to wait
+        for (int i = 0; i < COPIES; i++) {
+            lendingSvc.checkoutBook(patrons.get(i % 16).getPatronId(), barcodes.get(i));
+        }
+        Patron waiting = patrons.get(PATRONS - 1);
+        reservationSvc.makeReservation(waiting, book);
+
+        lendingSvc.returnBook(barcode);
+        assertEquals(BookStatus.RESERVED, bookSvc.getBookItemByBarcode(barcode).getStatus());
+
+        // Everyone races for the held copy; only the reserving patron may get it
+        int threads = PATRONS;
+        ConcurrentHashMap<String, Boolean> winners = new ConcurrentHashMap<>();
+        CyclicBarrier start = new CyclicBarrier(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (Patron patron : patrons) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    lendingSvc.checkoutBook(patron.getPatronId(), barcode);
+                    winners.put(patron.getPatronId(), Boolean.TRUE);
+                } catch (IllegalStateException expected) {
+                    // Not the holder, or over the loan limit
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertEquals(1, winners.size());
+        assertTrue(winners.containsKey(waiting.getPatronId()));
+        assertEquals(BookStatus.BORROWED, bookSvc.getBookItemByBarcode(barcode).getStatus());
+    }
+
+    @Test
+    void concurrentReturnsOfOneCopyCloseTheLoanOnce() throws Exception {
+        int rounds = 2_000;
+        String barcode = barcodes.get(0);
+        Patron patron = patrons.get(0);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger closed = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(2);
+
+        for (int round = 0; round < rounds; round++) {
+            lendingSvc.checkoutBook(patron.getPatronId(), barcode);
+            boolean bulk = round % 2 == 1;
+            CountDownLatch done = new CountDownLatch(2);
+            for (int t = 0; t < 2; t++) {
+                new Thread(() -> {
+                    try {
+                        start.await();
+                        if (bulk) {
+                            if (lendingSvc.returnBooks(List.of(barcode)).get(0).isSuccess()) {
+                                closed.incrementAndGet();
+                            }
+                        } else {
+                            lendingSvc.returnBook(barcode);
+                            closed.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        if (!e.getMessage().startsWith("Book is not currently checked out")) {
+                            failures.add(e.getMessage());
+                        }
+                    } catch (Exception e) {
+                        failures.add(e.toString());
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, e.g. " + failures.peek());
+        assertEquals(rounds, closed.get());
+        assertConsistentAndIdle();
+    }
+
+    @Test
+    void returnsRacingCheckoutsLeaveNoOrphanedLoans() throws Exception {
+        int returners = 4;
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        // Key: loan ID; a loan may be closed by at most one return
+        ConcurrentHashMap<String, Boolean> closed = new ConcurrentHashMap<>();
+        LongAdder checkouts = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(returners + 2);
+        CountDownLatch done = new CountDownLatch(returners + 1);
+        AtomicInteger lending = new AtomicInteger(1);
+
+        // One desk keeps lending copies while the others take back whatever they pick
+        new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD * 4; i++) {
+                    Patron patron = patrons.get(random.nextInt(PATRONS));
+                    try {
+                        lendingSvc.checkoutBook(patron.getPatronId(), barcodes.get(random.nextInt(COPIES)));
+                        checkouts.increment();
+                    } catch (IllegalStateException refused) {
+                        // Copy out or loan limit reached
+                    }
+                }
+            } catch (Exception e) {
+                failures.add(e.toString());
+            } finally {
+                lending.set(0);
+                done.countDown();
+            }
+        }).start();
+        for (int t = 0; t < returners; t++) {
+            boolean bulk = t % 2 == 1;
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    while (lending.get() == 1) {
+                        String barcode = barcodes.get(random.nextInt(COPIES));
+                        LendingRecord record = null;
+                        if (bulk) {
+                            record = lendingSvc.returnBooks(List.of(barcode)).get(0).getRecord();
+                        } else {
+                            try {
+                                record = lendingSvc.returnBook(barcode);
+                            } catch (IllegalStateException notOut) {
+                                if (!notOut.getMessage().startsWith("Book is not currently checked out")) {
+                                    failures.add(notOut.getMessage());
+                                }
+                            }
+                        }
+                        if (record != null && closed.put(record.getRecordId(), Boolean.TRUE) != null) {
+                            failures.add("loan " + record.getRecordId() + " closed twice");
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.add(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.await();
+        done.await();
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, e.g. " + failures.peek());
+        for (LendingRecord open : lendingSvc.getActiveLoans()) {
+            lendingSvc.returnBook(open.getBookItemBarcode());
+        }
+        assertTrue(checkouts.sum() > 0);
+        assertConsistentAndIdle();
+    }
+
+    // --- Helpers ---
+
+    private void assertConsistentAndIdle() {
+        assertTrue(lendingSvc.getActiveLoans().isEmpty());
+        assertEquals(COPIES, bookSvc.getAvailability().getCount(book.getIsbn(), BookStatus.AVAILABLE));
+        for (String barcode : barcodes) {
+            assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(barcode).getStatus());
+        }
+        for (Patron patron : patrons) {
+            assertEquals(0, patron.getCounters().getActiveLoans());
+            assertTrue(lendingSvc.getActiveLoansForPatron(patron.getPatronId()).isEmpty(),
+                    () -> "orphaned loans left for " + patron.getPatronId());
+        }
+    }
+
+    private void runDesks(int threads) throws Exception {
+        // Key: barcode, Value: patron currently holding it according to the desks
+        ConcurrentHashMap<String, String> holders = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        LongAdder checkouts = new LongAdder();
+        LongAdder refused = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Patron patron = patrons.get(t % PATRONS);
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        String barcode = barcodes.get(random.nextInt(COPIES));
+                        LendingRecord record;
+                        try {
+                            record = lendingSvc.checkoutBook(patron.getPatronId(), barcode);
+                        } catch (IllegalStateException e) {
+                            refused.increment();
+                            continue;
+                        }
+                        checkouts.increment();
+                        String other = holders.putIfAbsent(barcode, patron.getPatronId());
+                        if (other != null) {
+                            failures.add(barcode + " lent to " + patron.getPatronId() + " while out to " + other);
+                        }
+                        if (!record.getPatronId().equals(patron.getPatronId())) {
+                            failures.add("loan for " + barcode + " recorded under the wrong patron");
+                        }
+                        holders.remove(barcode, patron.getPatronId());
+                        LendingRecord closed = lendingSvc.returnBook(barcode);
+                        if (closed != record) {
+                            failures.add("return of " + barcode + " closed a different loan");
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.add(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        start.await();
+        long began = System.nanoTime();
+        done.await();
+        long elapsedNanos = System.nanoTime() - began;
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, e.g. " + failures.peek());
+        assertTrue(lendingSvc.getActiveLoans().isEmpty());
+        assertEquals(COPIES, bookSvc.getAvailability().getCount(book.getIsbn(), BookStatus.AVAILABLE));
+        for (String barcode : barcodes) {
+            assertEquals(BookStatus.AVAILABLE, bookSvc.getBookItemByBarcode(barcode).getStatus());
+        }
+        for (Patron patron : patrons) {
+            assertEquals(0, patron.getCounters().getActiveLoans());
+        }
+        assertTrue(holders.isEmpty());
+        assertTrue(checkouts.sum() > 0);
+
+        System.out.printf("LendingServiceConcurrencyTest: %2d threads: %,d checkout+return pairs, "
+                        + "%,d refused, %,.0f pairs/s%n",
+                threads, checkouts.sum(), refused.sum(), checkouts.sum() / (elapsedNanos / 1e9));
+    }
+}
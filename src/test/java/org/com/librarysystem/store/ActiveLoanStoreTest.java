@@ -0,0 +1,122 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.LendingRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Removal keeps every index in step, plus a return-latency measurement against
+ * the list the store replaced that is printed, not asserted.
+ */
+class ActiveLoanStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final int PATRONS = 500;
+
+    private static LendingRecord loan(int n) {
+        LocalDate checkout = START.plusDays(n % 30);
+        return new LendingRecord("ln-" + n, "bc-" + n, "p-" + (n % PATRONS), checkout, checkout.plusDays(21));
+    }
+
+    @Test
+    void removalLeavesNoEntryInAnyIndex() {
+        ActiveLoanStore store = new ActiveLoanStore();
+        List<LendingRecord> loans = new ArrayList<>();
+        for (int n = 0; n < 2_000; n++) {
+            loans.add(loan(n));
+            store.add(loans.get(n));
+        }
+        for (int n = 0; n < 2_000; n += 2) {
+            assertSame(loans.get(n), store.removeByBarcode("bc-" + n));
+        }
+
+        assertNull(store.removeByBarcode("bc-0"));
+        assertEquals(1_000, store.size());
+        assertEquals(1_000, store.getAllInDueDateOrder().size());
+        assertEquals(1_000, store.getDueBefore(START.plusYears(1)).size());
+        for (int p = 0; p < PATRONS; p++) {
+            for (LendingRecord record : store.getByPatron("p-" + p)) {
+                assertTrue(Integer.parseInt(record.getBookItemBarcode().substring(3)) % 2 == 1);
+            }
+        }
+        LocalDate previous = LocalDate.MIN;
+        for (LendingRecord record : store.getAllInDueDateOrder()) {
+            assertTrue(!record.getDueDate().isBefore(previous));
+            previous = record.getDueDate();
+        }
+    }
+
+    @Test
+    void returnLatencyAgainstTheActiveLoanList() {
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            int returns = Math.max(2_000, 2_000_000 / size);
+            long[] list = measureList(size, returns);
+            long[] store = measureStore(size, returns);
+            System.out.printf("ActiveLoanStoreTest: %,7d open loans: list p50 %,9d ns p99 %,10d ns | store p50 %,5d ns p99 %,6d ns%n",
+                    size, percentile(list, 50), percentile(list, 99), percentile(store, 50), percentile(store, 99));
+        }
+    }
+
+    // --- Helpers ---
+
+    // The replaced LendingService code: scan for the barcode, then remove the record from the list
+    private static long[] measureList(int size, int returns) {
+        List<LendingRecord> activeLoans = new ArrayList<>();
+        for (int n = 0; n < size; n++) {
+            activeLoans.add(loan(n));
+        }
+        Random random = new Random(size);
+        long[] nanos = new long[returns];
+        for (int i = -returns; i < returns; i++) { // The first half warms up
+            String barcode = "bc-" + random.nextInt(size);
+            long start = System.nanoTime();
+            Optional<LendingRecord> recordOpt = activeLoans.stream()
+                    .filter(record -> record.getBookItemBarcode().equals(barcode) && record.getReturnDate() == null)
+                    .findFirst();
+            activeLoans.remove(recordOpt.get());
+            long elapsed = System.nanoTime() - start;
+            activeLoans.add(recordOpt.get()); // Lent again, so the size stays the same
+            if (i >= 0) {
+                nanos[i] = elapsed;
+            }
+        }
+        return nanos;
+    }
+
+    private static long[] measureStore(int size, int returns) {
+        ActiveLoanStore store = new ActiveLoanStore();
+        for (int n = 0; n < size; n++) {
+            store.add(loan(n));
+        }
+        Random random = new Random(size);
+        long[] nanos = new long[returns];
+        for (int i = -returns; i < returns; i++) {
+            String barcode = "bc-" + random.nextInt(size);
+            long start = System.nanoTime();
+            LendingRecord record = store.removeByBarcode(barcode);
+            long elapsed = System.nanoTime() - start;
+            store.add(record);
+            if (i >= 0) {
+                nanos[i] = elapsed;
+            }
+        }
+        return nanos;
+    }
+
+    private static long percentile(long[] nanos, int percent) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+}
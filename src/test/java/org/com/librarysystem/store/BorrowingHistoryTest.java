@@ -0,0 +1,105 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.LendingRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BorrowingHistoryTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private static LendingRecord loan(int n) {
+        LocalDate checkout = START.plusDays(n);
+        return new LendingRecord("ln-" + Long.toString(1_000_000L + n, Character.MAX_RADIX),
+                "bc-" + n, "p-1", checkout, checkout.plusDays(30));
+    }
+
+    @Test
+    void oneLostBookDoesNotPinTheLoansAfterIt() {
+        BorrowingHistory history = new BorrowingHistory("p-1");
+        LendingRecord lost = loan(0);
+        history.add(lost);
+        for (int n = 1; n <= 1_000; n++) {
+            LendingRecord record = loan(n);
+            history.add(record);
+            record.setReturnDate(record.getCheckoutDate().plusDays(3));
+            history.onReturned(record);
+        }
+
+        assertEquals(1_001, history.size());
+        assertEquals(1_001 - BorrowingHistory.RECENT_CAPACITY, history.getArchivedCount());
+        assertEquals(1, history.getOpenArchivedCount());
+
+        // Still in checkout order, and the open loan is the live record
+        List<LendingRecord> all = history.toList();
+        assertSame(lost, all.get(0));
+        assertNull(all.get(0).getReturnDate());
+        for (int n = 0; n < all.size(); n++) {
+            assertEquals(START.plusDays(n), all.get(n).getCheckoutDate());
+        }
+    }
+
+    @Test
+    void returnSealsTheArchivedSlot() {
+        BorrowingHistory history = new BorrowingHistory("p-1");
+        LendingRecord overdue = loan(0);
+        history.add(overdue);
+        for (int n = 1; n <= 100; n++) {
+            LendingRecord record = loan(n);
+            record.setReturnDate(record.getDueDate());
+            history.add(record);
+        }
+        assertEquals(1, history.getOpenArchivedCount());
+
+        LocalDate returned = START.plusDays(200);
+        overdue.setReturnDate(returned);
+        history.onReturned(overdue);
+
+        assertEquals(0, history.getOpenArchivedCount());
+        LendingRecord oldest = history.getPage(history.size() - 1, 1).get(0);
+        assertEquals(overdue.getRecordId(), oldest.getRecordId());
+        assertEquals(returned, oldest.getReturnDate());
+    }
+
+    @Test
+    void loansThatArriveOutOfOrderAreKeptInLoanIdOrder() {
+        BorrowingHistory history = new BorrowingHistory("p-1");
+        // Concurrent checkouts can reach the history in a different order than their IDs were issued
+        int[] arrival = {0, 2, 1, 3, 6, 4, 5, 7};
+        for (int n : arrival) {
+            history.add(loan(n));
+        }
+        List<LendingRecord> all = history.toList();
+        for (int n = 0; n < arrival.length; n++) {
+            assertEquals(loan(n).getRecordId(), all.get(n).getRecordId());
+        }
+    }
+
+    @Test
+    void pagesAndRangesCoverBothTiers() {
+        BorrowingHistory history = new BorrowingHistory("p-1");
+        List<LendingRecord> added = new ArrayList<>();
+        for (int n = 0; n < 100; n++) {
+            LendingRecord record = loan(n);
+            if (n % 7 != 0) {
+                record.setReturnDate(record.getDueDate());
+            }
+            history.add(record);
+            added.add(record);
+        }
+
+        List<LendingRecord> newestFirst = history.getPage(0, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(added.get(99 - i).getRecordId(), newestFirst.get(i).getRecordId());
+            assertEquals(added.get(99 - i).getReturnDate(), newestFirst.get(i).getReturnDate());
+        }
+        assertEquals(11, history.getBetween(START.plusDays(10), START.plusDays(20)).size());
+    }
+}
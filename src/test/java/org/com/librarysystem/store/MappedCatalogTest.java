@@ -0,0 +1,344 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.BookItem;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.LendingRecord;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.enums.BookStatus;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.LogLevel;
+import org.com.librarysystem.index.AutocompleteIndex;
+import org.com.librarysystem.patterns.observer.CatalogObserver;
+import org.com.librarysystem.patterns.facade.LibraryFacade;
+import org.com.librarysystem.patterns.singleton.Logger;
+import org.com.librarysystem.patterns.strategy.SearchService;
+import org.com.librarysystem.persistence.LibraryPersistence;
+import org.com.librarysystem.persistence.RecoveryReport;
+import org.com.librarysystem.service.BookManagementService;
+import org.com.librarysystem.service.BranchNetwork;
+import org.com.librarysystem.service.LendingService;
+import org.com.librarysystem.service.NotificationService;
+import org.com.librarysystem.service.PatronManagementService;
+import org.com.librarysystem.service.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedCatalogTest {
+
+    private final Logger logger = Logger.getInstance();
+    private LogLevel previousLevel;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void quietLogs() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(LogLevel.OFF);
+    }
+
+    @AfterEach
+    void restoreLogs() {
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void lookupsMaterializeTheSameTitlesAndCopies() throws IOException {
+        BookManagementService live = new BookManagementService(2);
+        Branch[] branches = {null, new Branch("br-a", "A"), new Branch("br-b", "B")};
+        fill(live, 2_000, 3, branches);
+        Path image = dir.resolve("catalog.img");
+        MappedCatalog.write(image, live.getBookCatalog().values(), live.getBookItems().values());
+
+        BookManagementService mapped = new BookManagementService(2, MappedCatalog.open(image));
+        assertTrue(mapped.getBookCatalog().isEmpty(), "nothing is built before it is looked up");
+        for (BookItem expected : live.getBookItems().values()) {
+            BookItem item = mapped.getBookItemByBarcode(expected.getBarcode());
+            assertEquals(expected.getBook().getIsbn(), item.getBook().getIsbn());
+            assertEquals(expected.getBook().getTitle(), item.getBook().getTitle());
+            assertEquals(branchId(expected), branchId(item));
+            assertSame(item.getBook(), mapped.getBookByIsbn(expected.getBook().getIsbn()));
+        }
+        assertNull(mapped.getBookByIsbn("no-such-isbn"));
+        assertNull(mapped.getBookItemByBarcode("bc-none"));
+        assertThrows(IllegalStateException.class, () ->
+                mapped.addBook(new Book("isbn-7", "Dup", "A", 2000, BookType.REGULAR)));
+
+        String removed = live.getBookItems().keySet().iterator().next();
+        assertTrue(mapped.removeBookItem(removed));
+        assertEquals(0, mapped.materializeAll());
+        assertNull(mapped.getBookItemByBarcode(removed));
+        assertEquals(live.getBookItems().size() - 1, mapped.getBookItems().size());
+    }
+
+    @Test
+    void titlesOnlyInTheImageCanGetCopiesAndUpdates() throws IOException {
+        BookManagementService live = new BookManagementService(2);
+        fill(live, 10, 1, new Branch[]{null});
+        Path image = dir.resolve("catalog.img");
+        MappedCatalog.write(image, live.getBookCatalog().values(), live.getBookItems().values());
+
+        BookManagementService mapped = new BookManagementService(2, MappedCatalog.open(image));
+        List<String> events = new ArrayList<>();
+        mapped.addCatalogObserver(new CatalogObserver() {
+            @Override
+            public void onBookAdded(Book book) {
+                events.add("added " + book.getIsbn());
+            }
+
+            @Override
+            public void onBookUpdated(Book previous, Book updated) {
+                events.add("updated " + updated.getIsbn() + " from " + previous.getTitle());
+            }
+        });
+
+        // Neither title has been looked up, so both are still only in the image
+        Book copied = live.getBookByIsbn("isbn-3");
+        BookItem added = mapped.addBookItem(copied, null);
+        assertEquals("isbn-3", added.getBook().getIsbn());
+        assertSame(added, mapped.getBookItemByBarcode(added.getBarcode()));
+
+        mapped.updateBook(new Book("isbn-4", "Renamed", "Author 4", 1904, BookType.REGULAR));
+        assertEquals("Renamed", mapped.getBookByIsbn("isbn-4").getTitle());
+        assertEquals(List.of("added isbn-3", "added isbn-4", "updated isbn-4 from Title 4"), events);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                mapped.updateBook(new Book("isbn-none", "X", "Y", 2000, BookType.REGULAR)));
+
+        mapped.materializeAll();
+        assertEquals(2, mapped.getAvailability().getCount("isbn-3", BookStatus.AVAILABLE));
+    }
+
+    @Test
+    void observersMayLookUpCopiesWhileATitleIsBuilt() throws IOException {
+        BookManagementService live = new BookManagementService(2);
+        fill(live, 200, 8, new Branch[]{null});
+        Map<String, List<String>> barcodesByIsbn = new TreeMap<>();
+        for (BookItem item : live.getBookItems().values()) {
+            barcodesByIsbn.computeIfAbsent(item.getBook().getIsbn(), k -> new ArrayList<>()).add(item.getBarcode());
+        }
+        Path image = dir.resolve("catalog.img");
+        MappedCatalog.write(image, live.getBookCatalog().values(), live.getBookItems().values());
+
+        // Building a title runs observers; one that reads the title's copies must not trip over the lookup in progress
+        BookManagementService mapped = new BookManagementService(2, MappedCatalog.open(image));
+        List<String> seen = new ArrayList<>();
+        mapped.addCatalogObserver(new CatalogObserver() {
+            @Override
+            public void onBookAdded(Book book) {
+                for (String barcode : barcodesByIsbn.get(book.getIsbn())) {
+                    assertNotNull(mapped.getBookItemByBarcode(barcode));
+                    seen.add(barcode);
+                }
+            }
+
+            @Override
+            public void onBookUpdated(Book previous, Book updated) {
+            }
+        });
+        for (BookItem expected : live.getBookItems().values()) {
+            assertEquals(expected.getBook().getIsbn(),
+                    mapped.getBookItemByBarcode(expected.getBarcode()).getBook().getIsbn());
+        }
+        assertEquals(live.getBookItems().size(), seen.size());
+        assertEquals(live.getBookItems().size(), mapped.getBookItems().size());
+        assertEquals(0, mapped.materializeAll());
+    }
+
+    @Test
+    void copiesOutOnLoanOrHoldComeUpOnTheShelf() throws IOException {
+        Services live = new Services(null);
+        Book book = new Book("isbn-1", "Title", "Author", 2000, BookType.REGULAR);
+        live.bookSvc.addBook(book);
+        BookItem lent = live.bookSvc.addBookItem(book, null);
+        BookItem held = live.bookSvc.addBookItem(book, null);
+        Patron patron = live.patronSvc.addPatron("P", "p@example.org");
+        live.lendingSvc.checkoutBook(patron.getPatronId(), lent.getBarcode());
+        live.lendingSvc.checkoutBook(patron.getPatronId(), held.getBarcode());
+        live.reservationSvc.makeReservation(live.patronSvc.addPatron("Q", "q@example.org"), book);
+        live.lendingSvc.returnBook(held.getBarcode());
+        assertEquals(BookStatus.RESERVED, held.getStatus());
+
+        Path image = dir.resolve("catalog.img");
+        MappedCatalog.write(image, live.bookSvc.getBookCatalog().values(), live.bookSvc.getBookItems().values());
+
+        // The image has no loans or holds, so both copies must be usable again
+        Services mapped = new Services(MappedCatalog.open(image));
+        Patron borrower = mapped.patronSvc.addPatron("R", "r@example.org");
+        for (BookItem copy : List.of(lent, held)) {
+            assertEquals(BookStatus.AVAILABLE, mapped.bookSvc.getBookItemByBarcode(copy.getBarcode()).getStatus());
+            mapped.lendingSvc.checkoutBook(borrower.getPatronId(), copy.getBarcode());
+            mapped.lendingSvc.returnBook(copy.getBarcode());
+        }
+    }
+
+    @Test
+    void persistenceRestoresLoansAndHoldsOnTopOfTheImage() throws IOException {
+        Path data = dir.resolve("data");
+        Services live = new Services(null);
+        LibraryPersistence persistence = live.persistence(data);
+        persistence.open();
+        LibraryFacade facade = live.facade(persistence);
+
+        List<Book> books = new ArrayList<>();
+        List<String> barcodes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Book book = facade.addNewBook("T" + i, "A", "isbn-" + i, 2000, BookType.REGULAR);
+            books.add(book);
+            barcodes.add(facade.addBookItem(book, null).getBarcode());
+            barcodes.add(facade.addBookItem(book, null).getBarcode());
+        }
+        List<String> patrons = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            patrons.add(facade.addNewPatron("P" + i, "p" + i + "@example.org").getPatronId());
+        }
+        facade.checkoutBook(patrons.get(0), barcodes.get(0));
+        facade.checkoutBook(patrons.get(1), barcodes.get(1));
+        facade.reserveBook(patrons.get(2), books.get(0).getIsbn());
+        facade.takeSnapshot();
+
+        // Journal tail after the snapshot: new titles and copies, a return that fills the hold
+        for (int i = 20; i < 25; i++) {
+            Book book = facade.addNewBook("T" + i, "A", "isbn-" + i, 2000, BookType.REGULAR);
+            barcodes.add(facade.addBookItem(book, null).getBarcode());
+        }
+        facade.checkoutBook(patrons.get(3), barcodes.get(4));
+        facade.returnBook(barcodes.get(0));
+        facade.checkoutBook(patrons.get(4), barcodes.get(40));
+
+        // The image is written last, so every journaled title and copy is also in it
+        Path image = dir.resolve("catalog.img");
+        MappedCatalog.write(image, live.bookSvc.getBookCatalog().values(), live.bookSvc.getBookItems().values());
+        String before = live.state();
+        persistence.close();
+
+        Services restored = new Services(MappedCatalog.open(image));
+        LibraryPersistence reopened = restored.persistence(data);
+        RecoveryReport report = reopened.open();
+        assertTrue(report.isSnapshotLoaded());
+        assertEquals(before, restored.state());
+
+        // Restored loans and holds work against the image-backed copies
+        LibraryFacade restoredFacade = restored.facade(reopened);
+        restoredFacade.returnBook(barcodes.get(1));
+        restoredFacade.returnBook(barcodes.get(40));
+        restoredFacade.checkoutBook(patrons.get(2), barcodes.get(0));
+        reopened.close();
+    }
+
+    @Test
+    void timeToFirstQueryAgainstAColdRebuild() throws IOException {
+        int titles = 100_000;
+        BookManagementService live = new BookManagementService(2);
+        fill(live, titles, 3, new Branch[]{null, new Branch("br-a", "A")});
+        Path image = dir.resolve("catalog.img");
+        long writeStart = System.nanoTime();
+        MappedCatalog.write(image, live.getBookCatalog().values(), live.getBookItems().values());
+        long writeMillis = (System.nanoTime() - writeStart) / 1_000_000;
+
+        String probe = "isbn-" + (titles / 2);
+
+        long coldStart = System.nanoTime();
+        BookManagementService cold = new BookManagementService(2);
+        Map<String, Book> rebuilt = new TreeMap<>();
+        for (Book book : live.getBookCatalog().values()) {
+            Book copy = new Book(book.getIsbn(), book.getTitle(), book.getAuthor(),
+                    book.getPublicationYear(), book.getType());
+            cold.addBook(copy);
+            rebuilt.put(copy.getIsbn(), copy);
+        }
+        for (BookItem item : live.getBookItems().values()) {
+            cold.restoreBookItem(item.getBarcode(), rebuilt.get(item.getBook().getIsbn()),
+                    item.getCurrentBranch(), item.getStatus());
+        }
+        assertNotNull(cold.getBookByIsbn(probe));
+        long coldMillis = (System.nanoTime() - coldStart) / 1_000_000;
+
+        long mappedStart = System.nanoTime();
+        BookManagementService mapped = new BookManagementService(2, MappedCatalog.open(image));
+        assertNotNull(mapped.getBookByIsbn(probe));
+        long mappedMicros = (System.nanoTime() - mappedStart) / 1_000;
+
+        System.out.printf("MappedCatalogTest: %,d titles / %,d copies: image written in %d ms; "
+                        + "first query after cold rebuild %d ms, from mapped image %d us%n",
+                titles, live.getBookItems().size(), writeMillis, coldMillis, mappedMicros);
+        assertTrue(mappedMicros / 1_000 < coldMillis, "the mapped image must answer first");
+    }
+
+    // --- Helpers ---
+
+    private static void fill(BookManagementService svc, int titles, int copies, Branch[] branches) {
+        for (int i = 0; i < titles; i++) {
+            Book book = new Book("isbn-" + i, "Title " + i, "Author " + (i % 500), 1900 + i % 120,
+                    BookType.values()[i % BookType.values().length]);
+            svc.addBook(book);
+            for (int k = 0; k < copies; k++) {
+                svc.addBookItem(book, branches[(i + k) % branches.length]);
+            }
+        }
+    }
+
+    private static String branchId(BookItem item) {
+        return item.getCurrentBranch() == null ? null : item.getCurrentBranch().getBranchId();
+    }
+
+    /**
+     * One set of services, optionally on top of a catalog image.
+     */
+    private static final class Services {
+        final BookManagementService bookSvc;
+        final PatronManagementService patronSvc = new PatronManagementService();
+        final ReservationService reservationSvc;
+        final LendingService lendingSvc;
+
+        Services(MappedCatalog image) {
+            bookSvc = new BookManagementService(2, image);
+            reservationSvc = new ReservationService(new NotificationService(), bookSvc, new BranchNetwork());
+            lendingSvc = new LendingService(bookSvc, patronSvc, reservationSvc);
+        }
+
+        LibraryPersistence persistence(Path data) {
+            return new LibraryPersistence(data, bookSvc, patronSvc, lendingSvc, reservationSvc);
+        }
+
+        LibraryFacade facade(LibraryPersistence persistence) {
+            return new LibraryFacade(lendingSvc, bookSvc, patronSvc, new SearchService(), reservationSvc,
+                    new AutocompleteIndex(), null, null, persistence);
+        }
+
+        String state() {
+            bookSvc.materializeAll();
+            StringBuilder sb = new StringBuilder();
+            new TreeMap<>(bookSvc.getBookItems()).forEach((barcode, item) ->
+                    sb.append(barcode).append(' ').append(item.getBook().getIsbn()).append(' ')
+                            .append(item.getStatus()).append('\n'));
+            lendingSvc.getActiveLoans().stream()
+                    .map(loan -> loan.getRecordId() + ' ' + loan.getBookItemBarcode() + ' ' + loan.getPatronId())
+                    .sorted().forEach(line -> sb.append(line).append('\n'));
+            reservationSvc.getReadyHolds().stream()
+                    .map(hold -> hold.getReservationId() + ' ' + hold.getHeldItem().getBarcode())
+                    .sorted().forEach(line -> sb.append("ready ").append(line).append('\n'));
+            reservationSvc.getWaitingReservations().stream()
+                    .map(hold -> hold.getReservationId() + ' ' + hold.getBook().getIsbn())
+                    .sorted().forEach(line -> sb.append("waiting ").append(line).append('\n'));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package org.com.librarysystem.store;
+
+import org.com.librarysystem.core.Book;
+import org.com.librarysystem.core.Branch;
+import org.com.librarysystem.core.Patron;
+import org.com.librarysystem.core.Reservation;
+import org.com.librarysystem.enums.BookType;
+import org.com.librarysystem.enums.ReservationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queue positions (the Fenwick trees, through renumbering), branch routing
+ * and the passover guard, plan/take against poll, plus a hot-title
+ * measurement that is printed, not asserted.
+ */
+class ReservationEngineTest {
+
+    private static final Book BOOK = new Book("isbn-hot", "Hot Title", "Author", 2024, BookType.REGULAR);
+    private static final Branch NEAR = new Branch("br-near", "Near");
+    private static final Branch FAR = new Branch("br-far", "Far");
+
+    // A copy at NEAR: its own branch is 0 away, FAR is 5
+    private static final ToIntFunction<String> COPY_AT_NEAR = branchId -> branchId.equals(NEAR.getBranchId()) ? 0 : 5;
+
+    private int nextId;
+
+    private Reservation hold(Branch pickup) {
+        int n = nextId++;
+        Patron patron = new Patron("p-" + (n % 50), "Patron " + n, "p" + n + "@example.org");
+        Reservation reservation = new Reservation("r-" + n, patron, BOOK, ReservationStatus.PENDING, LocalDate.now());
+        reservation.setPickupBranch(pickup);
+        return reservation;
+    }
+
+    @Test
+    void positionsMatchAQueueModelThroughCancelsPollsAndRenumbering() {
+        ReservationEngine engine = new ReservationEngine();
+        Branch[] branches = {NEAR, FAR, null};
+        Map<String, List<String>> model = new HashMap<>(); // Key: branch ID ("" = any), Value: IDs in line
+        Random random = new Random(18);
+
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6 || engine.size() == 0) {
+                Reservation reservation = hold(branches[random.nextInt(branches.length)]);
+                engine.add(reservation);
+                model.computeIfAbsent(branchKey(reservation), k -> new ArrayList<>()).add(reservation.getReservationId());
+            } else if (op < 9) {
+                List<String> queue = randomQueue(model, random);
+                String id = queue.remove(random.nextInt(queue.size()));
+                assertEquals(id, engine.cancel(id).getReservationId());
+                assertNull(engine.cancel(id));
+            } else {
+                // Every branch at distance 0: the oldest head wins, as in a single FIFO
+                Reservation polled = engine.poll(BOOK.getIsbn());
+                List<String> queue = model.get(branchKey(polled));
+                assertEquals(queue.get(0), polled.getReservationId());
+                queue.remove(0);
+            }
+            if (step % 997 == 0) {
+                assertPositions(engine, model);
+            }
+        }
+        assertPositions(engine, model);
+    }
+
+    @Test
+    void positionsSurviveTheTreeBeingRenumberedWithoutGrowing() {
+        ReservationEngine engine = new ReservationEngine();
+        List<String> waiting = new ArrayList<>();
+        // Keep about ten holds waiting while thousands pass through: sequence numbers run out many times
+        for (int i = 0; i < 5_000; i++) {
+            Reservation reservation = hold(NEAR);
+            engine.add(reservation);
+            waiting.add(reservation.getReservationId());
+            if (waiting.size() > 10) {
+                String id = waiting.remove(i % 2 == 0 ? 0 : waiting.size() / 2);
+                engine.cancel(id);
+            }
+        }
+        for (int i = 0; i < waiting.size(); i++) {
+            assertEquals(i + 1, engine.getPosition(waiting.get(i)));
+        }
+    }
+
+    @Test
+    void nearestPickupBranchWinsAndEqualDistancesGoInArrivalOrder() {
+        ReservationEngine engine = new ReservationEngine();
+        Reservation far = hold(FAR);
+        Reservation near1 = hold(NEAR);
+        Reservation near2 = hold(NEAR);
+        Reservation any = hold(null);
+        for (Reservation reservation : List.of(far, near1, near2, any)) {
+            engine.add(reservation);
+        }
+
+        // Any-branch holds count as distance 0, so they compete with NEAR on arrival order
+        assertSame(near1, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertSame(near2, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertSame(any, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertSame(far, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertNull(engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertEquals(0, engine.getQueueLength(BOOK.getIsbn()));
+    }
+
+    @Test
+    void oldestHoldIsPassedOverAtMostMaxPassoversTimes() {
+        ReservationEngine engine = new ReservationEngine();
+        Reservation far = hold(FAR);
+        engine.add(far);
+        List<Reservation> near = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            near.add(hold(NEAR));
+            engine.add(near.get(i));
+        }
+
+        for (int i = 0; i < TitleHolds.MAX_PASSOVERS; i++) {
+            assertSame(near.get(i), engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+            assertEquals(i + 1, engine.getPassovers(far.getReservationId()));
+        }
+        // Passed over often enough: the far hold gets the next copy despite the transfer
+        assertSame(far, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertEquals(0, engine.getPassovers(far.getReservationId()));
+
+        // The guard follows the new oldest hold, which was never passed over (it is nearest)
+        assertSame(near.get(3), engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertEquals(0, engine.getPassovers(near.get(4).getReservationId()));
+    }
+
+    @Test
+    void restoredPassoversCountTowardsTheGuard() {
+        ReservationEngine engine = new ReservationEngine();
+        Reservation far = hold(FAR);
+        engine.add(far, TitleHolds.MAX_PASSOVERS - 1);
+        Reservation near = hold(NEAR);
+        Reservation nearLater = hold(NEAR);
+        engine.add(near);
+        engine.add(nearLater);
+
+        assertSame(near, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+        assertSame(far, engine.poll(BOOK.getIsbn(), COPY_AT_NEAR));
+    }
+
+    @Test
+    void planMatchesPollingOneCopyAfterAnotherAndChangesNothing() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 200; trial++) {
+            ReservationEngine planned = new ReservationEngine();
+            ReservationEngine polled = new ReservationEngine();
+            nextId = 0;
+            int holds = 1 + random.nextInt(12);
+            for (int i = 0; i < holds; i++) {
+                Branch pickup = random.nextInt(3) == 0 ? FAR : random.nextBoolean() ? NEAR : null;
+                Reservation reservation = hold(pickup);
+                int passovers = random.nextInt(TitleHolds.MAX_PASSOVERS);
+                planned.add(reservation, passovers);
+                polled.add(reservation, passovers);
+            }
+            List<ToIntFunction<String>> copies = new ArrayList<>();
+            for (int i = 0, n = 1 + random.nextInt(holds + 2); i < n; i++) {
+                copies.add(random.nextBoolean() ? COPY_AT_NEAR : branchId -> branchId.equals(FAR.getBranchId()) ? 0 : 5);
+            }
+
+            List<String> before = snapshot(planned);
+            List<Reservation> plan = planned.plan(BOOK.getIsbn(), copies);
+            assertEquals(before, snapshot(planned), "plan must not change the queues");
+
+            for (int i = 0; i < copies.size(); i++) {
+                Reservation expected = polled.poll(BOOK.getIsbn(), copies.get(i));
+                assertSame(expected, plan.get(i), "trial " + trial + ", copy " + i);
+                if (expected != null) {
+                    assertSame(expected, planned.take(expected.getReservationId()));
+                }
+            }
+            assertEquals(snapshot(polled), snapshot(planned), "take must leave what poll leaves");
+        }
+    }
+
+    @Test
+    void takeRejectsAHoldThatIsNotNextInLine() {
+        ReservationEngine engine = new ReservationEngine();
+        Reservation first = hold(NEAR);
+        Reservation second = hold(NEAR);
+        engine.add(first);
+        engine.add(second);
+
+        assertThrows(IllegalStateException.class, () -> engine.take(second.getReservationId()));
+        assertEquals(2, engine.getPosition(second.getReservationId()));
+        assertNull(engine.take("r-unknown"));
+        assertSame(first, engine.take(first.getReservationId()));
+        assertNull(engine.take(first.getReservationId()));
+    }
+
+    @Test
+    void cancelClearsThePatronIndexAndDropsTheEmptiedTitle() {
+        ReservationEngine engine = new ReservationEngine();
+        Reservation reservation = hold(NEAR);
+        engine.add(reservation);
+        String patronId = reservation.getPatron().getPatronId();
+        assertEquals(List.of(reservation), engine.getByPatron(patronId));
+
+        assertSame(reservation, engine.cancel(reservation.getReservationId()));
+        assertTrue(engine.getByPatron(patronId).isEmpty());
+        assertEquals(-1, engine.getPosition(reservation.getReservationId()));
+        assertEquals(0, engine.getQueueLength(BOOK.getIsbn()));
+        assertEquals(List.of(), engine.plan(BOOK.getIsbn(), List.of()));
+        assertEquals(Arrays.asList((Reservation) null), engine.plan(BOOK.getIsbn(), List.of(COPY_AT_NEAR)));
+    }
+
+    @Test
+    void hotTitleCancelAndPositionCost() {
+        for (int holds : new int[]{1_000, 10_000, 100_000}) {
+            int ops = Math.max(1_000, 1_000_000 / holds);
+
+            ReservationEngine engine = new ReservationEngine();
+            Queue<Reservation> queue = new ConcurrentLinkedQueue<>(); // What ReservationService kept per title before
+            List<Reservation> all = new ArrayList<>(holds);
+            for (int i = 0; i < holds; i++) {
+                Reservation reservation = hold(NEAR);
+                engine.add(reservation);
+                queue.add(reservation);
+                all.add(reservation);
+            }
+            Random random = new Random(holds);
+
+            long[] position = new long[ops];
+            long[] listPosition = new long[ops];
+            long[] cancel = new long[ops];
+            long[] listCancel = new long[ops];
+            for (int i = -ops; i < ops; i++) { // The first half warms up
+                Reservation target = all.get(random.nextInt(all.size()));
+
+                long start = System.nanoTime();
+                int engineAt = engine.getPosition(target.getReservationId());
+                long positionNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                int listAt = positionIn(queue, target);
+                long listPositionNanos = System.nanoTime() - start;
+                assertEquals(listAt, engineAt);
+
+                // Cancel and re-queue at the back, so the queue length stays the same
+                start = System.nanoTime();
+                engine.cancel(target.getReservationId());
+                long cancelNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                queue.remove(target);
+                long listCancelNanos = System.nanoTime() - start;
+                engine.add(target);
+                queue.add(target);
+
+                if (i >= 0) {
+                    position[i] = positionNanos;
+                    listPosition[i] = listPositionNanos;
+                    cancel[i] = cancelNanos;
+                    listCancel[i] = listCancelNanos;
+                }
+            }
+            System.out.printf("ReservationEngineTest: %,7d holds on one title: position p50 %,5d ns (queue walk %,9d ns), "
+                            + "cancel p50 %,5d ns (queue remove %,9d ns)%n",
+                    holds, median(position), median(listPosition), median(cancel), median(listCancel));
+        }
+    }
+
+    // --- Helpers ---
+
+    private static String branchKey(Reservation reservation) {
+        return reservation.getPickupBranch() != null ? reservation.getPickupBranch().getBranchId() : TitleHolds.ANY_BRANCH;
+    }
+
+    private static List<String> randomQueue(Map<String, List<String>> model, Random random) {
+        List<List<String>> nonEmpty = new ArrayList<>();
+        for (List<String> queue : model.values()) {
+            if (!queue.isEmpty()) {
+                nonEmpty.add(queue);
+            }
+        }
+        return nonEmpty.get(random.nextInt(nonEmpty.size()));
+    }
+
+    private static void assertPositions(ReservationEngine engine, Map<String, List<String>> model) {
+        int total = 0;
+        for (List<String> queue : model.values()) {
+            for (int i = 0; i < queue.size(); i++) {
+                assertEquals(i + 1, engine.getPosition(queue.get(i)), queue.get(i));
+            }
+            total += queue.size();
+        }
+        assertEquals(total, engine.size());
+        assertEquals(total, engine.getQueueLength(BOOK.getIsbn()));
+    }
+
+    // Every waiting hold with its position and passovers
+    private static List<String> snapshot(ReservationEngine engine) {
+        List<String> state = new ArrayList<>();
+        for (Reservation reservation : engine.getAllWaiting()) {
+            String id = reservation.getReservationId();
+            state.add(id + "@" + engine.getPosition(id) + "/" + engine.getPassovers(id));
+        }
+        return state;
+    }
+
+    private static int positionIn(Queue<Reservation> queue, Reservation target) {
+        int position = 1;
+        for (Iterator<Reservation> it = queue.iterator(); it.hasNext(); position++) {
+            if (it.next() == target) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}